@@ -0,0 +1,46 @@
+package org.code.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.code.media.util.AudioUtils;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures blending a one second sound into an existing track, which happens every time a Theater
+ * project plays a sound or note. The cost grows with the length of the existing track.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioUtilsBenchmark {
+  @Param({"10", "60"})
+  public int trackSeconds;
+
+  private double[] track;
+  private double[] sound;
+  private int offset;
+
+  @Setup
+  public void setUp() {
+    final int sampleRate = AudioUtils.getDefaultSampleRate();
+    this.track = createSineWave(this.trackSeconds * sampleRate, 220);
+    this.sound = createSineWave(sampleRate, 440);
+    // Blend into the middle of the track, as a sound played partway through a project would be.
+    this.offset = this.track.length / 2;
+  }
+
+  @Benchmark
+  public double[] blendSamples() {
+    return AudioUtils.blendSamples(this.track, this.sound, this.offset);
+  }
+
+  private static double[] createSineWave(int length, double frequency) {
+    final double[] samples = new double[length];
+    for (int i = 0; i < length; i++) {
+      samples[i] = 0.5 * Math.sin(2 * Math.PI * frequency * i / AudioUtils.getDefaultSampleRate());
+    }
+    return samples;
+  }
+}
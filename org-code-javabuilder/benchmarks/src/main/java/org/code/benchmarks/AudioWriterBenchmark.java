@@ -0,0 +1,48 @@
+package org.code.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.code.media.support.AudioWriter;
+import org.code.media.util.AudioUtils;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures writing a song with AudioWriter, as a Theater project that calls playNote in a loop
+ * does: each half second note overlaps the previous one by a quarter of a second, and the finished
+ * track is written as a WAV file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioWriterBenchmark {
+  private static final double NOTE_SECONDS = 0.5;
+  private static final double DELAY_SECONDS = 0.25;
+
+  @Param({"100", "400"})
+  public int notes;
+
+  private double[] note;
+
+  @Setup
+  public void setUp() {
+    final int length = (int) (NOTE_SECONDS * AudioUtils.getDefaultSampleRate());
+    this.note = new double[length];
+    for (int i = 0; i < length; i++) {
+      this.note[i] = 0.5 * Math.sin(2 * Math.PI * 440 * i / AudioUtils.getDefaultSampleRate());
+    }
+  }
+
+  @Benchmark
+  public byte[] writeSong() {
+    final AudioWriter writer = new AudioWriter.Factory().createAudioWriter();
+    for (int i = 0; i < this.notes; i++) {
+      writer.writeAudioSamples(this.note);
+      writer.addDelay(DELAY_SECONDS);
+    }
+    final byte[] wavFile = writer.writeToWavFile();
+    writer.close();
+    return wavFile;
+  }
+}
@@ -0,0 +1,80 @@
+package org.code.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.code.benchmarks.support.LegacyClientMessageFormat;
+import org.code.javabuilder.SystemOutMessage;
+import org.code.protocol.ClientMessage;
+import org.code.protocol.ClientMessageDetailKeys;
+import org.code.protocol.ClientMessageEncoder;
+import org.code.protocol.StatusMessage;
+import org.code.protocol.StatusMessageKey;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures formatting client messages as JSON. Every message sent to the client is formatted, so
+ * this runs once per line a student program prints. The encode benchmarks produce the bytes that
+ * are sent to the client, with ClientMessageEncoder and with the previous JSONObject-based
+ * formatting.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClientMessageBenchmark {
+  @Param({"16", "1024"})
+  public int valueLength;
+
+  private ClientMessage systemOutMessage;
+  private ClientMessage statusMessageWithDetail;
+  private ClientMessageEncoder encoder;
+
+  @Setup
+  public void setUp() {
+    final StringBuilder value = new StringBuilder();
+    for (int i = 0; i < this.valueLength; i++) {
+      // Include characters that need escaping in JSON
+      value.append(i % 32 == 31 ? '\n' : i % 32 == 30 ? '"' : (char) ('a' + i % 26));
+    }
+    this.systemOutMessage = new SystemOutMessage(value.toString());
+
+    final HashMap<String, String> detail = new HashMap<>();
+    detail.put(ClientMessageDetailKeys.PROGRESS_TIME, "12");
+    detail.put(ClientMessageDetailKeys.TOTAL_TIME, "30");
+    this.statusMessageWithDetail = new StatusMessage(StatusMessageKey.GENERATING_PROGRESS, detail);
+    this.encoder = new ClientMessageEncoder();
+  }
+
+  @Benchmark
+  public String formatSystemOut() {
+    return this.systemOutMessage.getFormattedMessage();
+  }
+
+  @Benchmark
+  public String formatStatusWithDetail() {
+    return this.statusMessageWithDetail.getFormattedMessage();
+  }
+
+  @Benchmark
+  public ByteBuffer encodeSystemOut() {
+    return this.encoder.encode(this.systemOutMessage);
+  }
+
+  @Benchmark
+  public byte[] encodeSystemOutLegacy() {
+    return LegacyClientMessageFormat.encode(this.systemOutMessage);
+  }
+
+  @Benchmark
+  public ByteBuffer encodeStatusWithDetail() {
+    return this.encoder.encode(this.statusMessageWithDetail);
+  }
+
+  @Benchmark
+  public byte[] encodeStatusWithDetailLegacy() {
+    return LegacyClientMessageFormat.encode(this.statusMessageWithDetail);
+  }
+}
@@ -0,0 +1,71 @@
+package org.code.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures a cold boot of a local JVM: starting a new JVM and running the projects in {@code
+ * CdsTrainingRun} (compile only, console input, tests, neighborhood and theater), with and without
+ * a Class Data Sharing archive of the same classes. {@code default} uses the JDK's own archive,
+ * which is what the JVM does when no archive is given.
+ *
+ * <p>An archive only works with the JVM that created it, so this uses the archive built for the
+ * local JVM by {@code ./gradlew :lib:cdsLocalArchive}, not the one built for Lambda. The results
+ * show how much the archived classes save on this machine; they are not Lambda cold boot times,
+ * which are published as ColdBootTime. The archive is read from the {@code cdsArchive} system
+ * property, which defaults to the one in lib's build folder.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColdBootBenchmark {
+  private static final String DEFAULT_ARCHIVE = "../lib/build/cds/local/javabuilder.jsa";
+
+  @Param({"default", "javabuilder"})
+  public String archive;
+
+  private List<String> command;
+
+  @Setup
+  public void setUp() {
+    this.command = new ArrayList<>();
+    this.command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    this.command.add("-Djava.awt.headless=true");
+    if (this.archive.equals("javabuilder")) {
+      final File archiveFile = new File(System.getProperty("cdsArchive", DEFAULT_ARCHIVE));
+      if (!archiveFile.exists()) {
+        throw new IllegalStateException(
+            archiveFile.getAbsolutePath()
+                + " not found. Run ./gradlew :lib:cdsLocalArchive first.");
+      }
+      // -Xshare:on fails instead of silently falling back if the archive cannot be used.
+      this.command.add("-Xshare:on");
+      this.command.add("-XX:SharedArchiveFile=" + archiveFile.getAbsolutePath());
+    }
+    this.command.add("-cp");
+    this.command.add(System.getProperty("java.class.path"));
+    this.command.add("dev.javabuilder.CdsTrainingRun");
+  }
+
+  @Benchmark
+  public int coldBoot() throws IOException, InterruptedException {
+    final Process process =
+        new ProcessBuilder(this.command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+    final int exitCode = process.waitFor();
+    if (exitCode != 0) {
+      throw new IllegalStateException("Training run exited with status " + exitCode);
+    }
+    return exitCode;
+  }
+}
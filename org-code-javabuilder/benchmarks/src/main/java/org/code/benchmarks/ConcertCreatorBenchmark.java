@@ -0,0 +1,73 @@
+package org.code.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.code.benchmarks.support.BenchmarkContext;
+import org.code.media.Color;
+import org.code.media.util.AudioUtils;
+import org.code.theater.Instrument;
+import org.code.theater.support.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures generating a full Theater concert (GIF and WAV) from a list of scene actions. The
+ * generated files are handed to a stub content manager instead of being uploaded. publishSong plays
+ * piano notes from the instrument samples rather than generated sounds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConcertCreatorBenchmark {
+  private static final double PAUSE_SECONDS = 0.5;
+
+  @Param({"10"})
+  public int sceneCount;
+
+  private static final int SONG_NOTES = 24;
+
+  private List<SceneAction> actions;
+  private List<SceneAction> songActions;
+
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    BenchmarkContext.create(blackhole);
+
+    final double[] sound = new double[(int) (PAUSE_SECONDS * AudioUtils.getDefaultSampleRate())];
+    for (int i = 0; i < sound.length; i++) {
+      sound[i] = 0.5 * Math.sin(2 * Math.PI * 440 * i / AudioUtils.getDefaultSampleRate());
+    }
+
+    this.actions = new ArrayList<>();
+    for (int i = 0; i < this.sceneCount; i++) {
+      this.actions.add(new ClearSceneAction(Color.WHITE));
+      this.actions.add(new DrawRectangleAction(i * 10, 50, 100, 100, Color.BLACK, Color.BLUE, 2.0));
+      this.actions.add(new DrawEllipseAction(200, i * 10, 120, 80, Color.BLACK, Color.ORANGE, 2.0));
+      this.actions.add(new PlaySoundAction(sound));
+      this.actions.add(new PauseAction(PAUSE_SECONDS));
+    }
+
+    this.songActions = new ArrayList<>();
+    for (int i = 0; i < SONG_NOTES; i++) {
+      this.songActions.add(new PlayNoteAction(Instrument.PIANO, 48 + i, PAUSE_SECONDS));
+    }
+  }
+
+  @Benchmark
+  public void publishConcert() {
+    try (ConcertCreator concertCreator = new ConcertCreator()) {
+      concertCreator.publishConcert(this.actions);
+    }
+  }
+
+  @Benchmark
+  public void publishSong() {
+    try (ConcertCreator concertCreator = new ConcertCreator()) {
+      concertCreator.publishConcert(this.songActions);
+    }
+  }
+}
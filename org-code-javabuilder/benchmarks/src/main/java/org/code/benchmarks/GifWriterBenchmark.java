@@ -0,0 +1,103 @@
+package org.code.benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.code.theater.support.GifWriter;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures encoding a Theater GIF: each invocation writes a sequence of 400x400 frames to a new
+ * GifWriter and closes it, as ConcertCreator does for a project with that many pauses. Frames are
+ * either a few shapes, with only a few colors, a smooth gradient with too many colors for a GIF
+ * palette, like a photo, or a small sprite moving over a gradient background that does not change.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GifWriterBenchmark {
+  private static final int SIZE = 400;
+  private static final int FRAME_DELAY_MS = 100;
+
+  @Param({"10"})
+  public int frameCount;
+
+  @Param({"shapes", "gradient", "sprite"})
+  public String content;
+
+  private BufferedImage[] frames;
+  private GifWriter.Factory gifWriterFactory;
+
+  @Setup
+  public void setUp() {
+    this.gifWriterFactory = new GifWriter.Factory();
+    this.frames = new BufferedImage[this.frameCount];
+    for (int i = 0; i < this.frameCount; i++) {
+      switch (this.content) {
+        case "shapes":
+          this.frames[i] = createFrame(i);
+          break;
+        case "gradient":
+          this.frames[i] = createGradientFrame(i);
+          break;
+        default:
+          this.frames[i] = createSpriteFrame(i);
+      }
+    }
+  }
+
+  @Benchmark
+  public byte[] writeToGif() {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final GifWriter gifWriter = this.gifWriterFactory.createGifWriter(out);
+    for (BufferedImage frame : this.frames) {
+      gifWriter.writeToGif(frame, FRAME_DELAY_MS);
+    }
+    gifWriter.close();
+    return out.toByteArray();
+  }
+
+  /** Creates a frame with a few moving shapes on a white background. */
+  private static BufferedImage createFrame(int index) {
+    final BufferedImage frame = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+    final Graphics2D graphics = frame.createGraphics();
+    graphics.setColor(java.awt.Color.WHITE);
+    graphics.fillRect(0, 0, SIZE, SIZE);
+    graphics.setColor(java.awt.Color.BLUE);
+    graphics.fillRect(index * 10, 50, 100, 100);
+    graphics.setColor(java.awt.Color.ORANGE);
+    graphics.fillOval(200, index * 10, 120, 80);
+    graphics.setColor(java.awt.Color.BLACK);
+    graphics.drawLine(0, SIZE - index * 10, SIZE, index * 10);
+    graphics.dispose();
+    return frame;
+  }
+
+  /** Creates a frame of a gradient that shifts with the frame index. */
+  private static BufferedImage createGradientFrame(int index) {
+    final BufferedImage frame = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < SIZE; y++) {
+      for (int x = 0; x < SIZE; x++) {
+        final int red = (x + index * 10) * 255 / (SIZE + 100);
+        final int green = y * 255 / SIZE;
+        final int blue = (x + y) * 255 / (2 * SIZE);
+        frame.setRGB(x, y, red << 16 | green << 8 | blue);
+      }
+    }
+    return frame;
+  }
+
+  /** Creates a frame of a small square moving over a gradient that stays the same. */
+  private static BufferedImage createSpriteFrame(int index) {
+    final BufferedImage frame = createGradientFrame(0);
+    final Graphics2D graphics = frame.createGraphics();
+    graphics.setColor(java.awt.Color.RED);
+    graphics.fillRect(50 + index * 10, 200, 40, 40);
+    graphics.dispose();
+    return frame;
+  }
+}
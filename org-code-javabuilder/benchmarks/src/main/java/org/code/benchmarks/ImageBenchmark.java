@@ -0,0 +1,71 @@
+package org.code.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.code.media.Color;
+import org.code.media.Image;
+import org.code.media.Pixel;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the pixel operations used by Theater and pixel manipulation projects on a full size
+ * (400x400) image: reading and changing every pixel, as a student's filter loop does, copying the
+ * image, which Theater does every time an image is drawn, and converting the image to a
+ * BufferedImage, which happens when the drawing is rendered.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ImageBenchmark {
+  private static final int SIZE = 400;
+
+  private Image image;
+
+  @Setup
+  public void setUp() {
+    this.image = new Image(SIZE, SIZE);
+    for (int x = 0; x < SIZE; x++) {
+      for (int y = 0; y < SIZE; y++) {
+        this.image.setPixel(x, y, new Color(x % 256, y % 256, (x + y) % 256));
+      }
+    }
+  }
+
+  @Benchmark
+  public int getPixel() {
+    int total = 0;
+    for (int x = 0; x < SIZE; x++) {
+      for (int y = 0; y < SIZE; y++) {
+        final Pixel pixel = this.image.getPixel(x, y);
+        total += pixel.getRed() + pixel.getGreen() + pixel.getBlue();
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  public BufferedImage getBufferedImage() {
+    return this.image.getBufferedImage();
+  }
+
+  @Benchmark
+  public Image filterPixels() {
+    for (int x = 0; x < SIZE; x++) {
+      for (int y = 0; y < SIZE; y++) {
+        final Pixel pixel = this.image.getPixel(x, y);
+        pixel.setRed(255 - pixel.getRed());
+      }
+    }
+    return this.image;
+  }
+
+  @Benchmark
+  public BufferedImage copyAndChangeImage() {
+    final Image copy = new Image(this.image);
+    copy.setPixel(0, 0, Color.RED);
+    return copy.getBufferedImage();
+  }
+}
@@ -0,0 +1,50 @@
+package org.code.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.code.benchmarks.support.StubInputAdapter;
+import org.code.protocol.InputHandler;
+import org.code.protocol.InputMessageType;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures reading client messages through InputHandler, which parses each message and sorts it
+ * into a queue for its type.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InputHandlerBenchmark {
+  private static final String SYSTEM_IN_MESSAGE =
+      "{\"messageType\": \"SYSTEM_IN\", \"message\": \"hello world\\n\"}";
+  private static final String THEATER_MESSAGE =
+      "{\"messageType\": \"THEATER\", \"message\": \"play\"}";
+
+  private InputHandler singleTypeInputHandler;
+  private InputHandler mixedTypeInputHandler;
+
+  @Setup
+  public void setUp() {
+    this.singleTypeInputHandler = new InputHandler(new StubInputAdapter(SYSTEM_IN_MESSAGE));
+    this.mixedTypeInputHandler =
+        new InputHandler(new StubInputAdapter(SYSTEM_IN_MESSAGE, THEATER_MESSAGE));
+  }
+
+  /** Every message from the client is the type being waited for. */
+  @Benchmark
+  public String singleType() {
+    return this.singleTypeInputHandler.getNextMessageForType(InputMessageType.SYSTEM_IN);
+  }
+
+  /**
+   * Messages of two types arrive interleaved. Waiting for a THEATER message queues the SYSTEM_IN
+   * message before it, which the next call then takes from the queue.
+   */
+  @Benchmark
+  public String mixedTypes() {
+    this.mixedTypeInputHandler.getNextMessageForType(InputMessageType.THEATER);
+    return this.mixedTypeInputHandler.getNextMessageForType(InputMessageType.SYSTEM_IN);
+  }
+}
@@ -0,0 +1,64 @@
+package org.code.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.code.benchmarks.support.LegacyOutputRedirectionStream;
+import org.code.benchmarks.support.NoOpOutputAdapter;
+import org.code.javabuilder.OutputRedirectionStream;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the current OutputRedirectionStream against the previous StringBuilder-based version.
+ * Each invocation writes one line and flushes it, which is what a student's System.out.println
+ * does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OutputRedirectionStreamBenchmark {
+  @Param({"Hello world!", "The quick brown fox jumps over the lazy dog 0123456789 times."})
+  public String line;
+
+  private byte[] lineBytes;
+  private OutputStream current;
+  private OutputStream legacy;
+  private PrintStream currentPrintStream;
+  private PrintStream legacyPrintStream;
+
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    this.lineBytes = (this.line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    this.current = new OutputRedirectionStream(new NoOpOutputAdapter(blackhole));
+    this.legacy = new LegacyOutputRedirectionStream(new NoOpOutputAdapter(blackhole));
+    this.currentPrintStream = new PrintStream(this.current, true, StandardCharsets.UTF_8);
+    this.legacyPrintStream = new PrintStream(this.legacy, true, StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public void currentWriteAndFlush() throws Exception {
+    this.current.write(this.lineBytes, 0, this.lineBytes.length);
+    this.current.flush();
+  }
+
+  @Benchmark
+  public void legacyWriteAndFlush() throws Exception {
+    this.legacy.write(this.lineBytes, 0, this.lineBytes.length);
+    this.legacy.flush();
+  }
+
+  @Benchmark
+  public void currentPrintln() {
+    this.currentPrintStream.println(this.line);
+  }
+
+  @Benchmark
+  public void legacyPrintln() {
+    this.legacyPrintStream.println(this.line);
+  }
+}
@@ -0,0 +1,82 @@
+package org.code.benchmarks;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.code.benchmarks.support.BenchmarkContext;
+import org.code.benchmarks.support.NoOpOutputAdapter;
+import org.code.benchmarks.support.SamplePrograms;
+import org.code.javabuilder.JavaProjectFile;
+import org.code.javabuilder.RunPermissionLevel;
+import org.code.javabuilder.UserClassLoader;
+import org.code.javabuilder.UserCodeCompiler;
+import org.code.javabuilder.util.JarUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures UserClassLoader.loadClass for the kinds of classes a student program loads: its own
+ * classes, individually allowed classes, classes from allowed packages and classes from the api
+ * jars. Allow-list decisions and classes from the shared parent class loader are cached for the
+ * container, so {@code loadClassWithNewLoader} only pays to resolve user and api jar classes again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserClassLoaderBenchmark {
+  @Param({"Main", "java.lang.String", "java.util.ArrayList", "org.code.theater.Theater"})
+  public String className;
+
+  private Map<String, byte[]> compiledClasses;
+  private List<String> userClassNames;
+  private URL[] classLoaderUrls;
+  private UserClassLoader classLoader;
+
+  @Setup
+  public void setUp(Blackhole blackhole) throws Exception {
+    BenchmarkContext.create(blackhole);
+    final List<JavaProjectFile> javaFiles = SamplePrograms.get(SamplePrograms.MULTI_FILE);
+    this.compiledClasses =
+        new UserCodeCompiler(javaFiles, new NoOpOutputAdapter(blackhole)).compileProgram();
+
+    this.userClassNames = List.of("Main", "Shape", "Square", "Circle");
+    this.classLoaderUrls = JarUtils.getAllJarURLs();
+    this.classLoader = this.createClassLoader();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    this.classLoader.close();
+  }
+
+  /** Loads a class that has already been loaded by this class loader. */
+  @Benchmark
+  public Class<?> loadClass() throws ClassNotFoundException {
+    return this.classLoader.loadClass(this.className);
+  }
+
+  /**
+   * Loads a class with a new class loader, which is what happens on every run. Student classes are
+   * defined from their compiled bytecode each time.
+   */
+  @Benchmark
+  public Class<?> loadClassWithNewLoader() throws Exception {
+    try (UserClassLoader newClassLoader = this.createClassLoader()) {
+      return newClassLoader.loadClass(this.className);
+    }
+  }
+
+  private UserClassLoader createClassLoader() {
+    return new UserClassLoader(
+        this.compiledClasses,
+        this.classLoaderUrls,
+        UserClassLoaderBenchmark.class.getClassLoader(),
+        this.userClassNames,
+        RunPermissionLevel.USER);
+  }
+}
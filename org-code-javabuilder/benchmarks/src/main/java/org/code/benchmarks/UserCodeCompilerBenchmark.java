@@ -0,0 +1,64 @@
+package org.code.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.code.benchmarks.support.BenchmarkContext;
+import org.code.benchmarks.support.NoOpOutputAdapter;
+import org.code.benchmarks.support.SamplePrograms;
+import org.code.javabuilder.JavaProjectFile;
+import org.code.javabuilder.UserCodeCompiler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures compiling a student project from in-memory sources, including setting up the compiler
+ * and reporting diagnostics. {@code compileProgram} changes the project before every compile so the
+ * result is never in the compilation cache, while {@code compileProgramCached} compiles the same
+ * project every time, as when a student runs their code again without changing it. {@code
+ * compileProgramIncrementally} changes the project like {@code compileProgram}, but compiles it
+ * incrementally as COMPILE_ONLY runs do, so only the changed main file is recompiled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UserCodeCompilerBenchmark {
+  @Param({SamplePrograms.HELLO_WORLD, SamplePrograms.MULTI_FILE})
+  public String program;
+
+  private List<JavaProjectFile> javaFiles;
+  private NoOpOutputAdapter outputAdapter;
+  private String mainFileContents;
+  private int edits;
+
+  @Setup
+  public void setUp(Blackhole blackhole) throws Exception {
+    BenchmarkContext.create(blackhole);
+    this.javaFiles = SamplePrograms.get(this.program);
+    this.outputAdapter = new NoOpOutputAdapter(blackhole);
+    this.mainFileContents = this.javaFiles.get(0).getFileContents();
+    this.edits = 0;
+  }
+
+  @Benchmark
+  public Map<String, byte[]> compileProgram() throws Exception {
+    this.edits++;
+    this.javaFiles.get(0).setFileContents(this.mainFileContents + "// edit " + this.edits + "\n");
+    return new UserCodeCompiler(this.javaFiles, this.outputAdapter).compileProgram();
+  }
+
+  @Benchmark
+  public Map<String, byte[]> compileProgramIncrementally() throws Exception {
+    this.edits++;
+    this.javaFiles.get(0).setFileContents(this.mainFileContents + "// edit " + this.edits + "\n");
+    return new UserCodeCompiler(this.javaFiles, this.outputAdapter, this.program).compileProgram();
+  }
+
+  @Benchmark
+  public Map<String, byte[]> compileProgramCached() throws Exception {
+    return new UserCodeCompiler(this.javaFiles, this.outputAdapter).compileProgram();
+  }
+}
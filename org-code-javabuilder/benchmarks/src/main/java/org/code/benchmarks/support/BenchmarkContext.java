@@ -0,0 +1,39 @@
+package org.code.benchmarks.support;
+
+import org.code.javabuilder.CachedCompiler;
+import org.code.javabuilder.CompilationCache;
+import org.code.javabuilder.PerformanceTracker;
+import org.code.protocol.CachedResources;
+import org.code.protocol.GlobalProtocol;
+import org.code.protocol.InputHandler;
+import org.code.protocol.JavabuilderContext;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Sets up the shared objects that LambdaRequestHandler and WebSocketServer would normally create,
+ * using stub adapters in place of AWS and the WebSocket connection.
+ */
+public final class BenchmarkContext {
+  private BenchmarkContext() {
+    throw new UnsupportedOperationException("Instantiation of utility class is not allowed.");
+  }
+
+  /**
+   * Resets the JavabuilderContext and registers a GlobalProtocol backed by stub adapters, as well
+   * as a PerformanceTracker.
+   */
+  public static void create(Blackhole blackhole) {
+    CachedResources.create();
+    CachedCompiler.create();
+    CompilationCache.create();
+    JavabuilderContext.getInstance().destroyAndReset();
+    JavabuilderContext.getInstance()
+        .register(
+            GlobalProtocol.class,
+            new GlobalProtocol(
+                new NoOpOutputAdapter(blackhole),
+                new InputHandler(new StubInputAdapter()),
+                new StubContentManager(blackhole)));
+    JavabuilderContext.getInstance().register(PerformanceTracker.class, new PerformanceTracker());
+  }
+}
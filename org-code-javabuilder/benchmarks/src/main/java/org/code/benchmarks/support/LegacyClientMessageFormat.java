@@ -0,0 +1,25 @@
+package org.code.benchmarks.support;
+
+import org.code.protocol.ClientMessage;
+import org.json.JSONObject;
+
+/**
+ * The JSONObject-based formatting that ClientMessage used before ClientMessageEncoder. Kept only as
+ * a baseline for {@link org.code.benchmarks.ClientMessageBenchmark}.
+ */
+public final class LegacyClientMessageFormat {
+  private LegacyClientMessageFormat() {
+    throw new UnsupportedOperationException("Instantiation of utility class is not allowed.");
+  }
+
+  /** @return the message formatted as JSON and converted to bytes, as AWSOutputAdapter did */
+  public static byte[] encode(ClientMessage message) {
+    final JSONObject formattedMessage = new JSONObject();
+    formattedMessage.put("type", message.getType());
+    formattedMessage.put("value", message.getValue());
+    if (message.getDetail().length() > 0) {
+      formattedMessage.put("detail", message.getDetail());
+    }
+    return formattedMessage.toString().getBytes();
+  }
+}
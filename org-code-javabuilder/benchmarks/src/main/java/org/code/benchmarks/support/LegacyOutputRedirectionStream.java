@@ -0,0 +1,53 @@
+package org.code.benchmarks.support;
+
+import java.io.OutputStream;
+import org.code.javabuilder.SystemOutMessage;
+import org.code.protocol.OutputAdapter;
+
+/**
+ * The StringBuilder-based OutputRedirectionStream that was used before output was decoded as UTF-8.
+ * Kept only as a baseline for {@link org.code.benchmarks.OutputRedirectionStreamBenchmark}.
+ */
+public class LegacyOutputRedirectionStream extends OutputStream {
+  private final OutputAdapter outputAdapter;
+  private final StringBuilder buffer;
+
+  public LegacyOutputRedirectionStream(OutputAdapter outputAdapter) {
+    super();
+    this.outputAdapter = outputAdapter;
+    this.buffer = new StringBuilder();
+  }
+
+  @Override
+  public void write(int b) {
+    buffer.append((char) b);
+  }
+
+  @Override
+  public void write(byte[] b) {
+    this.write(b, 0, b.length);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    if (b == null) {
+      throw new NullPointerException();
+    }
+    if (off < 0 || len < 0 || off + len > b.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    for (int i = off; i < off + len; i++) {
+      buffer.append((char) b[i]);
+    }
+  }
+
+  @Override
+  public void flush() {
+    if (buffer.length() == 0) {
+      return;
+    }
+
+    outputAdapter.sendMessage(new SystemOutMessage(buffer.toString()));
+    buffer.delete(0, buffer.length());
+  }
+}
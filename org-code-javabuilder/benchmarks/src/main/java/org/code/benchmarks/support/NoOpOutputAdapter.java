@@ -0,0 +1,22 @@
+package org.code.benchmarks.support;
+
+import org.code.protocol.ClientMessage;
+import org.code.protocol.OutputAdapter;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Stands in for the AWS and WebSocket output adapters so benchmarks measure our own code rather
+ * than the network. Messages are passed to a Blackhole so the JIT cannot optimize them away.
+ */
+public class NoOpOutputAdapter implements OutputAdapter {
+  private final Blackhole blackhole;
+
+  public NoOpOutputAdapter(Blackhole blackhole) {
+    this.blackhole = blackhole;
+  }
+
+  @Override
+  public void sendMessage(ClientMessage message) {
+    this.blackhole.consume(message);
+  }
+}
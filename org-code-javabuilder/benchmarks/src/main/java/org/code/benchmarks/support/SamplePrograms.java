@@ -0,0 +1,105 @@
+package org.code.benchmarks.support;
+
+import java.util.List;
+import org.code.javabuilder.JavaProjectFile;
+import org.code.javabuilder.UserInitiatedException;
+
+/** Student programs used as input for the compile and class loading benchmarks. */
+public final class SamplePrograms {
+  private SamplePrograms() {
+    throw new UnsupportedOperationException("Instantiation of utility class is not allowed.");
+  }
+
+  public static final String HELLO_WORLD = "HelloWorld";
+  public static final String MULTI_FILE = "MultiFile";
+
+  private static final String HELLO_WORLD_MAIN =
+      "public class Main {\n"
+          + "  public static void main(String[] args) {\n"
+          + "    System.out.println(\"Hello world!\");\n"
+          + "  }\n"
+          + "}\n";
+
+  private static final String MULTI_FILE_MAIN =
+      "import java.util.ArrayList;\n"
+          + "import java.util.List;\n"
+          + "\n"
+          + "public class Main {\n"
+          + "  public static void main(String[] args) {\n"
+          + "    List<Shape> shapes = new ArrayList<>();\n"
+          + "    for (int i = 1; i <= 10; i++) {\n"
+          + "      shapes.add(i % 2 == 0 ? new Square(i) : new Circle(i));\n"
+          + "    }\n"
+          + "    double total = 0;\n"
+          + "    for (Shape shape : shapes) {\n"
+          + "      total += shape.getArea();\n"
+          + "      System.out.println(shape.getName() + \": \" + shape.getArea());\n"
+          + "    }\n"
+          + "    System.out.println(\"Total: \" + total);\n"
+          + "  }\n"
+          + "}\n";
+
+  private static final String MULTI_FILE_SHAPE =
+      "public abstract class Shape {\n"
+          + "  private final String name;\n"
+          + "\n"
+          + "  public Shape(String name) {\n"
+          + "    this.name = name;\n"
+          + "  }\n"
+          + "\n"
+          + "  public String getName() {\n"
+          + "    return this.name;\n"
+          + "  }\n"
+          + "\n"
+          + "  public abstract double getArea();\n"
+          + "}\n";
+
+  private static final String MULTI_FILE_SQUARE =
+      "public class Square extends Shape {\n"
+          + "  private final double side;\n"
+          + "\n"
+          + "  public Square(double side) {\n"
+          + "    super(\"Square\");\n"
+          + "    this.side = side;\n"
+          + "  }\n"
+          + "\n"
+          + "  @Override\n"
+          + "  public double getArea() {\n"
+          + "    return this.side * this.side;\n"
+          + "  }\n"
+          + "}\n";
+
+  private static final String MULTI_FILE_CIRCLE =
+      "public class Circle extends Shape {\n"
+          + "  private final double radius;\n"
+          + "\n"
+          + "  public Circle(double radius) {\n"
+          + "    super(\"Circle\");\n"
+          + "    this.radius = radius;\n"
+          + "  }\n"
+          + "\n"
+          + "  @Override\n"
+          + "  public double getArea() {\n"
+          + "    return Math.PI * this.radius * this.radius;\n"
+          + "  }\n"
+          + "}\n";
+
+  /**
+   * @param name one of {@link #HELLO_WORLD} or {@link #MULTI_FILE}
+   * @return the project files that make up the named program
+   */
+  public static List<JavaProjectFile> get(String name) throws UserInitiatedException {
+    switch (name) {
+      case HELLO_WORLD:
+        return List.of(new JavaProjectFile("Main.java", HELLO_WORLD_MAIN));
+      case MULTI_FILE:
+        return List.of(
+            new JavaProjectFile("Main.java", MULTI_FILE_MAIN),
+            new JavaProjectFile("Shape.java", MULTI_FILE_SHAPE),
+            new JavaProjectFile("Square.java", MULTI_FILE_SQUARE),
+            new JavaProjectFile("Circle.java", MULTI_FILE_CIRCLE));
+      default:
+        throw new IllegalArgumentException("Unknown sample program " + name);
+    }
+  }
+}
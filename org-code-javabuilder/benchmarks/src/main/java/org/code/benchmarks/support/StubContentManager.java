@@ -0,0 +1,37 @@
+package org.code.benchmarks.support;
+
+import org.code.protocol.ContentManager;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Stands in for the S3-backed content manager. Output files are passed to a Blackhole instead of
+ * being uploaded, and every file is reported as present.
+ */
+public class StubContentManager implements ContentManager {
+  private static final String STUB_URL = "http://localhost/benchmark";
+
+  private final Blackhole blackhole;
+
+  public StubContentManager(Blackhole blackhole) {
+    this.blackhole = blackhole;
+  }
+
+  @Override
+  public String getAssetUrl(String filename) {
+    return STUB_URL + "/" + filename;
+  }
+
+  @Override
+  public String generateAssetUploadUrl(String filename) {
+    return STUB_URL + "/" + filename;
+  }
+
+  @Override
+  public String writeToOutputFile(String filename, byte[] inputBytes, String contentType) {
+    this.blackhole.consume(inputBytes);
+    return STUB_URL + "/" + filename;
+  }
+
+  @Override
+  public void verifyAssetFilename(String filename) {}
+}
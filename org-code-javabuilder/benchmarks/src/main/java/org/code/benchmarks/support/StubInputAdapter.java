@@ -0,0 +1,28 @@
+package org.code.benchmarks.support;
+
+import org.code.protocol.InputAdapter;
+
+/**
+ * Stands in for the AWS and WebSocket input adapters. Returns the given messages in order, starting
+ * again from the first message once they have all been returned, so a benchmark never runs out of
+ * input.
+ */
+public class StubInputAdapter implements InputAdapter {
+  private final String[] messages;
+  private int nextIndex;
+
+  public StubInputAdapter(String... messages) {
+    this.messages = messages;
+    this.nextIndex = 0;
+  }
+
+  @Override
+  public String getNextMessage() {
+    if (this.messages.length == 0) {
+      throw new IllegalStateException("This benchmark does not provide any input.");
+    }
+    final String message = this.messages[this.nextIndex];
+    this.nextIndex = (this.nextIndex + 1) % this.messages.length;
+    return message;
+  }
+}
@@ -9,5 +9,11 @@ rm -f font_config.zip
 # zip font config into font_config.zip
 zip -r font_config.zip fontconfig.properties
 
-# Build a zip package that can be uploaded to AWS Lambda by CloudFormation.
-./gradlew buildZip
+# Build a zip package that can be uploaded to AWS Lambda by CloudFormation, including the Class
+# Data Sharing archive that speeds up cold boots. The archive is built inside the Lambda image, so
+# this needs Docker; set SKIP_CDS_ARCHIVE=true to build the zip without it.
+if [ "${SKIP_CDS_ARCHIVE}" = "true" ]; then
+  ./gradlew buildZip
+else
+  ./gradlew buildZip -PwithCdsArchive
+fi
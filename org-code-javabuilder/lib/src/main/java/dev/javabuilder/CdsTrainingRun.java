@@ -0,0 +1,199 @@
+package dev.javabuilder;
+
+import static org.code.protocol.LoggerNames.MAIN_LOGGER;
+
+import dev.javabuilder.util.LocalStorageUtils;
+import java.io.PrintStream;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.code.javabuilder.*;
+import org.code.protocol.*;
+import org.code.validation.support.UserTestOutputAdapter;
+import org.json.JSONObject;
+
+/**
+ * Runs a few small projects through the same code paths as a local WebSocketServer session so that
+ * the classes they load can be recorded for a Class Data Sharing archive. Covers compiling, running
+ * with console input, running tests, and the neighborhood and theater libraries. See the cdsArchive
+ * task in build.gradle.
+ */
+public final class CdsTrainingRun {
+  private static final String CONSOLE_MAIN =
+      "import java.util.Scanner;\n"
+          + "public class Main {\n"
+          + "  public static void main(String[] args) {\n"
+          + "    Scanner console = new Scanner(System.in);\n"
+          + "    System.out.println(\"Enter your name: \");\n"
+          + "    String name = console.nextLine();\n"
+          + "    System.out.println(Greeter.greet(name) + \" \" + String.format(\"%.2f\", Math.PI));\n"
+          + "  }\n"
+          + "}\n";
+  private static final String CONSOLE_GREETER =
+      "import java.util.ArrayList;\n"
+          + "import java.util.List;\n"
+          + "public class Greeter {\n"
+          + "  public static String greet(String name) {\n"
+          + "    List<String> words = new ArrayList<>();\n"
+          + "    words.add(\"Hello\");\n"
+          + "    words.add(name);\n"
+          + "    return words.get(0) + \", \" + words.get(1);\n"
+          + "  }\n"
+          + "}\n";
+  private static final String GREETER_TEST =
+      "import static org.junit.jupiter.api.Assertions.assertEquals;\n"
+          + "import org.junit.jupiter.api.Test;\n"
+          + "public class GreeterTest {\n"
+          + "  @Test\n"
+          + "  public void greetsByName() {\n"
+          + "    assertEquals(\"Hello, Ada\", Greeter.greet(\"Ada\"));\n"
+          + "  }\n"
+          + "}\n";
+  private static final String NEIGHBORHOOD_MAIN =
+      "import org.code.neighborhood.Painter;\n"
+          + "public class Main {\n"
+          + "  public static void main(String[] args) {\n"
+          + "    Painter painter = new Painter(0, 0, \"East\", 5);\n"
+          + "    painter.paint(\"red\");\n"
+          + "    painter.move();\n"
+          + "    painter.turnLeft();\n"
+          + "  }\n"
+          + "}\n";
+  private static final String NEIGHBORHOOD_GRID =
+      "[[{\"tileType\": 1, \"assetId\": 0}, {\"tileType\": 1, \"assetId\": 0}],"
+          + " [{\"tileType\": 1, \"assetId\": 0}, {\"tileType\": 1, \"assetId\": 0}]]";
+  private static final String THEATER_MAIN =
+      "import org.code.theater.Scene;\n"
+          + "import org.code.theater.Theater;\n"
+          + "public class Main {\n"
+          + "  public static void main(String[] args) {\n"
+          + "    Scene scene = new Scene();\n"
+          + "    scene.clear(\"white\");\n"
+          + "    scene.setTextColor(\"blue\");\n"
+          + "    scene.drawText(\"Hello\", 50, 50);\n"
+          + "    scene.drawRegularPolygon(200, 200, 6, 40);\n"
+          + "    scene.playNote(60, 0.1);\n"
+          + "    scene.pause(0.1);\n"
+          + "    scene.clear(\"black\");\n"
+          + "    Theater.playScenes(scene);\n"
+          + "  }\n"
+          + "}\n";
+
+  // Captured before the user program redirects System.out
+  private static final PrintStream STANDARD_OUT = System.out;
+
+  private CdsTrainingRun() {
+    throw new UnsupportedOperationException("Instantiation of utility class is not allowed.");
+  }
+
+  public static void main(String[] args) {
+    Logger.getLogger(MAIN_LOGGER).setUseParentHandlers(false);
+    CachedResources.create();
+    CachedCompiler.create();
+    CompilationCache.create();
+    LocalStorageUtils.createLocalStorageIfNeeded();
+
+    final Map<String, String> consoleSources =
+        Map.of("Main.java", CONSOLE_MAIN, "Greeter.java", CONSOLE_GREETER);
+    CdsTrainingRun.runProject(ExecutionType.COMPILE_ONLY, consoleSources, null, List.of());
+    CdsTrainingRun.runProject(
+        ExecutionType.RUN,
+        consoleSources,
+        null,
+        List.of(CdsTrainingRun.createSystemInMessage("Ada")));
+    CdsTrainingRun.runProject(
+        ExecutionType.TEST,
+        Map.of("Greeter.java", CONSOLE_GREETER, "GreeterTest.java", GREETER_TEST),
+        null,
+        List.of());
+    CdsTrainingRun.runProject(
+        ExecutionType.RUN, Map.of("Main.java", NEIGHBORHOOD_MAIN), NEIGHBORHOOD_GRID, List.of());
+    CdsTrainingRun.runProject(
+        ExecutionType.RUN, Map.of("Main.java", THEATER_MAIN), null, List.of());
+    // Output and flush threads are daemons, but the AWT toolkit may not be.
+    System.exit(0);
+  }
+
+  private static void runProject(
+      ExecutionType executionType, Map<String, String> sources, String grid, List<String> input) {
+    JavabuilderContext.getInstance().destroyAndReset();
+    final PerformanceTracker performanceTracker = new PerformanceTracker();
+    JavabuilderContext.getInstance().register(PerformanceTracker.class, performanceTracker);
+    performanceTracker.trackInstanceStart(Clock.systemUTC().instant());
+    JavabuilderContext.getInstance().register(MetricClient.class, new LocalMetricClient());
+    Properties.setConnectionId("CdsTrainingRun");
+
+    final AsyncOutputAdapter asyncOutputAdapter =
+        new AsyncOutputAdapter(
+            message -> CdsTrainingRun.STANDARD_OUT.println(message.getFormattedMessage()));
+    final BatchingOutputAdapter batchingOutputAdapter =
+        new BatchingOutputAdapter(asyncOutputAdapter);
+    OutputAdapter outputAdapter = batchingOutputAdapter;
+    if (executionType == ExecutionType.TEST) {
+      outputAdapter = new UserTestOutputAdapter(batchingOutputAdapter);
+    }
+    final Deque<String> remainingInput = new ArrayDeque<>(input);
+    final SystemExitHelper systemExitHelper =
+        status -> {
+          throw new IllegalStateException("Training run exited with status " + status);
+        };
+
+    CodeExecutionManager codeExecutionManager = null;
+    try {
+      final LocalContentManager contentManager =
+          new LocalContentManager(new ProjectData(CdsTrainingRun.createProjectJson(sources, grid)));
+      codeExecutionManager =
+          new CodeExecutionManager(
+              contentManager.getProjectFileLoader(),
+              remainingInput::poll,
+              outputAdapter,
+              executionType,
+              List.copyOf(sources.keySet()),
+              null,
+              new LocalTempDirectoryManager(),
+              contentManager,
+              systemExitHelper);
+      codeExecutionManager.execute();
+    } catch (Throwable e) {
+      new ExceptionHandler(outputAdapter, systemExitHelper).handle(e);
+    } finally {
+      if (codeExecutionManager != null) {
+        codeExecutionManager.shutDown();
+      }
+      batchingOutputAdapter.close();
+      asyncOutputAdapter.close();
+    }
+  }
+
+  /** @return an input message as the client would send it for a line typed into the console */
+  private static String createSystemInMessage(String line) {
+    return new JSONObject()
+        .put("messageType", InputMessageType.SYSTEM_IN.name())
+        .put("message", line)
+        .toString();
+  }
+
+  /**
+   * @param grid the neighborhood grid, or null if the project has none
+   * @return the sources.json contents that the local server would read for the given files
+   */
+  private static String createProjectJson(Map<String, String> sources, String grid) {
+    final JSONObject files = new JSONObject();
+    for (Map.Entry<String, String> source : sources.entrySet()) {
+      files.put(
+          source.getKey(), new JSONObject().put("text", source.getValue()).put("visible", true));
+    }
+    final JSONObject projectSources =
+        new JSONObject().put("main.json", new JSONObject().put("source", files).toString());
+    if (grid != null) {
+      projectSources.put("grid.txt", grid);
+    }
+    return new JSONObject()
+        .put("sources", projectSources)
+        .put("assetUrls", new JSONObject())
+        .toString();
+  }
+}
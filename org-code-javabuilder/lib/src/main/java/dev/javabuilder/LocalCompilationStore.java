@@ -0,0 +1,106 @@
+package dev.javabuilder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.code.javabuilder.CompilationResult;
+import org.code.javabuilder.CompilationStore;
+
+/**
+ * Saves compilation results to the local filesystem, one file per key, so that they outlive the
+ * local server. This is analogous to a shared store such as S3 in the production Javabuilder stack.
+ */
+public class LocalCompilationStore implements CompilationStore {
+  // Increment when the file format changes so that files in the old format are ignored.
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path directory;
+
+  public LocalCompilationStore(Path directory) {
+    this.directory = directory;
+  }
+
+  @Override
+  public CompilationResult load(String key) throws IOException {
+    try (DataInputStream input =
+        new DataInputStream(Files.newInputStream(this.directory.resolve(key)))) {
+      if (input.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      final boolean isSuccessful = input.readBoolean();
+      final int outputCount = input.readInt();
+      final List<String> compilerOutput = new ArrayList<>(outputCount);
+      for (int i = 0; i < outputCount; i++) {
+        compilerOutput.add(LocalCompilationStore.readString(input));
+      }
+      if (!isSuccessful) {
+        return new CompilationResult(null, compilerOutput);
+      }
+      final int classCount = input.readInt();
+      final Map<String, byte[]> compiledClasses = new HashMap<>();
+      for (int i = 0; i < classCount; i++) {
+        final String className = LocalCompilationStore.readString(input);
+        final byte[] classBytes = new byte[input.readInt()];
+        input.readFully(classBytes);
+        compiledClasses.put(className, classBytes);
+      }
+      return new CompilationResult(compiledClasses, compilerOutput);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void save(String key, CompilationResult result) throws IOException {
+    Files.createDirectories(this.directory);
+    // Write to a temporary file first so a concurrent load never sees a partially written result.
+    final Path tempFile = Files.createTempFile(this.directory, key, ".tmp");
+    try {
+      try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(tempFile))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeBoolean(result.isSuccessful());
+        output.writeInt(result.getCompilerOutput().size());
+        for (String compilerOutput : result.getCompilerOutput()) {
+          LocalCompilationStore.writeString(output, compilerOutput);
+        }
+        if (result.isSuccessful()) {
+          output.writeInt(result.getCompiledClasses().size());
+          for (Map.Entry<String, byte[]> compiledClass : result.getCompiledClasses().entrySet()) {
+            LocalCompilationStore.writeString(output, compiledClass.getKey());
+            output.writeInt(compiledClass.getValue().length);
+            output.write(compiledClass.getValue());
+          }
+        }
+      }
+      Files.move(
+          tempFile,
+          this.directory.resolve(key),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  // DataOutputStream.writeUTF is limited to 64KB, which a long compiler error could exceed.
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static String readString(DataInputStream input) throws IOException {
+    final byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -21,4 +21,13 @@ public class LocalMetricClient extends JavabuilderSharedObject implements Metric
 
   @Override
   public void publishCleanupTime(long cleanupTime) {}
+
+  @Override
+  public void publishInputLatency(long inputLatency) {}
+
+  @Override
+  public void publishInputWaitTime(long inputWaitTime) {}
+
+  @Override
+  public void publishInputQueueDepth(long inputQueueDepth) {}
 }
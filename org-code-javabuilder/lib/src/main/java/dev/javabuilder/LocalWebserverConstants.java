@@ -3,4 +3,5 @@ package dev.javabuilder;
 public class LocalWebserverConstants {
   public static final String DIRECTORY = "javabuilderfiles";
   public static final String SEED_SOURCES_ENDPOINT = "seedsources";
+  public static final String COMPILATION_CACHE_DIRECTORY = "javabuildercompilationcache";
 }
@@ -1,32 +1,75 @@
 package dev.javabuilder;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.code.javabuilder.PerformanceTracker;
 import org.code.protocol.InputAdapter;
 import org.code.protocol.InternalExceptionKey;
 import org.code.protocol.InternalServerRuntimeException;
 
-/** Intended for local testing with dashboard only. Accepts input from a WebSocket session. */
+/**
+ * Intended for local testing with dashboard only. Accepts input from a WebSocket session.
+ *
+ * <p>Messages are appended by the WebSocket session's thread and read by the user's program, so
+ * they are handed off through a blocking queue: a program waiting for input wakes up as soon as a
+ * message arrives. Once the adapter is closed, a program waiting for input, or asking for more
+ * input than has arrived, gets a CONNECTION_TERMINATED error.
+ */
 public class WebSocketInputAdapter implements InputAdapter {
-  private final Queue<String> messages;
+  // Queued after the last message when the adapter is closed, to wake up a waiting reader.
+  private static final ReceivedMessage CLOSED = new ReceivedMessage(null, 0);
 
-  public WebSocketInputAdapter() {
-    this.messages = new LinkedList<>();
+  private final BlockingQueue<ReceivedMessage> messages;
+  private final PerformanceTracker performanceTracker;
+
+  public WebSocketInputAdapter(PerformanceTracker performanceTracker) {
+    this.messages = new LinkedBlockingQueue<>();
+    this.performanceTracker = performanceTracker;
   }
 
   @Override
   public String getNextMessage() {
-    while (messages.peek() == null) {
+    ReceivedMessage message = this.messages.poll();
+    if (message == null) {
+      final long waitStart = System.nanoTime();
       try {
-        Thread.sleep(1000);
+        message = this.messages.take();
       } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
         throw new InternalServerRuntimeException(InternalExceptionKey.CONNECTION_TERMINATED, e);
       }
+      this.performanceTracker.trackInputWait(
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart));
+    }
+    if (message == CLOSED) {
+      // Leave the marker in place for any later reads.
+      this.messages.add(CLOSED);
+      throw new InternalServerRuntimeException(
+          InternalExceptionKey.CONNECTION_TERMINATED,
+          new IllegalStateException("The WebSocket session has closed."));
     }
-    return messages.remove();
+    this.performanceTracker.trackInputLatency(
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - message.receivedNanos));
+    return message.text;
   }
 
   public void appendMessage(String message) {
-    messages.add(message);
+    this.messages.add(new ReceivedMessage(message, System.nanoTime()));
+  }
+
+  /** Stops accepting input. Messages that have already arrived can still be read. */
+  public void close() {
+    this.messages.add(CLOSED);
+  }
+
+  private static class ReceivedMessage {
+    private final String text;
+    private final long receivedNanos;
+
+    private ReceivedMessage(String text, long receivedNanos) {
+      this.text = text;
+      this.receivedNanos = receivedNanos;
+    }
   }
 }
@@ -1,9 +1,11 @@
 package dev.javabuilder;
 
+import static dev.javabuilder.LocalWebserverConstants.COMPILATION_CACHE_DIRECTORY;
 import static org.code.protocol.LoggerNames.MAIN_LOGGER;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.time.Clock;
 import java.util.Base64;
 import java.util.List;
@@ -32,14 +34,25 @@ public class WebSocketServer {
   private static final String CONNECTED_MESSAGE = "CONNECTED";
   private WebSocketInputAdapter inputAdapter;
   private WebSocketOutputAdapter websocketOutputAdapter;
+  private AsyncOutputAdapter asyncOutputAdapter;
+  private BatchingOutputAdapter batchingOutputAdapter;
   private OutputAdapter outputAdapter;
   private Handler logHandler;
   private Logger logger;
   private CodeExecutionManager codeExecutionManager;
   private boolean finishedExecution;
 
+  static {
+    // A new WebSocketServer is created for every connection, so create the compilation cache once
+    // for the whole server to keep results between runs.
+    CompilationCache.create(
+        new LocalCompilationStore(
+            Paths.get(System.getProperty("java.io.tmpdir"), COMPILATION_CACHE_DIRECTORY)));
+  }
+
   public WebSocketServer() {
     CachedResources.create();
+    CachedCompiler.create();
   }
 
   /**
@@ -72,6 +85,9 @@ public class WebSocketServer {
         ExecutionType.valueOf(queryInput.getString("execution_type"));
     final JSONObject options = new JSONObject(queryInput.getString("options"));
     final List<String> compileList = JSONUtils.listFromJSONObjectMember(options, "compileList");
+    Properties.setUseCompactNeighborhoodEvents(
+        options.optBoolean("compactNeighborhoodEvents", false));
+    Properties.setRunNeighborhoodHeadless(options.optBoolean("headlessNeighborhood", false));
 
     this.logger = Logger.getLogger(MAIN_LOGGER);
     this.logHandler = new LocalLogHandler(System.out, levelId, channelId);
@@ -85,11 +101,13 @@ public class WebSocketServer {
     Properties.setConnectionId(connectionId);
 
     websocketOutputAdapter = new WebSocketOutputAdapter(session);
-    inputAdapter = new WebSocketInputAdapter();
-    outputAdapter = websocketOutputAdapter;
+    inputAdapter = new WebSocketInputAdapter(performanceTracker);
+    asyncOutputAdapter = new AsyncOutputAdapter(websocketOutputAdapter);
+    batchingOutputAdapter = new BatchingOutputAdapter(asyncOutputAdapter);
+    outputAdapter = batchingOutputAdapter;
 
     if (executionType == ExecutionType.TEST) {
-      outputAdapter = new UserTestOutputAdapter(websocketOutputAdapter);
+      outputAdapter = new UserTestOutputAdapter(batchingOutputAdapter);
     }
 
     final ExceptionHandler exceptionHandler =
@@ -107,6 +125,7 @@ public class WebSocketServer {
                         outputAdapter,
                         executionType,
                         compileList,
+                        queryInput.optString("channel_id", null),
                         new LocalTempDirectoryManager(),
                         contentManager,
                         new LocalSystemExitHelper());
@@ -118,6 +137,8 @@ public class WebSocketServer {
               if (codeExecutionManager != null) {
                 codeExecutionManager.shutDown();
               }
+              batchingOutputAdapter.close();
+              asyncOutputAdapter.close();
               this.finishedExecution = true;
               // Clean up session
               try {
@@ -139,9 +160,21 @@ public class WebSocketServer {
     performanceTracker.logPerformance();
     // If the websocket was closed before execution was finished, make sure we clean up.
     if (!this.finishedExecution) {
+      // No more input can arrive, so stop the program from waiting for it.
+      this.inputAdapter.close();
       if (codeExecutionManager != null) {
         this.codeExecutionManager.shutDown();
       }
+      try {
+        this.batchingOutputAdapter.close();
+      } catch (InternalServerRuntimeException e) {
+        // The session is already closed, so there is no one left to send output to.
+      }
+      try {
+        this.asyncOutputAdapter.close();
+      } catch (InternalServerRuntimeException e) {
+        // The session is already closed, so there is no one left to send output to.
+      }
       this.logger.removeHandler(this.logHandler);
     }
     JavabuilderContext.getInstance().destroyAndReset();
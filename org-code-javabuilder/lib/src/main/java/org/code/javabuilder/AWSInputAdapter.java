@@ -3,55 +3,188 @@ package org.code.javabuilder;
 import static org.code.javabuilder.InternalFacingExceptionTypes.CONNECTION_TERMINATED;
 
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
 import com.amazonaws.services.sqs.model.Message;
 import com.amazonaws.services.sqs.model.QueueDoesNotExistException;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.code.protocol.InputAdapter;
 
-/** Accesses Amazon SQS to get user input for the currently running program. */
+/**
+ * Accesses Amazon SQS to get user input for the currently running program.
+ *
+ * <p>Once the program first asks for input, a background thread keeps a long poll on the queue
+ * outstanding, hands received messages to the program through a concurrent queue and deletes them
+ * from SQS in a single batch. The program therefore only waits on SQS when no input has arrived
+ * yet, and never waits on deletes.
+ */
 public class AWSInputAdapter implements InputAdapter {
+  // The maximum long poll time SQS allows
+  private static final int WAIT_TIME_SECONDS = 20;
+  // The maximum number of messages SQS returns from a receive, or deletes in a batch
+  private static final int MAX_MESSAGES = 10;
+  // The message attribute holding the time SQS received the message, in epoch milliseconds
+  private static final String SENT_TIMESTAMP = "SentTimestamp";
+
   private final AmazonSQS sqsClient;
   private final String queueUrl;
   private final String queueName;
-  private final Queue<String> messages;
+  private final PerformanceTracker performanceTracker;
+  private final BlockingQueue<ReceivedMessage> messages;
+  private Thread prefetchThread;
+  private volatile boolean isClosed;
 
-  public AWSInputAdapter(AmazonSQS sqsClient, String queueUrl, String queueName) {
+  public AWSInputAdapter(
+      AmazonSQS sqsClient,
+      String queueUrl,
+      String queueName,
+      PerformanceTracker performanceTracker) {
     this.sqsClient = sqsClient;
     this.queueUrl = queueUrl;
-    this.messages = new LinkedList<>();
     this.queueName = queueName;
+    this.performanceTracker = performanceTracker;
+    this.messages = new LinkedBlockingQueue<>();
+    this.isClosed = false;
   }
 
   /**
-   * Attempts to access the first element in the fifo queue. If none exist, queries available input
-   * from Amazon SQS and stores each input in the `messages` fifo queue. Messages are deleted after
-   * they are retrieved. This is a blocking call.
+   * Returns the next message from the queue, waiting for one to arrive if none has yet. This is a
+   * blocking call.
    *
    * @return the first message in the fifo queue.
    */
   public String getNextMessage() {
-    ReceiveMessageRequest request = new ReceiveMessageRequest();
-    request.setQueueUrl(queueUrl);
-    // Sets the request timeout to its maximum value of 20 seconds
-    request.setWaitTimeSeconds(20);
-    // Sets the the number of messages to retrieve to its maximum value of 10
-    request.setMaxNumberOfMessages(10);
-    while (messages.peek() == null) {
+    this.startPrefetchingIfNeeded();
+    ReceivedMessage message = this.messages.poll();
+    if (message == null) {
+      final long waitStart = System.nanoTime();
       try {
-        List<Message> messages = sqsClient.receiveMessage(request).getMessages();
-        for (Message message : messages) {
-          this.messages.add(message.getBody());
-          sqsClient.deleteMessage(queueUrl, message.getReceiptHandle());
+        message = this.messages.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InternalFacingRuntimeException(CONNECTION_TERMINATED, e);
+      }
+      this.performanceTracker.trackInputWait(
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart));
+    }
+
+    if (message.error != null) {
+      // Leave the error in place for any later reads.
+      this.messages.add(message);
+      throw message.error;
+    }
+    this.performanceTracker.trackInputLatency(
+        Math.max(0, System.currentTimeMillis() - message.sentTimestamp));
+    return message.body;
+  }
+
+  /** Stops receiving messages from SQS. */
+  public synchronized void close() {
+    this.isClosed = true;
+    if (this.prefetchThread != null) {
+      // Interrupting aborts the outstanding long poll.
+      this.prefetchThread.interrupt();
+    }
+  }
+
+  private synchronized void startPrefetchingIfNeeded() {
+    if (this.prefetchThread != null || this.isClosed) {
+      return;
+    }
+    this.prefetchThread = new Thread(this::prefetchMessages, "sqs-input-prefetch");
+    this.prefetchThread.setDaemon(true);
+    this.prefetchThread.start();
+  }
+
+  private void prefetchMessages() {
+    final ReceiveMessageRequest request =
+        new ReceiveMessageRequest()
+            .withQueueUrl(this.queueUrl)
+            .withWaitTimeSeconds(WAIT_TIME_SECONDS)
+            .withMaxNumberOfMessages(MAX_MESSAGES)
+            .withAttributeNames(SENT_TIMESTAMP);
+    while (!this.isClosed) {
+      try {
+        final List<Message> received = this.sqsClient.receiveMessage(request).getMessages();
+        for (Message message : received) {
+          this.messages.add(new ReceivedMessage(message.getBody(), getSentTimestamp(message)));
         }
+        this.deleteMessages(received);
       } catch (QueueDoesNotExistException e) {
-        // if we tried to send a message and got queue does not exist, we have lost our connection
-        throw new InternalFacingRuntimeException(CONNECTION_TERMINATED, e);
+        // if we tried to receive a message and got queue does not exist, we have lost our
+        // connection
+        this.messages.add(
+            new ReceivedMessage(new InternalFacingRuntimeException(CONNECTION_TERMINATED, e)));
+        return;
+      } catch (RuntimeException e) {
+        if (!this.isClosed) {
+          this.messages.add(new ReceivedMessage(e));
+        }
+        return;
       }
     }
+  }
+
+  /**
+   * Deletes the given messages so they are not received again. Messages the batch fails to delete
+   * are deleted one at a time, as a message that is received twice would be given to the program
+   * twice.
+   */
+  private void deleteMessages(List<Message> received) {
+    if (received.isEmpty()) {
+      return;
+    }
+    final List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>();
+    final Map<String, String> receiptHandles = new HashMap<>();
+    for (Message message : received) {
+      final String id = String.valueOf(entries.size());
+      entries.add(new DeleteMessageBatchRequestEntry(id, message.getReceiptHandle()));
+      receiptHandles.put(id, message.getReceiptHandle());
+    }
+    final DeleteMessageBatchResult result =
+        this.sqsClient.deleteMessageBatch(this.queueUrl, entries);
+    for (BatchResultErrorEntry failed : result.getFailed()) {
+      this.sqsClient.deleteMessage(this.queueUrl, receiptHandles.get(failed.getId()));
+    }
+  }
 
-    return messages.remove();
+  /** @return the time SQS received the message, or now if SQS did not say */
+  private static long getSentTimestamp(Message message) {
+    final String sentTimestamp = message.getAttributes().get(SENT_TIMESTAMP);
+    if (sentTimestamp == null) {
+      return System.currentTimeMillis();
+    }
+    try {
+      return Long.parseLong(sentTimestamp);
+    } catch (NumberFormatException e) {
+      return System.currentTimeMillis();
+    }
+  }
+
+  /** A message received from SQS, or an error to report to the program instead. */
+  private static class ReceivedMessage {
+    private final String body;
+    private final long sentTimestamp;
+    private final RuntimeException error;
+
+    private ReceivedMessage(String body, long sentTimestamp) {
+      this.body = body;
+      this.sentTimestamp = sentTimestamp;
+      this.error = null;
+    }
+
+    private ReceivedMessage(RuntimeException error) {
+      this.body = null;
+      this.sentTimestamp = 0;
+      this.error = error;
+    }
   }
 }
@@ -45,6 +45,21 @@ public class AWSMetricClient extends JavabuilderSharedObject implements MetricCl
     this.publishMillisecondMetric("CleanupTime", (double) cleanupTime);
   }
 
+  @Override
+  public void publishInputLatency(long inputLatency) {
+    this.publishMillisecondMetric("InputLatency", (double) inputLatency);
+  }
+
+  @Override
+  public void publishInputWaitTime(long inputWaitTime) {
+    this.publishMillisecondMetric("InputWaitTime", (double) inputWaitTime);
+  }
+
+  @Override
+  public void publishInputQueueDepth(long inputQueueDepth) {
+    this.publishCountMetric("InputQueueDepth", (double) inputQueueDepth);
+  }
+
   private void publishMillisecondMetric(String metricName, double milliseconds) {
     MetricDatum metricDatum =
         new MetricDatum()
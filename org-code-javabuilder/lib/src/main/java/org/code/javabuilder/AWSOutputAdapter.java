@@ -8,14 +8,19 @@ import com.amazonaws.services.apigatewaymanagementapi.model.PostToConnectionRequ
 import java.nio.ByteBuffer;
 import org.code.protocol.*;
 
-/** Sends messages to Amazon API Gateway from the user's program. */
+/**
+ * Sends messages to Amazon API Gateway from the user's program. Messages are encoded as UTF-8 into
+ * a buffer that is reused for every message, as the request is sent before sendMessage returns.
+ */
 public class AWSOutputAdapter implements OutputAdapter {
   private final String connectionId;
   private final AmazonApiGatewayManagementApi api;
+  private final ClientMessageEncoder encoder;
 
   public AWSOutputAdapter(String connectionId, AmazonApiGatewayManagementApi api) {
     this.connectionId = connectionId;
     this.api = api;
+    this.encoder = new ClientMessageEncoder();
   }
 
   /**
@@ -24,11 +29,11 @@ public class AWSOutputAdapter implements OutputAdapter {
    * @param message The message to send to API Gateway from the user's program.
    */
   @Override
-  public void sendMessage(ClientMessage message) {
+  public synchronized void sendMessage(ClientMessage message) {
     if (message.shouldAlwaysSend()) {
       PostToConnectionRequest post = new PostToConnectionRequest();
       post.setConnectionId(connectionId);
-      post.setData(ByteBuffer.wrap((message.getFormattedMessage()).getBytes()));
+      post.setData(this.encoder.encode(message));
       this.sendMessageHelper(post);
     }
   }
@@ -0,0 +1,244 @@
+package org.code.javabuilder;
+
+import static org.code.javabuilder.InternalFacingExceptionTypes.OUTPUT_STALLED;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.code.protocol.ClientMessage;
+import org.code.protocol.LoggerUtils;
+import org.code.protocol.OutputAdapter;
+
+/**
+ * An OutputAdapter that hands messages off to a dedicated sender thread so the user's program does
+ * not wait on the network for every message it sends. Messages are delivered to the delegate
+ * OutputAdapter one at a time, in the order they were sent.
+ *
+ * <p>At most {@code capacity} messages may be waiting to be delivered. Once that many are waiting,
+ * {@link #sendMessage(ClientMessage)} blocks until the sender catches up, so a program that outputs
+ * faster than the network can deliver is slowed down rather than buffering without limit. It waits
+ * at most {@code timeoutMs} for space; if the delegate is stalled for longer than that, or the
+ * waiting thread is interrupted, or the adapter is closed in the meantime, the message is dropped
+ * and the send fails as if the delegate had thrown.
+ *
+ * <p>If the delegate throws while delivering a message (for example because the connection is
+ * gone), remaining messages are dropped and the exception is rethrown to the program on its next
+ * call to {@link #sendMessage(ClientMessage)} or {@link #flush()}, and on every call after that.
+ *
+ * <p>{@link #flush()} and {@link #close()} also wait at most {@code timeoutMs} for queued messages
+ * to be delivered. If the delegate is still stuck after that, or the waiting thread is interrupted,
+ * the messages that are still queued are logged as dropped and discarded so the session can end.
+ *
+ * <p>No method holds this adapter's lock while waiting on the delegate, so {@link #close()} and
+ * sends from other threads can always get in while a producer waits for space.
+ */
+public class AsyncOutputAdapter implements OutputAdapter {
+  static final int DEFAULT_CAPACITY = 32;
+  // Short enough that a stalled connection still leaves the Lambda time to clean up after a
+  // timeout (see LambdaRequestHandler.TIMEOUT_CLEANUP_BUFFER_MS).
+  static final long DEFAULT_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(3);
+
+  private final OutputAdapter delegate;
+  private final BlockingQueue<Runnable> sendQueue;
+  private final Thread senderThread;
+  private final long timeoutMs;
+  private volatile Throwable senderError;
+  private volatile boolean isClosed;
+
+  public AsyncOutputAdapter(OutputAdapter delegate) {
+    this(delegate, DEFAULT_CAPACITY);
+  }
+
+  AsyncOutputAdapter(OutputAdapter delegate, int capacity) {
+    this(delegate, capacity, DEFAULT_TIMEOUT_MS);
+  }
+
+  AsyncOutputAdapter(OutputAdapter delegate, int capacity, long timeoutMs) {
+    this.delegate = delegate;
+    this.sendQueue = new ArrayBlockingQueue<>(capacity);
+    this.timeoutMs = timeoutMs;
+    this.isClosed = false;
+    this.senderThread = new Thread(this::sendQueuedMessages, "async-output-sender");
+    this.senderThread.setDaemon(true);
+    this.senderThread.start();
+  }
+
+  @Override
+  public void sendMessage(ClientMessage message) {
+    this.throwSenderError();
+    final boolean isQueued =
+        this.enqueue(
+            () -> {
+              // Once the connection has failed there is no point in trying to send anything else.
+              if (this.senderError == null) {
+                this.delegate.sendMessage(message);
+              }
+            });
+    if (!isQueued) {
+      this.delegate.sendMessage(message);
+    }
+  }
+
+  /**
+   * Blocks until every message sent before this call has been delivered, or until the timeout
+   * passes or the calling thread is interrupted, in which case undelivered messages are dropped.
+   */
+  @Override
+  public void flush() {
+    if (!this.isClosed) {
+      this.awaitQueuedMessages();
+    }
+    this.throwSenderError();
+  }
+
+  /**
+   * Delivers every queued message (waiting no longer than a flush would) and stops the sender
+   * thread. Producers still waiting for space in the queue give up. Messages sent after the adapter
+   * is closed are delivered synchronously on the caller's thread.
+   */
+  public void close() {
+    synchronized (this) {
+      if (this.isClosed) {
+        return;
+      }
+      this.isClosed = true;
+      this.notifyAll();
+    }
+    // Nothing else can be added to the queue now, so once the marker is delivered the queue is
+    // empty.
+    this.awaitQueuedMessages();
+    // The sender is either waiting on take() or stuck in the delegate; interrupting it ends it in
+    // the first case and gives the delegate a chance to give up in the second.
+    this.senderThread.interrupt();
+    this.throwSenderError();
+  }
+
+  private void awaitQueuedMessages() {
+    final CountDownLatch delivered = new CountDownLatch(1);
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeoutMs);
+    try {
+      final boolean isQueued;
+      synchronized (this) {
+        isQueued = this.offer(delivered::countDown, deadline, false);
+      }
+      if (!isQueued && this.senderError != null) {
+        // The sender skips everything still queued once it has failed, so there is nothing to wait
+        // for.
+        return;
+      }
+      if (isQueued && delivered.await(this.remainingNanos(deadline), TimeUnit.NANOSECONDS)) {
+        return;
+      }
+      this.dropQueuedMessages("flush timed out after " + this.timeoutMs + "ms");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.dropQueuedMessages("flush was interrupted");
+    }
+  }
+
+  /**
+   * Adds a message's task to the send queue, waiting for space if the queue is full.
+   *
+   * @return false if the adapter was already closed, in which case the caller should deliver the
+   *     message itself
+   * @throws InternalFacingRuntimeException if there was no space before the timeout, the calling
+   *     thread was interrupted, or the adapter was closed while waiting
+   */
+  private boolean enqueue(Runnable task) {
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeoutMs);
+    synchronized (this) {
+      if (this.isClosed) {
+        return false;
+      }
+      final boolean isQueued;
+      try {
+        isQueued = this.offer(task, deadline, true);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw this.failSend(e);
+      }
+      if (!isQueued) {
+        this.throwSenderError();
+        throw this.failSend(
+            this.isClosed
+                ? new IllegalStateException("Closed while waiting to send")
+                : new TimeoutException("No space to send after " + this.timeoutMs + "ms"));
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Waits, releasing this adapter's lock, until the task fits in the send queue. Gives up when the
+   * deadline passes or the sender has failed, and, if {@code giveUpIfClosed}, when the adapter is
+   * closed. Must be called while holding the lock.
+   */
+  private boolean offer(Runnable task, long deadline, boolean giveUpIfClosed)
+      throws InterruptedException {
+    while (!this.sendQueue.offer(task)) {
+      final long remaining = this.remainingNanos(deadline);
+      if (remaining == 0 || (giveUpIfClosed && this.isClosed) || this.senderError != null) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+    return true;
+  }
+
+  /** Records a failed send so that later sends fail too, and returns the exception to throw. */
+  private RuntimeException failSend(Throwable cause) {
+    final InternalFacingRuntimeException error =
+        new InternalFacingRuntimeException(OUTPUT_STALLED, cause);
+    if (this.senderError == null) {
+      this.senderError = error;
+    }
+    this.notifyAll();
+    return error;
+  }
+
+  private long remainingNanos(long deadline) {
+    return Math.max(0, deadline - System.nanoTime());
+  }
+
+  private synchronized void dropQueuedMessages(String reason) {
+    // May include the marker task added by awaitQueuedMessages, which nobody waits on anymore.
+    final int dropped = this.sendQueue.size();
+    this.sendQueue.clear();
+    this.notifyAll();
+    LoggerUtils.logWarning(
+        "AsyncOutputAdapter", reason + ", dropped " + dropped + " undelivered messages");
+  }
+
+  private void sendQueuedMessages() {
+    while (true) {
+      final Runnable task;
+      try {
+        task = this.sendQueue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      // Wake any producer waiting for the space this take() just made.
+      synchronized (this) {
+        this.notifyAll();
+      }
+      try {
+        task.run();
+      } catch (RuntimeException | Error e) {
+        this.senderError = e;
+      }
+    }
+  }
+
+  private void throwSenderError() {
+    final Throwable error = this.senderError;
+    if (error == null) {
+      return;
+    }
+    if (error instanceof Error) {
+      throw (Error) error;
+    }
+    throw (RuntimeException) error;
+  }
+}
@@ -0,0 +1,293 @@
+package org.code.javabuilder;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.code.protocol.ClientMessage;
+import org.code.protocol.ClientMessageEncoder;
+import org.code.protocol.ClientMessageType;
+import org.code.protocol.OutputAdapter;
+
+/**
+ * An OutputAdapter that coalesces messages before passing them on to a delegate OutputAdapter.
+ * Sending every message individually means one network round trip per message, which makes
+ * print-heavy programs very slow. Instead, this adapter:
+ *
+ * <p>1. Merges consecutive SYSTEM_OUT messages into a single SYSTEM_OUT message.
+ *
+ * <p>2. Packs several messages into one frame (see {@link ClientMessageBatch}), keeping each frame
+ * under the maximum frame size.
+ *
+ * <p>Sizes are measured as the encoded JSON, escapes included, and a frame is sent before anything
+ * is added that would take it over the maximum. A SYSTEM_OUT run that does not fit in one frame is
+ * split across several SYSTEM_OUT messages. Only a single message of another type that is larger
+ * than the maximum on its own is sent as an oversized frame, as it would have been without
+ * batching.
+ *
+ * <p>Pending messages are flushed once they reach the frame size, once the oldest pending message
+ * is older than the flush interval, or as soon as a STATUS or EXCEPTION message is sent so that the
+ * client sees those in order and without delay. Exceptions thrown by the delegate during a
+ * background flush are rethrown to the next caller of {@link #sendMessage(ClientMessage)} or {@link
+ * #flush()}.
+ */
+public class BatchingOutputAdapter implements OutputAdapter {
+  // API Gateway rejects WebSocket messages larger than 128KB.
+  static final int MAX_FRAME_BYTES = 128 * 1024;
+  static final long FLUSH_INTERVAL_MS = 50;
+  private static final Set<ClientMessageType> FLUSH_IMMEDIATELY_TYPES =
+      EnumSet.of(ClientMessageType.STATUS, ClientMessageType.EXCEPTION);
+  // The JSON of a SYSTEM_OUT message with an empty value: everything but the escaped value itself.
+  private static final int EMPTY_SYSTEM_OUT_BYTES =
+      utf8Length(new SystemOutMessage("").getFormattedMessage());
+
+  private final OutputAdapter delegate;
+  private final int maxFrameBytes;
+  private final long flushIntervalNanos;
+  private final ScheduledExecutorService flushScheduler;
+  private final List<ClientMessage> pendingMessages;
+  private final List<String> pendingFormattedMessages;
+  private final StringBuilder pendingSystemOut;
+  // The encoded size of pendingFormattedMessages, not counting the array around them.
+  private int pendingBytes;
+  // The escaped size of pendingSystemOut, not counting the quotes.
+  private int pendingSystemOutBytes;
+  private long oldestPendingNanos;
+  private Throwable deferredError;
+  private boolean isClosed;
+
+  public BatchingOutputAdapter(OutputAdapter delegate) {
+    this(delegate, MAX_FRAME_BYTES, FLUSH_INTERVAL_MS);
+  }
+
+  BatchingOutputAdapter(OutputAdapter delegate, int maxFrameBytes, long flushIntervalMs) {
+    this.delegate = delegate;
+    this.maxFrameBytes = maxFrameBytes;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+    this.pendingMessages = new ArrayList<>();
+    this.pendingFormattedMessages = new ArrayList<>();
+    this.pendingSystemOut = new StringBuilder();
+    this.pendingBytes = 0;
+    this.pendingSystemOutBytes = 0;
+    this.isClosed = false;
+    this.flushScheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "batching-output-flush");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.flushScheduler.scheduleWithFixedDelay(
+        this::flushIfStale, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void sendMessage(ClientMessage message) {
+    this.throwDeferredError();
+    // Once closed, or for messages only some adapters care about, pass straight through.
+    if (this.isClosed || !message.shouldAlwaysSend()) {
+      this.sendPendingMessages();
+      this.delegate.sendMessage(message);
+      return;
+    }
+
+    if (this.isMergeableSystemOut(message)) {
+      this.appendSystemOut(message.getValue());
+    } else {
+      this.closeSystemOutRun();
+      final String formatted = message.getFormattedMessage();
+      final int messageBytes = utf8Length(formatted);
+      if (this.hasPending() && this.frameBytesWith(1, messageBytes) > this.maxFrameBytes) {
+        this.sendPendingMessages();
+      }
+      this.markPending();
+      this.pendingMessages.add(message);
+      this.pendingFormattedMessages.add(formatted);
+      this.pendingBytes += messageBytes;
+    }
+
+    if (FLUSH_IMMEDIATELY_TYPES.contains(message.getType())
+        || this.frameBytesWith(0, 0) >= this.maxFrameBytes
+        || this.isStale()) {
+      this.sendPendingMessages();
+    }
+  }
+
+  /**
+   * Sends all pending messages to the delegate and waits for the delegate to deliver them. Unlike
+   * the flushes triggered by {@link #sendMessage(ClientMessage)}, this blocks until output has
+   * actually reached the client.
+   */
+  @Override
+  public synchronized void flush() {
+    this.sendPendingMessages();
+    this.delegate.flush();
+  }
+
+  /**
+   * Flushes any pending messages and stops the background flush. Messages sent after the adapter is
+   * closed are passed directly to the delegate.
+   */
+  public synchronized void close() {
+    if (this.isClosed) {
+      return;
+    }
+    this.isClosed = true;
+    try {
+      this.sendPendingMessages();
+    } finally {
+      this.flushScheduler.shutdownNow();
+    }
+  }
+
+  /** Sends all pending messages to the delegate in one frame. */
+  private void sendPendingMessages() {
+    this.throwDeferredError();
+    this.closeSystemOutRun();
+    if (this.pendingMessages.isEmpty()) {
+      return;
+    }
+    final ClientMessageBatch batch =
+        new ClientMessageBatch(
+            this.pendingMessages.get(0), new ArrayList<>(this.pendingFormattedMessages));
+    this.pendingMessages.clear();
+    this.pendingFormattedMessages.clear();
+    this.pendingBytes = 0;
+    this.delegate.sendMessage(batch);
+  }
+
+  /**
+   * Adds the value to the pending SYSTEM_OUT run. Whatever does not fit in the current frame is
+   * sent in the frames after it.
+   */
+  private void appendSystemOut(String value) {
+    int start = 0;
+    while (start < value.length()) {
+      final int runLength = this.pendingSystemOut.length();
+      final char previous = runLength == 0 ? 0 : this.pendingSystemOut.charAt(runLength - 1);
+      // Starting a new run adds a SYSTEM_OUT message, wrapper and all, to the frame.
+      final int available =
+          runLength == 0
+              ? this.maxFrameBytes - this.frameBytesWith(1, EMPTY_SYSTEM_OUT_BYTES)
+              : this.maxFrameBytes - this.frameBytesWith(0, 0);
+      int end = value.length();
+      int bytes = ClientMessageEncoder.escapedLength(value, start, end, previous);
+      if (bytes > available) {
+        end = ClientMessageEncoder.fitEscaped(value, start, Math.max(0, available), previous);
+        if (end == start) {
+          if (this.hasPending()) {
+            this.sendPendingMessages();
+            continue;
+          }
+          // Not even one character fits in an empty frame. Send it anyway rather than loop forever.
+          end = value.offsetByCodePoints(start, 1);
+        }
+        bytes = ClientMessageEncoder.escapedLength(value, start, end, previous);
+      }
+      this.markPending();
+      this.pendingSystemOut.append(value, start, end);
+      this.pendingSystemOutBytes += bytes;
+      start = end;
+      if (start < value.length()) {
+        this.sendPendingMessages();
+      }
+    }
+  }
+
+  /**
+   * @return the encoded size of a frame holding every pending message plus the given number of
+   *     extra messages of the given total size
+   */
+  private int frameBytesWith(int extraMessages, int extraBytes) {
+    int messageCount = this.pendingMessages.size() + extraMessages;
+    int bytes = this.pendingBytes + extraBytes;
+    if (this.pendingSystemOut.length() > 0) {
+      messageCount++;
+      bytes += EMPTY_SYSTEM_OUT_BYTES + this.pendingSystemOutBytes;
+    }
+    // Several messages are sent as "[" + messages joined with "," + "]".
+    return messageCount > 1 ? bytes + messageCount + 1 : bytes;
+  }
+
+  private boolean hasPending() {
+    return !this.pendingMessages.isEmpty() || this.pendingSystemOut.length() > 0;
+  }
+
+  /** Starts the flush interval if nothing was pending yet. */
+  private void markPending() {
+    if (!this.hasPending()) {
+      this.oldestPendingNanos = System.nanoTime();
+    }
+  }
+
+  private synchronized void flushIfStale() {
+    if (this.deferredError != null || !this.isStale()) {
+      return;
+    }
+    try {
+      this.sendPendingMessages();
+    } catch (RuntimeException | Error e) {
+      // There is no caller to report this to on the background thread, so hold on to it until the
+      // user's program next tries to send a message.
+      this.deferredError = e;
+    }
+  }
+
+  private boolean isStale() {
+    return this.hasPending()
+        && System.nanoTime() - this.oldestPendingNanos >= this.flushIntervalNanos;
+  }
+
+  private boolean isMergeableSystemOut(ClientMessage message) {
+    return message.getType() == ClientMessageType.SYSTEM_OUT
+        && message.getValue() != null
+        && message.getDetail().length() == 0;
+  }
+
+  private void closeSystemOutRun() {
+    if (this.pendingSystemOut.length() == 0) {
+      return;
+    }
+    final SystemOutMessage message = new SystemOutMessage(this.pendingSystemOut.toString());
+    final String formatted = message.getFormattedMessage();
+    this.pendingMessages.add(message);
+    this.pendingFormattedMessages.add(formatted);
+    this.pendingBytes += utf8Length(formatted);
+    this.pendingSystemOut.setLength(0);
+    this.pendingSystemOutBytes = 0;
+  }
+
+  private void throwDeferredError() {
+    if (this.deferredError == null) {
+      return;
+    }
+    final Throwable error = this.deferredError;
+    this.deferredError = null;
+    if (error instanceof Error) {
+      throw (Error) error;
+    }
+    throw (RuntimeException) error;
+  }
+
+  /** @return the number of bytes needed to encode the given String as UTF-8 */
+  static int utf8Length(String value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c < 0x80) {
+        length += 1;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isSurrogate(c)) {
+        // Each half of a surrogate pair accounts for half of the pair's four bytes.
+        length += 2;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+}
@@ -0,0 +1,116 @@
+package org.code.javabuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import org.code.javabuilder.util.JarUtils;
+import org.code.protocol.InternalExceptionKey;
+import org.code.protocol.InternalServerRuntimeException;
+
+/**
+ * A JavaCompiler and StandardJavaFileManager that are created once for the entire container and
+ * reused by every invocation. The file manager keeps the user-facing api jars open and indexed, so
+ * only the first compile in a container pays the cost of reading them.
+ *
+ * <p>The shared file manager only ever reads the JDK and the api jars. Everything specific to a
+ * session (the user's sources, compiled classes and diagnostics) lives in objects created for each
+ * compilation, so nothing leaks from one session to the next.
+ */
+public class CachedCompiler {
+  // User code never uses annotation processors, so skip searching the classpath for them.
+  private static final List<String> COMPILER_OPTIONS = List.of("-proc:none");
+
+  private static CachedCompiler cachedCompilerInstance;
+
+  private final JavaCompiler compiler;
+  private final StandardJavaFileManager fileManager;
+  private boolean isClasspathSet;
+
+  public static void create() {
+    CachedCompiler.cachedCompilerInstance = new CachedCompiler();
+  }
+
+  public static CachedCompiler getInstance() {
+    if (CachedCompiler.cachedCompilerInstance == null) {
+      Throwable cause = new IllegalStateException("Cached compiler not found.");
+      throw new InternalServerRuntimeException(InternalExceptionKey.INTERNAL_EXCEPTION, cause);
+    }
+    return CachedCompiler.cachedCompilerInstance;
+  }
+
+  private CachedCompiler() {
+    this.compiler = ToolProvider.getSystemJavaCompiler();
+    this.fileManager = this.compiler.getStandardFileManager(null, null, null);
+    this.isClasspathSet = false;
+  }
+
+  /**
+   * Compiles the given sources against the user-facing api jars. Compilation is synchronized as the
+   * shared file manager may only be used by one compilation at a time.
+   *
+   * @param sources the sources to compile
+   * @param diagnostics receives any compiler errors and warnings
+   * @return the bytecode of each compiled class keyed by binary class name, or null if compilation
+   *     failed
+   * @throws InternalServerException if the api jars cannot be found
+   */
+  public Map<String, byte[]> compile(
+      List<JavaFileObject> sources, DiagnosticListener<? super JavaFileObject> diagnostics)
+      throws InternalServerException {
+    final InMemoryJavaFileManager sessionFileManager =
+        this.compileWithClasses(sources, Map.of(), diagnostics);
+    return sessionFileManager == null ? null : sessionFileManager.getCompiledClasses();
+  }
+
+  /**
+   * Compiles the given sources against the user-facing api jars and the given previously compiled
+   * classes.
+   *
+   * @param sources the sources to compile
+   * @param classpathClasses the bytecode of previously compiled classes the sources may use, keyed
+   *     by binary class name
+   * @param diagnostics receives any compiler errors and warnings
+   * @return the file manager holding the compiled classes and the source each was compiled from, or
+   *     null if compilation failed
+   * @throws InternalServerException if the api jars cannot be found
+   */
+  public synchronized InMemoryJavaFileManager compileWithClasses(
+      List<JavaFileObject> sources,
+      Map<String, byte[]> classpathClasses,
+      DiagnosticListener<? super JavaFileObject> diagnostics)
+      throws InternalServerException {
+    this.setClasspathIfNeeded();
+    // Compiled classes are kept in memory by a new wrapper for each compilation, which is discarded
+    // afterwards. Closing it would close the shared file manager too.
+    final InMemoryJavaFileManager sessionFileManager =
+        new InMemoryJavaFileManager(this.fileManager, classpathClasses);
+    final boolean success =
+        this.compiler
+            .getTask(null, sessionFileManager, diagnostics, COMPILER_OPTIONS, null, sources)
+            .call();
+    return success ? sessionFileManager : null;
+  }
+
+  /**
+   * Sets the classpath of the shared file manager to the user-facing api jars. This is done once,
+   * on first use, rather than passing a -classpath option to every compilation task, which would
+   * make the file manager look the jars up again.
+   */
+  private void setClasspathIfNeeded() throws InternalServerException {
+    if (this.isClasspathSet) {
+      return;
+    }
+    try {
+      this.fileManager.setLocation(StandardLocation.CLASS_PATH, JarUtils.getAllJarFiles());
+    } catch (IOException e) {
+      throw new InternalServerException(InternalExceptionKey.INTERNAL_COMPILER_EXCEPTION, e);
+    }
+    this.isClasspathSet = true;
+  }
+}
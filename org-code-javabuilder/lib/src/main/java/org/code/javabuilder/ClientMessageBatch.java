@@ -0,0 +1,56 @@
+package org.code.javabuilder;
+
+import java.util.List;
+import org.code.protocol.ClientMessage;
+import org.code.protocol.ClientMessageEncoder;
+
+/**
+ * A group of already-formatted client messages that are delivered to the client in a single frame.
+ * A batch of one message is sent exactly as the message would have been sent on its own. A batch of
+ * several messages is sent as a JSON array of the individual messages, in order:
+ *
+ * <pre>
+ * [
+ *   {"type": "SYSTEM_OUT", "value": "..."},
+ *   {"type": "STATUS", "value": "..."}
+ * ]
+ * </pre>
+ *
+ * The type of a batch is the type of its first message.
+ */
+class ClientMessageBatch extends ClientMessage {
+  private final List<String> formattedMessages;
+
+  ClientMessageBatch(ClientMessage firstMessage, List<String> formattedMessages) {
+    super(firstMessage.getType(), firstMessage.getValue());
+    this.formattedMessages = formattedMessages;
+  }
+
+  int size() {
+    return this.formattedMessages.size();
+  }
+
+  @Override
+  public String getFormattedMessage() {
+    if (this.formattedMessages.size() == 1) {
+      return this.formattedMessages.get(0);
+    }
+    return "[" + String.join(",", this.formattedMessages) + "]";
+  }
+
+  @Override
+  protected void encode(ClientMessageEncoder encoder) {
+    if (this.formattedMessages.size() == 1) {
+      encoder.writeFormatted(this.formattedMessages.get(0));
+      return;
+    }
+    encoder.writeFormatted("[");
+    for (int i = 0; i < this.formattedMessages.size(); i++) {
+      if (i > 0) {
+        encoder.writeFormatted(",");
+      }
+      encoder.writeFormatted(this.formattedMessages.get(i));
+    }
+    encoder.writeFormatted("]");
+  }
+}
@@ -1,12 +1,12 @@
 package org.code.javabuilder;
 
-import java.io.File;
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.code.protocol.GlobalProtocol;
 import org.code.protocol.InternalExceptionKey;
 import org.code.protocol.JavabuilderException;
@@ -15,20 +15,17 @@ import org.code.protocol.OutputAdapter;
 /** The orchestrator for code compilation and execution. */
 public class CodeBuilder {
   private final OutputAdapter outputAdapter;
-  private final File tempFolder;
   private final UserProjectFiles userProjectFiles;
   private final UserProjectFiles validationFiles;
+  private Map<String, byte[]> compiledClasses;
 
   public CodeBuilder(
-      GlobalProtocol protocol,
-      UserProjectFiles userProjectFiles,
-      UserProjectFiles validationFiles,
-      File tempFolder)
+      GlobalProtocol protocol, UserProjectFiles userProjectFiles, UserProjectFiles validationFiles)
       throws InternalServerException {
     this.outputAdapter = protocol.getOutputAdapter();
     this.userProjectFiles = userProjectFiles;
     this.validationFiles = validationFiles;
-    this.tempFolder = tempFolder;
+    this.compiledClasses = new HashMap<>();
   }
 
   /**
@@ -38,18 +35,21 @@ public class CodeBuilder {
    *     unable to compile due to internal errors.
    */
   public void buildAllUserCode() throws InternalServerException, UserInitiatedException {
-    this.compileCode(this.userProjectFiles.getJavaFiles());
+    this.compileCode(this.userProjectFiles.getJavaFiles(), null);
   }
 
   /**
-   * Saves non-source code assets to storage and compiles a subset of the user's code.
+   * Saves non-source code assets to storage and compiles a subset of the user's code. The files are
+   * compiled incrementally: only files that changed since the last successful compile for the same
+   * channel, and the files that depend on them, are recompiled.
    *
    * @param compileList a list of file names to compile
+   * @param channelId identifies the project for incremental compiles, or null to compile every file
    * @throws InternalServerException if there is an internal error compiling or saving
    * @throws UserInitiatedException if no matching file names are found, or there is an issue
    *     compiling
    */
-  public void buildUserCode(List<String> compileList)
+  public void buildUserCode(List<String> compileList, String channelId)
       throws InternalServerException, UserInitiatedException {
     if (compileList == null) {
       throw new UserInitiatedException(UserInitiatedExceptionKey.NO_FILES_TO_COMPILE);
@@ -57,7 +57,7 @@ public class CodeBuilder {
     final List<JavaProjectFile> javaProjectFiles =
         this.userProjectFiles.getMatchingJavaFiles(compileList);
 
-    this.compileCode(javaProjectFiles);
+    this.compileCode(javaProjectFiles, channelId);
   }
 
   /**
@@ -70,10 +70,10 @@ public class CodeBuilder {
   public void buildUserAndValidationFiles() throws InternalServerException, UserInitiatedException {
     List<JavaProjectFile> allFiles = new ArrayList<>(this.validationFiles.getJavaFiles());
     allFiles.addAll(this.userProjectFiles.getJavaFiles());
-    this.compileCode(allFiles);
+    this.compileCode(allFiles, null);
   }
 
-  private void compileCode(List<JavaProjectFile> javaProjectFiles)
+  private void compileCode(List<JavaProjectFile> javaProjectFiles, String channelId)
       throws InternalServerException, UserInitiatedException {
     if (javaProjectFiles.isEmpty()) {
       throw new UserInitiatedException(UserInitiatedExceptionKey.NO_FILES_TO_COMPILE);
@@ -81,8 +81,8 @@ public class CodeBuilder {
 
     this.saveProjectAssets();
     UserCodeCompiler codeCompiler =
-        new UserCodeCompiler(javaProjectFiles, this.tempFolder, this.outputAdapter);
-    codeCompiler.compileProgram();
+        new UserCodeCompiler(javaProjectFiles, this.outputAdapter, channelId);
+    this.compiledClasses = codeCompiler.compileProgram();
   }
 
   /** Runs the main method of the student's code */
@@ -96,16 +96,12 @@ public class CodeBuilder {
   }
 
   /** Creates a runner for executing code */
-  private JavaRunner createJavaRunner() throws InternalServerException {
-    try {
-      return new JavaRunner(
-          this.tempFolder.toURI().toURL(),
-          this.userProjectFiles.getJavaFiles(),
-          this.validationFiles.getJavaFiles(),
-          this.outputAdapter);
-    } catch (MalformedURLException e) {
-      throw new InternalServerException(InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION, e);
-    }
+  private JavaRunner createJavaRunner() {
+    return new JavaRunner(
+        this.compiledClasses,
+        this.userProjectFiles.getJavaFiles(),
+        this.validationFiles.getJavaFiles(),
+        this.outputAdapter);
   }
 
   /** Save any non-source code files to storage */
@@ -1,6 +1,5 @@
 package org.code.javabuilder;
 
-import java.io.File;
 import java.util.List;
 import org.code.protocol.*;
 
@@ -10,19 +9,19 @@ import org.code.protocol.*;
  */
 public class CodeBuilderRunnable {
   private final ProjectFileLoader fileLoader;
-  private final File tempFolder;
   private final ExecutionType executionType;
   private final List<String> compileList;
+  private final String channelId;
 
   public CodeBuilderRunnable(
       ProjectFileLoader fileLoader,
-      File tempFolder,
       ExecutionType executionType,
-      List<String> compileList) {
+      List<String> compileList,
+      String channelId) {
     this.fileLoader = fileLoader;
-    this.tempFolder = tempFolder;
     this.executionType = executionType;
     this.compileList = compileList;
+    this.channelId = channelId;
   }
 
   public void run() throws JavabuilderException, InternalFacingException {
@@ -36,11 +35,10 @@ public class CodeBuilderRunnable {
         new CodeBuilder(
             JavabuilderContext.getInstance().getGlobalProtocol(),
             userProjectFiles,
-            validationFiles,
-            this.tempFolder);
+            validationFiles);
     switch (this.executionType) {
       case COMPILE_ONLY:
-        codeBuilder.buildUserCode(this.compileList);
+        codeBuilder.buildUserCode(this.compileList, this.channelId);
         break;
       case RUN:
         codeBuilder.buildAllUserCode();
@@ -2,11 +2,9 @@ package org.code.javabuilder;
 
 import static org.code.javabuilder.LambdaErrorCodes.TEMP_DIRECTORY_CLEANUP_ERROR_CODE;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
-import java.nio.file.Files;
 import java.util.List;
 import org.code.javabuilder.util.LambdaUtils;
 import org.code.protocol.*;
@@ -22,12 +20,12 @@ public class CodeExecutionManager {
   private final OutputAdapter outputAdapter;
   private final ExecutionType executionType;
   private final List<String> compileList;
+  private final String channelId;
   private final TempDirectoryManager tempDirectoryManager;
   private final ContentManager contentManager;
   private final SystemExitHelper systemExitHelper;
   private final CodeBuilderRunnableFactory codeBuilderRunnableFactory;
 
-  private File tempFolder;
   private InputRedirectionStream overrideInputStream;
   private OutputPrintStream overrideOutputStream;
   private InputStream systemInputStream;
@@ -37,10 +35,10 @@ public class CodeExecutionManager {
   static class CodeBuilderRunnableFactory {
     public CodeBuilderRunnable createCodeBuilderRunnable(
         ProjectFileLoader fileLoader,
-        File tempFolder,
         ExecutionType executionType,
-        List<String> compileList) {
-      return new CodeBuilderRunnable(fileLoader, tempFolder, executionType, compileList);
+        List<String> compileList,
+        String channelId) {
+      return new CodeBuilderRunnable(fileLoader, executionType, compileList, channelId);
     }
   }
 
@@ -50,6 +48,7 @@ public class CodeExecutionManager {
       OutputAdapter outputAdapter,
       ExecutionType executionType,
       List<String> compileList,
+      String channelId,
       TempDirectoryManager tempDirectoryManager,
       ContentManager contentManager,
       SystemExitHelper systemExitHelper) {
@@ -59,6 +58,7 @@ public class CodeExecutionManager {
         outputAdapter,
         executionType,
         compileList,
+        channelId,
         tempDirectoryManager,
         contentManager,
         systemExitHelper,
@@ -71,6 +71,7 @@ public class CodeExecutionManager {
       OutputAdapter outputAdapter,
       ExecutionType executionType,
       List<String> compileList,
+      String channelId,
       TempDirectoryManager tempDirectoryManager,
       ContentManager contentManager,
       SystemExitHelper systemExitHelper,
@@ -80,6 +81,7 @@ public class CodeExecutionManager {
     this.outputAdapter = outputAdapter;
     this.executionType = executionType;
     this.compileList = compileList;
+    this.channelId = channelId;
     this.tempDirectoryManager = tempDirectoryManager;
     this.contentManager = contentManager;
     this.systemExitHelper = systemExitHelper;
@@ -99,8 +101,14 @@ public class CodeExecutionManager {
     this.onPreExecute();
     final CodeBuilderRunnable runnable =
         this.codeBuilderRunnableFactory.createCodeBuilderRunnable(
-            this.fileLoader, this.tempFolder, this.executionType, this.compileList);
-    runnable.run();
+            this.fileLoader, this.executionType, this.compileList, this.channelId);
+    try {
+      runnable.run();
+    } finally {
+      // Output held back by the program's libraries must reach the client before the program's
+      // exit or exception is reported.
+      JavabuilderContext.getInstance().flushOutput();
+    }
   }
 
   /**
@@ -114,24 +122,14 @@ public class CodeExecutionManager {
     this.onPostExecute();
   }
 
-  /**
-   * Pre-execution steps: 1) Create GlobalProtocol, 2) create temporary folder, 3) Replace
-   * System.in/out with custom in/out
-   */
-  private void onPreExecute() throws InternalServerException {
+  /** Pre-execution steps: 1) Create GlobalProtocol, 2) Replace System.in/out with custom in/out */
+  private void onPreExecute() {
     // Create the Global Protocol instance
     GlobalProtocol protocolInstance =
         new GlobalProtocol(
             this.outputAdapter, new InputHandler(this.inputAdapter), this.contentManager);
     JavabuilderContext.getInstance().register(GlobalProtocol.class, protocolInstance);
 
-    // Create temp folder
-    try {
-      this.tempFolder = Files.createTempDirectory("tmpdir").toFile();
-    } catch (IOException e) {
-      throw new InternalServerException(InternalExceptionKey.INTERNAL_EXCEPTION, e);
-    }
-
     // Save System in/out and replace with custom in/out
     this.systemInputStream = System.in;
     this.systemOutputStream = System.out;
@@ -143,20 +141,32 @@ public class CodeExecutionManager {
   }
 
   /**
-   * Post-execution steps: 1) Notify listeners, 2) clean up global resources, 3) clear temporary
-   * folder, 4) close custom in/out streams, 5) Replace System.in/out with original in/out
+   * Post-execution steps: 1) Deliver remaining output and notify listeners, 2) clean up global
+   * resources, 3) clear temporary directory, 4) close custom in/out streams, 5) Replace
+   * System.in/out with original in/out
    */
   private void onPostExecute() {
+    // Make sure all output from the user's program has been delivered before notifying the user
+    // that it has exited, then wait for that notification to be delivered as well.
+    try {
+      // Output printed without a trailing newline is still buffered in System.out.
+      this.overrideOutputStream.flush();
+    } catch (RuntimeException e) {
+      // Any problem sending output is reported by flushing the OutputAdapter below.
+    }
+    LambdaUtils.safelyFlush(this.outputAdapter, false);
     // Notify user and listeners
     LambdaUtils.safelySendMessage(
         this.outputAdapter, new StatusMessage(StatusMessageKey.EXITED), false);
+    LambdaUtils.safelyFlush(this.outputAdapter, false);
     JavabuilderContext.getInstance().onExecutionEnded();
     try {
       // Close custom input/output streams
       this.overrideInputStream.close();
       this.overrideOutputStream.close();
-      // Clear temp folder
-      this.tempDirectoryManager.cleanUpTempDirectory(this.tempFolder);
+      // Compiled classes are kept in memory, but the user's program may have written files to the
+      // temp directory.
+      this.tempDirectoryManager.cleanUpTempDirectory(null);
     } catch (IOException e) {
       // If there was an issue clearing the temp directory, this may be because too many files are
       // open. Force the JVM to quit in order to release the resources for the next use of the
@@ -0,0 +1,237 @@
+package org.code.javabuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.code.javabuilder.util.JarUtils;
+import org.code.protocol.InternalExceptionKey;
+import org.code.protocol.InternalServerRuntimeException;
+import org.code.protocol.LoggerUtils;
+
+/**
+ * Caches the results of compiling user code, so that running the same unchanged project again, or
+ * running starter code that many students share, does not need a full compile. Results are keyed by
+ * a hash of the names and contents of the files being compiled, the user-facing api jars they are
+ * compiled against and the Java version.
+ *
+ * <p>There are two tiers. The in-container tier keeps the most recently used results in memory, up
+ * to a total size. If a {@link CompilationStore} is provided, results are also saved to it, and
+ * results missing from memory are looked up there before compiling. Problems reading or writing the
+ * store are logged and otherwise ignored, as the cache can always fall back to compiling.
+ *
+ * <p>The cache also keeps the {@link IncrementalCompilationState} of the last successful compile of
+ * recently compiled projects, so that a project that has changed only needs to be partly
+ * recompiled.
+ */
+public class CompilationCache {
+  static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+  static final int MAX_INCREMENTAL_STATES = 64;
+  private static final String HASH_ALGORITHM = "SHA-256";
+
+  private static CompilationCache compilationCacheInstance;
+
+  private final long maxBytes;
+  private final CompilationStore persistentStore;
+  // In access order, so the first entry is always the least recently used.
+  private final LinkedHashMap<String, CompilationResult> entries;
+  private final LinkedHashMap<String, IncrementalCompilationState> incrementalStates;
+  private long totalBytes;
+  private String libraryFingerprint;
+
+  /** Creates an in-memory cache for the entire container. */
+  public static void create() {
+    CompilationCache.create(null);
+  }
+
+  /**
+   * Creates a cache for the entire container, backed by the given persistent store.
+   *
+   * @param persistentStore the persistent tier, or null to only cache results in memory
+   */
+  public static void create(CompilationStore persistentStore) {
+    CompilationCache.compilationCacheInstance =
+        new CompilationCache(DEFAULT_MAX_BYTES, persistentStore, null);
+  }
+
+  public static CompilationCache getInstance() {
+    if (CompilationCache.compilationCacheInstance == null) {
+      Throwable cause = new IllegalStateException("Compilation cache not found.");
+      throw new InternalServerRuntimeException(InternalExceptionKey.INTERNAL_EXCEPTION, cause);
+    }
+    return CompilationCache.compilationCacheInstance;
+  }
+
+  /**
+   * @param maxBytes the total size of results to keep in memory
+   * @param persistentStore the persistent tier, or null to only cache results in memory
+   * @param libraryFingerprint identifies the api jars and Java version, or null to compute it from
+   *     the jars on first use
+   */
+  CompilationCache(long maxBytes, CompilationStore persistentStore, String libraryFingerprint) {
+    this.maxBytes = maxBytes;
+    this.persistentStore = persistentStore;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    this.incrementalStates = new LinkedHashMap<>(16, 0.75f, true);
+    this.totalBytes = 0;
+    this.libraryFingerprint = libraryFingerprint;
+  }
+
+  /**
+   * @param javaFiles the files that will be compiled together
+   * @return the key to cache the result of compiling the given files under
+   * @throws InternalServerException if the api jars cannot be read
+   */
+  public String computeKey(List<JavaProjectFile> javaFiles) throws InternalServerException {
+    final MessageDigest digest = CompilationCache.createDigest();
+    CompilationCache.updateDigest(digest, this.getLibraryFingerprint());
+    for (JavaProjectFile javaFile : javaFiles) {
+      CompilationCache.updateDigest(digest, javaFile.getFileName());
+      CompilationCache.updateDigest(digest, javaFile.getFileContents());
+    }
+    return CompilationCache.toHex(digest.digest());
+  }
+
+  /**
+   * @param key the key computed for the files being compiled
+   * @return the cached result of compiling the files, or null if there is none
+   */
+  public CompilationResult get(String key) {
+    synchronized (this) {
+      final CompilationResult result = this.entries.get(key);
+      if (result != null || this.persistentStore == null) {
+        return result;
+      }
+    }
+
+    final CompilationResult storedResult;
+    try {
+      storedResult = this.persistentStore.load(key);
+    } catch (IOException e) {
+      LoggerUtils.logTrackingExceptionAsWarning(e);
+      return null;
+    }
+    if (storedResult != null) {
+      this.putInMemory(key, storedResult);
+    }
+    return storedResult;
+  }
+
+  /**
+   * Caches the result of compiling the files with the given key.
+   *
+   * @param key the key computed for the files that were compiled
+   * @param result the result of compiling them
+   */
+  public void put(String key, CompilationResult result) {
+    this.putInMemory(key, result);
+    if (this.persistentStore == null) {
+      return;
+    }
+    try {
+      this.persistentStore.save(key, result);
+    } catch (IOException e) {
+      LoggerUtils.logTrackingExceptionAsWarning(e);
+    }
+  }
+
+  /**
+   * @param projectKey identifies the project, such as its channel id
+   * @return the state of the last successful compile of the project, or null if there is none
+   */
+  public synchronized IncrementalCompilationState getIncrementalState(String projectKey) {
+    return this.incrementalStates.get(projectKey);
+  }
+
+  /**
+   * Keeps the state of the latest successful compile of the given project, replacing any earlier
+   * state. Only the most recently compiled projects are kept.
+   *
+   * @param projectKey identifies the project, such as its channel id
+   * @param state the state of the compile
+   */
+  public synchronized void putIncrementalState(
+      String projectKey, IncrementalCompilationState state) {
+    this.incrementalStates.put(projectKey, state);
+    final Iterator<String> leastRecentlyUsed = this.incrementalStates.keySet().iterator();
+    while (this.incrementalStates.size() > MAX_INCREMENTAL_STATES) {
+      leastRecentlyUsed.next();
+      leastRecentlyUsed.remove();
+    }
+  }
+
+  private synchronized void putInMemory(String key, CompilationResult result) {
+    // A result that could never fit would only evict everything else.
+    if (result.getSizeBytes() > this.maxBytes) {
+      return;
+    }
+    final CompilationResult previous = this.entries.put(key, result);
+    if (previous != null) {
+      this.totalBytes -= previous.getSizeBytes();
+    }
+    this.totalBytes += result.getSizeBytes();
+
+    final Iterator<CompilationResult> leastRecentlyUsed = this.entries.values().iterator();
+    while (this.totalBytes > this.maxBytes) {
+      this.totalBytes -= leastRecentlyUsed.next().getSizeBytes();
+      leastRecentlyUsed.remove();
+    }
+  }
+
+  /**
+   * The api jars change with every deploy, so they are hashed by content, once per container. The
+   * Java version is included as it determines the bytecode the compiler produces.
+   */
+  private synchronized String getLibraryFingerprint() throws InternalServerException {
+    if (this.libraryFingerprint != null) {
+      return this.libraryFingerprint;
+    }
+    final MessageDigest digest = CompilationCache.createDigest();
+    CompilationCache.updateDigest(digest, System.getProperty("java.version"));
+    final byte[] buffer = new byte[8192];
+    for (File jarFile : JarUtils.getAllJarFiles()) {
+      try (InputStream jarStream = Files.newInputStream(jarFile.toPath())) {
+        int bytesRead;
+        while ((bytesRead = jarStream.read(buffer)) != -1) {
+          digest.update(buffer, 0, bytesRead);
+        }
+      } catch (IOException e) {
+        throw new InternalServerException(InternalExceptionKey.INTERNAL_COMPILER_EXCEPTION, e);
+      }
+    }
+    this.libraryFingerprint = CompilationCache.toHex(digest.digest());
+    return this.libraryFingerprint;
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java implementation is required to support SHA-256.
+      throw new InternalServerRuntimeException(InternalExceptionKey.INTERNAL_EXCEPTION, e);
+    }
+  }
+
+  /** Adds a length-prefixed string, so that ("ab", "c") and ("a", "bc") hash differently. */
+  private static void updateDigest(MessageDigest digest, String value) {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+    digest.update(bytes);
+  }
+
+  private static String toHex(byte[] bytes) {
+    final StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+      hex.append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+}
@@ -0,0 +1,60 @@
+package org.code.javabuilder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of compiling a set of user files: the compiled classes if compilation succeeded, and
+ * the compiler output that is shown to the user either way. Results are shared between sessions by
+ * the {@link CompilationCache}, so they cannot be modified once created.
+ */
+public class CompilationResult {
+  // Rough allowance for the map and list entries themselves, on top of their contents.
+  private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+  private final Map<String, byte[]> compiledClasses;
+  private final List<String> compilerOutput;
+  private final long sizeBytes;
+
+  /**
+   * @param compiledClasses the bytecode of each compiled class keyed by binary class name, or null
+   *     if compilation failed
+   * @param compilerOutput the formatted compiler errors and warnings, in the order they are shown
+   *     to the user
+   */
+  public CompilationResult(Map<String, byte[]> compiledClasses, List<String> compilerOutput) {
+    this.compiledClasses =
+        compiledClasses == null ? null : Collections.unmodifiableMap(compiledClasses);
+    this.compilerOutput = List.copyOf(compilerOutput);
+
+    long size = 0;
+    if (compiledClasses != null) {
+      for (Map.Entry<String, byte[]> entry : compiledClasses.entrySet()) {
+        size += ENTRY_OVERHEAD_BYTES + 2L * entry.getKey().length() + entry.getValue().length;
+      }
+    }
+    for (String output : compilerOutput) {
+      size += ENTRY_OVERHEAD_BYTES + 2L * output.length();
+    }
+    this.sizeBytes = size;
+  }
+
+  public boolean isSuccessful() {
+    return this.compiledClasses != null;
+  }
+
+  /** @return the compiled classes keyed by binary class name, or null if compilation failed */
+  public Map<String, byte[]> getCompiledClasses() {
+    return this.compiledClasses;
+  }
+
+  public List<String> getCompilerOutput() {
+    return this.compilerOutput;
+  }
+
+  /** @return an estimate of the memory used by this result */
+  public long getSizeBytes() {
+    return this.sizeBytes;
+  }
+}
@@ -0,0 +1,25 @@
+package org.code.javabuilder;
+
+import java.io.IOException;
+
+/**
+ * A persistent tier for the {@link CompilationCache}. Unlike the in-container tier, results in a
+ * persistent store can outlive the container and be shared between containers.
+ */
+public interface CompilationStore {
+  /**
+   * @param key the key the result was saved under
+   * @return the saved result, or null if there is none
+   * @throws IOException if the store cannot be read
+   */
+  CompilationResult load(String key) throws IOException;
+
+  /**
+   * Saves the given result, replacing any result already saved under the key.
+   *
+   * @param key the key to save the result under
+   * @param result the result to save
+   * @throws IOException if the store cannot be written
+   */
+  void save(String key, CompilationResult result) throws IOException;
+}
@@ -0,0 +1,112 @@
+package org.code.javabuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * A JavaFileManager that keeps compiled classes in memory instead of writing .class files to disk.
+ * All other file operations, such as looking up the user-facing api jars on the classpath, are
+ * passed through to the given StandardJavaFileManager.
+ *
+ * <p>Classes compiled previously can be added to the classpath, so that only some of a project's
+ * files need to be compiled again.
+ */
+public class InMemoryJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+  private final Map<String, byte[]> compiledClasses;
+  private final Map<String, String> classSources;
+  private final Map<String, byte[]> classpathClasses;
+
+  public InMemoryJavaFileManager(StandardJavaFileManager fileManager) {
+    this(fileManager, Map.of());
+  }
+
+  /**
+   * @param fileManager the file manager to pass all other file operations to
+   * @param classpathClasses the bytecode of previously compiled classes to add to the classpath,
+   *     keyed by binary class name
+   */
+  public InMemoryJavaFileManager(
+      StandardJavaFileManager fileManager, Map<String, byte[]> classpathClasses) {
+    super(fileManager);
+    this.compiledClasses = new HashMap<>();
+    this.classSources = new HashMap<>();
+    this.classpathClasses = classpathClasses;
+  }
+
+  @Override
+  public JavaFileObject getJavaFileForOutput(
+      JavaFileManager.Location location,
+      String className,
+      JavaFileObject.Kind kind,
+      FileObject sibling) {
+    if (location == StandardLocation.CLASS_OUTPUT && kind == JavaFileObject.Kind.CLASS) {
+      if (sibling != null) {
+        this.classSources.put(className, sibling.getName());
+      }
+      return new JavaClassFromBytes(className, this.compiledClasses);
+    }
+    throw new UnsupportedOperationException(
+        String.format("Unable to write %s %s to %s", kind, className, location.getName()));
+  }
+
+  @Override
+  public Iterable<JavaFileObject> list(
+      JavaFileManager.Location location,
+      String packageName,
+      Set<JavaFileObject.Kind> kinds,
+      boolean recurse)
+      throws IOException {
+    final Iterable<JavaFileObject> files = super.list(location, packageName, kinds, recurse);
+    if (location != StandardLocation.CLASS_PATH
+        || !kinds.contains(JavaFileObject.Kind.CLASS)
+        || this.classpathClasses.isEmpty()) {
+      return files;
+    }
+
+    final List<JavaFileObject> allFiles = new ArrayList<>();
+    files.forEach(allFiles::add);
+    for (String className : this.classpathClasses.keySet()) {
+      final int packageEnd = className.lastIndexOf('.');
+      final String classPackage = packageEnd < 0 ? "" : className.substring(0, packageEnd);
+      if (classPackage.equals(packageName)
+          || (recurse && classPackage.startsWith(packageName + "."))) {
+        allFiles.add(new JavaClassFromBytes(className, this.classpathClasses));
+      }
+    }
+    return allFiles;
+  }
+
+  @Override
+  public String inferBinaryName(JavaFileManager.Location location, JavaFileObject file) {
+    if (file instanceof JavaClassFromBytes) {
+      return ((JavaClassFromBytes) file).getClassName();
+    }
+    return super.inferBinaryName(location, file);
+  }
+
+  /**
+   * @return the bytecode of every class compiled so far, keyed by binary class name (for example,
+   *     "Main" or "Main$Inner")
+   */
+  public Map<String, byte[]> getCompiledClasses() {
+    return this.compiledClasses;
+  }
+
+  /**
+   * @return the name of the source file each class compiled so far was compiled from, keyed by
+   *     binary class name
+   */
+  public Map<String, String> getClassSources() {
+    return this.classSources;
+  }
+}
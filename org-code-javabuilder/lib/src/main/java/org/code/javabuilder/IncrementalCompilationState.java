@@ -0,0 +1,235 @@
+package org.code.javabuilder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The result of the last successful compile of a project, kept so that the next compile of the
+ * project only needs to recompile the files that changed and the files that depend on them.
+ *
+ * <p>Dependencies are found from the source rather than the bytecode: a file is considered to
+ * depend on a class if the class's name appears anywhere in the file, including in comments and
+ * strings. This may recompile more files than necessary, but never fewer. Files are identified by
+ * the name of their source file object (for example, "/Main.java").
+ *
+ * <p>The compiler output of each file is kept too, so that a compile which reuses a file's classes
+ * still shows its warnings. Output that is not about any one file is keyed by {@link #NO_SOURCE}
+ * and comes from the last compile that recompiled any file.
+ */
+public class IncrementalCompilationState {
+  /** The key of compiler output that is not about any one file. */
+  public static final String NO_SOURCE = "";
+
+  private final Map<String, String> sourceContents;
+  private final Map<String, Set<String>> sourceIdentifiers;
+  private final Map<String, Set<String>> sourceClasses;
+  private final Map<String, byte[]> compiledClasses;
+  private final Map<String, List<String>> compilerOutput;
+
+  /**
+   * @param sourceContents the contents of every compiled file, keyed by file name
+   * @param compiledClasses the bytecode of every compiled class, keyed by binary class name
+   * @param classSources the name of the file each compiled class was compiled from, keyed by binary
+   *     class name
+   * @param compilerOutput the formatted compiler output of each file that had any, keyed by file
+   *     name or {@link #NO_SOURCE}
+   */
+  public IncrementalCompilationState(
+      Map<String, String> sourceContents,
+      Map<String, byte[]> compiledClasses,
+      Map<String, String> classSources,
+      Map<String, List<String>> compilerOutput) {
+    this.sourceContents = Map.copyOf(sourceContents);
+    this.compiledClasses = Collections.unmodifiableMap(new HashMap<>(compiledClasses));
+    this.compilerOutput = Map.copyOf(compilerOutput);
+    this.sourceIdentifiers = new HashMap<>();
+    this.sourceClasses = new HashMap<>();
+    for (Map.Entry<String, String> source : sourceContents.entrySet()) {
+      this.sourceIdentifiers.put(
+          source.getKey(), IncrementalCompilationState.getIdentifiers(source.getValue()));
+      this.sourceClasses.put(source.getKey(), new HashSet<>());
+    }
+    for (Map.Entry<String, String> classSource : classSources.entrySet()) {
+      if (this.sourceClasses.containsKey(classSource.getValue())) {
+        this.sourceClasses.get(classSource.getValue()).add(classSource.getKey());
+      }
+    }
+  }
+
+  /**
+   * Finds the files that need to be recompiled: files that are new or have changed since this
+   * compile, and every file that depends, directly or indirectly, on a class declared by one of
+   * those files or by a file that has since been removed.
+   *
+   * @param newSourceContents the contents of every file to compile now, keyed by file name
+   * @return the names of the files to recompile
+   */
+  public Set<String> getSourcesToRecompile(Map<String, String> newSourceContents) {
+    final Set<String> sourcesToRecompile = new HashSet<>();
+    final Set<String> changedClassNames = new HashSet<>();
+    for (Map.Entry<String, String> source : newSourceContents.entrySet()) {
+      if (!source.getValue().equals(this.sourceContents.get(source.getKey()))) {
+        sourcesToRecompile.add(source.getKey());
+        changedClassNames.addAll(this.getDeclaredClassNames(source.getKey()));
+      }
+    }
+    for (String sourceName : this.sourceContents.keySet()) {
+      if (!newSourceContents.containsKey(sourceName)) {
+        changedClassNames.addAll(this.getDeclaredClassNames(sourceName));
+      }
+    }
+
+    boolean foundDependent = true;
+    while (foundDependent) {
+      foundDependent = false;
+      for (String sourceName : newSourceContents.keySet()) {
+        if (!sourcesToRecompile.contains(sourceName)
+            && !Collections.disjoint(this.sourceIdentifiers.get(sourceName), changedClassNames)) {
+          sourcesToRecompile.add(sourceName);
+          changedClassNames.addAll(this.getDeclaredClassNames(sourceName));
+          foundDependent = true;
+        }
+      }
+    }
+    return sourcesToRecompile;
+  }
+
+  /**
+   * @param sourceNames the files that are not being recompiled
+   * @return the bytecode of the classes compiled from the given files, keyed by binary class name
+   */
+  public Map<String, byte[]> getCompiledClasses(Set<String> sourceNames) {
+    final Map<String, byte[]> classes = new HashMap<>();
+    for (String sourceName : sourceNames) {
+      for (String className : this.sourceClasses.get(sourceName)) {
+        classes.put(className, this.compiledClasses.get(className));
+      }
+    }
+    return classes;
+  }
+
+  /**
+   * Checks that recompiling only some files produced the same result a full compile would have. A
+   * recompiled file that now declares a class it did not declare before could clash with, or change
+   * the meaning of, a file that was not recompiled.
+   *
+   * @param reusedSourceNames the files that were not recompiled
+   * @param recompiledClassSources the name of the file each recompiled class was compiled from,
+   *     keyed by binary class name
+   * @return true if the recompiled classes cannot affect any of the files that were not recompiled
+   */
+  public boolean isUnaffected(
+      Set<String> reusedSourceNames, Map<String, String> recompiledClassSources) {
+    final Set<String> newClassNames = new HashSet<>();
+    for (Map.Entry<String, String> classSource : recompiledClassSources.entrySet()) {
+      final String className = IncrementalCompilationState.getSimpleName(classSource.getKey());
+      if (!this.getDeclaredClassNames(classSource.getValue()).contains(className)) {
+        newClassNames.add(className);
+      }
+    }
+    for (String sourceName : reusedSourceNames) {
+      if (!Collections.disjoint(this.sourceIdentifiers.get(sourceName), newClassNames)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates the state after recompiling some of the files. Classes of files that were not
+   * recompiled are carried over from this state.
+   *
+   * @param newSourceContents the contents of every file that was compiled now, keyed by file name
+   * @param recompiledSourceNames the files that were recompiled
+   * @param recompiledClasses the bytecode of every recompiled class, keyed by binary class name
+   * @param recompiledClassSources the name of the file each recompiled class was compiled from,
+   *     keyed by binary class name
+   * @param recompiledCompilerOutput the compiler output of the recompiled files, keyed by file name
+   *     or {@link #NO_SOURCE}
+   * @return the state of the project after this compile
+   */
+  public IncrementalCompilationState update(
+      Map<String, String> newSourceContents,
+      Set<String> recompiledSourceNames,
+      Map<String, byte[]> recompiledClasses,
+      Map<String, String> recompiledClassSources,
+      Map<String, List<String>> recompiledCompilerOutput) {
+    final Map<String, byte[]> classes = new HashMap<>();
+    final Map<String, String> classSources = new HashMap<>();
+    final Map<String, List<String>> compilerOutput = new HashMap<>();
+    for (String sourceName : newSourceContents.keySet()) {
+      if (recompiledSourceNames.contains(sourceName)) {
+        continue;
+      }
+      for (String className : this.sourceClasses.get(sourceName)) {
+        classes.put(className, this.compiledClasses.get(className));
+        classSources.put(className, sourceName);
+      }
+      if (this.compilerOutput.containsKey(sourceName)) {
+        compilerOutput.put(sourceName, this.compilerOutput.get(sourceName));
+      }
+    }
+    if (recompiledSourceNames.isEmpty() && this.compilerOutput.containsKey(NO_SOURCE)) {
+      compilerOutput.put(NO_SOURCE, this.compilerOutput.get(NO_SOURCE));
+    }
+    classes.putAll(recompiledClasses);
+    classSources.putAll(recompiledClassSources);
+    compilerOutput.putAll(recompiledCompilerOutput);
+    return new IncrementalCompilationState(
+        newSourceContents, classes, classSources, compilerOutput);
+  }
+
+  /** @return the bytecode of every class in the project, keyed by binary class name */
+  public Map<String, byte[]> getCompiledClasses() {
+    return this.compiledClasses;
+  }
+
+  /**
+   * @return the compiler output of each file that had any, keyed by file name or {@link #NO_SOURCE}
+   */
+  public Map<String, List<String>> getCompilerOutput() {
+    return this.compilerOutput;
+  }
+
+  /**
+   * @return the simple names of the top-level classes compiled from the given file, or an empty set
+   *     if the file was not part of this compile
+   */
+  private Set<String> getDeclaredClassNames(String sourceName) {
+    final Set<String> classNames = new HashSet<>();
+    for (String className : this.sourceClasses.getOrDefault(sourceName, Set.of())) {
+      classNames.add(IncrementalCompilationState.getSimpleName(className));
+    }
+    return classNames;
+  }
+
+  /**
+   * @return the simple name of the top-level class of a binary class name such as "a.Main$Inner"
+   */
+  private static String getSimpleName(String className) {
+    final String simpleName = className.substring(className.lastIndexOf('.') + 1);
+    final int nestedStart = simpleName.indexOf('$');
+    return nestedStart < 0 ? simpleName : simpleName.substring(0, nestedStart);
+  }
+
+  /** @return every word in the source that could be a Java identifier */
+  private static Set<String> getIdentifiers(String source) {
+    final Set<String> identifiers = new HashSet<>();
+    int start = -1;
+    for (int i = 0; i <= source.length(); i++) {
+      final boolean isPart =
+          i < source.length() && Character.isJavaIdentifierPart(source.charAt(i));
+      if (start < 0 && isPart && Character.isJavaIdentifierStart(source.charAt(i))) {
+        start = i;
+      } else if (start >= 0 && !isPart) {
+        identifiers.add(source.substring(start, i));
+        start = -1;
+      }
+    }
+    return identifiers;
+  }
+}
@@ -1,10 +1,7 @@
 package org.code.javabuilder;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.LinkedList;
-import java.util.Queue;
 import org.code.protocol.InputHandler;
 import org.code.protocol.InputMessageType;
 
@@ -13,44 +10,41 @@ import org.code.protocol.InputMessageType;
  * to use the InputAdapter rather than the server's console. See
  * https://docs.oracle.com/javase/8/docs/api/java/io/InputStream.html for full implementation
  * details & contract.
+ *
+ * <p>Bytes of a message are kept in a ring buffer of primitive bytes that grows to fit the largest
+ * message received, so reading large pasted input does not allocate per byte.
  */
 public class InputRedirectionStream extends InputStream {
-  private final Queue<Byte> queue;
+  private static final int INITIAL_BUFFER_SIZE = 256;
+
   private final InputHandler inputAdapter;
+  private byte[] buffer;
+  // Index of the next byte to read, and the number of bytes buffered from there (wrapping around).
+  private int head;
+  private int size;
 
   public InputRedirectionStream(InputHandler inputHandler) {
     this.inputAdapter = inputHandler;
-    this.queue = new LinkedList<>();
+    this.buffer = new byte[INITIAL_BUFFER_SIZE];
+    this.head = 0;
+    this.size = 0;
   }
 
   /**
-   * See: https://docs.oracle.com/javase/8/docs/api/java/io/InputStream.html#read-- Checks the queue
-   * for existing bytes. If the queue is empty, polls the inputAdapter for new data. This is a
-   * blocking call.
+   * See: https://docs.oracle.com/javase/8/docs/api/java/io/InputStream.html#read-- Checks the
+   * buffer for existing bytes. If the buffer is empty, polls the inputAdapter for new data. This is
+   * a blocking call.
    *
-   * @return the first byte in the queue
+   * @return the first byte in the buffer, or -1 if there is no more input
    */
   @Override
   public int read() {
-    if (queue.peek() == null) {
-      // The Java Lab console is an <input> element that uses the enter key to trigger onSubmit.
-      // Rather than adding an arbitrary line separator from the client, we instead add the
-      // separator here so we can use a line separator that Scanner will recognize.
-      final String stringMessage = inputAdapter.getNextMessageForType(InputMessageType.SYSTEM_IN);
-      // a null message means we've lost connection to the input adapter and won't receive any more
-      // messages.
-      // Therefore we can safely return -1 (end of input).
-      if (stringMessage == null) {
-        return -1;
-      }
-      final String messageWithNewline = stringMessage + System.lineSeparator();
-      byte[] message = messageWithNewline.getBytes(StandardCharsets.UTF_8);
-      for (byte b : message) {
-        queue.add(b);
-      }
+    if (!this.fillIfEmpty()) {
+      return -1;
     }
-
-    return (int) queue.remove();
+    final int b = this.buffer[this.head] & 0xFF;
+    this.consume(1);
+    return b;
   }
 
   /** See: https://docs.oracle.com/javase/8/docs/api/java/io/InputStream.html#read-byte:A- */
@@ -61,6 +55,7 @@ public class InputRedirectionStream extends InputStream {
 
   /**
    * See: https://docs.oracle.com/javase/8/docs/api/java/io/InputStream.html#read-byte:A-int-int-
+   * Blocks only if no bytes are buffered, then reads as many buffered bytes as fit.
    */
   @Override
   public int read(byte[] b, int off, int len) {
@@ -70,34 +65,42 @@ public class InputRedirectionStream extends InputStream {
     if (off < 0 || len < 0 || len > b.length - off) {
       throw new IndexOutOfBoundsException();
     }
-
-    int k = 0;
-    while (k < len) {
-      b[off + k] = (byte) this.read();
-      k++;
-      if (queue.peek() == null) {
-        break;
-      }
+    if (len == 0) {
+      return 0;
+    }
+    if (!this.fillIfEmpty()) {
+      return -1;
     }
 
-    return k;
+    final int count = Math.min(len, this.size);
+    final int firstPart = Math.min(count, this.buffer.length - this.head);
+    System.arraycopy(this.buffer, this.head, b, off, firstPart);
+    System.arraycopy(this.buffer, 0, b, off + firstPart, count - firstPart);
+    this.consume(count);
+    return count;
   }
 
   /**
-   * See: https://docs.oracle.com/javase/8/docs/api/java/io/InputStream.html#skip-long-
+   * See: https://docs.oracle.com/javase/8/docs/api/java/io/InputStream.html#skip-long- Like {@link
+   * #read(byte[], int, int)}, blocks only if no bytes are buffered, then skips as many buffered
+   * bytes as requested.
    *
-   * @throws IOException Per the oracle docs, this can throw an exception if we choose not to
-   *     implement skip. Skip does not make sense for our uses, so we throw the exception.
+   * @return the number of bytes skipped, which is 0 if there is no more input
    */
   @Override
-  public long skip(long n) throws IOException {
-    throw new IOException();
+  public long skip(long n) {
+    if (n <= 0 || !this.fillIfEmpty()) {
+      return 0;
+    }
+    final int count = (int) Math.min(n, this.size);
+    this.consume(count);
+    return count;
   }
 
   /** See: https://docs.oracle.com/javase/8/docs/api/java/io/InputStream.html#available-- */
   @Override
   public int available() {
-    return queue.size();
+    return this.size;
   }
 
   /**
@@ -109,4 +112,55 @@ public class InputRedirectionStream extends InputStream {
   public boolean markSupported() {
     return false;
   }
+
+  /**
+   * Waits for the next message if the buffer is empty.
+   *
+   * @return false if the buffer is empty and there will be no more input
+   */
+  private boolean fillIfEmpty() {
+    if (this.size > 0) {
+      return true;
+    }
+    // The Java Lab console is an <input> element that uses the enter key to trigger onSubmit.
+    // Rather than adding an arbitrary line separator from the client, we instead add the
+    // separator here so we can use a line separator that Scanner will recognize.
+    final String stringMessage = inputAdapter.getNextMessageForType(InputMessageType.SYSTEM_IN);
+    // a null message means we've lost connection to the input adapter and won't receive any more
+    // messages.
+    // Therefore we can safely return -1 (end of input).
+    if (stringMessage == null) {
+      return false;
+    }
+    final String messageWithNewline = stringMessage + System.lineSeparator();
+    this.append(messageWithNewline.getBytes(StandardCharsets.UTF_8));
+    return true;
+  }
+
+  /** Adds bytes to the end of the buffer, growing it if they do not fit. */
+  private void append(byte[] bytes) {
+    if (this.size + bytes.length > this.buffer.length) {
+      int newLength = this.buffer.length * 2;
+      while (newLength < this.size + bytes.length) {
+        newLength *= 2;
+      }
+      final byte[] grown = new byte[newLength];
+      final int firstPart = Math.min(this.size, this.buffer.length - this.head);
+      System.arraycopy(this.buffer, this.head, grown, 0, firstPart);
+      System.arraycopy(this.buffer, 0, grown, firstPart, this.size - firstPart);
+      this.buffer = grown;
+      this.head = 0;
+    }
+
+    final int tail = (this.head + this.size) % this.buffer.length;
+    final int firstPart = Math.min(bytes.length, this.buffer.length - tail);
+    System.arraycopy(bytes, 0, this.buffer, tail, firstPart);
+    System.arraycopy(bytes, firstPart, this.buffer, 0, bytes.length - firstPart);
+    this.size += bytes.length;
+  }
+
+  private void consume(int count) {
+    this.head = (this.head + count) % this.buffer.length;
+    this.size -= count;
+  }
 }
@@ -11,4 +11,5 @@ public final class InternalFacingExceptionTypes {
 
   public static final String CONNECTION_TERMINATED = "CONNECTION_TERMINATED";
   public static final String INVALID_INPUT = "INVALID_INPUT";
+  public static final String OUTPUT_STALLED = "OUTPUT_STALLED";
 }
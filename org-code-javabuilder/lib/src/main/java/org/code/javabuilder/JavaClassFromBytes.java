@@ -0,0 +1,58 @@
+package org.code.javabuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * A file object used to hold compiled bytecode in memory. Once the compiler has finished writing
+ * the class, its bytecode is stored in the given map under the class's binary name. A class that is
+ * already in the map can be read back, which is how previously compiled classes are put on the
+ * classpath.
+ */
+public class JavaClassFromBytes extends SimpleJavaFileObject {
+  private final String className;
+  private final Map<String, byte[]> compiledClasses;
+
+  /**
+   * Constructs a new JavaClassFromBytes.
+   *
+   * @param className the binary name of the class represented by this file object
+   * @param compiledClasses the map to store the class's bytecode in once it has been written, or to
+   *     read it from
+   */
+  JavaClassFromBytes(String className, Map<String, byte[]> compiledClasses) {
+    super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+    this.className = className;
+    this.compiledClasses = compiledClasses;
+  }
+
+  public String getClassName() {
+    return this.className;
+  }
+
+  @Override
+  public InputStream openInputStream() throws IOException {
+    final byte[] classBytes = this.compiledClasses.get(this.className);
+    if (classBytes == null) {
+      throw new FileNotFoundException(this.toUri().toString());
+    }
+    return new ByteArrayInputStream(classBytes);
+  }
+
+  @Override
+  public OutputStream openOutputStream() {
+    return new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        compiledClasses.put(className, this.toByteArray());
+      }
+    };
+  }
+}
@@ -51,6 +51,10 @@ public class LambdaRequestHandler implements RequestHandler<Map<String, String>,
   private static final String API_ENDPOINT = System.getenv("API_ENDPOINT");
   private static final String UNHEALTHY_CONTAINERS_TABLE_NAME =
       System.getenv("UNHEALTHY_CONTAINERS_TABLE_NAME");
+  // Whether to decode every instrument sample while the container starts, so that no run waits
+  // for it. Only worth it for containers that run Theater projects.
+  private static final boolean PRELOAD_INSTRUMENT_SAMPLES =
+      Boolean.parseBoolean(System.getenv("PRELOAD_INSTRUMENT_SAMPLES"));
 
   // Creating these clients here rather than in the request handler method allows us to use
   // provisioned concurrency to decrease cold boot time by 3-10 seconds, depending on the lambda
@@ -68,12 +72,21 @@ public class LambdaRequestHandler implements RequestHandler<Map<String, String>,
   // API Gateway Client. We create this in the constructor so we can recreate it if it goes away for
   // some reason.
   private AmazonApiGatewayManagementApi apiClient;
+  // Coalesce and asynchronously send output for the current invocation. These are created alongside
+  // the OutputAdapter and must be closed before the API Gateway connection is cleaned up so no
+  // output is lost.
+  private BatchingOutputAdapter batchingOutputAdapter;
+  private AsyncOutputAdapter asyncOutputAdapter;
+  private AWSInputAdapter inputAdapter;
 
   public LambdaRequestHandler() {
-    // create CachedResources once for the entire container.
+    // create CachedResources, CachedCompiler and CompilationCache once for the entire container.
     // This will only be called once in the initial creation of the lambda instance.
     // Documentation: https://docs.aws.amazon.com/lambda/latest/dg/java-handler.html
-    CachedResources.create();
+    // The compilation cache is kept in memory only, as /tmp is cleared after every invocation.
+    CachedResources.create(PRELOAD_INSTRUMENT_SAMPLES);
+    CachedCompiler.create();
+    CompilationCache.create();
     COLD_BOOT_END = Clock.systemUTC().instant();
     this.apiClient =
         AmazonApiGatewayManagementApiClientBuilder.standard()
@@ -238,10 +251,12 @@ public class LambdaRequestHandler implements RequestHandler<Map<String, String>,
 
     try {
       final ExecutionType executionType = ExecutionType.valueOf(lambdaInput.get("executionType"));
+      this.asyncOutputAdapter = new AsyncOutputAdapter(awsOutputAdapter);
+      this.batchingOutputAdapter = new BatchingOutputAdapter(this.asyncOutputAdapter);
       if (executionType == ExecutionType.TEST) {
-        return new UserTestOutputAdapter(awsOutputAdapter);
+        return new UserTestOutputAdapter(this.batchingOutputAdapter);
       }
-      return awsOutputAdapter;
+      return this.batchingOutputAdapter;
     } catch (IllegalArgumentException e) {
       throw new InternalFacingException(INVALID_INPUT, e);
     }
@@ -276,18 +291,27 @@ public class LambdaRequestHandler implements RequestHandler<Map<String, String>,
     final JSONObject options = new JSONObject(lambdaInput.get("options"));
     final String javabuilderSessionId = lambdaInput.get("javabuilderSessionId");
     final List<String> compileList = JSONUtils.listFromJSONObjectMember(options, "compileList");
-
-    final AWSInputAdapter inputAdapter = new AWSInputAdapter(SQS_CLIENT, queueUrl, queueName);
+    Properties.setUseCompactNeighborhoodEvents(
+        options.optBoolean("compactNeighborhoodEvents", false));
+    Properties.setRunNeighborhoodHeadless(options.optBoolean("headlessNeighborhood", false));
+
+    this.inputAdapter =
+        new AWSInputAdapter(
+            SQS_CLIENT,
+            queueUrl,
+            queueName,
+            (PerformanceTracker) JavabuilderContext.getInstance().get(PerformanceTracker.class));
     final AWSContentManager contentManager =
         new AWSContentManager(
             S3_CLIENT, CONTENT_BUCKET_NAME, javabuilderSessionId, CONTENT_BUCKET_URL, context);
 
     return new CodeExecutionManager(
         contentManager.getProjectFileLoader(),
-        inputAdapter,
+        this.inputAdapter,
         outputAdapter,
         executionType,
         compileList,
+        lambdaInput.get("channelId"),
         tempDirectoryManager,
         contentManager,
         new AWSSystemExitHelper(connectionId, this.apiClient));
@@ -319,6 +343,12 @@ public class LambdaRequestHandler implements RequestHandler<Map<String, String>,
       }
     }
 
+    this.closeOutputAdapter();
+    if (this.inputAdapter != null) {
+      this.inputAdapter.close();
+      this.inputAdapter = null;
+    }
+
     PerformanceTracker performanceTracker =
         (PerformanceTracker) JavabuilderContext.getInstance().get(PerformanceTracker.class);
     performanceTracker.trackInstanceEnd();
@@ -340,6 +370,35 @@ public class LambdaRequestHandler implements RequestHandler<Map<String, String>,
     this.isSessionInitialized = false;
   }
 
+  /**
+   * Sends any output still held by the batching and async output adapters, then stops their
+   * threads.
+   */
+  private void closeOutputAdapter() {
+    if (this.batchingOutputAdapter == null) {
+      return;
+    }
+    // The connection may already be gone, in which case there is no one left to send output to.
+    // Log the failure, but make sure both adapters are closed.
+    Throwable batchingError = null;
+    try {
+      this.batchingOutputAdapter.close();
+    } catch (Throwable e) {
+      batchingError = e;
+      LoggerUtils.logTrackingExceptionAsWarning(e);
+    }
+    try {
+      this.asyncOutputAdapter.close();
+    } catch (Throwable e) {
+      // The async adapter rethrows the same failure on every call, so only log new failures.
+      if (e != batchingError) {
+        LoggerUtils.logTrackingExceptionAsWarning(e);
+      }
+    }
+    this.batchingOutputAdapter = null;
+    this.asyncOutputAdapter = null;
+  }
+
   private Thread createTimeoutThread(
       Context context,
       OutputAdapter outputAdapter,
@@ -1,14 +1,17 @@
 package org.code.javabuilder;
 
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import org.code.protocol.OutputAdapter;
 
 /**
  * Wrapper class for PrintStream to ensure autoFlush is set to true for PrintStreams that replace
- * System.out. autoFlush is the default for the System.in PrintStream.
+ * System.out. autoFlush is the default for the System.in PrintStream. Output is always encoded as
+ * UTF-8, which is what {@link OutputRedirectionStream} expects, regardless of the platform's
+ * default charset.
  */
 public class OutputPrintStream extends PrintStream {
   public OutputPrintStream(OutputAdapter adapter) {
-    super(new OutputRedirectionStream(adapter), true);
+    super(new OutputRedirectionStream(adapter), true, StandardCharsets.UTF_8);
   }
 }
@@ -1,6 +1,11 @@
 package org.code.javabuilder;
 
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import org.code.protocol.OutputAdapter;
 
 /**
@@ -8,15 +13,31 @@ import org.code.protocol.OutputAdapter;
  * the user program that is intended for the console. See
  * https://docs.oracle.com/javase/8/docs/api/java/io/OutputStream.html for full implementation
  * details and contract.
+ *
+ * <p>Bytes are expected to be UTF-8 encoded. They are collected in a reusable byte buffer and
+ * decoded on flush. A multi-byte character that has only been partially written when the stream is
+ * flushed is kept in the buffer until the rest of it is written.
  */
 public class OutputRedirectionStream extends OutputStream {
+  private static final int INITIAL_BUFFER_SIZE = 256;
+
   private final OutputAdapter outputAdapter;
-  private final StringBuilder buffer;
+  private final CharsetDecoder decoder;
+  // Always in write mode (position = number of buffered bytes) between calls.
+  private ByteBuffer byteBuffer;
+  private CharBuffer charBuffer;
 
   public OutputRedirectionStream(OutputAdapter outputAdapter) {
     super();
     this.outputAdapter = outputAdapter;
-    this.buffer = new StringBuilder();
+    this.decoder =
+        StandardCharsets.UTF_8
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.byteBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    // UTF-8 never decodes to more chars than bytes, so a char buffer of the same size always fits.
+    this.charBuffer = CharBuffer.allocate(INITIAL_BUFFER_SIZE);
   }
 
   /**
@@ -27,7 +48,8 @@ public class OutputRedirectionStream extends OutputStream {
    */
   @Override
   public void write(int b) {
-    buffer.append((char) b);
+    this.ensureCapacity(1);
+    this.byteBuffer.put((byte) b);
   }
 
   /** See: https://docs.oracle.com/javase/8/docs/api/java/io/OutputStream.html#write-byte:A- */
@@ -47,22 +69,63 @@ public class OutputRedirectionStream extends OutputStream {
     if (off < 0 || len < 0 || off + len > b.length) {
       throw new IndexOutOfBoundsException();
     }
-    for (int i = off; i < off + len; i++) {
-      buffer.append((char) b[i]);
-    }
+    this.ensureCapacity(len);
+    this.byteBuffer.put(b, off, len);
   }
 
   /**
-   * See: https://docs.oracle.com/javase/8/docs/api/java/io/OutputStream.html#flush-- Writes the
-   * buffer to the OutputAdapter and clears the buffer.
+   * See: https://docs.oracle.com/javase/8/docs/api/java/io/OutputStream.html#flush-- Decodes the
+   * buffer, writes it to the OutputAdapter and clears the buffer.
    */
   @Override
   public void flush() {
-    if (buffer.length() == 0) {
+    this.decodeAndSend(false);
+  }
+
+  /**
+   * See: https://docs.oracle.com/javase/8/docs/api/java/io/OutputStream.html#close-- Sends any
+   * remaining output, including an incomplete trailing character as a replacement character.
+   */
+  @Override
+  public void close() {
+    this.decodeAndSend(true);
+    this.decoder.reset();
+  }
+
+  private void decodeAndSend(boolean endOfInput) {
+    if (this.byteBuffer.position() == 0) {
       return;
     }
 
-    outputAdapter.sendMessage(new SystemOutMessage(buffer.toString()));
-    buffer.delete(0, buffer.length());
+    this.byteBuffer.flip();
+    this.charBuffer.clear();
+    this.decoder.decode(this.byteBuffer, this.charBuffer, endOfInput);
+    if (endOfInput) {
+      this.decoder.flush(this.charBuffer);
+    }
+    // Keep any bytes of an incomplete character at the start of the buffer for the next flush.
+    this.byteBuffer.compact();
+
+    if (this.charBuffer.position() == 0) {
+      return;
+    }
+    final String output = new String(this.charBuffer.array(), 0, this.charBuffer.position());
+    this.outputAdapter.sendMessage(new SystemOutMessage(output));
+  }
+
+  private void ensureCapacity(int additionalBytes) {
+    if (this.byteBuffer.remaining() >= additionalBytes) {
+      return;
+    }
+    final int required = this.byteBuffer.position() + additionalBytes;
+    int newCapacity = this.byteBuffer.capacity() * 2;
+    while (newCapacity < required) {
+      newCapacity *= 2;
+    }
+    final ByteBuffer grown = ByteBuffer.allocate(newCapacity);
+    this.byteBuffer.flip();
+    grown.put(this.byteBuffer);
+    this.byteBuffer = grown;
+    this.charBuffer = CharBuffer.allocate(newCapacity);
   }
 }
@@ -2,6 +2,8 @@ package org.code.javabuilder;
 
 import static org.code.protocol.LoggerNames.MAIN_LOGGER;
 
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.lang.management.ManagementFactory;
 import java.time.Clock;
 import java.time.Instant;
 import java.util.logging.Logger;
@@ -22,17 +24,33 @@ public class PerformanceTracker extends JavabuilderSharedObject {
   private static final String COLD_BOOT_START = "coldBootStart";
   private static final String COLD_BOOT_END = "coldBootEnd";
   private static final String COLD_BOOT_TIME = "coldBootTime";
+  private static final String CLASS_DATA_SHARING = "classDataSharing";
   private static final String INSTANCE_START = "instanceStart";
   private static final String COMPILE_START = "compileStart";;
   private static final String INITIALIZATION_TIME = "initializationTime";
   private static final String COMPILE_END = "compileEnd";
+  private static final String COMPILE_CACHE_HIT = "compileCacheHit";
+  private static final String RECOMPILED_FILES = "recompiledFiles";
   private static final String USER_CODE_START = "userCodeStart";
   private static final String TRANSITION_TIME = "transitionTime";
   private static final String USER_CODE_END = "userCodeEnd";
   private static final String INSTANCE_END = "instanceEnd";
   private static final String CLEANUP_TIME = "cleanupTime";
+  private static final String INPUT_MESSAGES = "inputMessages";
+  private static final String AVERAGE_INPUT_LATENCY = "averageInputLatency";
+  private static final String MAX_INPUT_LATENCY = "maxInputLatency";
+  private static final String INPUT_WAIT_TIME = "inputWaitTime";
+  private static final String USER_CODE_EXECUTION_TIME = "userCodeExecutionTime";
+  private static final String SAMPLE_CACHE_HITS = "instrumentSampleCacheHits";
+  private static final String SAMPLE_CACHE_MISSES = "instrumentSampleCacheMisses";
+  private static final String SAMPLE_CACHE_HIT_RATE = "instrumentSampleCacheHitRate";
+  private static final String SAMPLE_CACHE_BYTES = "instrumentSampleCacheBytes";
   private static final String TYPE = "performanceReport";
   private final JSONObject logs;
+  private int inputMessages;
+  private long totalInputLatency;
+  private long maxInputLatency;
+  private long inputWaitTime;
 
   public PerformanceTracker() {
     this.logs = new JSONObject();
@@ -43,6 +61,16 @@ public class PerformanceTracker extends JavabuilderSharedObject {
     logs.put(COLD_BOOT_END, coldBootEnd.toEpochMilli());
     logs.put(INSTANCE_START, instanceStart.toEpochMilli());
     logs.put(FIRST_INSTANCE, true);
+    // Whether the JVM mapped in a Class Data Sharing archive. With -Xshare:auto, an archive made by
+    // a different JVM build is ignored without any other sign, and the JVM then loads every class
+    // itself.
+    final HotSpotDiagnosticMXBean diagnostics =
+        ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+    if (diagnostics != null) {
+      logs.put(
+          CLASS_DATA_SHARING,
+          Boolean.parseBoolean(diagnostics.getVMOption("UseSharedSpaces").getValue()));
+    }
   }
 
   /**
@@ -63,6 +91,14 @@ public class PerformanceTracker extends JavabuilderSharedObject {
     logs.put(COMPILE_END, Clock.systemUTC().instant().toEpochMilli());
   }
 
+  public void trackCompileCacheHit(boolean isCacheHit) {
+    logs.put(COMPILE_CACHE_HIT, isCacheHit);
+  }
+
+  public void trackRecompiledFiles(int recompiledFiles) {
+    logs.put(RECOMPILED_FILES, recompiledFiles);
+  }
+
   public void trackUserCodeStart() {
     logs.put(USER_CODE_START, Clock.systemUTC().instant().toEpochMilli());
   }
@@ -71,11 +107,34 @@ public class PerformanceTracker extends JavabuilderSharedObject {
     logs.put(USER_CODE_END, Clock.systemUTC().instant().toEpochMilli());
   }
 
+  /**
+   * Tracks how long an input message waited between reaching Javabuilder and being handed to the
+   * user's program. This is called from the user's program's thread, so it is synchronized with
+   * logPerformance.
+   *
+   * @param inputLatency the time in milliseconds
+   */
+  public synchronized void trackInputLatency(long inputLatency) {
+    this.inputMessages++;
+    this.totalInputLatency += inputLatency;
+    this.maxInputLatency = Math.max(this.maxInputLatency, inputLatency);
+  }
+
+  /**
+   * Tracks time the user's program spent blocked waiting for input to arrive, so that it can be
+   * reported separately from the time spent executing the program.
+   *
+   * @param inputWaitTime the time in milliseconds
+   */
+  public synchronized void trackInputWait(long inputWaitTime) {
+    this.inputWaitTime += inputWaitTime;
+  }
+
   public void trackInstanceEnd() {
     logs.put(INSTANCE_END, Clock.systemUTC().instant().toEpochMilli());
   }
 
-  public void logPerformance() {
+  public synchronized void logPerformance() {
     logs.put(LoggerConstants.TYPE, TYPE);
     MetricClient metricClient =
         (MetricClient) JavabuilderContext.getInstance().get(MetricClient.class);
@@ -103,6 +162,32 @@ public class PerformanceTracker extends JavabuilderSharedObject {
       metricClient.publishCleanupTime(cleanupTime);
     }
 
+    if (this.inputMessages > 0) {
+      long averageInputLatency = this.totalInputLatency / this.inputMessages;
+      logs.put(INPUT_MESSAGES, this.inputMessages);
+      logs.put(AVERAGE_INPUT_LATENCY, averageInputLatency);
+      logs.put(MAX_INPUT_LATENCY, this.maxInputLatency);
+      metricClient.publishInputLatency(averageInputLatency);
+    }
+
+    logs.put(INPUT_WAIT_TIME, this.inputWaitTime);
+    if (!logs.isNull(USER_CODE_START) && !logs.isNull(USER_CODE_END)) {
+      long userCodeExecutionTime =
+          logs.getLong(USER_CODE_END) - logs.getLong(USER_CODE_START) - this.inputWaitTime;
+      logs.put(USER_CODE_EXECUTION_TIME, userCodeExecutionTime);
+    }
+
+    // The instrument sample cache lasts as long as the container, so these are container totals.
+    final InstrumentSampleCache sampleCache =
+        CachedResources.getInstance().getInstrumentSampleCache();
+    final long sampleCacheLookups = sampleCache.getHitCount() + sampleCache.getMissCount();
+    if (sampleCacheLookups > 0) {
+      logs.put(SAMPLE_CACHE_HITS, sampleCache.getHitCount());
+      logs.put(SAMPLE_CACHE_MISSES, sampleCache.getMissCount());
+      logs.put(SAMPLE_CACHE_HIT_RATE, (double) sampleCache.getHitCount() / sampleCacheLookups);
+    }
+    logs.put(SAMPLE_CACHE_BYTES, sampleCache.getMemoryBytes());
+
     Logger.getLogger(MAIN_LOGGER).info(logs.toString());
   }
 }
@@ -0,0 +1,40 @@
+package org.code.javabuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A set of prefixes that can tell whether a string starts with any of them in a single pass over
+ * the string, rather than comparing the string with each prefix in turn.
+ */
+class PrefixTrie {
+  private final Node root;
+
+  PrefixTrie(String... prefixes) {
+    this.root = new Node();
+    for (String prefix : prefixes) {
+      Node node = this.root;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+      }
+      node.isPrefixEnd = true;
+    }
+  }
+
+  /** @return true if the value starts with any of the prefixes */
+  boolean matchesPrefixOf(String value) {
+    Node node = this.root;
+    for (int i = 0; i < value.length() && !node.isPrefixEnd; i++) {
+      node = node.children.get(value.charAt(i));
+      if (node == null) {
+        return false;
+      }
+    }
+    return node.isPrefixEnd;
+  }
+
+  private static class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private boolean isPrefixEnd;
+  }
+}
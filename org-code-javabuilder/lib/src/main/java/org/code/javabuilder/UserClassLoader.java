@@ -7,24 +7,39 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.code.protocol.LoggerUtils;
 
 /**
  * Custom class loader for user-provided code. This class loader only allows certain classes to be
- * used within a user-provided class.
+ * used within a user-provided class. User-provided classes are defined directly from the bytecode
+ * produced by {@link UserCodeCompiler}.
+ *
+ * <p>Whether a class is allowed only depends on its name and the permission level, so decisions are
+ * cached for the entire container. Classes from the user-facing api jars are loaded by a new class
+ * loader for every run, as some of them keep state for the session in static fields. Every other
+ * allowed class comes from the shared parent class loader, so once resolved it is cached for the
+ * entire container too.
  */
 public class UserClassLoader extends URLClassLoader {
+  // Caps the decision cache, in case a program asks for a great many different class names.
+  private static final int MAX_CACHED_DECISIONS = 10000;
+
+  private final Map<String, byte[]> compiledClasses;
   private final Set<String> userProvidedClasses;
   private final URLClassLoader approvedClassLoader;
   private final RunPermissionLevel permissionLevel;
 
   public UserClassLoader(
+      Map<String, byte[]> compiledClasses,
       URL[] urls,
       ClassLoader parent,
       List<String> userProvidedClasses,
       RunPermissionLevel permissionLevel) {
     super(urls, parent);
+    this.compiledClasses = compiledClasses;
     this.userProvidedClasses = new HashSet<>();
     this.userProvidedClasses.addAll(userProvidedClasses);
     this.approvedClassLoader = new URLClassLoader(urls, JavaRunner.class.getClassLoader());
@@ -38,46 +53,59 @@ public class UserClassLoader extends URLClassLoader {
     if (this.userProvidedClasses.contains(name)) {
       return super.loadClass(name);
     }
+
     // If this is not a user provided class, we are loading something used by a user provided class.
     // If it is either an allowed class or package, we can load with our standard class loader.
-    if (this.allowedClasses.contains(name)) {
-      return this.approvedClassLoader.loadClass(name);
+    if (!this.isAllowed(name)) {
+      // Log that we are going to throw an exception. Log as a warning
+      // as it is most likely user error, but we want to track it.
+      LoggerUtils.logWarning("Invalid Class", name);
+      throw new ClassNotFoundException(name);
     }
 
-    // Validation code has a few additional allowed classes.
-    if (this.permissionLevel == RunPermissionLevel.VALIDATOR
-        && this.validatorAllowedClasses.contains(name)) {
-      return this.approvedClassLoader.loadClass(name);
+    final Class<?> sharedClass = sharedApprovedClasses.get(name);
+    if (sharedClass != null) {
+      return sharedClass;
     }
-
-    // allow .<specific-class> usage from allowed packages. If this code
-    // has validation permissions, also check the
-    // validator permissions allowed package list.
-    if (this.isInAllowedPackage(this.allowedPackages, name)
-        || (this.permissionLevel == RunPermissionLevel.VALIDATOR
-            && this.isInAllowedPackage(this.validatorAllowedPackages, name))) {
-      return this.approvedClassLoader.loadClass(name);
+    final Class<?> approvedClass = this.approvedClassLoader.loadClass(name);
+    if (approvedClass.getClassLoader() != this.approvedClassLoader) {
+      sharedApprovedClasses.put(name, approvedClass);
     }
+    return approvedClass;
+  }
 
-    // Log that we are going to throw an exception. Log as a warning
-    // as it is most likely user error, but we want to track it.
-    LoggerUtils.logWarning("Invalid Class", name);
-    throw new ClassNotFoundException(name);
+  @Override
+  protected Class<?> findClass(String name) throws ClassNotFoundException {
+    final byte[] bytecode = this.compiledClasses.get(name);
+    if (bytecode == null) {
+      return super.findClass(name);
+    }
+    return this.defineClass(name, bytecode, 0, bytecode.length);
   }
 
-  /**
-   * @param allowedPackageList
-   * @param name
-   * @return true if name is in a package a in the allowedPackageList, i.e. if name is prefixed with
-   *     any value in allowedPackageList
-   */
-  private boolean isInAllowedPackage(String[] allowedPackageList, String name) {
-    for (int i = 0; i < allowedPackageList.length; i++) {
-      if (name.startsWith(allowedPackageList[i])) {
-        return true;
-      }
+  /** @return true if code with this loader's permission level may use the given class */
+  private boolean isAllowed(String name) {
+    final Map<String, Boolean> decisions =
+        this.permissionLevel == RunPermissionLevel.VALIDATOR
+            ? validatorAllowDecisions
+            : userAllowDecisions;
+    final Boolean cachedDecision = decisions.get(name);
+    if (cachedDecision != null) {
+      return cachedDecision;
     }
-    return false;
+
+    // allow .<specific-class> usage from allowed packages. Validation code has a few additional
+    // allowed classes and packages.
+    final boolean isAllowed =
+        allowedClasses.contains(name)
+            || allowedPackagePrefixes.matchesPrefixOf(name)
+            || (this.permissionLevel == RunPermissionLevel.VALIDATOR
+                && (validatorAllowedClasses.contains(name)
+                    || validatorAllowedPackagePrefixes.matchesPrefixOf(name)));
+    if (decisions.size() < MAX_CACHED_DECISIONS) {
+      decisions.put(name, isAllowed);
+    }
+    return isAllowed;
   }
 
   // Allowed individual classes.
@@ -139,4 +167,16 @@ public class UserClassLoader extends URLClassLoader {
           ThreadLocal.class.getName(), // EasyMock support
           CloneNotSupportedException.class.getName(), // EasyMock support
           InvocationTargetException.class.getName()); // EasyMock support
+
+  // Allowed package lists, indexed so that a class name is checked against them in one pass.
+  private static final PrefixTrie allowedPackagePrefixes = new PrefixTrie(allowedPackages);
+  private static final PrefixTrie validatorAllowedPackagePrefixes =
+      new PrefixTrie(validatorAllowedPackages);
+
+  // Whether each class name looked up so far is allowed, for each permission level.
+  private static final Map<String, Boolean> userAllowDecisions = new ConcurrentHashMap<>();
+  private static final Map<String, Boolean> validatorAllowDecisions = new ConcurrentHashMap<>();
+
+  // Allowed classes resolved by the shared parent class loader.
+  private static final Map<String, Class<?>> sharedApprovedClasses = new ConcurrentHashMap<>();
 }
@@ -1,22 +1,29 @@
 package org.code.javabuilder;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.*;
 import javax.tools.*;
-import javax.tools.JavaCompiler.CompilationTask;
-import org.code.javabuilder.util.JarUtils;
 import org.code.protocol.*;
 
 /**
  * Compiles all user code managed by the ProjectFileManager. Any compiler output will be passed
- * directly to the user.
+ * directly to the user. Compiled classes are kept in memory rather than written to disk.
+ *
+ * <p>If the same files have been compiled before, the result is taken from the {@link
+ * CompilationCache} instead, and the compiler output from that compile is sent to the user again.
+ *
+ * <p>If a project key is given, only the files that changed since the last successful compile of
+ * the project, and the files that depend on them, are compiled. The classes of the other files are
+ * reused from the last compile, and their compiler output from that compile is shown again, so
+ * warnings in files that did not change are not lost. See {@link IncrementalCompilationState}.
  */
 public class UserCodeCompiler {
   private final List<JavaProjectFile> javaFiles;
-  private final File tempFolder;
   private final OutputAdapter outputAdapter;
+  private final String projectKey;
+  private final CachedCompiler compiler;
+  private final CompilationCache compilationCache;
 
   private static final String SYSTEM_PACKAGE_OVERRIDE_NAME = "org.code.lang.System";
   private static final String DIAGNOSTIC_CODE_SINGLE_IMPORT_ERROR =
@@ -24,30 +31,224 @@ public class UserCodeCompiler {
   private static final String DIAGNOSTIC_CODE_DEPRECATED_WARNING_PREFIX =
       "compiler.note.deprecated";
 
+  public UserCodeCompiler(List<JavaProjectFile> javaFiles, OutputAdapter outputAdapter) {
+    this(javaFiles, outputAdapter, null);
+  }
+
+  /**
+   * @param javaFiles the files to compile
+   * @param outputAdapter receives status messages and compiler output
+   * @param projectKey identifies the project for incremental compiles, such as its channel id, or
+   *     null to always compile every file
+   */
   public UserCodeCompiler(
-      List<JavaProjectFile> javaFiles, File tempFolder, OutputAdapter outputAdapter) {
+      List<JavaProjectFile> javaFiles, OutputAdapter outputAdapter, String projectKey) {
+    this(
+        javaFiles,
+        outputAdapter,
+        projectKey,
+        CachedCompiler.getInstance(),
+        CompilationCache.getInstance());
+  }
+
+  UserCodeCompiler(
+      List<JavaProjectFile> javaFiles,
+      OutputAdapter outputAdapter,
+      String projectKey,
+      CachedCompiler compiler,
+      CompilationCache compilationCache) {
     this.javaFiles = javaFiles;
-    this.tempFolder = tempFolder;
     this.outputAdapter = outputAdapter;
+    this.projectKey = projectKey;
+    this.compiler = compiler;
+    this.compilationCache = compilationCache;
   }
 
   /**
+   * @return the bytecode of each compiled class, keyed by binary class name
    * @throws InternalServerException If the user's code has a compiler error or if we hit an
    *     internal exception that interferes with compilation.
    */
-  public void compileProgram() throws InternalServerException, UserInitiatedException {
+  public Map<String, byte[]> compileProgram()
+      throws InternalServerException, UserInitiatedException {
     this.outputAdapter.sendMessage(new StatusMessage(StatusMessageKey.COMPILING));
-    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
 
+    List<JavaFileObject> sources = this.getSources();
+    String cacheKey = this.compilationCache.computeKey(this.javaFiles);
     PerformanceTracker performanceTracker =
         (PerformanceTracker) JavabuilderContext.getInstance().get(PerformanceTracker.class);
     performanceTracker.trackCompileStart();
-    CompilationTask task = getCompilationTask(diagnostics);
+    CompilationResult result;
+    try {
+      result = this.compilationCache.get(cacheKey);
+      performanceTracker.trackCompileCacheHit(result != null);
+      if (result == null) {
+        result =
+            this.projectKey == null
+                ? this.compile(sources)
+                : this.compileIncrementally(sources, performanceTracker);
+        this.compilationCache.put(cacheKey, result);
+      }
+    } finally {
+      performanceTracker.trackCompileEnd();
+    }
+
+    for (String compilerOutput : result.getCompilerOutput()) {
+      outputAdapter.sendMessage(new SystemOutMessage(compilerOutput));
+    }
+    if (!result.isSuccessful()) {
+      throw new UserInitiatedException(UserInitiatedExceptionKey.COMPILER_ERROR);
+    }
+    this.outputAdapter.sendMessage(new StatusMessage(StatusMessageKey.COMPILATION_SUCCESSFUL));
+    return result.getCompiledClasses();
+  }
+
+  /** Compiles the given sources and formats the compiler output for the user. */
+  private CompilationResult compile(List<JavaFileObject> sources) throws InternalServerException {
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    Map<String, byte[]> compiledClasses = this.compiler.compile(sources, diagnostics);
+    return new CompilationResult(compiledClasses, this.getCompilerOutput(diagnostics));
+  }
+
+  /**
+   * Compiles the sources that changed since the last successful compile of the project, along with
+   * the sources that depend on them. Falls back to compiling every source if there is no earlier
+   * compile, or if the changed sources could affect the sources that were not recompiled.
+   */
+  private CompilationResult compileIncrementally(
+      List<JavaFileObject> sources, PerformanceTracker performanceTracker)
+      throws InternalServerException {
+    final Map<String, String> sourceContents = new HashMap<>();
+    for (JavaFileObject source : sources) {
+      sourceContents.put(source.getName(), ((JavaSourceFromString) source).code);
+    }
+
+    final IncrementalCompilationState previousState =
+        this.compilationCache.getIncrementalState(this.projectKey);
+    if (previousState != null) {
+      final Set<String> sourcesToRecompile = previousState.getSourcesToRecompile(sourceContents);
+      final Set<String> reusedSources = new HashSet<>(sourceContents.keySet());
+      reusedSources.removeAll(sourcesToRecompile);
+      final List<JavaFileObject> changedSources = new ArrayList<>();
+      for (JavaFileObject source : sources) {
+        if (sourcesToRecompile.contains(source.getName())) {
+          changedSources.add(source);
+        }
+      }
+      performanceTracker.trackRecompiledFiles(changedSources.size());
+
+      if (changedSources.isEmpty()) {
+        // Nothing changed, or only files that nothing depends on were removed.
+        final IncrementalCompilationState state =
+            previousState.update(sourceContents, Set.of(), Map.of(), Map.of(), Map.of());
+        this.compilationCache.putIncrementalState(this.projectKey, state);
+        return new CompilationResult(
+            state.getCompiledClasses(),
+            this.orderCompilerOutput(sources, state.getCompilerOutput()));
+      }
+
+      final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+      final InMemoryJavaFileManager recompiled =
+          this.compiler.compileWithClasses(
+              changedSources, previousState.getCompiledClasses(reusedSources), diagnostics);
+      final Map<String, List<String>> recompiledOutput =
+          this.getCompilerOutputBySource(diagnostics);
+      if (recompiled == null) {
+        // Keep the previous state, so that once the error is fixed only the changed files are
+        // compiled again. The files that were not recompiled still show their earlier output.
+        final Map<String, List<String>> compilerOutput = new HashMap<>(recompiledOutput);
+        for (String sourceName : reusedSources) {
+          final List<String> reusedOutput = previousState.getCompilerOutput().get(sourceName);
+          if (reusedOutput != null) {
+            compilerOutput.put(sourceName, reusedOutput);
+          }
+        }
+        return new CompilationResult(null, this.orderCompilerOutput(sources, compilerOutput));
+      }
+      if (previousState.isUnaffected(reusedSources, recompiled.getClassSources())) {
+        final IncrementalCompilationState state =
+            previousState.update(
+                sourceContents,
+                sourcesToRecompile,
+                recompiled.getCompiledClasses(),
+                recompiled.getClassSources(),
+                recompiledOutput);
+        this.compilationCache.putIncrementalState(this.projectKey, state);
+        return new CompilationResult(
+            state.getCompiledClasses(),
+            this.orderCompilerOutput(sources, state.getCompilerOutput()));
+      }
+    }
+
+    performanceTracker.trackRecompiledFiles(sources.size());
+    final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    final InMemoryJavaFileManager compiled =
+        this.compiler.compileWithClasses(sources, Map.of(), diagnostics);
+    final Map<String, List<String>> compilerOutput = this.getCompilerOutputBySource(diagnostics);
+    if (compiled == null) {
+      return new CompilationResult(null, this.orderCompilerOutput(sources, compilerOutput));
+    }
+    this.compilationCache.putIncrementalState(
+        this.projectKey,
+        new IncrementalCompilationState(
+            sourceContents,
+            compiled.getCompiledClasses(),
+            compiled.getClassSources(),
+            compilerOutput));
+    return new CompilationResult(
+        compiled.getCompiledClasses(), this.orderCompilerOutput(sources, compilerOutput));
+  }
+
+  /**
+   * Formats the compiler errors and warnings to show to the user, grouped by the file they are
+   * about, so that the output of files that are not recompiled can be kept.
+   *
+   * @return the output of each file that had any, keyed by file name or {@link
+   *     IncrementalCompilationState#NO_SOURCE}
+   */
+  private Map<String, List<String>> getCompilerOutputBySource(
+      DiagnosticCollector<JavaFileObject> diagnostics) {
+    final Map<String, List<String>> compilerOutput = new HashMap<>();
+    for (Map.Entry<String, String> output : this.formatDiagnostics(diagnostics)) {
+      compilerOutput
+          .computeIfAbsent(output.getKey(), key -> new ArrayList<>())
+          .add(output.getValue());
+    }
+    return compilerOutput;
+  }
+
+  /**
+   * @return the output of each file in the order the files were given, followed by the output that
+   *     is not about any one file
+   */
+  private List<String> orderCompilerOutput(
+      List<JavaFileObject> sources, Map<String, List<String>> compilerOutput) {
+    final List<String> orderedOutput = new ArrayList<>();
+    for (JavaFileObject source : sources) {
+      orderedOutput.addAll(compilerOutput.getOrDefault(source.getName(), List.of()));
+    }
+    orderedOutput.addAll(
+        compilerOutput.getOrDefault(IncrementalCompilationState.NO_SOURCE, List.of()));
+    return orderedOutput;
+  }
 
-    boolean success = task.call();
-    performanceTracker.trackCompileEnd();
+  /** Formats the compiler errors and warnings to show to the user. */
+  private List<String> getCompilerOutput(DiagnosticCollector<JavaFileObject> diagnostics) {
+    List<String> compilerOutput = new ArrayList<>();
+    for (Map.Entry<String, String> output : this.formatDiagnostics(diagnostics)) {
+      compilerOutput.add(output.getValue());
+    }
+    return compilerOutput;
+  }
 
+  /**
+   * @return each message to show to the user, in the order the compiler reported them, keyed by the
+   *     name of the file it is about or {@link IncrementalCompilationState#NO_SOURCE}
+   */
+  private List<Map.Entry<String, String>> formatDiagnostics(
+      DiagnosticCollector<JavaFileObject> diagnostics) {
     // diagnostics will include any compiler errors
+    List<Map.Entry<String, String>> compilerOutput = new ArrayList<>();
     for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
       // Students are sometimes taught deprecated methods (eg, integer constructor)
       // for the AP exam. Do not show deprecation warnings to avoid confusion.
@@ -55,36 +256,24 @@ public class UserCodeCompiler {
         continue;
       }
 
+      final String sourceName =
+          diagnostic.getSource() == null
+              ? IncrementalCompilationState.NO_SOURCE
+              : diagnostic.getSource().getName();
       String customMessage = this.getCustomCompilerError(diagnostic);
       if (customMessage != null) {
         // If we got a custom message, just send it and stop sending any more diagnostics to avoid
         // confusion.
-        outputAdapter.sendMessage(new SystemOutMessage(customMessage));
+        compilerOutput.add(Map.entry(sourceName, customMessage));
         break;
       }
-      outputAdapter.sendMessage(new SystemOutMessage(this.getCompilerError(diagnostic)));
-    }
-    if (!success) {
-      throw new UserInitiatedException(UserInitiatedExceptionKey.COMPILER_ERROR);
+      compilerOutput.add(Map.entry(sourceName, this.getCompilerError(diagnostic)));
     }
-    this.outputAdapter.sendMessage(new StatusMessage(StatusMessageKey.COMPILATION_SUCCESSFUL));
+    return compilerOutput;
   }
 
-  private CompilationTask getCompilationTask(DiagnosticCollector<JavaFileObject> diagnostics)
-      throws InternalServerException, UserInitiatedException {
-    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-
-    // set output of compilation to be a temporary folder
-    StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
-    try {
-      fileManager.setLocation(
-          StandardLocation.CLASS_OUTPUT, Collections.singletonList(this.tempFolder));
-    } catch (IOException e) {
-      e.printStackTrace();
-      // if we can't set the file location we won't be able to run the class properly.
-      throw new InternalServerException(InternalExceptionKey.INTERNAL_COMPILER_EXCEPTION, e);
-    }
-    // create file for user-provided code
+  /** @return a file object for each user-provided file */
+  private List<JavaFileObject> getSources() throws UserInitiatedException {
     List<JavaFileObject> files = new ArrayList<>();
     for (JavaProjectFile projectFile : this.javaFiles) {
       try {
@@ -98,15 +287,7 @@ public class UserCodeCompiler {
             new Exception(projectFile.getFileName()));
       }
     }
-
-    // Include the user-facing api jars in the student code classpath so the student code can use
-    // them.
-    List<String> optionList = new ArrayList<String>();
-    optionList.add("-classpath");
-    optionList.add(JarUtils.getAllJarPaths());
-
-    // create compilation task
-    return compiler.getTask(null, fileManager, diagnostics, optionList, null, files);
+    return files;
   }
 
   /**
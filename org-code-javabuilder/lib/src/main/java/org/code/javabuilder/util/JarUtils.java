@@ -1,9 +1,11 @@
 package org.code.javabuilder.util;
 
+import java.io.File;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import org.code.javabuilder.InternalServerException;
 import org.code.protocol.InternalExceptionKey;
 
@@ -26,27 +28,26 @@ public final class JarUtils {
   }
 
   /** @return a list of URLs with the location of all user-facing api jars */
-  public static URL[] getAllJarURLs(URL executableLocation) {
-    final URL[] jarUrls = new URL[JAR_NAMES.length + 1];
-    jarUrls[0] = executableLocation;
+  public static URL[] getAllJarURLs() {
+    final URL[] jarUrls = new URL[JAR_NAMES.length];
     for (int i = 0; i < JAR_NAMES.length; i++) {
-      jarUrls[i + 1] = JarUtils.getJarURL(JAR_NAMES[i]);
+      jarUrls[i] = JarUtils.getJarURL(JAR_NAMES[i]);
     }
 
     return jarUrls;
   }
 
-  /** @return a joined list of the paths of all user-facing api jars */
-  public static String getAllJarPaths() throws InternalServerException {
-    ArrayList<String> allJarPaths = new ArrayList<>();
+  /** @return the files of all user-facing api jars */
+  public static List<File> getAllJarFiles() throws InternalServerException {
+    ArrayList<File> allJarFiles = new ArrayList<>();
     try {
       for (String jarName : JAR_NAMES) {
-        allJarPaths.add(Paths.get(JarUtils.getJarURL(jarName).toURI()).toString());
+        allJarFiles.add(Paths.get(JarUtils.getJarURL(jarName).toURI()).toFile());
       }
     } catch (URISyntaxException e) {
       throw new InternalServerException(InternalExceptionKey.INTERNAL_COMPILER_EXCEPTION, e);
     }
 
-    return String.join(System.getProperty("path.separator"), allJarPaths);
+    return allJarFiles;
   }
 }
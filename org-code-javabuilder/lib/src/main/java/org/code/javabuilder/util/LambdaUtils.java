@@ -35,4 +35,21 @@ public final class LambdaUtils {
       LoggerUtils.logTrackingExceptionAsWarning(e);
     }
   }
+
+  /**
+   * Waits for the OutputAdapter to deliver all output sent so far and handles any exceptions if
+   * they are thrown, in the same way as {@link #safelySendMessage(OutputAdapter, ClientMessage,
+   * boolean)}.
+   */
+  public static void safelyFlush(OutputAdapter outputAdapter, boolean logOnLostConnection) {
+    try {
+      outputAdapter.flush();
+    } catch (InternalFacingRuntimeException e) {
+      if (logOnLostConnection || !e.getMessage().equals(CONNECTION_TERMINATED)) {
+        LoggerUtils.logTrackingExceptionAsWarning(e);
+      }
+    } catch (Exception e) {
+      LoggerUtils.logTrackingExceptionAsWarning(e);
+    }
+  }
 }
@@ -0,0 +1,51 @@
+package dev.javabuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.code.javabuilder.CompilationResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalCompilationStoreTest {
+  @TempDir Path directory;
+
+  private LocalCompilationStore unitUnderTest;
+
+  @BeforeEach
+  public void setUp() {
+    unitUnderTest = new LocalCompilationStore(directory.resolve("cache"));
+  }
+
+  @Test
+  public void loadsSavedResult() throws Exception {
+    unitUnderTest.save(
+        "key",
+        new CompilationResult(
+            Map.of("Main", new byte[] {1, 2}, "Main$Inner", new byte[] {3}),
+            List.of("warning: é")));
+
+    final CompilationResult result = unitUnderTest.load("key");
+    assertTrue(result.isSuccessful());
+    assertArrayEquals(new byte[] {1, 2}, result.getCompiledClasses().get("Main"));
+    assertArrayEquals(new byte[] {3}, result.getCompiledClasses().get("Main$Inner"));
+    assertEquals(List.of("warning: é"), result.getCompilerOutput());
+  }
+
+  @Test
+  public void loadsSavedCompilerError() throws Exception {
+    unitUnderTest.save("key", new CompilationResult(null, List.of("error")));
+
+    final CompilationResult result = unitUnderTest.load("key");
+    assertFalse(result.isSuccessful());
+    assertEquals(List.of("error"), result.getCompilerOutput());
+  }
+
+  @Test
+  public void returnsNullForMissingKey() throws Exception {
+    assertNull(unitUnderTest.load("missing"));
+  }
+}
@@ -0,0 +1,83 @@
+package dev.javabuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.code.javabuilder.PerformanceTracker;
+import org.code.protocol.InternalExceptionKey;
+import org.code.protocol.InternalServerRuntimeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WebSocketInputAdapterTest {
+  private PerformanceTracker performanceTracker;
+  private WebSocketInputAdapter unitUnderTest;
+
+  @BeforeEach
+  public void setUp() {
+    performanceTracker = mock(PerformanceTracker.class);
+    unitUnderTest = new WebSocketInputAdapter(performanceTracker);
+  }
+
+  @Test
+  public void returnsMessagesInOrder() {
+    unitUnderTest.appendMessage("first");
+    unitUnderTest.appendMessage("second");
+
+    assertEquals("first", unitUnderTest.getNextMessage());
+    assertEquals("second", unitUnderTest.getNextMessage());
+  }
+
+  @Test
+  public void wakesWaitingReaderWhenMessageArrives() throws Exception {
+    final CompletableFuture<String> message =
+        CompletableFuture.supplyAsync(unitUnderTest::getNextMessage);
+
+    unitUnderTest.appendMessage("hello");
+
+    assertEquals("hello", message.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void tracksInputLatencyForEveryMessage() {
+    unitUnderTest.appendMessage("first");
+    unitUnderTest.appendMessage("second");
+    unitUnderTest.getNextMessage();
+    unitUnderTest.getNextMessage();
+
+    verify(performanceTracker, times(2)).trackInputLatency(anyLong());
+  }
+
+  @Test
+  public void closeWakesWaitingReaderWithConnectionTerminated() throws Exception {
+    final CompletableFuture<String> message =
+        CompletableFuture.supplyAsync(unitUnderTest::getNextMessage);
+
+    unitUnderTest.close();
+
+    final Exception e = assertThrows(Exception.class, () -> message.get(1, TimeUnit.SECONDS));
+    final InternalServerRuntimeException cause = (InternalServerRuntimeException) e.getCause();
+    assertEquals(InternalExceptionKey.CONNECTION_TERMINATED.toString(), cause.getMessage());
+  }
+
+  @Test
+  public void readsMessagesThatArrivedBeforeClose() {
+    unitUnderTest.appendMessage("hello");
+    unitUnderTest.close();
+
+    assertEquals("hello", unitUnderTest.getNextMessage());
+    assertThrows(InternalServerRuntimeException.class, unitUnderTest::getNextMessage);
+    assertThrows(InternalServerRuntimeException.class, unitUnderTest::getNextMessage);
+  }
+
+  @Test
+  public void interruptRestoresFlagAndThrowsConnectionTerminated() {
+    Thread.currentThread().interrupt();
+
+    assertThrows(InternalServerRuntimeException.class, unitUnderTest::getNextMessage);
+    assertTrue(Thread.interrupted());
+  }
+}
@@ -5,42 +5,75 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import com.amazonaws.AbortedException;
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
 import com.amazonaws.services.sqs.model.Message;
 import com.amazonaws.services.sqs.model.QueueDoesNotExistException;
 import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
 import com.amazonaws.services.sqs.model.ReceiveMessageResult;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
 
 public class AWSInputAdapterTest {
   private AWSInputAdapter inputAdapter;
   private AmazonSQS sqsMock;
+  private PerformanceTracker performanceTracker;
 
   @BeforeEach
   public void setUp() {
     sqsMock = mock(AmazonSQS.class);
-    inputAdapter = new AWSInputAdapter(sqsMock, "url", "name");
+    performanceTracker = mock(PerformanceTracker.class);
+    when(sqsMock.deleteMessageBatch(anyString(), anyList()))
+        .thenReturn(new DeleteMessageBatchResult());
+    inputAdapter = new AWSInputAdapter(sqsMock, "url", "name", performanceTracker);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    inputAdapter.close();
   }
 
   /**
-   * Adds messages to the SQS Queue Mock to be retrieved by the input Adapter
+   * Adds messages to the SQS Queue Mock to be retrieved by the input Adapter. Later receives wait
+   * until the adapter is closed, like a long poll on an empty queue.
    *
    * @param messages an array of messages in the queue
    */
   private void messageSetUp(String[] messages) {
     List<Message> messageList = new ArrayList<>();
-    for (String s : messages) {
-      Message message = mock(Message.class);
-      when(message.getBody()).thenReturn(s);
-      messageList.add(message);
+    for (int i = 0; i < messages.length; i++) {
+      messageList.add(
+          new Message()
+              .withBody(messages[i])
+              .withReceiptHandle("handle" + i)
+              .withAttributes(Map.of("SentTimestamp", "0")));
     }
 
-    ReceiveMessageResult result = mock(ReceiveMessageResult.class);
-    when(result.getMessages()).thenReturn(messageList);
-    when(sqsMock.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(result);
+    ReceiveMessageResult result = new ReceiveMessageResult().withMessages(messageList);
+    when(sqsMock.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(result)
+        .thenAnswer(waitUntilClosed());
+  }
+
+  private Answer<ReceiveMessageResult> waitUntilClosed() {
+    return invocation -> {
+      try {
+        Thread.sleep(Long.MAX_VALUE);
+      } catch (InterruptedException e) {
+        // The SDK aborts a request when its thread is interrupted.
+        throw new AbortedException();
+      }
+      return new ReceiveMessageResult();
+    };
   }
 
   private void mockLostConnection() {
@@ -62,30 +95,69 @@ public class AWSInputAdapterTest {
   }
 
   /**
-   * When getNextMessage is called on an empty inputAdapter, it fetches and caches all available
-   * messages from the SQS Queue (up to the AWS maximum of 10). To ensure these messages are not
-   * retrieved again, we need to delete them from the SQS Queue. This test checks that we are
-   * cleaning up the queue after retrieving messages
+   * To ensure received messages are not retrieved again, we need to delete them from the SQS Queue.
+   * Every message from a receive is deleted in a single batch request.
    */
   @Test
-  void deletesAllReadMessages() {
+  @SuppressWarnings("unchecked")
+  void deletesAllReadMessagesInOneBatch() {
     messageSetUp(new String[] {"", ""});
     inputAdapter.getNextMessage();
-    verify(sqsMock, times(2)).deleteMessage("url", null);
+
+    final ArgumentCaptor<List<DeleteMessageBatchRequestEntry>> captor =
+        ArgumentCaptor.forClass(List.class);
+    verify(sqsMock, timeout(1000)).deleteMessageBatch(eq("url"), captor.capture());
+    assertEquals(2, captor.getValue().size());
+    assertEquals("handle0", captor.getValue().get(0).getReceiptHandle());
+    assertEquals("handle1", captor.getValue().get(1).getReceiptHandle());
+    verify(sqsMock, never()).deleteMessage(anyString(), anyString());
+  }
+
+  @Test
+  void deletesMessagesTheBatchFailedToDeleteIndividually() {
+    when(sqsMock.deleteMessageBatch(anyString(), anyList()))
+        .thenReturn(
+            new DeleteMessageBatchResult().withFailed(new BatchResultErrorEntry().withId("1")));
+    messageSetUp(new String[] {"", ""});
+    inputAdapter.getNextMessage();
+
+    verify(sqsMock, timeout(1000)).deleteMessage("url", "handle1");
+    verify(sqsMock, never()).deleteMessage("url", "handle0");
   }
 
   /**
-   * Retrieving messages from the SQS Queue is an expensive operation. When we have no more messages
-   * available in the inputAdapter, we retrieve multiple messages from the Queue at once. They are
-   * cached and subsequent calls to getNextMessage do not retrieve additional messages until the
-   * local queue is empty.
+   * Retrieving messages from the SQS Queue is an expensive operation, so every receive is a long
+   * poll for as many messages as SQS allows.
    */
   @Test
-  void cachesMessages() {
-    messageSetUp(new String[] {"", ""});
+  void receivesWithLongPoll() {
+    messageSetUp(new String[] {"hello"});
     inputAdapter.getNextMessage();
+
+    final ArgumentCaptor<ReceiveMessageRequest> captor =
+        ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+    verify(sqsMock, atLeastOnce()).receiveMessage(captor.capture());
+    assertEquals(20, captor.getValue().getWaitTimeSeconds());
+    assertEquals(10, captor.getValue().getMaxNumberOfMessages());
+  }
+
+  /** Input sent while the program is busy is received in the background, before it is asked for. */
+  @Test
+  void keepsReceivingInBackground() {
+    messageSetUp(new String[] {"hello"});
     inputAdapter.getNextMessage();
-    verify(sqsMock, times(1)).receiveMessage(any(ReceiveMessageRequest.class));
+
+    verify(sqsMock, timeout(1000).times(2)).receiveMessage(any(ReceiveMessageRequest.class));
+  }
+
+  @Test
+  void tracksInputLatencyFromSentTimestamp() {
+    messageSetUp(new String[] {"hello"});
+    inputAdapter.getNextMessage();
+
+    final ArgumentCaptor<Long> captor = ArgumentCaptor.forClass(Long.class);
+    verify(performanceTracker).trackInputLatency(captor.capture());
+    assertTrue(captor.getValue() > 0);
   }
 
   @Test
@@ -94,5 +166,7 @@ public class AWSInputAdapterTest {
     Exception actual =
         assertThrows(InternalFacingRuntimeException.class, () -> inputAdapter.getNextMessage());
     assertEquals(CONNECTION_TERMINATED, actual.getMessage());
+    // Later reads fail the same way instead of waiting for input that will never arrive.
+    assertThrows(InternalFacingRuntimeException.class, () -> inputAdapter.getNextMessage());
   }
 }
@@ -0,0 +1,245 @@
+package org.code.javabuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.code.protocol.ClientMessage;
+import org.code.protocol.OutputAdapter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AsyncOutputAdapterTest {
+  private List<String> delivered;
+  private OutputAdapter delegate;
+  private AsyncOutputAdapter unitUnderTest;
+
+  @BeforeEach
+  public void setUp() {
+    delivered = Collections.synchronizedList(new ArrayList<>());
+    delegate = message -> delivered.add(message.getValue());
+    unitUnderTest = new AsyncOutputAdapter(delegate);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    try {
+      unitUnderTest.close();
+    } catch (RuntimeException e) {
+      // Some tests leave the adapter in a failed state
+    }
+  }
+
+  @Test
+  public void flushDeliversAllMessagesInOrder() {
+    final List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      expected.add(String.valueOf(i));
+      unitUnderTest.sendMessage(new SystemOutMessage(String.valueOf(i)));
+    }
+    unitUnderTest.flush();
+    assertEquals(expected, delivered);
+  }
+
+  @Test
+  public void sendDoesNotWaitForDelivery() throws InterruptedException {
+    final CountDownLatch release = new CountDownLatch(1);
+    unitUnderTest.close();
+    unitUnderTest =
+        new AsyncOutputAdapter(
+            message -> {
+              awaitQuietly(release);
+              delivered.add(message.getValue());
+            });
+
+    unitUnderTest.sendMessage(new SystemOutMessage("hello"));
+    assertTrue(delivered.isEmpty());
+
+    release.countDown();
+    unitUnderTest.flush();
+    assertEquals(List.of("hello"), delivered);
+  }
+
+  @Test
+  public void sendBlocksWhenQueueIsFull() throws InterruptedException {
+    final CountDownLatch release = new CountDownLatch(1);
+    unitUnderTest.close();
+    unitUnderTest = new AsyncOutputAdapter(message -> awaitQuietly(release), 1);
+
+    // The first message is taken by the sender, the second fills the queue.
+    unitUnderTest.sendMessage(new SystemOutMessage("1"));
+    unitUnderTest.sendMessage(new SystemOutMessage("2"));
+    final Thread producer = new Thread(() -> unitUnderTest.sendMessage(new SystemOutMessage("3")));
+    producer.start();
+    producer.join(200);
+    assertTrue(producer.isAlive());
+
+    release.countDown();
+    producer.join(TimeUnit.SECONDS.toMillis(5));
+    assertFalse(producer.isAlive());
+  }
+
+  @Test
+  public void sendFailsWhenDelegateStallsLongerThanTimeout() {
+    final CountDownLatch release = new CountDownLatch(1);
+    unitUnderTest.close();
+    unitUnderTest = new AsyncOutputAdapter(message -> awaitQuietly(release), 1, 50);
+
+    try {
+      unitUnderTest.sendMessage(new SystemOutMessage("1"));
+      unitUnderTest.sendMessage(new SystemOutMessage("2"));
+      assertTimeoutPreemptively(
+          Duration.ofSeconds(5),
+          () ->
+              assertThrows(
+                  InternalFacingRuntimeException.class,
+                  () -> unitUnderTest.sendMessage(new SystemOutMessage("3"))));
+      // Later output fails straight away rather than waiting on the stalled delegate again.
+      assertThrows(
+          InternalFacingRuntimeException.class,
+          () -> unitUnderTest.sendMessage(new SystemOutMessage("4")));
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void interruptedSendFailsAndRestoresInterrupt() {
+    final CountDownLatch release = new CountDownLatch(1);
+    unitUnderTest.close();
+    unitUnderTest = new AsyncOutputAdapter(message -> awaitQuietly(release), 1);
+
+    try {
+      unitUnderTest.sendMessage(new SystemOutMessage("1"));
+      unitUnderTest.sendMessage(new SystemOutMessage("2"));
+      Thread.currentThread().interrupt();
+      assertThrows(
+          InternalFacingRuntimeException.class,
+          () -> unitUnderTest.sendMessage(new SystemOutMessage("3")));
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void closeGetsInWhileProducerWaitsForSpace() throws InterruptedException {
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<Throwable> producerErrors = Collections.synchronizedList(new ArrayList<>());
+    unitUnderTest.close();
+    unitUnderTest = new AsyncOutputAdapter(message -> awaitQuietly(release), 1, 60_000);
+
+    unitUnderTest.sendMessage(new SystemOutMessage("1"));
+    unitUnderTest.sendMessage(new SystemOutMessage("2"));
+    final Thread producer =
+        new Thread(
+            () -> {
+              try {
+                unitUnderTest.sendMessage(new SystemOutMessage("3"));
+              } catch (RuntimeException e) {
+                producerErrors.add(e);
+              }
+            });
+    producer.start();
+    producer.join(200);
+    assertTrue(producer.isAlive());
+
+    final Thread closer = new Thread(() -> unitUnderTest.close());
+    closer.start();
+    producer.join(TimeUnit.SECONDS.toMillis(5));
+    assertFalse(producer.isAlive());
+    assertEquals(1, producerErrors.size());
+    assertInstanceOf(InternalFacingRuntimeException.class, producerErrors.get(0));
+
+    release.countDown();
+    closer.join(TimeUnit.SECONDS.toMillis(5));
+    assertFalse(closer.isAlive());
+  }
+
+  @Test
+  public void rethrowsDeliveryErrorsToProducer() {
+    final InternalFacingRuntimeException error =
+        new InternalFacingRuntimeException("gone", new Exception());
+    final OutputAdapter failingDelegate = mock(OutputAdapter.class);
+    doThrow(error).when(failingDelegate).sendMessage(any(ClientMessage.class));
+    unitUnderTest.close();
+    unitUnderTest = new AsyncOutputAdapter(failingDelegate);
+
+    unitUnderTest.sendMessage(new SystemOutMessage("hello"));
+    assertSame(error, assertThrows(InternalFacingRuntimeException.class, unitUnderTest::flush));
+    assertThrows(
+        InternalFacingRuntimeException.class,
+        () -> unitUnderTest.sendMessage(new SystemOutMessage("world")));
+    // Only the first message is attempted once the connection has failed.
+    verify(failingDelegate, times(1)).sendMessage(any(ClientMessage.class));
+  }
+
+  @Test
+  public void closeDeliversQueuedMessagesAndSendsSynchronouslyAfterward() {
+    unitUnderTest.sendMessage(new SystemOutMessage("before"));
+    unitUnderTest.close();
+    assertEquals(List.of("before"), delivered);
+
+    unitUnderTest.sendMessage(new SystemOutMessage("after"));
+    assertEquals(List.of("before", "after"), delivered);
+  }
+
+  @Test
+  public void flushGivesUpAndDropsMessagesWhenDelegateHangs() throws InterruptedException {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    unitUnderTest.close();
+    unitUnderTest =
+        new AsyncOutputAdapter(
+            message -> {
+              started.countDown();
+              awaitQuietly(release);
+              delivered.add(message.getValue());
+            },
+            AsyncOutputAdapter.DEFAULT_CAPACITY,
+            50);
+
+    unitUnderTest.sendMessage(new SystemOutMessage("stuck"));
+    started.await();
+    unitUnderTest.sendMessage(new SystemOutMessage("dropped"));
+    assertTimeoutPreemptively(Duration.ofSeconds(5), unitUnderTest::flush);
+
+    release.countDown();
+    unitUnderTest.sendMessage(new SystemOutMessage("after"));
+    unitUnderTest.flush();
+    assertEquals(List.of("stuck", "after"), delivered);
+  }
+
+  @Test
+  public void closeRestoresInterruptAndDoesNotWaitForHungDelegate() {
+    final CountDownLatch release = new CountDownLatch(1);
+    unitUnderTest.close();
+    unitUnderTest = new AsyncOutputAdapter(message -> awaitQuietly(release));
+
+    unitUnderTest.sendMessage(new SystemOutMessage("stuck"));
+    Thread.currentThread().interrupt();
+    try {
+      // Would block forever if close() kept waiting after being interrupted.
+      unitUnderTest.close();
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+      release.countDown();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package org.code.javabuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.code.protocol.ClientMessage;
+import org.code.protocol.OutputAdapter;
+import org.code.protocol.StatusMessage;
+import org.code.protocol.StatusMessageKey;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class BatchingOutputAdapterTest {
+  // Long enough that the background flush never fires during a test
+  private static final long NO_TIMED_FLUSH_MS = 60000;
+
+  private OutputAdapter delegate;
+  private BatchingOutputAdapter unitUnderTest;
+
+  @BeforeEach
+  public void setUp() {
+    delegate = mock(OutputAdapter.class);
+    unitUnderTest =
+        new BatchingOutputAdapter(
+            delegate, BatchingOutputAdapter.MAX_FRAME_BYTES, NO_TIMED_FLUSH_MS);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    unitUnderTest.close();
+  }
+
+  @Test
+  public void holdsSystemOutMessagesUntilFlushed() {
+    unitUnderTest.sendMessage(new SystemOutMessage("hello"));
+    verify(delegate, never()).sendMessage(any(ClientMessage.class));
+
+    unitUnderTest.flush();
+    verify(delegate, times(1)).sendMessage(any(ClientMessage.class));
+  }
+
+  @Test
+  public void flushWaitsForDelegateToDeliver() {
+    unitUnderTest.sendMessage(new SystemOutMessage("hello"));
+    unitUnderTest.flush();
+    verify(delegate, times(1)).flush();
+  }
+
+  @Test
+  public void mergesConsecutiveSystemOutMessages() {
+    unitUnderTest.sendMessage(new SystemOutMessage("hello "));
+    unitUnderTest.sendMessage(new SystemOutMessage("world"));
+    unitUnderTest.flush();
+
+    assertEquals(
+        List.of(new SystemOutMessage("hello world").getFormattedMessage()), getSentFrames());
+  }
+
+  @Test
+  public void statusMessageFlushesPendingMessagesInOrder() {
+    final StatusMessage status = new StatusMessage(StatusMessageKey.EXITED);
+    unitUnderTest.sendMessage(new SystemOutMessage("a"));
+    unitUnderTest.sendMessage(new SystemOutMessage("b"));
+    unitUnderTest.sendMessage(status);
+
+    final String expected =
+        "["
+            + new SystemOutMessage("ab").getFormattedMessage()
+            + ","
+            + status.getFormattedMessage()
+            + "]";
+    assertEquals(List.of(expected), getSentFrames());
+  }
+
+  @Test
+  public void splitsFramesThatWouldExceedMaxSize() {
+    final String first = new SystemOutMessage("first").getFormattedMessage();
+    final String second = new StatusMessage(StatusMessageKey.RUNNING).getFormattedMessage();
+    unitUnderTest.close();
+    // Room for either message alone, but not both in one array
+    unitUnderTest =
+        new BatchingOutputAdapter(delegate, first.length() + second.length(), NO_TIMED_FLUSH_MS);
+
+    unitUnderTest.sendMessage(new SystemOutMessage("first"));
+    unitUnderTest.sendMessage(new StatusMessage(StatusMessageKey.RUNNING));
+
+    assertEquals(List.of(first, second), getSentFrames());
+  }
+
+  @Test
+  public void flushesOnceFrameSizeIsReached() {
+    final String formatted = new SystemOutMessage("0123456789").getFormattedMessage();
+    unitUnderTest.close();
+    unitUnderTest = new BatchingOutputAdapter(delegate, formatted.length(), NO_TIMED_FLUSH_MS);
+
+    unitUnderTest.sendMessage(new SystemOutMessage("0123456789"));
+
+    verify(delegate, times(1)).sendMessage(any(ClientMessage.class));
+  }
+
+  @Test
+  public void keepsEscapeHeavyOutputWithinMaxFrameSize() {
+    final int maxFrameBytes = 1000;
+    unitUnderTest.close();
+    unitUnderTest = new BatchingOutputAdapter(delegate, maxFrameBytes, NO_TIMED_FLUSH_MS);
+
+    // Every one of these characters takes two or six bytes once escaped.
+    final StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      final String value = "\"\\\u0001\u2028</" + i;
+      expected.append(value);
+      unitUnderTest.sendMessage(new SystemOutMessage(value));
+    }
+    // A single print much larger than a frame
+    final String large = "\u0001".repeat(maxFrameBytes);
+    expected.append(large);
+    unitUnderTest.sendMessage(new SystemOutMessage(large));
+    unitUnderTest.flush();
+
+    final StringBuilder received = new StringBuilder();
+    for (String frame : getSentFrames()) {
+      assertTrue(BatchingOutputAdapter.utf8Length(frame) <= maxFrameBytes, frame);
+      final JSONArray messages =
+          frame.startsWith("[") ? new JSONArray(frame) : new JSONArray().put(new JSONObject(frame));
+      for (int i = 0; i < messages.length(); i++) {
+        received.append(messages.getJSONObject(i).getString("value"));
+      }
+    }
+    assertEquals(expected.toString(), received.toString());
+  }
+
+  @Test
+  public void flushesPendingMessagesAfterInterval() {
+    unitUnderTest.close();
+    unitUnderTest = new BatchingOutputAdapter(delegate, BatchingOutputAdapter.MAX_FRAME_BYTES, 10);
+
+    unitUnderTest.sendMessage(new SystemOutMessage("hello"));
+
+    verify(delegate, timeout(1000).times(1)).sendMessage(any(ClientMessage.class));
+  }
+
+  @Test
+  public void rethrowsBackgroundFlushExceptionToNextSender() {
+    unitUnderTest.close();
+    final InternalFacingRuntimeException error =
+        new InternalFacingRuntimeException("gone", new Exception());
+    doThrow(error).when(delegate).sendMessage(any(ClientMessage.class));
+    unitUnderTest = new BatchingOutputAdapter(delegate, BatchingOutputAdapter.MAX_FRAME_BYTES, 10);
+
+    unitUnderTest.sendMessage(new SystemOutMessage("hello"));
+    verify(delegate, timeout(1000).times(1)).sendMessage(any(ClientMessage.class));
+
+    assertThrows(
+        InternalFacingRuntimeException.class,
+        () -> unitUnderTest.sendMessage(new SystemOutMessage("world")));
+  }
+
+  @Test
+  public void closeFlushesAndPassesLaterMessagesThrough() {
+    unitUnderTest.sendMessage(new SystemOutMessage("hello"));
+    unitUnderTest.close();
+    verify(delegate, times(1)).sendMessage(any(ClientMessage.class));
+
+    unitUnderTest.sendMessage(new SystemOutMessage("world"));
+    verify(delegate, times(2)).sendMessage(any(ClientMessage.class));
+  }
+
+  @Test
+  public void utf8LengthCountsMultiByteCharacters() {
+    assertEquals(1, BatchingOutputAdapter.utf8Length("a"));
+    assertEquals(2, BatchingOutputAdapter.utf8Length("é"));
+    assertEquals(3, BatchingOutputAdapter.utf8Length("€"));
+    assertEquals(4, BatchingOutputAdapter.utf8Length("😀"));
+  }
+
+  private List<String> getSentFrames() {
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(delegate, atLeastOnce()).sendMessage(captor.capture());
+    return captor.getAllValues().stream()
+        .map(ClientMessage::getFormattedMessage)
+        .collect(Collectors.toList());
+  }
+}
@@ -4,7 +4,6 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import org.code.protocol.GlobalProtocol;
@@ -14,23 +13,20 @@ import org.junit.jupiter.api.Test;
 public class CodeBuilderTest {
   private UserProjectFiles userProjectFiles;
   private GlobalProtocol globalProtocol;
-  private File tempFolder;
   private CodeBuilder codeBuilder;
 
   @BeforeEach
   public void setUp() throws Exception {
     globalProtocol = mock(GlobalProtocol.class);
-    tempFolder = mock(File.class);
     userProjectFiles = mock(UserProjectFiles.class);
 
-    codeBuilder =
-        new CodeBuilder(globalProtocol, userProjectFiles, mock(UserProjectFiles.class), tempFolder);
+    codeBuilder = new CodeBuilder(globalProtocol, userProjectFiles, mock(UserProjectFiles.class));
   }
 
   @Test
   public void testBuildUserCodeThrowsExceptionFileListIsNull() {
     final Exception exception =
-        assertThrows(UserInitiatedException.class, () -> codeBuilder.buildUserCode(null));
+        assertThrows(UserInitiatedException.class, () -> codeBuilder.buildUserCode(null, null));
     assertEquals(UserInitiatedExceptionKey.NO_FILES_TO_COMPILE.toString(), exception.getMessage());
     verify(userProjectFiles, never()).getMatchingJavaFiles(anyList());
   }
@@ -41,7 +37,8 @@ public class CodeBuilderTest {
     when(userProjectFiles.getMatchingJavaFiles(compileList)).thenReturn(new ArrayList<>());
 
     final Exception exception =
-        assertThrows(UserInitiatedException.class, () -> codeBuilder.buildUserCode(compileList));
+        assertThrows(
+            UserInitiatedException.class, () -> codeBuilder.buildUserCode(compileList, null));
     assertEquals(UserInitiatedExceptionKey.NO_FILES_TO_COMPILE.toString(), exception.getMessage());
   }
 
@@ -1,11 +1,9 @@
 package org.code.javabuilder;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
-import java.io.File;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.List;
@@ -16,6 +14,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 class CodeExecutionManagerTest {
+  private static final String CHANNEL_ID = "channelId";
+
   private ProjectFileLoader fileLoader;
   private InputAdapter inputAdapter;
   private OutputAdapter outputAdapter;
@@ -40,7 +40,7 @@ class CodeExecutionManagerTest {
     contentManager = mock(ContentManager.class);
 
     when(codeBuilderRunnableFactory.createCodeBuilderRunnable(
-            eq(fileLoader), any(File.class), eq(executionType), eq(compileList)))
+            eq(fileLoader), eq(executionType), eq(compileList), eq(CHANNEL_ID)))
         .thenReturn(codeBuilderRunnable);
 
     unitUnderTest =
@@ -50,6 +50,7 @@ class CodeExecutionManagerTest {
             outputAdapter,
             executionType,
             compileList,
+            CHANNEL_ID,
             tempDirectoryManager,
             contentManager,
             mock(SystemExitHelper.class),
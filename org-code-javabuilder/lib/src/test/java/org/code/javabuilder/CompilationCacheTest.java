@@ -0,0 +1,93 @@
+package org.code.javabuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompilationCacheTest {
+  private CompilationStore persistentStore;
+
+  @BeforeEach
+  public void setUp() {
+    persistentStore = mock(CompilationStore.class);
+  }
+
+  @Test
+  public void keyDependsOnFileNamesContentsAndLibraries() throws Exception {
+    final CompilationCache unitUnderTest = new CompilationCache(1000, null, "library");
+    final String key = unitUnderTest.computeKey(List.of(createFile("Main.java", "class Main {}")));
+
+    assertEquals(key, unitUnderTest.computeKey(List.of(createFile("Main.java", "class Main {}"))));
+    assertNotEquals(
+        key, unitUnderTest.computeKey(List.of(createFile("Main.java", "class Main { }"))));
+    assertNotEquals(
+        key, unitUnderTest.computeKey(List.of(createFile("Other.java", "class Main {}"))));
+    assertNotEquals(
+        key,
+        new CompilationCache(1000, null, "newLibrary")
+            .computeKey(List.of(createFile("Main.java", "class Main {}"))));
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedResultsOverBudget() {
+    final CompilationResult result = createResult(200);
+    final CompilationCache unitUnderTest =
+        new CompilationCache(result.getSizeBytes() * 2, null, "library");
+    unitUnderTest.put("a", result);
+    unitUnderTest.put("b", createResult(200));
+    unitUnderTest.get("a");
+    unitUnderTest.put("c", createResult(200));
+
+    assertSame(result, unitUnderTest.get("a"));
+    assertNull(unitUnderTest.get("b"));
+    assertNotNull(unitUnderTest.get("c"));
+  }
+
+  @Test
+  public void doesNotKeepResultsLargerThanBudgetInMemory() {
+    final CompilationCache unitUnderTest = new CompilationCache(100, null, "library");
+    unitUnderTest.put("a", createResult(200));
+
+    assertNull(unitUnderTest.get("a"));
+  }
+
+  @Test
+  public void savesToAndPromotesFromPersistentStore() throws Exception {
+    final CompilationResult result = createResult(10);
+    when(persistentStore.load("a")).thenReturn(result);
+    final CompilationCache unitUnderTest = new CompilationCache(1000, persistentStore, "library");
+
+    assertSame(result, unitUnderTest.get("a"));
+    assertSame(result, unitUnderTest.get("a"));
+    verify(persistentStore, times(1)).load("a");
+
+    unitUnderTest.put("b", result);
+    verify(persistentStore).save("b", result);
+  }
+
+  @Test
+  public void treatsPersistentStoreFailureAsMiss() throws Exception {
+    when(persistentStore.load("a")).thenThrow(new IOException());
+    doThrow(new IOException()).when(persistentStore).save(eq("b"), any());
+    final CompilationCache unitUnderTest = new CompilationCache(1000, persistentStore, "library");
+
+    assertNull(unitUnderTest.get("a"));
+    final CompilationResult result = createResult(10);
+    unitUnderTest.put("b", result);
+    assertSame(result, unitUnderTest.get("b"));
+  }
+
+  private JavaProjectFile createFile(String fileName, String contents)
+      throws UserInitiatedException {
+    return new JavaProjectFile(fileName, contents);
+  }
+
+  private CompilationResult createResult(int classBytes) {
+    return new CompilationResult(Map.of("Main", new byte[classBytes]), List.of());
+  }
+}
@@ -0,0 +1,97 @@
+package org.code.javabuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class InMemoryJavaFileManagerTest {
+  private JavaCompiler compiler;
+  private InMemoryJavaFileManager unitUnderTest;
+
+  @BeforeEach
+  public void setUp() {
+    compiler = ToolProvider.getSystemJavaCompiler();
+    unitUnderTest = new InMemoryJavaFileManager(compiler.getStandardFileManager(null, null, null));
+  }
+
+  @Test
+  public void storesCompiledClassesInMemory() {
+    final String source =
+        "public class Main {\n"
+            + "  static class Inner {}\n"
+            + "  public static void main(String[] args) {}\n"
+            + "}\n";
+
+    final boolean success =
+        compiler
+            .getTask(
+                null,
+                unitUnderTest,
+                null,
+                null,
+                null,
+                List.of(new JavaSourceFromString("Main", source)))
+            .call();
+
+    assertTrue(success);
+    final Map<String, byte[]> compiledClasses = unitUnderTest.getCompiledClasses();
+    assertEquals(2, compiledClasses.size());
+    assertTrue(compiledClasses.get("Main").length > 0);
+    assertTrue(compiledClasses.get("Main$Inner").length > 0);
+  }
+
+  @Test
+  public void compilesAgainstClasspathClasses() {
+    final InMemoryJavaFileManager helperFileManager =
+        new InMemoryJavaFileManager(compiler.getStandardFileManager(null, null, null));
+    compiler
+        .getTask(
+            null,
+            helperFileManager,
+            null,
+            null,
+            null,
+            List.of(
+                new JavaSourceFromString(
+                    "Helper", "public class Helper { public static int get() { return 1; } }")))
+        .call();
+    unitUnderTest =
+        new InMemoryJavaFileManager(
+            compiler.getStandardFileManager(null, null, null),
+            helperFileManager.getCompiledClasses());
+
+    final boolean success =
+        compiler
+            .getTask(
+                null,
+                unitUnderTest,
+                null,
+                null,
+                null,
+                List.of(
+                    new JavaSourceFromString(
+                        "Main", "public class Main { int value = Helper.get(); }")))
+            .call();
+
+    assertTrue(success);
+    assertEquals(Set.of("Main"), unitUnderTest.getCompiledClasses().keySet());
+    assertEquals(Map.of("Main", "/Main.java"), unitUnderTest.getClassSources());
+  }
+
+  @Test
+  public void doesNotWriteSourceOutput() {
+    assertThrows(
+        UnsupportedOperationException.class,
+        () ->
+            unitUnderTest.getJavaFileForOutput(
+                StandardLocation.SOURCE_OUTPUT, "Generated", JavaFileObject.Kind.SOURCE, null));
+  }
+}
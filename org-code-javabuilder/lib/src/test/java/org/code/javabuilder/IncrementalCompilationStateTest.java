@@ -0,0 +1,122 @@
+package org.code.javabuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalCompilationStateTest {
+  private static final String MAIN = "/Main.java";
+  private static final String SHAPE = "/Shape.java";
+  private static final String SQUARE = "/Square.java";
+  private static final String UTIL = "/Util.java";
+
+  private Map<String, String> sourceContents;
+  private IncrementalCompilationState unitUnderTest;
+
+  @BeforeEach
+  public void setUp() {
+    sourceContents =
+        Map.of(
+            MAIN, "class Main { Square square; }",
+            SHAPE, "class Shape {}",
+            SQUARE, "class Square extends Shape { class Side {} }",
+            UTIL, "class Util {}");
+    unitUnderTest =
+        new IncrementalCompilationState(
+            sourceContents,
+            Map.of(
+                "Main", new byte[] {1},
+                "Shape", new byte[] {2},
+                "Square", new byte[] {3},
+                "Square$Side", new byte[] {4},
+                "Util", new byte[] {5}),
+            Map.of(
+                "Main", MAIN,
+                "Shape", SHAPE,
+                "Square", SQUARE,
+                "Square$Side", SQUARE,
+                "Util", UTIL),
+            Map.of(SQUARE, List.of("square warning"), SHAPE, List.of("shape warning")));
+  }
+
+  @Test
+  public void recompilesNothingIfNothingChanged() {
+    assertEquals(Set.of(), unitUnderTest.getSourcesToRecompile(sourceContents));
+  }
+
+  @Test
+  public void recompilesChangedFileAndItsDependents() {
+    final Map<String, String> newContents =
+        Map.of(
+            MAIN, sourceContents.get(MAIN),
+            SHAPE, "class Shape { int sides; }",
+            SQUARE, sourceContents.get(SQUARE),
+            UTIL, sourceContents.get(UTIL));
+
+    assertEquals(Set.of(MAIN, SHAPE, SQUARE), unitUnderTest.getSourcesToRecompile(newContents));
+  }
+
+  @Test
+  public void recompilesDependentsOfRemovedFile() {
+    final Map<String, String> newContents =
+        Map.of(MAIN, sourceContents.get(MAIN), SQUARE, sourceContents.get(SQUARE));
+
+    assertEquals(Set.of(SQUARE, MAIN), unitUnderTest.getSourcesToRecompile(newContents));
+  }
+
+  @Test
+  public void returnsClassesOfReusedFiles() {
+    final Map<String, byte[]> classes = unitUnderTest.getCompiledClasses(Set.of(SQUARE));
+
+    assertEquals(Set.of("Square", "Square$Side"), classes.keySet());
+  }
+
+  @Test
+  public void detectsNewClassUsedByReusedFile() {
+    assertTrue(unitUnderTest.isUnaffected(Set.of(MAIN), Map.of("Util", UTIL)));
+    assertFalse(unitUnderTest.isUnaffected(Set.of(MAIN), Map.of("Square", UTIL)));
+  }
+
+  @Test
+  public void updateCarriesOverReusedClasses() {
+    final Map<String, String> newContents = Map.of(MAIN, "class Main {}", SHAPE, "class Shape {}");
+
+    final IncrementalCompilationState updated =
+        unitUnderTest.update(
+            newContents,
+            Set.of(MAIN),
+            Map.of("Main", new byte[] {6}),
+            Map.of("Main", MAIN),
+            Map.of(MAIN, List.of("main warning")));
+
+    assertEquals(Set.of("Main", "Shape"), updated.getCompiledClasses().keySet());
+    assertArrayEquals(new byte[] {6}, updated.getCompiledClasses().get("Main"));
+    assertEquals(
+        Map.of(MAIN, List.of("main warning"), SHAPE, List.of("shape warning")),
+        updated.getCompilerOutput());
+    assertEquals(Set.of(), updated.getSourcesToRecompile(newContents));
+  }
+
+  @Test
+  public void updateReplacesCompilerOutputOfRecompiledFiles() {
+    final Map<String, String> newContents =
+        Map.of(MAIN, "class Main {}", SHAPE, "class Shape { int sides; }");
+
+    final IncrementalCompilationState updated =
+        unitUnderTest.update(
+            newContents,
+            Set.of(MAIN, SHAPE),
+            Map.of("Main", new byte[] {6}, "Shape", new byte[] {7}),
+            Map.of("Main", MAIN, "Shape", SHAPE),
+            Map.of(MAIN, List.of("main warning")));
+
+    assertEquals(Map.of(MAIN, List.of("main warning")), updated.getCompilerOutput());
+    assertEquals(
+        Map.of(SQUARE, List.of("square warning"), SHAPE, List.of("shape warning")),
+        unitUnderTest.getCompilerOutput());
+  }
+}
@@ -3,7 +3,9 @@ package org.code.javabuilder;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import org.code.protocol.InputHandler;
 import org.code.protocol.InputMessageType;
@@ -113,11 +115,87 @@ public class InputRedirectionStreamTest {
   }
 
   @Test
-  public void skipThrowsIOException() {
-    assertThrows(
-        IOException.class,
-        () -> {
-          stream.skip(2);
-        });
+  public void readReturnsBytesAsUnsignedValues() {
+    when(inputHandler.getNextMessageForType(InputMessageType.SYSTEM_IN)).thenReturn("é");
+    byte[] expected = "é".getBytes(StandardCharsets.UTF_8);
+    assertEquals(expected[0] & 0xFF, stream.read());
+    assertEquals(expected[1] & 0xFF, stream.read());
+  }
+
+  @Test
+  public void readReturnsMinusOneWhenInputEnds() {
+    when(inputHandler.getNextMessageForType(InputMessageType.SYSTEM_IN)).thenReturn(null);
+    assertEquals(-1, stream.read());
+    assertEquals(-1, stream.read(new byte[5]));
+  }
+
+  @Test
+  public void arrayReadOfZeroBytesDoesNotWaitForInput() {
+    assertEquals(0, stream.read(new byte[5], 0, 0));
+    verify(inputHandler, never()).getNextMessageForType(InputMessageType.SYSTEM_IN);
+  }
+
+  @Test
+  public void arrayReadsContinueAcrossMessages() {
+    when(inputHandler.getNextMessageForType(InputMessageType.SYSTEM_IN))
+        .thenReturn("hello", "world");
+    String separator = System.lineSeparator();
+    byte[] b = new byte[3];
+
+    assertEquals(3, stream.read(b));
+    assertArrayEquals("hel".getBytes(StandardCharsets.UTF_8), b);
+    // Only the rest of the first message is returned; the second is not waited for.
+    int remaining = ("lo" + separator).length();
+    assertEquals(remaining, stream.read(b));
+    assertEquals(1, stream.read(b, 0, 1));
+    assertEquals('w', b[0]);
+  }
+
+  @Test
+  public void readsMessagesLargerThanTheBuffer() {
+    String input = "x".repeat(10000);
+    when(inputHandler.getNextMessageForType(InputMessageType.SYSTEM_IN)).thenReturn(input);
+    byte[] expected = (input + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    byte[] actual = new byte[expected.length];
+
+    int read = 0;
+    while (read < actual.length) {
+      read += stream.read(actual, read, actual.length - read);
+    }
+    assertArrayEquals(expected, actual);
+    assertEquals(0, stream.available());
+  }
+
+  @Test
+  public void skipSkipsBufferedBytes() {
+    when(inputHandler.getNextMessageForType(InputMessageType.SYSTEM_IN)).thenReturn("hello");
+    assertEquals(2, stream.skip(2));
+    assertEquals('l', stream.read());
+  }
+
+  @Test
+  public void skipStopsAtEndOfBufferedBytes() {
+    String input = "hi";
+    when(inputHandler.getNextMessageForType(InputMessageType.SYSTEM_IN)).thenReturn(input);
+    int expected = (input + System.lineSeparator()).length();
+    assertEquals(expected, stream.skip(100));
+    assertEquals(0, stream.available());
+  }
+
+  @Test
+  public void skipReturnsZeroWhenInputEnds() {
+    when(inputHandler.getNextMessageForType(InputMessageType.SYSTEM_IN)).thenReturn(null);
+    assertEquals(0, stream.skip(2));
+    assertEquals(0, stream.skip(-1));
+  }
+
+  @Test
+  public void bufferedReaderReadsLinesAfterSkip() throws IOException {
+    when(inputHandler.getNextMessageForType(InputMessageType.SYSTEM_IN))
+        .thenReturn("# header", "data");
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    reader.skip(("# header" + System.lineSeparator()).length());
+    assertEquals("data", reader.readLine());
   }
 }
@@ -55,4 +55,48 @@ public class OutputRedirectionStreamTest {
     verify(outputAdapter, times(1)).sendMessage(message.capture());
     assertEquals(message.getValue().getValue(), "ello");
   }
+
+  @Test
+  public void decodesMultiByteCharacters() {
+    byte[] arr = "héllo wörld €".getBytes(StandardCharsets.UTF_8);
+    stream.write(arr);
+    stream.flush();
+    ArgumentCaptor<SystemOutMessage> message = ArgumentCaptor.forClass(SystemOutMessage.class);
+    verify(outputAdapter, times(1)).sendMessage(message.capture());
+    assertEquals("héllo wörld €", message.getValue().getValue());
+  }
+
+  @Test
+  public void keepsSplitCharacterUntilItIsComplete() {
+    byte[] arr = "a€".getBytes(StandardCharsets.UTF_8);
+    stream.write(arr, 0, 2);
+    stream.flush();
+    stream.write(arr, 2, 2);
+    stream.flush();
+    ArgumentCaptor<SystemOutMessage> message = ArgumentCaptor.forClass(SystemOutMessage.class);
+    verify(outputAdapter, times(2)).sendMessage(message.capture());
+    assertEquals("a", message.getAllValues().get(0).getValue());
+    assertEquals("€", message.getAllValues().get(1).getValue());
+  }
+
+  @Test
+  public void growsBufferForLargeWrites() {
+    String large = "x".repeat(10000);
+    stream.write(large.getBytes(StandardCharsets.UTF_8));
+    stream.write('y');
+    stream.flush();
+    ArgumentCaptor<SystemOutMessage> message = ArgumentCaptor.forClass(SystemOutMessage.class);
+    verify(outputAdapter, times(1)).sendMessage(message.capture());
+    assertEquals(large + "y", message.getValue().getValue());
+  }
+
+  @Test
+  public void closeSendsIncompleteCharacterAsReplacement() {
+    byte[] arr = "€".getBytes(StandardCharsets.UTF_8);
+    stream.write(arr, 0, 2);
+    stream.close();
+    ArgumentCaptor<SystemOutMessage> message = ArgumentCaptor.forClass(SystemOutMessage.class);
+    verify(outputAdapter, times(1)).sendMessage(message.capture());
+    assertEquals("\uFFFD", message.getValue().getValue());
+  }
 }
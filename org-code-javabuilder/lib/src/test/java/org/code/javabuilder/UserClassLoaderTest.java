@@ -0,0 +1,82 @@
+package org.code.javabuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+
+public class UserClassLoaderTest {
+  @Test
+  public void definesUserClassesFromCompiledBytecode() throws Exception {
+    final UserClassLoader unitUnderTest = createClassLoader("public class Main {}\n");
+
+    final Class<?> mainClass = unitUnderTest.loadClass("Main");
+    assertEquals("Main", mainClass.getName());
+    assertSame(unitUnderTest, mainClass.getClassLoader());
+    unitUnderTest.close();
+  }
+
+  @Test
+  public void rejectsClassesThatAreNotAllowed() throws Exception {
+    final UserClassLoader unitUnderTest = createClassLoader("public class Main {}\n");
+
+    assertThrows(ClassNotFoundException.class, () -> unitUnderTest.loadClass("java.lang.Thread"));
+    unitUnderTest.close();
+  }
+
+  @Test
+  public void allowsClassesFromAllowedPackages() throws Exception {
+    final UserClassLoader unitUnderTest = createClassLoader("public class Main {}\n");
+
+    assertSame(java.util.ArrayList.class, unitUnderTest.loadClass("java.util.ArrayList"));
+    assertThrows(
+        ClassNotFoundException.class, () -> unitUnderTest.loadClass("java.utilities.Helper"));
+    unitUnderTest.close();
+  }
+
+  @Test
+  public void allowsValidatorPackagesOnlyForValidators() throws Exception {
+    final UserClassLoader userLoader = createClassLoader("public class Main {}\n");
+    final UserClassLoader validatorLoader =
+        createClassLoader("public class Main {}\n", RunPermissionLevel.VALIDATOR);
+
+    assertThrows(
+        ClassNotFoundException.class, () -> userLoader.loadClass("java.lang.reflect.Method"));
+    assertSame(
+        java.lang.reflect.Method.class, validatorLoader.loadClass("java.lang.reflect.Method"));
+    assertThrows(
+        ClassNotFoundException.class, () -> userLoader.loadClass("java.lang.reflect.Method"));
+    userLoader.close();
+    validatorLoader.close();
+  }
+
+  private UserClassLoader createClassLoader(String mainSource) {
+    return createClassLoader(mainSource, RunPermissionLevel.USER);
+  }
+
+  private UserClassLoader createClassLoader(String mainSource, RunPermissionLevel permissionLevel) {
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    final InMemoryJavaFileManager fileManager =
+        new InMemoryJavaFileManager(compiler.getStandardFileManager(null, null, null));
+    compiler
+        .getTask(
+            null,
+            fileManager,
+            null,
+            null,
+            null,
+            List.of(new JavaSourceFromString("Main", mainSource)))
+        .call();
+    final Map<String, byte[]> compiledClasses = fileManager.getCompiledClasses();
+    return new UserClassLoader(
+        compiledClasses,
+        new URL[0],
+        UserClassLoader.class.getClassLoader(),
+        List.of("Main"),
+        permissionLevel);
+  }
+}
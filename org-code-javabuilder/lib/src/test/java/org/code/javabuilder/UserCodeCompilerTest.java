@@ -0,0 +1,261 @@
+package org.code.javabuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import org.code.protocol.ClientMessage;
+import org.code.protocol.JavabuilderContext;
+import org.code.protocol.OutputAdapter;
+import org.code.protocol.StatusMessage;
+import org.code.protocol.StatusMessageKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class UserCodeCompilerTest {
+  private OutputAdapter outputAdapter;
+  private CachedCompiler compiler;
+  private PerformanceTracker performanceTracker;
+  private CompilationCache compilationCache;
+  private UserCodeCompiler unitUnderTest;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    outputAdapter = mock(OutputAdapter.class);
+    compiler = mock(CachedCompiler.class);
+    performanceTracker = mock(PerformanceTracker.class);
+    JavabuilderContext.getInstance().register(PerformanceTracker.class, performanceTracker);
+    compilationCache = new CompilationCache(CompilationCache.DEFAULT_MAX_BYTES, null, "library");
+    unitUnderTest = createCompiler();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    JavabuilderContext.getInstance().destroyAndReset();
+  }
+
+  @Test
+  public void returnsCompiledClassesOnSuccess() throws Exception {
+    final Map<String, byte[]> compiledClasses = Map.of("Main", new byte[] {1, 2, 3});
+    when(compiler.compile(anyList(), any())).thenReturn(compiledClasses);
+
+    assertEquals(compiledClasses, unitUnderTest.compileProgram());
+    assertEquals(
+        List.of(
+            StatusMessageKey.COMPILING.toString(),
+            StatusMessageKey.COMPILATION_SUCCESSFUL.toString()),
+        getSentStatusValues());
+    verify(performanceTracker).trackCompileStart();
+    verify(performanceTracker).trackCompileEnd();
+  }
+
+  @Test
+  public void throwsCompilerErrorOnFailure() throws Exception {
+    when(compiler.compile(anyList(), any())).thenReturn(null);
+
+    final UserInitiatedException exception =
+        assertThrows(UserInitiatedException.class, () -> unitUnderTest.compileProgram());
+    assertEquals(UserInitiatedExceptionKey.COMPILER_ERROR.toString(), exception.getMessage());
+    verify(performanceTracker).trackCompileEnd();
+  }
+
+  @Test
+  public void replaysCachedResultWithoutCompiling() throws Exception {
+    final Map<String, byte[]> compiledClasses = Map.of("Main", new byte[] {1, 2, 3});
+    when(compiler.compile(anyList(), any())).thenReturn(compiledClasses);
+    unitUnderTest.compileProgram();
+
+    assertEquals(compiledClasses, createCompiler().compileProgram());
+    verify(compiler, times(1)).compile(anyList(), any());
+    verify(performanceTracker).trackCompileCacheHit(false);
+    verify(performanceTracker).trackCompileCacheHit(true);
+  }
+
+  @Test
+  public void cachesCompilerErrors() throws Exception {
+    when(compiler.compile(anyList(), any())).thenReturn(null);
+    assertThrows(UserInitiatedException.class, () -> unitUnderTest.compileProgram());
+
+    assertThrows(UserInitiatedException.class, () -> createCompiler().compileProgram());
+    verify(compiler, times(1)).compile(anyList(), any());
+  }
+
+  @Test
+  public void recompilesOnlyChangedFilesForProject() throws Exception {
+    final InMemoryJavaFileManager firstCompile = mock(InMemoryJavaFileManager.class);
+    when(firstCompile.getCompiledClasses())
+        .thenReturn(Map.of("Main", new byte[] {1}, "Helper", new byte[] {2}));
+    when(firstCompile.getClassSources())
+        .thenReturn(Map.of("Main", "/Main.java", "Helper", "/Helper.java"));
+    final InMemoryJavaFileManager secondCompile = mock(InMemoryJavaFileManager.class);
+    when(secondCompile.getCompiledClasses()).thenReturn(Map.of("Main", new byte[] {3}));
+    when(secondCompile.getClassSources()).thenReturn(Map.of("Main", "/Main.java"));
+    final List<List<JavaFileObject>> sources = new ArrayList<>();
+    final List<Map<String, byte[]>> classpathClasses = new ArrayList<>();
+    when(compiler.compileWithClasses(anyList(), anyMap(), any()))
+        .thenAnswer(
+            invocation -> {
+              sources.add(invocation.getArgument(0));
+              classpathClasses.add(invocation.getArgument(1));
+              return sources.size() == 1 ? firstCompile : secondCompile;
+            });
+
+    createProjectCompiler("Helper.helper();").compileProgram();
+    final Map<String, byte[]> compiledClasses =
+        createProjectCompiler("Helper.helper(); Helper.helper();").compileProgram();
+
+    assertEquals(2, sources.size());
+    assertEquals(2, sources.get(0).size());
+    assertEquals(List.of("/Main.java"), getSourceNames(sources.get(1)));
+    assertEquals(Set.of("Helper"), classpathClasses.get(1).keySet());
+    assertArrayEquals(new byte[] {3}, compiledClasses.get("Main"));
+    assertArrayEquals(new byte[] {2}, compiledClasses.get("Helper"));
+    verify(performanceTracker).trackRecompiledFiles(1);
+  }
+
+  @Test
+  public void keepsWarningsOfFilesThatWereNotRecompiled() throws Exception {
+    final InMemoryJavaFileManager firstCompile = mock(InMemoryJavaFileManager.class);
+    when(firstCompile.getCompiledClasses())
+        .thenReturn(Map.of("Main", new byte[] {1}, "Helper", new byte[] {2}));
+    when(firstCompile.getClassSources())
+        .thenReturn(Map.of("Main", "/Main.java", "Helper", "/Helper.java"));
+    final InMemoryJavaFileManager secondCompile = mock(InMemoryJavaFileManager.class);
+    when(secondCompile.getCompiledClasses()).thenReturn(Map.of("Main", new byte[] {3}));
+    when(secondCompile.getClassSources()).thenReturn(Map.of("Main", "/Main.java"));
+    when(compiler.compileWithClasses(anyList(), anyMap(), any()))
+        .thenAnswer(
+            invocation -> {
+              final List<JavaFileObject> sources = invocation.getArgument(0);
+              final DiagnosticCollector<JavaFileObject> diagnostics = invocation.getArgument(2);
+              for (JavaFileObject source : sources) {
+                if (source.getName().equals("/Helper.java")) {
+                  diagnostics.report(new TestWarning(source));
+                }
+              }
+              return sources.size() == 2 ? firstCompile : secondCompile;
+            });
+
+    // Helper has a warning. Only Main changes after the first compile, so Helper is not
+    // recompiled, and the third compile of the same files as the second is taken from the cache.
+    createProjectCompiler("Helper.helper();").compileProgram();
+    createProjectCompiler("Helper.helper(); Helper.helper();").compileProgram();
+    createProjectCompiler("Helper.helper(); Helper.helper();").compileProgram();
+
+    verify(compiler, times(2)).compileWithClasses(anyList(), anyMap(), any());
+    final String warning =
+        "/Helper.java:1: warning: unchecked call\n"
+            + "public class Helper { static void helper() {} }\n^\n";
+    assertEquals(List.of(warning, warning, warning), getSentSystemOutValues());
+  }
+
+  private UserCodeCompiler createProjectCompiler(String mainBody) throws UserInitiatedException {
+    return new UserCodeCompiler(
+        List.of(
+            new JavaProjectFile(
+                "Main.java", "public class Main { void main() { " + mainBody + " } }"),
+            new JavaProjectFile("Helper.java", "public class Helper { static void helper() {} }")),
+        outputAdapter,
+        "channel",
+        compiler,
+        compilationCache);
+  }
+
+  private List<String> getSourceNames(List<JavaFileObject> sources) {
+    return sources.stream().map(JavaFileObject::getName).collect(Collectors.toList());
+  }
+
+  private UserCodeCompiler createCompiler() throws UserInitiatedException {
+    return new UserCodeCompiler(
+        List.of(new JavaProjectFile("Main.java", "public class Main {}")),
+        outputAdapter,
+        null,
+        compiler,
+        compilationCache);
+  }
+
+  private List<String> getSentSystemOutValues() {
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(outputAdapter, atLeastOnce()).sendMessage(captor.capture());
+    return captor.getAllValues().stream()
+        .filter(message -> message instanceof SystemOutMessage)
+        .map(ClientMessage::getValue)
+        .collect(Collectors.toList());
+  }
+
+  private List<String> getSentStatusValues() {
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(outputAdapter, atLeastOnce()).sendMessage(captor.capture());
+    return captor.getAllValues().stream()
+        .filter(message -> message instanceof StatusMessage)
+        .map(ClientMessage::getValue)
+        .collect(Collectors.toList());
+  }
+
+  /** A warning on the first line of a user's file, after the import of System. */
+  private static class TestWarning implements Diagnostic<JavaFileObject> {
+    private final JavaFileObject source;
+
+    TestWarning(JavaFileObject source) {
+      this.source = source;
+    }
+
+    @Override
+    public Kind getKind() {
+      return Kind.WARNING;
+    }
+
+    @Override
+    public JavaFileObject getSource() {
+      return this.source;
+    }
+
+    @Override
+    public long getPosition() {
+      return 0;
+    }
+
+    @Override
+    public long getStartPosition() {
+      return 0;
+    }
+
+    @Override
+    public long getEndPosition() {
+      return 0;
+    }
+
+    @Override
+    public long getLineNumber() {
+      return 2;
+    }
+
+    @Override
+    public long getColumnNumber() {
+      return 1;
+    }
+
+    @Override
+    public String getCode() {
+      return "compiler.warn.unchecked.call";
+    }
+
+    @Override
+    public String getMessage(Locale locale) {
+      return "unchecked call";
+    }
+  }
+}
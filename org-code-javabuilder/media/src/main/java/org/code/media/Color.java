@@ -139,6 +139,19 @@ public class Color {
     return Math.min(value, MAX_VALUE);
   }
 
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Color)) {
+      return false;
+    }
+    return this.getRGB() == ((Color) other).getRGB();
+  }
+
+  @Override
+  public int hashCode() {
+    return this.getRGB();
+  }
+
   public static java.awt.Color convertToAWTColor(Color c) {
     return new java.awt.Color(c.getRed(), c.getGreen(), c.getBlue());
   }
@@ -2,20 +2,35 @@ package org.code.media;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
 import javax.imageio.ImageIO;
 import org.code.media.support.MediaRuntimeException;
 import org.code.media.support.MediaRuntimeExceptionKeys;
 import org.code.protocol.JavabuilderContext;
 
+/**
+ * An image made of pixels. Once its pixels are used, an image is backed by a TYPE_INT_ARGB
+ * BufferedImage, and its pixels are read and written directly in that image's int array. {@link
+ * Pixel}s are views of one entry of the array.
+ *
+ * <p>The backing BufferedImage is shared with copies of this image and with callers of {@link
+ * #getBufferedImage()} rather than copied. Whichever image next changes a pixel first copies the
+ * shared array, so no change is ever seen through an image or BufferedImage it wasn't made to.
+ */
 public class Image {
-  private Pixel[][] pixels;
   private int width;
   private int height;
   private static final Color DEFAULT_BACKGROUND_COLOR = Color.WHITE;
   private BufferedImage bufferedImage;
+  // The ARGB pixels of bufferedImage, row by row, or null if it has not been converted to
+  // TYPE_INT_ARGB yet.
+  private int[] pixels;
+  // If bufferedImage may be used outside of this image, so must be copied before it is changed
+  private boolean isShared;
   private static final int MAX_WIDTH = 400;
   private static final int MAX_HEIGHT = 400;
 
@@ -33,8 +48,9 @@ public class Image {
     }
     this.width = bufferedImage.getWidth();
     this.height = bufferedImage.getHeight();
-    // don't create pixel array until we need it
+    // don't convert the image to pixels until we need them
     this.pixels = null;
+    this.isShared = false;
   }
 
   /**
@@ -45,13 +61,11 @@ public class Image {
   public Image(Image source) {
     this.width = source.getWidth();
     this.height = source.getHeight();
-    this.pixels = new Pixel[this.width][this.height];
-    for (int x = 0; x < this.width; x++) {
-      for (int y = 0; y < this.height; y++) {
-        Color sourceColor = source.getPixel(x, y).getColor();
-        this.pixels[x][y] = new Pixel(this, x, y, new Color(sourceColor));
-      }
-    }
+    this.bufferedImage = source.bufferedImage;
+    this.pixels = source.pixels;
+    // Both images now use the same BufferedImage until one of them changes a pixel.
+    this.isShared = true;
+    source.isShared = true;
   }
 
   /**
@@ -61,14 +75,10 @@ public class Image {
    * @param height the height of the image to create.
    */
   public Image(int width, int height) {
-    this.pixels = new Pixel[width][height];
     this.width = width;
     this.height = height;
-    for (int x = 0; x < this.width; x++) {
-      for (int y = 0; y < this.height; y++) {
-        this.pixels[x][y] = new Pixel(this, x, y, DEFAULT_BACKGROUND_COLOR);
-      }
-    }
+    this.createPixels();
+    Arrays.fill(this.pixels, DEFAULT_BACKGROUND_COLOR.getRGB());
   }
 
   /**
@@ -80,8 +90,9 @@ public class Image {
     this.bufferedImage = bufferedImage;
     this.width = bufferedImage.getWidth();
     this.height = bufferedImage.getHeight();
-    // don't create pixel array until we need it
+    // don't convert the image to pixels until we need them
     this.pixels = null;
+    this.isShared = false;
   }
 
   /**
@@ -92,11 +103,7 @@ public class Image {
    * @return Pixel at the given coordinate
    */
   public Pixel getPixel(int x, int y) {
-    if (this.pixels == null) {
-      this.createPixelArray();
-      this.bufferedImage = null;
-    }
-    return this.pixels[x][y];
+    return new Pixel(this, x, y, this.getIndex(x, y));
   }
 
   /**
@@ -107,11 +114,7 @@ public class Image {
    * @param color the color to set the pixel
    */
   public void setPixel(int x, int y, Color color) {
-    if (this.pixels == null) {
-      this.createPixelArray();
-      this.bufferedImage = null;
-    }
-    this.pixels[x][y].setColor(color);
+    this.setRGB(this.getIndex(x, y), color.getRGB());
   }
 
   /**
@@ -138,35 +141,21 @@ public class Image {
    * @param color the color with which to fill the image.
    */
   public void clear(Color color) {
-    if (this.pixels == null) {
-      this.pixels = new Pixel[this.width][this.height];
-      this.bufferedImage = null;
-    }
-    for (int x = 0; x < this.width; x++) {
-      for (int y = 0; y < this.height; y++) {
-        this.pixels[x][y].setColor(color);
-      }
+    if (this.pixels == null || this.isShared) {
+      // Every pixel is about to be replaced, so there is nothing to copy.
+      this.createPixels();
     }
+    Arrays.fill(this.pixels, color.getRGB());
   }
 
   /**
-   * Get a BufferedImage of this Image
+   * Get a BufferedImage of this Image. The BufferedImage must not be changed.
    *
    * @return
    */
   public BufferedImage getBufferedImage() {
-    // if we've never set up the pixel array, return our buffered image
-    if (this.pixels == null) {
-      return this.bufferedImage;
-    }
-    BufferedImage bufferedImageResult =
-        new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
-    for (int x = 0; x < this.width; x++) {
-      for (int y = 0; y < this.height; y++) {
-        bufferedImageResult.setRGB(x, y, this.pixels[x][y].getColor().getRGB());
-      }
-    }
-    return bufferedImageResult;
+    this.isShared = true;
+    return this.bufferedImage;
   }
 
   /**
@@ -224,14 +213,50 @@ public class Image {
     return image;
   }
 
-  /** Create a 2d array of pixels from this.bufferedImage */
-  private void createPixelArray() {
-    this.pixels = new Pixel[this.width][this.height];
-    for (int x = 0; x < this.width; x++) {
-      for (int y = 0; y < this.height; y++) {
-        int rgbColor = this.bufferedImage.getRGB(x, y);
-        this.pixels[x][y] = new Pixel(this, x, y, new Color(rgbColor));
-      }
+  /**
+   * @return the combined ARGB value of the pixel at the given index, as described in {@link
+   *     Color#getRGB()}
+   */
+  int getRGB(int index) {
+    if (this.pixels == null) {
+      this.convertToPixels();
+    }
+    return this.pixels[index];
+  }
+
+  /** Sets the pixel at the given index to the combined ARGB value given. */
+  void setRGB(int index, int rgb) {
+    if (this.pixels == null) {
+      this.convertToPixels();
+    } else if (this.isShared) {
+      final int[] sharedPixels = this.pixels;
+      this.createPixels();
+      System.arraycopy(sharedPixels, 0, this.pixels, 0, this.pixels.length);
     }
+    this.pixels[index] = rgb;
+  }
+
+  private int getIndex(int x, int y) {
+    if (x < 0 || y < 0 || x >= this.width || y >= this.height) {
+      throw new ArrayIndexOutOfBoundsException(
+          String.format(
+              "Pixel (%d, %d) is outside of an image of size %d x %d",
+              x, y, this.width, this.height));
+    }
+    return y * this.width + x;
+  }
+
+  /** Replaces bufferedImage with a new TYPE_INT_ARGB image that only this image uses. */
+  private void createPixels() {
+    this.bufferedImage = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
+    this.pixels = ((DataBufferInt) this.bufferedImage.getRaster().getDataBuffer()).getData();
+    this.isShared = false;
+  }
+
+  /** Converts this.bufferedImage, of any type, to a TYPE_INT_ARGB image of the same pixels */
+  private void convertToPixels() {
+    final BufferedImage source = this.bufferedImage;
+    this.createPixels();
+    source.getRGB(0, 0, this.width, this.height, this.pixels, 0, this.width);
   }
 }
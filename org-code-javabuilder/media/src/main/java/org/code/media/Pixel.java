@@ -1,10 +1,14 @@
 package org.code.media;
 
+/** A view of one pixel of an image. Reading and changing a pixel reads and changes its image. */
 public class Pixel {
+  private static final int OPAQUE = 0xff000000;
+
   private final Image image;
   private final int x;
   private final int y;
-  private Color color;
+  // The index of the pixel in the image's pixels
+  private final int index;
 
   /**
    * Protected constructor as this will only be called within Image
@@ -12,13 +16,13 @@ public class Pixel {
    * @param image
    * @param x
    * @param y
-   * @param color
+   * @param index
    */
-  protected Pixel(Image image, int x, int y, Color color) {
+  protected Pixel(Image image, int x, int y, int index) {
     this.image = image;
     this.x = x;
     this.y = y;
-    this.color = color;
+    this.index = index;
   }
 
   /**
@@ -56,7 +60,7 @@ public class Pixel {
    * @return
    */
   public Color getColor() {
-    return this.color;
+    return new Color(this.image.getRGB(this.index));
   }
 
   /**
@@ -65,7 +69,7 @@ public class Pixel {
    * @param color the color to set the pixel
    */
   public void setColor(Color color) {
-    this.color = color;
+    this.image.setRGB(this.index, color.getRGB());
   }
 
   /**
@@ -74,7 +78,7 @@ public class Pixel {
    * @return a number representing the red value (between 0 and 255) of the pixel.
    */
   public int getRed() {
-    return this.color.getRed();
+    return (this.image.getRGB(this.index) >> 16) & 255;
   }
 
   /**
@@ -83,7 +87,7 @@ public class Pixel {
    * @return a number representing the green value (between 0 and 255) of the pixel.
    */
   public int getGreen() {
-    return this.color.getGreen();
+    return (this.image.getRGB(this.index) >> 8) & 255;
   }
 
   /**
@@ -93,7 +97,7 @@ public class Pixel {
    * @return a number representing the blue value (between 0 and 255) of the pixel.
    */
   public int getBlue() {
-    return this.color.getBlue();
+    return this.image.getRGB(this.index) & 255;
   }
 
   /**
@@ -103,7 +107,7 @@ public class Pixel {
    * @param value the amount of red (ranging from 0 to 255) in the color of the pixel.
    */
   public void setRed(int value) {
-    this.color = Color.copyWithRed(this.color, value);
+    this.setComponent(16, value);
   }
 
   /**
@@ -113,7 +117,7 @@ public class Pixel {
    * @param value the amount of green (ranging from 0 to 255) in the color of the pixel.
    */
   public void setGreen(int value) {
-    this.color = Color.copyWithGreen(this.color, value);
+    this.setComponent(8, value);
   }
 
   /**
@@ -122,6 +126,16 @@ public class Pixel {
    * @param value the amount of blue (ranging from 0 to 255) in the color of the pixel.
    */
   public void setBlue(int value) {
-    this.color = Color.copyWithBlue(this.color, value);
+    this.setComponent(0, value);
+  }
+
+  /**
+   * Sets the red, green or blue component at the given bit offset. Like {@link
+   * Color#copyWithRed(Color, int)} and the other copy methods, this makes the pixel opaque.
+   */
+  private void setComponent(int shift, int value) {
+    final int sanitizedValue = Math.max(0, Math.min(value, 255));
+    final int rgb = this.image.getRGB(this.index) & ~(255 << shift);
+    this.image.setRGB(this.index, OPAQUE | rgb | (sanitizedValue << shift));
   }
 }
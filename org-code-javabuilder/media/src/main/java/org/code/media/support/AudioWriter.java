@@ -1,46 +1,66 @@
 package org.code.media.support;
 
-import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
-import java.io.IOException;
+import java.util.Arrays;
 import org.code.media.SoundException;
 import org.code.media.util.AudioUtils;
-import org.code.protocol.InternalExceptionKey;
-import org.code.protocol.InternalServerRuntimeException;
 
 /**
- * Writer for concatenating audio data from multiple audio sources. The raw audio samples in bytes
- * are written to a raw output stream and finally written to the given audio output stream when
- * complete.
+ * Writer for concatenating audio data from multiple audio sources. The raw audio samples are mixed
+ * into a buffer and finally encoded as a WAV file when complete.
+ *
+ * <p>The buffer grows by doubling, and new samples are blended into it in place, so a track of many
+ * sounds takes time proportional to its length rather than to its length times its sounds.
  */
 public class AudioWriter {
   public static class Factory {
-    public AudioWriter createAudioWriter(ByteArrayOutputStream audioOutputStream) {
-      return new AudioWriter(audioOutputStream);
+    public AudioWriter createAudioWriter() {
+      return new AudioWriter();
     }
   }
 
-  private final ByteArrayOutputStream audioOutputStream;
-
+  // Mixed samples, of which the first audioLength are part of the track. The rest are zero.
   private double[] audioSamples;
+  private int audioLength;
   private int currentSampleIndex;
 
-  AudioWriter(ByteArrayOutputStream audioOutputStream) {
-    this.audioOutputStream = audioOutputStream;
-
+  AudioWriter() {
     this.audioSamples = new double[] {};
+    this.audioLength = 0;
     this.currentSampleIndex = 0;
   }
 
   public void writeAudioSamples(double[] samples) {
-    this.audioSamples =
-        AudioUtils.blendSamples(this.audioSamples, samples, this.currentSampleIndex);
+    if (samples == null) {
+      throw new SoundException(SoundExceptionKeys.MISSING_AUDIO_DATA);
+    }
+    final int endIndex = this.currentSampleIndex + samples.length;
+    if (endIndex > this.audioSamples.length) {
+      this.audioSamples =
+          Arrays.copyOf(this.audioSamples, Math.max(endIndex, this.audioSamples.length * 2));
+    }
+    AudioUtils.blendSamplesInPlace(this.audioSamples, samples, this.currentSampleIndex);
+    this.audioLength = Math.max(this.audioLength, endIndex);
   }
 
   public void writeAudioSamples(double[] samples, double lengthSeconds) {
     this.writeAudioSamples(AudioUtils.truncateSamples(samples, lengthSeconds));
   }
 
+  /**
+   * Writes at most lengthSeconds of the given 16-bit mono audio samples, such as those decoded by
+   * {@link org.code.protocol.InstrumentSampleCache}.
+   */
+  public void writePcmAudioSamples(short[] samples, double lengthSeconds) {
+    if (samples == null) {
+      throw new SoundException(SoundExceptionKeys.MISSING_AUDIO_DATA);
+    }
+    final int sampleCount =
+        Math.min(
+            samples.length, (int) (lengthSeconds * (double) AudioUtils.getDefaultSampleRate()));
+    this.writeAudioSamples(AudioUtils.convertShortArrayToDoubleArray(samples, sampleCount));
+  }
+
   public void writeAudioFromAssetFile(String filename)
       throws SoundException, FileNotFoundException {
     this.writeAudioSamples(AudioUtils.readSamplesFromAssetFile(filename));
@@ -66,30 +86,31 @@ public class AudioWriter {
   }
 
   public double getTotalAudioLength() {
-    return ((double) this.audioSamples.length) / (double) AudioUtils.getDefaultSampleRate();
+    return ((double) this.audioLength) / (double) AudioUtils.getDefaultSampleRate();
   }
 
   /**
-   * Writes the raw audio data in audioSamples to audioOutputStream in a valid audio file format and
-   * closes output streams.
+   * Encodes the raw audio data in audioSamples as a WAV file.
+   *
+   * @return the contents of the WAV file
    */
-  public void writeToAudioStream() {
-    if (this.audioSamples.length == 0) {
+  public byte[] writeToWavFile() {
+    if (this.audioLength == 0) {
       // Add a silent audio sample so we can build a valid wav file.
       // TODO: Send a "No audio" signal instead
       this.audioSamples = new double[] {0};
+      this.audioLength = 1;
     }
 
-    AudioUtils.writeBytesToOutputStream(
-        AudioUtils.convertDoubleArrayToByteArray(this.audioSamples), this.audioOutputStream);
+    final byte[] wavFile = AudioUtils.encodeWavFile(this.audioSamples, this.audioLength);
     this.currentSampleIndex = 0;
+    return wavFile;
   }
 
+  /** Releases the audio buffer, which can be tens of megabytes for a long track. */
   public void close() {
-    try {
-      this.audioOutputStream.close();
-    } catch (IOException e) {
-      throw new InternalServerRuntimeException(InternalExceptionKey.INTERNAL_EXCEPTION, e);
-    }
+    this.audioSamples = new double[] {};
+    this.audioLength = 0;
+    this.currentSampleIndex = 0;
   }
 }
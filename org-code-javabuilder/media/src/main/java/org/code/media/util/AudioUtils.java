@@ -2,6 +2,8 @@ package org.code.media.util;
 
 import java.io.*;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import javax.sound.sampled.*;
 import org.code.media.SoundException;
@@ -37,6 +39,15 @@ public final class AudioUtils {
   private static final AudioFileFormat.Type DEFAULT_AUDIO_FILE_FORMAT_TYPE =
       AudioFileFormat.Type.WAVE;
 
+  // Layout of the header of a WAV file with a PCM format chunk and a data chunk
+  private static final int WAV_HEADER_BYTES = 44;
+  private static final byte[] RIFF_CHUNK_ID = {'R', 'I', 'F', 'F'};
+  private static final byte[] WAVE_FORMAT_ID = {'W', 'A', 'V', 'E'};
+  private static final byte[] FORMAT_CHUNK_ID = {'f', 'm', 't', ' '};
+  private static final int PCM_FORMAT_CHUNK_BYTES = 16;
+  private static final short PCM_FORMAT_TAG = 1;
+  private static final byte[] DATA_CHUNK_ID = {'d', 'a', 't', 'a'};
+
   /**
    * Converts an array of raw audio samples as bytes to raw audio samples as doubles. Each sample is
    * normalized to be within the range (-1.0, 1.0). If byte array represents stereo sound (2
@@ -83,6 +94,27 @@ public final class AudioUtils {
     return samples;
   }
 
+  /**
+   * Converts the first sampleCount 16-bit mono audio samples in the given array to raw audio
+   * samples as doubles, normalized as {@link #convertByteArrayToDoubleArray(byte[], int)} does.
+   *
+   * @param samples
+   * @param sampleCount number of samples to convert, from the start of the array
+   * @return converted array of samples as doubles
+   * @throws SoundException
+   */
+  public static double[] convertShortArrayToDoubleArray(short[] samples, int sampleCount)
+      throws SoundException {
+    if (samples == null) {
+      throw new SoundException(SoundExceptionKeys.MISSING_AUDIO_DATA);
+    }
+    final double[] convertedSamples = new double[sampleCount];
+    for (int i = 0; i < sampleCount; i++) {
+      convertedSamples[i] = samples[i] / MAX_16_BIT_VALUE;
+    }
+    return convertedSamples;
+  }
+
   /**
    * Converts an array of raw audio samples as doubles to raw audio samples in bytes. Each 16-bit
    * sample is converted to two bytes. Bitwise operations assume byte data is little-endian.
@@ -95,15 +127,79 @@ public final class AudioUtils {
     if (samples == null) {
       throw new SoundException(SoundExceptionKeys.MISSING_AUDIO_DATA);
     }
-    final byte[] bytes = new byte[samples.length * 2];
-    for (int i = 0; i < samples.length; i++) {
-      final int b = samples[i] == 1.0 ? Short.MAX_VALUE : (short) (samples[i] * MAX_16_BIT_VALUE);
-      bytes[2 * i] = (byte) (b & 0xFF);
-      bytes[2 * i + 1] = (byte) ((b >> 8) & 0xFF);
+    return AudioUtils.convertDoubleArrayToByteArray(samples, samples.length);
+  }
+
+  /**
+   * Converts the first sampleCount raw audio samples in the given array, as doubles, to raw audio
+   * samples in bytes, as {@link #convertDoubleArrayToByteArray(double[])} does.
+   *
+   * @param samples
+   * @param sampleCount number of samples to convert, from the start of the array
+   * @return converted array of samples as bytes
+   * @throws SoundException
+   */
+  public static byte[] convertDoubleArrayToByteArray(double[] samples, int sampleCount)
+      throws SoundException {
+    if (samples == null) {
+      throw new SoundException(SoundExceptionKeys.MISSING_AUDIO_DATA);
     }
+    final byte[] bytes = new byte[sampleCount * 2];
+    AudioUtils.writeSamplesAsBytes(samples, sampleCount, bytes, 0);
     return bytes;
   }
 
+  /**
+   * Encodes the first sampleCount raw audio samples in the given array as a WAV file in the default
+   * audio format. The result is the same as converting the samples with {@link
+   * #convertDoubleArrayToByteArray(double[], int)} and writing them with {@link
+   * #writeBytesToOutputStream}, but the file is written straight into one array of its final size,
+   * without copying the samples through audio streams.
+   *
+   * @param samples
+   * @param sampleCount number of samples to encode, from the start of the array
+   * @return the contents of the WAV file
+   * @throws SoundException
+   */
+  public static byte[] encodeWavFile(double[] samples, int sampleCount) throws SoundException {
+    if (samples == null) {
+      throw new SoundException(SoundExceptionKeys.MISSING_AUDIO_DATA);
+    }
+    final int dataBytes = sampleCount * DEFAULT_AUDIO_FORMAT.getFrameSize();
+    final ByteBuffer wavFile =
+        ByteBuffer.wrap(new byte[WAV_HEADER_BYTES + dataBytes]).order(ByteOrder.LITTLE_ENDIAN);
+    // RIFF chunk, whose size counts everything after this field
+    wavFile.put(RIFF_CHUNK_ID).putInt(WAV_HEADER_BYTES - 8 + dataBytes).put(WAVE_FORMAT_ID);
+    // Format chunk, describing uncompressed PCM samples
+    wavFile
+        .put(FORMAT_CHUNK_ID)
+        .putInt(PCM_FORMAT_CHUNK_BYTES)
+        .putShort(PCM_FORMAT_TAG)
+        .putShort((short) DEFAULT_AUDIO_FORMAT.getChannels())
+        .putInt(DEFAULT_SAMPLE_RATE)
+        .putInt(DEFAULT_SAMPLE_RATE * DEFAULT_AUDIO_FORMAT.getFrameSize())
+        .putShort((short) DEFAULT_AUDIO_FORMAT.getFrameSize())
+        .putShort((short) DEFAULT_BITS_PER_SAMPLE);
+    // Data chunk, holding the samples
+    wavFile.put(DATA_CHUNK_ID).putInt(dataBytes);
+
+    AudioUtils.writeSamplesAsBytes(samples, sampleCount, wavFile.array(), WAV_HEADER_BYTES);
+    return wavFile.array();
+  }
+
+  /**
+   * Writes sampleCount samples as 16-bit little-endian values into bytes, starting at the given
+   * offset.
+   */
+  private static void writeSamplesAsBytes(
+      double[] samples, int sampleCount, byte[] bytes, int offset) {
+    for (int i = 0; i < sampleCount; i++) {
+      final int b = samples[i] == 1.0 ? Short.MAX_VALUE : (short) (samples[i] * MAX_16_BIT_VALUE);
+      bytes[offset + 2 * i] = (byte) (b & 0xFF);
+      bytes[offset + 2 * i + 1] = (byte) ((b >> 8) & 0xFF);
+    }
+  }
+
   /**
    * Writes the given raw audio byte array to the given {@link ByteArrayOutputStream} in a valid
    * audio file format
@@ -156,14 +252,28 @@ public final class AudioUtils {
     final double[] blendedSamples =
         Arrays.copyOf(
             originalSamples, Math.max(originalSamples.length, sampleOffset + newSamples.length));
+    AudioUtils.blendSamplesInPlace(blendedSamples, newSamples, sampleOffset);
+    return blendedSamples;
+  }
 
+  /**
+   * Blends audio samples from newSamples into targetSamples in place, starting at the sample index
+   * indicated by sampleOffset. targetSamples must have room for every new sample.
+   *
+   * @param targetSamples samples to blend into
+   * @param newSamples new samples to blend
+   * @param sampleOffset sample index to start blending
+   */
+  public static void blendSamplesInPlace(
+      double[] targetSamples, double[] newSamples, int sampleOffset) {
+    if (targetSamples == null || newSamples == null) {
+      throw new SoundException(SoundExceptionKeys.MISSING_AUDIO_DATA);
+    }
     for (int i = 0; i < newSamples.length; i++) {
       // Blend samples by adding and clamping to range (-1.0, 1.0)
-      final double blendedSample = blendedSamples[i + sampleOffset] + newSamples[i];
-      blendedSamples[i + sampleOffset] = Math.max(-1.0, Math.min(1.0, blendedSample));
+      final double blendedSample = targetSamples[i + sampleOffset] + newSamples[i];
+      targetSamples[i + sampleOffset] = Math.max(-1.0, Math.min(1.0, blendedSample));
     }
-
-    return blendedSamples;
   }
 
   public static int getDefaultSampleRate() {
@@ -1,6 +1,7 @@
 package org.code.media;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,14 @@ public class ColorTest {
     assertEquals(255, c.getAlpha());
   }
 
+  @Test
+  public void colorsWithSameValuesAreEqual() {
+    assertEquals(Color.RED, new Color(255, 0, 0));
+    assertEquals(Color.RED.hashCode(), new Color("red").hashCode());
+    assertNotEquals(Color.RED, new Color(255, 0, 1));
+    assertNotEquals(Color.RED, new Color(255, 0, 0, 0));
+  }
+
   @Test
   public void testCopyWithRedCreatesCopyWithNewRedValue() {
     final int red = 100;
@@ -57,6 +57,54 @@ public class ImageTest {
     assertEquals(25, pixelColor.getBlue());
   }
 
+  @Test
+  public void bufferedImageDoesNotChangeWithImage() {
+    Image test = new Image(2, 2);
+    BufferedImage bufferedImage = test.getBufferedImage();
+    assertSame(bufferedImage, test.getBufferedImage());
+
+    test.getPixel(1, 1).setBlue(0);
+    assertEquals(0xffffffff, bufferedImage.getRGB(1, 1));
+    assertEquals(0xffffff00, test.getBufferedImage().getRGB(1, 1));
+  }
+
+  @Test
+  public void copiesDoNotChangeEachOther() {
+    Image test1 = new Image(2, 2);
+    Image test2 = new Image(test1);
+    Image test3 = new Image(test2);
+    test2.setPixel(0, 1, Color.RED);
+    test1.clear(Color.BLUE);
+    assertEquals(Color.BLUE, test1.getPixel(0, 1).getColor());
+    assertEquals(Color.RED, test2.getPixel(0, 1).getColor());
+    assertEquals(Color.WHITE, test3.getPixel(0, 1).getColor());
+    assertEquals(Color.WHITE, test2.getPixel(1, 0).getColor());
+  }
+
+  @Test
+  public void loadsPixelsFromFile() {
+    String imageFileName = "200w300h.png";
+    String testFileURL =
+        Thread.currentThread().getContextClassLoader().getResource(imageFileName).toString();
+    when(contentManager.getAssetUrl(imageFileName)).thenReturn(testFileURL);
+
+    Image test = new Image(imageFileName);
+    BufferedImage original = test.getBufferedImage();
+    Image copy = new Image(test);
+    copy.getPixel(10, 20).setRed(0);
+    assertEquals(original.getRGB(10, 20), test.getPixel(10, 20).getColor().getRGB());
+    assertEquals(original.getRGB(199, 299), copy.getPixel(199, 299).getColor().getRGB());
+    assertEquals(0, copy.getPixel(10, 20).getRed());
+  }
+
+  @Test
+  public void getPixelThrowsForPixelOutsideImage() {
+    Image test = new Image(200, 100);
+    assertThrows(ArrayIndexOutOfBoundsException.class, () -> test.getPixel(200, 0));
+    assertThrows(ArrayIndexOutOfBoundsException.class, () -> test.getPixel(0, 100));
+    assertThrows(ArrayIndexOutOfBoundsException.class, () -> test.setPixel(-1, 0, Color.RED));
+  }
+
   @Test
   public void getImageMaintainsSizeIf400Square() throws FileNotFoundException {
     String imageFileName = "400x400Image.jpg";
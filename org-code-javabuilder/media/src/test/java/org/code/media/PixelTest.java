@@ -1,7 +1,6 @@
 package org.code.media;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,13 +11,14 @@ class PixelTest {
 
   @BeforeEach
   public void setUp() {
-    image = mock(Image.class);
+    image = new Image(1, 1);
   }
 
   @Test
   public void testColorSettersUpdateColor() {
     final Color original = new Color(50, 150, 250);
-    final Pixel pixel = new Pixel(image, 0, 0, original);
+    final Pixel pixel = image.getPixel(0, 0);
+    pixel.setColor(original);
 
     final int newValue = 123;
     pixel.setRed(newValue);
@@ -36,4 +36,21 @@ class PixelTest {
     assertEquals(newColor.getGreen(), pixel.getGreen());
     assertEquals(newColor.getBlue(), pixel.getBlue());
   }
+
+  @Test
+  public void testColorSettersOnlyChangeOneValue() {
+    final Pixel pixel = image.getPixel(0, 0);
+    pixel.setColor(new Color(50, 150, 250, 100));
+    pixel.setGreen(300);
+    assertEquals(new Color(50, 255, 250), pixel.getColor());
+    pixel.setBlue(-5);
+    assertEquals(new Color(50, 255, 0), image.getPixel(0, 0).getColor());
+  }
+
+  @Test
+  public void testPixelChangesItsImage() {
+    image.getPixel(0, 0).setRed(10);
+    assertEquals(10, image.getPixel(0, 0).getRed());
+    assertEquals(new Color(10, 255, 255), image.getPixel(0, 0).getColor());
+  }
 }
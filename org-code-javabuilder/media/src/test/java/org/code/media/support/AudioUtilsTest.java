@@ -6,6 +6,9 @@ import static org.mockito.Mockito.*;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -259,6 +262,52 @@ class AudioUtilsTest {
     assertSampleArraysMatch(expected, AudioUtils.blendSamples(samples, samples, 2));
   }
 
+  @Test
+  public void testBlendSamplesInPlace() {
+    final double[] target = new double[] {0.2, -0.2, 0.5, 0, 0};
+    AudioUtils.blendSamplesInPlace(target, new double[] {0.7, 0.3}, 2);
+    assertSampleArraysMatch(new double[] {0.2, -0.2, 1.0, 0.3, 0}, target);
+
+    assertThrows(SoundException.class, () -> AudioUtils.blendSamplesInPlace(target, null, 0));
+  }
+
+  @Test
+  public void testConvertDoubleArrayToByteArrayConvertsOnlySampleCount() {
+    final double[] samples = new double[] {0.5, -0.5, 1.0};
+    final byte[] bytes = AudioUtils.convertDoubleArrayToByteArray(samples, 2);
+    assertArrayEquals(Arrays.copyOf(AudioUtils.convertDoubleArrayToByteArray(samples), 4), bytes);
+  }
+
+  @Test
+  public void testEncodeWavFileWritesHeaderAndSamples() {
+    final double[] samples = new double[] {0.5, -0.5, 1.0, -1.0, 0.25};
+    final byte[] wavFile = AudioUtils.encodeWavFile(samples, 4);
+
+    final ByteBuffer header = ByteBuffer.wrap(wavFile).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals("RIFF", new String(wavFile, 0, 4, StandardCharsets.US_ASCII));
+    assertEquals(36 + 8, header.getInt(4));
+    assertEquals("WAVEfmt ", new String(wavFile, 8, 8, StandardCharsets.US_ASCII));
+    assertEquals(16, header.getInt(16)); // format chunk size
+    assertEquals(1, header.getShort(20)); // PCM
+    assertEquals(1, header.getShort(22)); // mono
+    assertEquals(44100, header.getInt(24)); // sample rate
+    assertEquals(88200, header.getInt(28)); // bytes per second
+    assertEquals(2, header.getShort(32)); // bytes per sample
+    assertEquals(16, header.getShort(34)); // bits per sample
+    assertEquals("data", new String(wavFile, 36, 4, StandardCharsets.US_ASCII));
+    assertEquals(8, header.getInt(40));
+    assertArrayEquals(
+        AudioUtils.convertDoubleArrayToByteArray(samples, 4),
+        Arrays.copyOfRange(wavFile, 44, wavFile.length));
+  }
+
+  @Test
+  public void testEncodeWavFileThrowsExceptionIfSamplesNull() {
+    Exception exception =
+        assertThrows(SoundException.class, () -> AudioUtils.encodeWavFile(null, 0));
+    assertEquals(exception.getMessage(), SoundExceptionKeys.MISSING_AUDIO_DATA.toString());
+  }
+
   // Verify values are correct when rounded
   private void assertSampleArraysMatch(double[] expected, double[] actual) {
     for (int i = 0; i < expected.length; i++) {
@@ -1,18 +1,19 @@
 package org.code.media.support;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import org.code.media.util.AudioUtils;
 import org.junit.jupiter.api.Test;
 
 public class AudioWriterTest {
   @Test
   public void testWriteAddsSilentSoundIfEmpty() {
-    ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    AudioWriter writer = new AudioWriter(stream);
-    writer.writeToAudioStream();
+    AudioWriter writer = new AudioWriter();
+    byte[] result = writer.writeToWavFile();
     writer.close();
-    byte[] result = stream.toByteArray();
     // The length is 46 because there is a lot of metadata before the data begins. The data are
     // zeros because we add in a single silent sound sample.
     assertEquals(46, result.length);
@@ -22,16 +23,76 @@ public class AudioWriterTest {
 
   @Test
   public void testWriteUsesExistingAudioData() {
-    ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    AudioWriter writer = new AudioWriter(stream);
+    AudioWriter writer = new AudioWriter();
     writer.writeAudioSamples(new double[] {1});
-    writer.writeToAudioStream();
+    byte[] result = writer.writeToWavFile();
     writer.close();
-    byte[] result = stream.toByteArray();
     // The exact values don't matter so much as ensuring they are something specific and not zero.
     // The length is 46 because there is a lot of metadata before the data begins.
     assertEquals(46, result.length);
     assertEquals(127, result[result.length - 1]);
     assertEquals(-1, result[result.length - 2]);
   }
+
+  @Test
+  public void testWriteMatchesBlendingEachSoundIntoTrack() {
+    final Random random = new Random(0);
+    AudioWriter writer = new AudioWriter();
+    double[] expectedSamples = new double[] {};
+    int offset = 0;
+    for (int i = 0; i < 50; i++) {
+      // Loud enough that overlapping sounds are clamped
+      final double[] sound = new double[random.nextInt(2000)];
+      for (int j = 0; j < sound.length; j++) {
+        sound[j] = random.nextDouble() * 1.6 - 0.8;
+      }
+      writer.writeAudioSamples(sound);
+      expectedSamples = AudioUtils.blendSamples(expectedSamples, sound, offset);
+
+      // Sometimes skip past the end of the track, leaving silence
+      final double delaySeconds = random.nextDouble() * 0.06;
+      writer.addDelay(delaySeconds);
+      offset += (int) (delaySeconds * (double) AudioUtils.getDefaultSampleRate());
+    }
+
+    assertEquals(
+        (double) expectedSamples.length / AudioUtils.getDefaultSampleRate(),
+        writer.getTotalAudioLength());
+    byte[] result = writer.writeToWavFile();
+    writer.close();
+
+    ByteArrayOutputStream expectedStream = new ByteArrayOutputStream();
+    AudioUtils.writeBytesToOutputStream(
+        AudioUtils.convertDoubleArrayToByteArray(expectedSamples), expectedStream);
+    assertArrayEquals(expectedStream.toByteArray(), result);
+  }
+
+  @Test
+  public void testWritePcmAudioSamplesMatchesDecodedBytes() {
+    final short[] pcmSamples = new short[] {1000, -2000, Short.MAX_VALUE, Short.MIN_VALUE, 0};
+    final byte[] pcmBytes = new byte[pcmSamples.length * 2];
+    for (int i = 0; i < pcmSamples.length; i++) {
+      pcmBytes[2 * i] = (byte) (pcmSamples[i] & 0xFF);
+      pcmBytes[2 * i + 1] = (byte) ((pcmSamples[i] >> 8) & 0xFF);
+    }
+    // Long enough for the first three samples
+    final double lengthSeconds = 3.5 / AudioUtils.getDefaultSampleRate();
+
+    AudioWriter writer = new AudioWriter();
+    writer.writePcmAudioSamples(pcmSamples, lengthSeconds);
+    assertEquals(3.0 / AudioUtils.getDefaultSampleRate(), writer.getTotalAudioLength());
+
+    AudioWriter expectedWriter = new AudioWriter();
+    expectedWriter.writeAudioSamples(
+        AudioUtils.convertByteArrayToDoubleArray(pcmBytes, 1), lengthSeconds);
+    assertArrayEquals(expectedWriter.writeToWavFile(), writer.writeToWavFile());
+  }
+
+  @Test
+  public void testCloseReleasesAudio() {
+    AudioWriter writer = new AudioWriter();
+    writer.writeAudioSamples(new double[] {0.5, 0.5});
+    writer.close();
+    assertEquals(0, writer.getTotalAudioLength());
+  }
 }
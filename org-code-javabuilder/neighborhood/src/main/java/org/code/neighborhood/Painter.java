@@ -1,11 +1,7 @@
 package org.code.neighborhood;
 
-import static org.code.protocol.ClientMessageDetailKeys.*;
-
-import java.util.HashMap;
 import org.code.neighborhood.support.*;
 import org.code.protocol.JavabuilderContext;
-import org.code.protocol.OutputAdapter;
 
 public class Painter {
   private static final int LARGE_GRID_SIZE = 20;
@@ -16,8 +12,8 @@ public class Painter {
   private int remainingPaint;
   private final boolean hasInfinitePaint;
   private final Grid grid;
-  private final String id;
-  private final OutputAdapter outputAdapter;
+  private final int id;
+  private final NeighborhoodEventStream eventStream;
 
   /** Creates a Painter object at (0, 0), facing East, with no paint. */
   public Painter() {
@@ -47,22 +43,28 @@ public class Painter {
       JavabuilderContext.getInstance().register(World.class, currentWorld);
     }
     this.grid = currentWorld.getGrid();
-    this.outputAdapter = JavabuilderContext.getInstance().getGlobalProtocol().getOutputAdapter();
+    NeighborhoodEventStream currentEventStream =
+        (NeighborhoodEventStream)
+            JavabuilderContext.getInstance().get(NeighborhoodEventStream.class);
+    if (currentEventStream == null) {
+      currentEventStream = new NeighborhoodEventStream();
+      JavabuilderContext.getInstance().register(NeighborhoodEventStream.class, currentEventStream);
+    }
+    this.eventStream = currentEventStream;
     int gridSize = this.grid.getSize();
     this.hasInfinitePaint = couldHaveInfinitePaint ? this.grid.getSize() >= LARGE_GRID_SIZE : false;
     if (x < 0 || y < 0 || x >= gridSize || y >= gridSize) {
       throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_LOCATION);
     }
-    this.id = "painter-" + lastId++;
+    this.id = lastId++;
     this.sendInitializationMessage();
   }
 
   /** Turns the painter one compass direction left (i.e. North -> West). */
   public void turnLeft() {
     this.direction = this.direction.turnLeft();
-    HashMap<String, String> details = this.getSignalDetails();
-    details.put(DIRECTION, this.direction.getDirectionString());
-    this.sendOutputMessage(NeighborhoodSignalKey.TURN_LEFT, details);
+    this.eventStream.send(
+        NeighborhoodEvent.withDirection(NeighborhoodSignalKey.TURN_LEFT, this.id, this.direction));
   }
 
   /** Move the painter one square forward in the direction the painter is facing. */
@@ -80,9 +82,8 @@ public class Painter {
     } else {
       throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_MOVE);
     }
-    HashMap<String, String> details = this.getSignalDetails();
-    details.put(DIRECTION, this.direction.getDirectionString());
-    this.sendOutputMessage(NeighborhoodSignalKey.MOVE, details);
+    this.eventStream.send(
+        NeighborhoodEvent.withDirection(NeighborhoodSignalKey.MOVE, this.id, this.direction));
   }
 
   /**
@@ -94,9 +95,7 @@ public class Painter {
     if (this.hasPaint()) {
       this.grid.getSquare(this.xLocation, this.yLocation).setColor(color);
       this.remainingPaint--;
-      HashMap<String, String> details = this.getSignalDetails();
-      details.put(COLOR, color);
-      this.sendOutputMessage(NeighborhoodSignalKey.PAINT, details);
+      this.eventStream.send(NeighborhoodEvent.paint(this.id, color));
     } else {
       System.out.println("There is no more paint in the painter's bucket");
     }
@@ -105,7 +104,7 @@ public class Painter {
   /** Removes all paint on the square where the painter is standing. */
   public void scrapePaint() {
     this.grid.getSquare(this.xLocation, this.yLocation).removePaint();
-    this.sendOutputMessage(NeighborhoodSignalKey.REMOVE_PAINT, this.getSignalDetails());
+    this.sendPainterSignal(NeighborhoodSignalKey.REMOVE_PAINT);
   }
 
   /**
@@ -119,12 +118,12 @@ public class Painter {
 
   /** Hides the painter on the screen. */
   public void hidePainter() {
-    this.sendOutputMessage(NeighborhoodSignalKey.HIDE_PAINTER, this.getSignalDetails());
+    this.sendPainterSignal(NeighborhoodSignalKey.HIDE_PAINTER);
   }
 
   /** Shows the painter on the screen. */
   public void showPainter() {
-    this.sendOutputMessage(NeighborhoodSignalKey.SHOW_PAINTER, this.getSignalDetails());
+    this.sendPainterSignal(NeighborhoodSignalKey.SHOW_PAINTER);
   }
 
   /**
@@ -135,7 +134,7 @@ public class Painter {
     if (this.grid.getSquare(this.xLocation, this.yLocation).containsPaint()) {
       this.grid.getSquare(this.xLocation, this.yLocation).collectPaint();
       this.remainingPaint++;
-      this.sendOutputMessage(NeighborhoodSignalKey.TAKE_PAINT, this.getSignalDetails());
+      this.sendPainterSignal(NeighborhoodSignalKey.TAKE_PAINT);
     } else {
       System.out.println("There is no paint to collect here");
     }
@@ -248,13 +247,11 @@ public class Painter {
   }
 
   public void showBuckets() {
-    this.outputAdapter.sendMessage(
-        new NeighborhoodSignalMessage(NeighborhoodSignalKey.SHOW_BUCKETS, new HashMap<>()));
+    this.eventStream.send(NeighborhoodEvent.neighborhoodSignal(NeighborhoodSignalKey.SHOW_BUCKETS));
   }
 
   public void hideBuckets() {
-    this.outputAdapter.sendMessage(
-        new NeighborhoodSignalMessage(NeighborhoodSignalKey.HIDE_BUCKETS, new HashMap<>()));
+    this.eventStream.send(NeighborhoodEvent.neighborhoodSignal(NeighborhoodSignalKey.HIDE_BUCKETS));
   }
 
   /**
@@ -293,29 +290,17 @@ public class Painter {
     }
   }
 
-  private HashMap<String, String> getSignalDetails() {
-    HashMap<String, String> details = new HashMap<>();
-    details.put(ID, this.id);
-    return details;
-  }
-
-  private void sendOutputMessage(NeighborhoodSignalKey signalKey, HashMap<String, String> details) {
-    this.outputAdapter.sendMessage(new NeighborhoodSignalMessage(signalKey, details));
+  private void sendPainterSignal(NeighborhoodSignalKey signalKey) {
+    this.eventStream.send(NeighborhoodEvent.painterSignal(signalKey, this.id));
   }
 
   private void sendBooleanMessage(NeighborhoodSignalKey signalKey, boolean result) {
-    HashMap<String, String> details = this.getSignalDetails();
-    String resultString = String.valueOf(result);
-    details.put(BOOLEAN_RESULT, resultString);
-    this.sendOutputMessage(signalKey, details);
+    this.eventStream.send(NeighborhoodEvent.booleanResult(signalKey, this.id, result));
   }
 
   private void sendInitializationMessage() {
-    HashMap<String, String> initDetails = this.getSignalDetails();
-    initDetails.put(DIRECTION, this.direction.getDirectionString());
-    initDetails.put(X, Integer.toString(this.xLocation));
-    initDetails.put(Y, Integer.toString(this.yLocation));
-    initDetails.put(PAINT, Integer.toString(this.remainingPaint));
-    this.sendOutputMessage(NeighborhoodSignalKey.INITIALIZE_PAINTER, initDetails);
+    this.eventStream.send(
+        NeighborhoodEvent.initializePainter(
+            this.id, this.xLocation, this.yLocation, this.direction, this.remainingPaint));
   }
 }
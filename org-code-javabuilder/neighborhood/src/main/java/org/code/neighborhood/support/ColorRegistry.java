@@ -0,0 +1,235 @@
+package org.code.neighborhood.support;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Recognizes the colors painters paint. A color is a web color name, in any case, or a 3 or 6 digit
+ * hex code such as "#fa0" or "#FFAA00". Each color has an int id that ignores case, so "Red" and
+ * "red" have the same id, but "#fa0" and "#ffaa00" do not. Only the ids ignore case: grids, events
+ * and final output matching keep color strings exactly as the program wrote them.
+ *
+ * <p>Web colors have ids from 1 up, in the order below, and hex colors have the digits' value in
+ * their low bits with a flag for the number of digits. Since ids are computed rather than assigned,
+ * no table grows with the colors a program uses. The ids of recently seen strings are cached, so
+ * checking the same color again skips parsing it.
+ */
+public final class ColorRegistry {
+  public static final int NO_COLOR = 0;
+  public static final int INVALID_COLOR = -1;
+  private static final int HEX_COLOR_FLAG = 1 << 24;
+  private static final int SHORT_HEX_COLOR_FLAG = 1 << 25;
+  private static final int RECENT_COLORS_SIZE = 64;
+  private static final String[] WEB_COLORS = {
+    "white",
+    "silver",
+    "gray",
+    "black",
+    "red",
+    "maroon",
+    "yellow",
+    "olive",
+    "lime",
+    "green",
+    "aqua",
+    "teal",
+    "blue",
+    "navy",
+    "fuchsia",
+    "purple",
+    "mediumvioletred",
+    "deeppink",
+    "palevioletred",
+    "hotpink",
+    "lightpink",
+    "pink",
+    "darkred",
+    "firebrick",
+    "crimson",
+    "indianred",
+    "lightcoral",
+    "salmon",
+    "darksalmon",
+    "lightsalmon",
+    "orangered",
+    "tomato",
+    "darkorange",
+    "coral",
+    "orange",
+    "darkkhaki",
+    "gold",
+    "khaki",
+    "peachpuff",
+    "palegoldenrod",
+    "moccasin",
+    "papayawhip",
+    "lightgoldenrodyellow",
+    "lemonchiffon",
+    "lightyellow",
+    "brown",
+    "saddlebrown",
+    "sienna",
+    "chocolate",
+    "darkgoldenrod",
+    "peru",
+    "rosybrown",
+    "goldenrod",
+    "sandybrown",
+    "tan",
+    "burlywood",
+    "wheat",
+    "navajowhite",
+    "bisque",
+    "blanchedalmond",
+    "cornsilk",
+    "darkgreen",
+    "darkolivegreen",
+    "forestgreen",
+    "seagreen",
+    "olivedrab",
+    "mediumseagreen",
+    "limegreen",
+    "springgreen",
+    "mediumspringgreen",
+    "darkseagreen",
+    "mediumaquamarine",
+    "yellowgreen",
+    "lawngreen",
+    "chartreuse",
+    "lightgreen",
+    "greenyellow",
+    "palegreen",
+    "darkcyan",
+    "lightseagreen",
+    "cadetblue",
+    "darkturquoise",
+    "mediumturquoise",
+    "turquoise",
+    "cyan",
+    "aquamarine",
+    "paleturquoise",
+    "lightcyan",
+    "darkblue",
+    "mediumblue",
+    "midnightblue",
+    "royalblue",
+    "steelblue",
+    "dodgerblue",
+    "deepskyblue",
+    "cornflowerblue",
+    "skyblue",
+    "lightskyblue",
+    "lightsteelblue",
+    "lightblue",
+    "powderblue",
+    "indigo",
+    "darkmagenta",
+    "darkviolet",
+    "darkslateblue",
+    "blueviolet",
+    "darkorchid",
+    "magenta",
+    "slateblue",
+    "mediumslateblue",
+    "mediumorchid",
+    "mediumpurple",
+    "orchid",
+    "violet",
+    "plum",
+    "thistle",
+    "lavender",
+    "mistyrose",
+    "antiquewhite",
+    "linen",
+    "beige",
+    "whitesmoke",
+    "lavenderblush",
+    "oldlace",
+    "aliceblue",
+    "seashell",
+    "ghostwhite",
+    "honeydew",
+    "floralwhite",
+    "azure",
+    "mintcream",
+    "snow",
+    "ivory",
+    "darkslategray",
+    "dimgray",
+    "slategray",
+    "lightslategray",
+    "darkgray",
+    "lightgray",
+    "gainsboro"
+  };
+  private static final Map<String, Integer> WEB_COLOR_IDS = new HashMap<>();
+  // Ids of recently seen color strings, least recently used first
+  private static final Map<String, Integer> RECENT_COLORS =
+      new LinkedHashMap<>(RECENT_COLORS_SIZE * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+          return this.size() > RECENT_COLORS_SIZE;
+        }
+      };
+
+  static {
+    for (int i = 0; i < WEB_COLORS.length; i++) {
+      WEB_COLOR_IDS.put(WEB_COLORS[i], i + 1);
+    }
+  }
+
+  private ColorRegistry() {
+    throw new UnsupportedOperationException("Instantiation of utility class is not allowed.");
+  }
+
+  /** @return the id of the given color, NO_COLOR for null, or INVALID_COLOR if it is not a color */
+  public static int findColorId(String color) {
+    if (color == null) {
+      return NO_COLOR;
+    }
+    synchronized (RECENT_COLORS) {
+      final Integer recentColorId = RECENT_COLORS.get(color);
+      if (recentColorId != null) {
+        return recentColorId;
+      }
+    }
+    final int colorId = parseColor(color);
+    synchronized (RECENT_COLORS) {
+      RECENT_COLORS.put(color, colorId);
+    }
+    return colorId;
+  }
+
+  private static int parseColor(String color) {
+    if (color.startsWith("#")) {
+      if (color.length() != 4 && color.length() != 7) {
+        return INVALID_COLOR;
+      }
+      int value = 0;
+      for (int i = 1; i < color.length(); i++) {
+        final int digit = parseHexDigit(color.charAt(i));
+        if (digit < 0) {
+          return INVALID_COLOR;
+        }
+        value = (value << 4) | digit;
+      }
+      return value | (color.length() == 4 ? SHORT_HEX_COLOR_FLAG : HEX_COLOR_FLAG);
+    }
+    final Integer webColorId = WEB_COLOR_IDS.get(color.toLowerCase(Locale.ROOT));
+    return webColorId == null ? INVALID_COLOR : webColorId;
+  }
+
+  /** @return the value of an ASCII hex digit, or -1 if it is not one */
+  private static int parseHexDigit(char c) {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    } else if (c >= 'a' && c <= 'f') {
+      return c - 'a' + 10;
+    } else if (c >= 'A' && c <= 'F') {
+      return c - 'A' + 10;
+    }
+    return -1;
+  }
+}
@@ -1,23 +1,87 @@
 package org.code.neighborhood.support;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
+/**
+ * The squares of the neighborhood, stored as one array per property with an entry for each square
+ * rather than as an object per square. The square at (x, y) is at index y * width + x. Colors are
+ * stored as ids into a table of the colors that have been painted, with 0 meaning no color.
+ *
+ * <p>{@link GridSquare}s are views of a single square, created the first time a square is asked
+ * for.
+ */
 public class Grid {
-  private final GridSquare[][] grid;
+  // Tile types, as given in a grid description. Any other tile type is unknown and not passable.
+  private static final int WALL = 0;
+  private static final int OPEN = 1;
+  private static final int START = 2;
+  private static final int FINISH = 3;
+  private static final int OBSTACLE = 4;
+  private static final int START_AND_FINISH = 5;
+  private static final int NO_COLOR = 0;
+
   private final int width;
   private final int height;
+  private final int[] tileTypes;
+  private final int[] assetIds;
+  private final int[] paintCounts;
+  private final int[] colorIds;
+  // Color names by id. Index 0 is NO_COLOR.
+  private final ArrayList<String> colors;
+  private final HashMap<String, Integer> colorIdsByName;
+  private final GridSquare[] squares;
 
   protected Grid(GridSquare[][] squares) {
-    this.grid = squares;
-    this.height = squares.length;
-    this.width = squares[0].length;
+    this(squares.length, squares[0].length);
+    for (int x = 0; x < this.width; x++) {
+      for (int y = 0; y < this.height; y++) {
+        final GridSquare square = squares[x][y];
+        final int index = this.getIndex(x, y);
+        this.tileTypes[index] = square.getTileType();
+        this.assetIds[index] = square.getAssetId();
+        this.paintCounts[index] = square.getPaintCount();
+        this.colorIds[index] = this.getColorId(square.getColor());
+        square.moveTo(this, index);
+        this.squares[index] = square;
+      }
+    }
+  }
+
+  /**
+   * Creates a grid from the properties of its squares, which are used directly rather than copied.
+   * Each array must hold at least width * height entries.
+   */
+  Grid(int width, int height, int[] tileTypes, int[] assetIds, int[] paintCounts) {
+    this.width = width;
+    this.height = height;
+    this.tileTypes = tileTypes;
+    this.assetIds = assetIds;
+    this.paintCounts = paintCounts;
+    this.colorIds = new int[width * height];
+    this.colors = new ArrayList<>();
+    this.colors.add(null);
+    this.colorIdsByName = new HashMap<>();
+    this.squares = new GridSquare[width * height];
+  }
+
+  private Grid(int width, int height) {
+    this(width, height, new int[width * height], new int[width * height], new int[width * height]);
+  }
+
+  /** @return a grid of the given size with every square open and having assetId 0 */
+  static Grid createOpenGrid(int size) {
+    final Grid grid = new Grid(size, size);
+    Arrays.fill(grid.tileTypes, OPEN);
+    return grid;
   }
 
   public void printGrid() {
     for (int y = 0; y < height; y++) {
       ArrayList<String> squares = new ArrayList<String>();
       for (int x = 0; x < width; x++) {
-        squares.add(this.grid[x][y].getPrintableDescription());
+        squares.add(this.getPrintableDescription(this.getIndex(x, y)));
       }
       System.out.println(String.join(",", squares));
     }
@@ -27,19 +91,92 @@ public class Grid {
   // A coordinate cannot be moved into if it is out of the range of the grid
   // or if the tile is not passable (wall, obstacle, or unknown tile)
   public boolean validLocation(int x, int y) {
-    return x >= 0 && y >= 0 && x < width && y < height && this.grid[x][y].isPassable();
+    return x >= 0 && y >= 0 && x < width && y < height && this.isPassable(this.getIndex(x, y));
   }
 
   // Returns the GridSquare at the given position
   public GridSquare getSquare(int x, int y) {
     if (validLocation(x, y)) {
-      return this.grid[x][y];
+      final int index = this.getIndex(x, y);
+      if (this.squares[index] == null) {
+        this.squares[index] = new GridSquare(this, index);
+      }
+      return this.squares[index];
     } else {
       throw new NeighborhoodRuntimeException(ExceptionKeys.GET_SQUARE_FAILED);
     }
   }
 
   public int getSize() {
-    return this.grid.length;
+    return this.width;
+  }
+
+  int getTileType(int index) {
+    return this.tileTypes[index];
+  }
+
+  int getAssetId(int index) {
+    return this.assetIds[index];
+  }
+
+  int getPaintCount(int index) {
+    return this.paintCounts[index];
+  }
+
+  void setPaintCount(int index, int paintCount) {
+    this.paintCounts[index] = paintCount;
+  }
+
+  boolean isPassable(int index) {
+    switch (this.tileTypes[index]) {
+      case OPEN:
+      case START:
+      case FINISH:
+      case START_AND_FINISH:
+        return true;
+      case WALL:
+      case OBSTACLE:
+      default:
+        return false;
+    }
+  }
+
+  String getColor(int index) {
+    return this.colors.get(this.colorIds[index]);
+  }
+
+  boolean hasColor(int index) {
+    return this.colorIds[index] != NO_COLOR;
+  }
+
+  void setColor(int index, String color) {
+    this.colorIds[index] = this.getColorId(color);
+  }
+
+  String getPrintableDescription(int index) {
+    if (!this.isPassable(index)) {
+      return "x";
+    } else if (this.hasColor(index)) {
+      return this.getColor(index);
+    } else {
+      return String.valueOf(this.paintCounts[index]);
+    }
+  }
+
+  private int getIndex(int x, int y) {
+    return y * this.width + x;
+  }
+
+  private int getColorId(String color) {
+    if (color == null) {
+      return NO_COLOR;
+    }
+    Integer colorId = this.colorIdsByName.get(color);
+    if (colorId == null) {
+      colorId = this.colors.size();
+      this.colors.add(color);
+      this.colorIdsByName.put(color, colorId);
+    }
+    return colorId;
   }
 }
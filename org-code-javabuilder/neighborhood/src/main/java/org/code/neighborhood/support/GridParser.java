@@ -0,0 +1,282 @@
+package org.code.neighborhood.support;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads a grid description one character at a time, straight into the arrays of a {@link Grid},
+ * without holding the whole description or a tree of JSON objects in memory. A description is a 2D
+ * JSON array of squares, read from top to bottom, such as:
+ *
+ * <pre>
+ * [[{"tileType": 1, "assetId": 0}, {"tileType": 1, "value": 4}], ...]
+ * </pre>
+ *
+ * Each square needs an integer tileType, and may have an integer assetId and an integer value, its
+ * paint count. Other fields are ignored. Any description that is not valid JSON of this shape, or
+ * whose grid is not square, is an INVALID_GRID error.
+ */
+class GridParser {
+  private static final String TILE_TYPE_FIELD = "tileType";
+  private static final String ASSET_ID_FIELD = "assetId";
+  private static final String VALUE_FIELD = "value";
+  private static final int BUFFER_SIZE = 8192;
+  private static final int END = -1;
+
+  private final Reader reader;
+  private final char[] buffer;
+  private int bufferLength;
+  private int bufferPosition;
+  private int[] tileTypes;
+  private int[] assetIds;
+  private int[] paintCounts;
+  private int squareCount;
+
+  GridParser(Reader reader) {
+    this.reader = reader;
+    this.buffer = new char[BUFFER_SIZE];
+    this.bufferLength = 0;
+    this.bufferPosition = 0;
+    this.tileTypes = new int[16];
+    this.assetIds = new int[16];
+    this.paintCounts = new int[16];
+    this.squareCount = 0;
+  }
+
+  Grid parse() throws IOException {
+    this.expect('[');
+    if (this.peek() == ']') {
+      throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+    }
+    int width = END;
+    int height = 0;
+    do {
+      final int rowWidth = this.parseRow();
+      if (width == END) {
+        width = rowWidth;
+      } else if (rowWidth != width) {
+        throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+      }
+      height++;
+    } while (this.readSeparator(']'));
+    if (width != height) {
+      throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+    }
+    return new Grid(width, height, this.tileTypes, this.assetIds, this.paintCounts);
+  }
+
+  /** @return the number of squares in the row */
+  private int parseRow() throws IOException {
+    this.expect('[');
+    if (this.peek() == ']') {
+      this.read();
+      return 0;
+    }
+    int rowWidth = 0;
+    do {
+      this.parseSquare();
+      rowWidth++;
+    } while (this.readSeparator(']'));
+    return rowWidth;
+  }
+
+  private void parseSquare() throws IOException {
+    this.expect('{');
+    String tileType = null;
+    String assetId = null;
+    String value = null;
+    boolean hasValue = false;
+    if (this.peek() == '}') {
+      this.read();
+    } else {
+      do {
+        final String key = this.parseString();
+        this.expect(':');
+        final String fieldValue = this.parseValue();
+        if (TILE_TYPE_FIELD.equals(key)) {
+          tileType = fieldValue;
+        } else if (ASSET_ID_FIELD.equals(key)) {
+          assetId = fieldValue;
+        } else if (VALUE_FIELD.equals(key)) {
+          value = fieldValue;
+          hasValue = true;
+        }
+      } while (this.readSeparator('}'));
+    }
+
+    this.ensureCapacity();
+    try {
+      this.tileTypes[this.squareCount] = Integer.parseInt(tileType);
+      this.assetIds[this.squareCount] = assetId == null ? 0 : Integer.parseInt(assetId);
+      this.paintCounts[this.squareCount] = hasValue ? Integer.parseInt(value) : 0;
+    } catch (NumberFormatException e) {
+      // Also thrown for a missing tileType, or a null value, as Integer.parseInt(null) throws it.
+      throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+    }
+    this.squareCount++;
+  }
+
+  /**
+   * @return the contents of a string, the text of a number, true or false, null for JSON null, or
+   *     an empty string for an object or array, which is skipped
+   */
+  private String parseValue() throws IOException {
+    final int next = this.peek();
+    if (next == '"') {
+      return this.parseString();
+    } else if (next == '{' || next == '[') {
+      this.skipNested();
+      return "";
+    }
+    final StringBuilder literal = new StringBuilder();
+    int c = this.peekRaw();
+    while (c != END && (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.')) {
+      literal.append((char) this.readRaw());
+      c = this.peekRaw();
+    }
+    if (literal.length() == 0) {
+      throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+    }
+    final String text = literal.toString();
+    return text.equals("null") ? null : text;
+  }
+
+  private String parseString() throws IOException {
+    this.expect('"');
+    final StringBuilder string = new StringBuilder();
+    int c = this.readRaw();
+    while (c != '"') {
+      if (c == END) {
+        throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+      }
+      if (c == '\\') {
+        c = this.readRaw();
+        switch (c) {
+          case 'b':
+            string.append('\b');
+            break;
+          case 't':
+            string.append('\t');
+            break;
+          case 'n':
+            string.append('\n');
+            break;
+          case 'f':
+            string.append('\f');
+            break;
+          case 'r':
+            string.append('\r');
+            break;
+          case 'u':
+            final char[] hex = new char[4];
+            for (int i = 0; i < hex.length; i++) {
+              hex[i] = (char) this.readRaw();
+            }
+            try {
+              string.append((char) Integer.parseInt(new String(hex), 16));
+            } catch (NumberFormatException e) {
+              throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+            }
+            break;
+          case '"':
+          case '\\':
+          case '/':
+            string.append((char) c);
+            break;
+          default:
+            throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+        }
+      } else {
+        string.append((char) c);
+      }
+      c = this.readRaw();
+    }
+    return string.toString();
+  }
+
+  /** Skips an object or array value, and everything in it. */
+  private void skipNested() throws IOException {
+    int depth = 0;
+    do {
+      final int c = this.peek();
+      if (c == '"') {
+        this.parseString();
+        continue;
+      }
+      this.read();
+      if (c == '{' || c == '[') {
+        depth++;
+      } else if (c == '}' || c == ']') {
+        depth--;
+      } else if (c == END) {
+        throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+      }
+    } while (depth > 0);
+  }
+
+  /**
+   * Reads the separator after an element of an array or object.
+   *
+   * @return true if another element follows, or false if the array or object has ended
+   */
+  private boolean readSeparator(char close) throws IOException {
+    final int c = this.read();
+    if (c == ',') {
+      return true;
+    } else if (c == close) {
+      return false;
+    }
+    throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+  }
+
+  private void expect(char expected) throws IOException {
+    if (this.read() != expected) {
+      throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_GRID);
+    }
+  }
+
+  /** @return the next character that is not whitespace, without reading it */
+  private int peek() throws IOException {
+    while (Character.isWhitespace(this.peekRaw())) {
+      this.readRaw();
+    }
+    return this.peekRaw();
+  }
+
+  /** @return the next character that is not whitespace */
+  private int read() throws IOException {
+    this.peek();
+    return this.readRaw();
+  }
+
+  private int peekRaw() throws IOException {
+    if (this.bufferPosition == this.bufferLength) {
+      this.bufferLength = this.reader.read(this.buffer);
+      this.bufferPosition = 0;
+      if (this.bufferLength <= 0) {
+        this.bufferLength = 0;
+        return END;
+      }
+    }
+    return this.buffer[this.bufferPosition];
+  }
+
+  private int readRaw() throws IOException {
+    final int c = this.peekRaw();
+    if (c != END) {
+      this.bufferPosition++;
+    }
+    return c;
+  }
+
+  private void ensureCapacity() {
+    if (this.squareCount < this.tileTypes.length) {
+      return;
+    }
+    final int newCapacity = this.tileTypes.length * 2;
+    this.tileTypes = Arrays.copyOf(this.tileTypes, newCapacity);
+    this.assetIds = Arrays.copyOf(this.assetIds, newCapacity);
+    this.paintCounts = Arrays.copyOf(this.paintCounts, newCapacity);
+  }
+}
@@ -1,34 +1,22 @@
 package org.code.neighborhood.support;
 
+/** A view of one square of a {@link Grid}. */
 public class GridSquare {
-  private String color;
-  private boolean passable;
-  private int paintCount;
-
-  private enum SquareType {
-    WALL,
-    OPEN,
-    START,
-    FINISH,
-    OBSTACLE,
-    STARTANDFINISH,
-    UNKNOWN
-  };
-
-  private int assetId;
-
-  private SquareType squareType;
+  private Grid grid;
+  private int index;
 
   protected GridSquare(int tileType, int assetId, int value) {
-    this.setTileType(tileType);
-    this.assetId = assetId;
-    this.paintCount = value;
+    // A square created on its own is the only square of its own grid.
+    this(new Grid(1, 1, new int[] {tileType}, new int[] {assetId}, new int[] {value}), 0);
   }
 
   protected GridSquare(int tileType, int assetId) {
-    this.setTileType(tileType);
-    this.assetId = assetId;
-    this.paintCount = 0;
+    this(tileType, assetId, 0);
+  }
+
+  GridSquare(Grid grid, int index) {
+    this.grid = grid;
+    this.index = index;
   }
 
   // Sets the color of the square to the given color
@@ -39,20 +27,20 @@ public class GridSquare {
     if (this.containsPaint()) {
       throw new NeighborhoodRuntimeException(ExceptionKeys.INVALID_PAINT_LOCATION);
     }
-    if (this.passable && this.paintCount == 0) {
-      this.color = color;
+    if (this.isPassable() && this.getPaintCount() == 0) {
+      this.grid.setColor(this.index, color);
     }
   }
 
   // Determines whether the given coordinate can be moved into
   public boolean isPassable() {
-    return this.passable;
+    return this.grid.isPassable(this.index);
   }
 
   // Decreases the paintCount by 1 if there is available paint
   public void collectPaint() {
     if (this.containsPaint()) {
-      this.paintCount--;
+      this.grid.setPaintCount(this.index, this.getPaintCount() - 1);
     } else {
       System.out.println("There's no paint to collect here");
     }
@@ -60,8 +48,8 @@ public class GridSquare {
 
   // Returns the square to a non-painted state
   public void removePaint() {
-    if (this.color != null) {
-      this.color = null;
+    if (this.hasColor()) {
+      this.grid.setColor(this.index, null);
     } else {
       System.out.println("There's no paint to remove here");
     }
@@ -69,58 +57,38 @@ public class GridSquare {
 
   // Returns true if the square has paint available to collect
   public boolean containsPaint() {
-    return this.paintCount > 0;
+    return this.getPaintCount() > 0;
   }
 
   public String getPrintableDescription() {
-    if (!this.passable) {
-      return "x";
-    } else if (this.color != null) {
-      return this.color;
-    } else {
-      return String.valueOf(this.paintCount);
-    }
+    return this.grid.getPrintableDescription(this.index);
   }
 
   // Returns true if the color variable is populated
   public boolean hasColor() {
-    return this.color != null;
+    return this.grid.hasColor(this.index);
   }
 
   // Returns the color of the square
   public String getColor() {
-    return this.color;
+    return this.grid.getColor(this.index);
   }
 
-  private void setTileType(int tileType) {
-    switch (tileType) {
-      case 0:
-        this.squareType = SquareType.WALL;
-        this.passable = false;
-        break;
-      case 1:
-        this.squareType = SquareType.OPEN;
-        this.passable = true;
-        break;
-      case 2:
-        this.squareType = SquareType.START;
-        this.passable = true;
-        break;
-      case 3:
-        this.squareType = SquareType.FINISH;
-        this.passable = true;
-        break;
-      case 4:
-        this.squareType = SquareType.OBSTACLE;
-        this.passable = false;
-        break;
-      case 5:
-        this.squareType = SquareType.STARTANDFINISH;
-        this.passable = true;
-        break;
-      default:
-        this.squareType = SquareType.UNKNOWN;
-        this.passable = false;
-    }
+  int getTileType() {
+    return this.grid.getTileType(this.index);
+  }
+
+  int getAssetId() {
+    return this.grid.getAssetId(this.index);
+  }
+
+  int getPaintCount() {
+    return this.grid.getPaintCount(this.index);
+  }
+
+  // Makes this a view of the given square, once its state has been copied there.
+  void moveTo(Grid grid, int index) {
+    this.grid = grid;
+    this.index = index;
   }
 }
@@ -0,0 +1,164 @@
+package org.code.neighborhood.support;
+
+import static org.code.protocol.ClientMessageDetailKeys.*;
+
+import java.util.HashMap;
+
+/**
+ * A single neighborhood signal, with its details kept as typed fields rather than a map of Strings.
+ * Painters record these, and they are sent to the client either as individual {@link
+ * NeighborhoodSignalMessage}s or packed into a {@link NeighborhoodEventFrameMessage}.
+ */
+public class NeighborhoodEvent {
+  private static final String PAINTER_ID_PREFIX = "painter-";
+  // Painter index of signals that are not about a single painter
+  private static final int NO_PAINTER = -1;
+
+  private final NeighborhoodSignalKey signalKey;
+  private final int painterIndex;
+  private final Direction direction;
+  private final int x;
+  private final int y;
+  private final int paint;
+  private final String color;
+  private final boolean booleanResult;
+
+  private NeighborhoodEvent(
+      NeighborhoodSignalKey signalKey,
+      int painterIndex,
+      Direction direction,
+      int x,
+      int y,
+      int paint,
+      String color,
+      boolean booleanResult) {
+    this.signalKey = signalKey;
+    this.painterIndex = painterIndex;
+    this.direction = direction;
+    this.x = x;
+    this.y = y;
+    this.paint = paint;
+    this.color = color;
+    this.booleanResult = booleanResult;
+  }
+
+  public static NeighborhoodEvent initializePainter(
+      int painterIndex, int x, int y, Direction direction, int paint) {
+    return new NeighborhoodEvent(
+        NeighborhoodSignalKey.INITIALIZE_PAINTER,
+        painterIndex,
+        direction,
+        x,
+        y,
+        paint,
+        null,
+        false);
+  }
+
+  /** A MOVE or TURN_LEFT signal, with the direction the painter faces afterwards. */
+  public static NeighborhoodEvent withDirection(
+      NeighborhoodSignalKey signalKey, int painterIndex, Direction direction) {
+    return new NeighborhoodEvent(signalKey, painterIndex, direction, 0, 0, 0, null, false);
+  }
+
+  public static NeighborhoodEvent paint(int painterIndex, String color) {
+    return new NeighborhoodEvent(
+        NeighborhoodSignalKey.PAINT, painterIndex, null, 0, 0, 0, color, false);
+  }
+
+  /** A signal about one painter with no other details, such as TAKE_PAINT. */
+  public static NeighborhoodEvent painterSignal(NeighborhoodSignalKey signalKey, int painterIndex) {
+    return new NeighborhoodEvent(signalKey, painterIndex, null, 0, 0, 0, null, false);
+  }
+
+  /** The result of one of a painter's boolean methods, such as CAN_MOVE. */
+  public static NeighborhoodEvent booleanResult(
+      NeighborhoodSignalKey signalKey, int painterIndex, boolean result) {
+    return new NeighborhoodEvent(signalKey, painterIndex, null, 0, 0, 0, null, result);
+  }
+
+  /** A signal about the whole neighborhood, such as SHOW_BUCKETS. */
+  public static NeighborhoodEvent neighborhoodSignal(NeighborhoodSignalKey signalKey) {
+    return new NeighborhoodEvent(signalKey, NO_PAINTER, null, 0, 0, 0, null, false);
+  }
+
+  public static String getPainterId(int painterIndex) {
+    return PAINTER_ID_PREFIX + painterIndex;
+  }
+
+  public NeighborhoodSignalKey getSignalKey() {
+    return this.signalKey;
+  }
+
+  public int getPainterIndex() {
+    return this.painterIndex;
+  }
+
+  public Direction getDirection() {
+    return this.direction;
+  }
+
+  public int getX() {
+    return this.x;
+  }
+
+  public int getY() {
+    return this.y;
+  }
+
+  public int getPaint() {
+    return this.paint;
+  }
+
+  public String getColor() {
+    return this.color;
+  }
+
+  public boolean getBooleanResult() {
+    return this.booleanResult;
+  }
+
+  /** @return true if this is the same signal with the same details as the given event */
+  public boolean isRepeatOf(NeighborhoodEvent other) {
+    return this.signalKey == other.signalKey
+        && this.painterIndex == other.painterIndex
+        && this.direction == other.direction
+        && this.x == other.x
+        && this.y == other.y
+        && this.paint == other.paint
+        && (this.color == null ? other.color == null : this.color.equals(other.color))
+        && this.booleanResult == other.booleanResult;
+  }
+
+  /** @return the details of this signal, as sent in a NeighborhoodSignalMessage */
+  public HashMap<String, String> getDetails() {
+    final HashMap<String, String> details = new HashMap<>();
+    if (this.painterIndex == NO_PAINTER) {
+      return details;
+    }
+    details.put(ID, getPainterId(this.painterIndex));
+    switch (this.signalKey) {
+      case INITIALIZE_PAINTER:
+        details.put(DIRECTION, this.direction.getDirectionString());
+        details.put(X, Integer.toString(this.x));
+        details.put(Y, Integer.toString(this.y));
+        details.put(PAINT, Integer.toString(this.paint));
+        break;
+      case MOVE:
+      case TURN_LEFT:
+        details.put(DIRECTION, this.direction.getDirectionString());
+        break;
+      case PAINT:
+        details.put(COLOR, this.color);
+        break;
+      case CAN_MOVE:
+      case IS_ON_BUCKET:
+      case IS_ON_PAINT:
+        details.put(BOOLEAN_RESULT, String.valueOf(this.booleanResult));
+        break;
+      default:
+        break;
+    }
+    return details;
+  }
+}
@@ -0,0 +1,196 @@
+package org.code.neighborhood.support;
+
+import static org.code.protocol.ClientMessageDetailKeys.ENCODING;
+import static org.code.protocol.ClientMessageDetailKeys.URL;
+import static org.code.protocol.ClientMessageDetailKeys.VERSION;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.code.protocol.ClientMessage;
+import org.code.protocol.ClientMessageType;
+import org.json.JSONObject;
+
+/**
+ * A frame of neighborhood signals in the compact event format. The client decodes this format
+ * instead of individual NEIGHBORHOOD messages once it asks for compact neighborhood events. The
+ * message looks like:
+ *
+ * <pre>
+ * {
+ *   "type": "NEIGHBORHOOD_EVENTS",
+ *   "value": "[[1,0,1,3],[2,0,\"red\"],[7,0,0]]",
+ *   "detail": {"version": "1"}
+ * }
+ * </pre>
+ *
+ * In version 1 of the format, the value is a JSON array of events in the order they happened. Each
+ * event is an array that starts with the ordinal of its {@link NeighborhoodSignalKey}, followed by
+ * the painter's index (the N in the painter's id, "painter-N") for signals about one painter.
+ * Directions are ordinals of {@link Direction}. The remaining fields depend on the signal:
+ *
+ * <pre>
+ * INITIALIZE_PAINTER  [0, painter, x, y, direction, paint]
+ * MOVE                [1, painter, direction, count]    count consecutive identical moves
+ * PAINT               [2, painter, color]               color is a JSON string
+ * REMOVE_PAINT        [3, painter]
+ * TAKE_PAINT          [4, painter]
+ * HIDE_PAINTER        [5, painter]
+ * SHOW_PAINTER        [6, painter]
+ * TURN_LEFT           [7, painter, direction]           the direction faced after turning
+ * HIDE_BUCKETS        [8]
+ * SHOW_BUCKETS        [9]
+ * </pre>
+ *
+ * Signals that are only used for validation are not included. Changing any ordinal or field above
+ * requires a new version.
+ *
+ * <p>When the neighborhood runs headless, every event of the run is sent in one frame with the
+ * events array gzipped. The detail's "encoding" is then "gzip+base64" if the value is the base64 of
+ * the gzipped array, or "gzip" if the array was too large for a message and was instead written to
+ * the file at the detail's "url", in which case there is no value.
+ */
+public class NeighborhoodEventFrameMessage extends ClientMessage {
+  public static final String FORMAT_VERSION = "1";
+  static final String INLINE_ENCODING = "gzip+base64";
+  static final String UPLOADED_ENCODING = "gzip";
+
+  private final List<NeighborhoodEvent> events;
+  private final boolean hasClientEvents;
+
+  public NeighborhoodEventFrameMessage(List<NeighborhoodEvent> events) {
+    this(events, encode(events), createDetail());
+  }
+
+  private NeighborhoodEventFrameMessage(
+      List<NeighborhoodEvent> events, String value, HashMap<String, String> detail) {
+    super(ClientMessageType.NEIGHBORHOOD_EVENTS, value, detail);
+    this.events = events;
+    this.hasClientEvents =
+        events.stream().anyMatch(event -> !event.getSignalKey().isValidationOnly());
+  }
+
+  /** @return a frame carrying the given gzipped encoding of the events as base64 */
+  static NeighborhoodEventFrameMessage compressed(
+      List<NeighborhoodEvent> events, byte[] compressedEvents) {
+    final HashMap<String, String> detail = createDetail();
+    detail.put(ENCODING, INLINE_ENCODING);
+    return new NeighborhoodEventFrameMessage(
+        events, Base64.getEncoder().encodeToString(compressedEvents), detail);
+  }
+
+  /** @return a frame pointing to the file its gzipped encoding was written to */
+  static NeighborhoodEventFrameMessage uploaded(List<NeighborhoodEvent> events, String url) {
+    final HashMap<String, String> detail = createDetail();
+    detail.put(ENCODING, UPLOADED_ENCODING);
+    detail.put(URL, url);
+    return new NeighborhoodEventFrameMessage(events, null, detail);
+  }
+
+  /** @return the events array of the given events, gzipped */
+  static byte[] compress(List<NeighborhoodEvent> events) throws IOException {
+    final byte[] encoded = encode(events).getBytes(StandardCharsets.UTF_8);
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream(encoded.length / 8 + 64);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(encoded);
+    }
+    return compressed.toByteArray();
+  }
+
+  /** @return every event in the frame, including validation-only events and repeated moves */
+  public List<NeighborhoodEvent> getEvents() {
+    return this.events;
+  }
+
+  @Override
+  public boolean shouldAlwaysSend() {
+    return this.hasClientEvents;
+  }
+
+  private static HashMap<String, String> createDetail() {
+    final HashMap<String, String> detail = new HashMap<>();
+    detail.put(VERSION, FORMAT_VERSION);
+    return detail;
+  }
+
+  private static String encode(List<NeighborhoodEvent> events) {
+    final StringBuilder encoded = new StringBuilder(events.size() * 12);
+    encoded.append('[');
+    NeighborhoodEvent previous = null;
+    int count = 0;
+    for (NeighborhoodEvent event : events) {
+      if (event.getSignalKey().isValidationOnly()) {
+        continue;
+      }
+      if (previous != null
+          && previous.getSignalKey() == NeighborhoodSignalKey.MOVE
+          && event.isRepeatOf(previous)) {
+        count++;
+        continue;
+      }
+      if (previous != null) {
+        appendEvent(encoded, previous, count);
+        encoded.append(',');
+      }
+      previous = event;
+      count = 1;
+    }
+    if (previous != null) {
+      appendEvent(encoded, previous, count);
+    }
+    return encoded.append(']').toString();
+  }
+
+  private static void appendEvent(StringBuilder encoded, NeighborhoodEvent event, int count) {
+    encoded.append('[').append(event.getSignalKey().ordinal());
+    switch (event.getSignalKey()) {
+      case INITIALIZE_PAINTER:
+        encoded
+            .append(',')
+            .append(event.getPainterIndex())
+            .append(',')
+            .append(event.getX())
+            .append(',')
+            .append(event.getY())
+            .append(',')
+            .append(event.getDirection().ordinal())
+            .append(',')
+            .append(event.getPaint());
+        break;
+      case MOVE:
+        encoded
+            .append(',')
+            .append(event.getPainterIndex())
+            .append(',')
+            .append(event.getDirection().ordinal())
+            .append(',')
+            .append(count);
+        break;
+      case TURN_LEFT:
+        encoded
+            .append(',')
+            .append(event.getPainterIndex())
+            .append(',')
+            .append(event.getDirection().ordinal());
+        break;
+      case PAINT:
+        encoded
+            .append(',')
+            .append(event.getPainterIndex())
+            .append(',')
+            .append(JSONObject.quote(event.getColor()));
+        break;
+      case HIDE_BUCKETS:
+      case SHOW_BUCKETS:
+        break;
+      default:
+        encoded.append(',').append(event.getPainterIndex());
+        break;
+    }
+    encoded.append(']');
+  }
+}
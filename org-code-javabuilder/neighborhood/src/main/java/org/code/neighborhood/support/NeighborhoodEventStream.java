@@ -0,0 +1,214 @@
+package org.code.neighborhood.support;
+
+import static org.code.protocol.InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.code.protocol.ClientMessage;
+import org.code.protocol.InternalServerRuntimeException;
+import org.code.protocol.JavabuilderContext;
+import org.code.protocol.JavabuilderException;
+import org.code.protocol.JavabuilderSharedObject;
+import org.code.protocol.Properties;
+
+/**
+ * Sends the neighborhood's signals to the client. By default every signal is sent as its own {@link
+ * NeighborhoodSignalMessage}. If the client asks for compact neighborhood events, signals are
+ * collected and sent together in a {@link NeighborhoodEventFrameMessage} once the frame is full,
+ * once its oldest signal has waited for the flush interval, or when the user's program waits for
+ * input or finishes. A background thread checks the interval too, so a frame is sent on time even
+ * if the program stops painting to compute or sleep.
+ *
+ * <p>If the neighborhood runs headless, no signal is sent while the program runs. Every signal is
+ * held until the program finishes and then sent as one gzipped frame, or written to a file if the
+ * frame would be too large for a message. If the program waits for input first, the signals so far
+ * are sent that way and the rest of the run is streamed as compact events, so the user sees the
+ * neighborhood before typing.
+ */
+public class NeighborhoodEventStream extends JavabuilderSharedObject {
+  // Frames are kept well under API Gateway's 128KB limit on WebSocket messages.
+  static final int MAX_FRAME_CHARS = 64 * 1024;
+  static final long FLUSH_INTERVAL_MS = 50;
+  // Generous estimate of the encoded size of an event, other than its color.
+  private static final int EVENT_CHARS = 24;
+  // Gzipped event logs up to this size are sent in a message, and larger ones are written to a
+  // file. Base64 adds a third, which still leaves the message under API Gateway's limit.
+  static final int MAX_INLINE_LOG_BYTES = 64 * 1024;
+  // A headless run that records this many events streams the rest, to bound the memory it uses.
+  static final int MAX_HEADLESS_EVENTS = 500_000;
+  static final String EVENT_LOG_FILE_NAME = "neighborhoodEvents.json.gz";
+  private static final String EVENT_LOG_CONTENT_TYPE = "application/gzip";
+
+  private final boolean useCompactEvents;
+  private boolean isHeadless;
+  private final long flushIntervalMs;
+  private final long flushIntervalNanos;
+  // Started once the first event is held back while streaming, and stopped by destroy().
+  private ScheduledExecutorService flushScheduler;
+  private List<NeighborhoodEvent> pendingEvents;
+  private int pendingChars;
+  private long oldestPendingNanos;
+  private RuntimeException deferredError;
+  private boolean isDestroyed;
+
+  public NeighborhoodEventStream() {
+    this(Properties.useCompactNeighborhoodEvents(), Properties.runNeighborhoodHeadless());
+  }
+
+  public NeighborhoodEventStream(boolean useCompactEvents) {
+    this(useCompactEvents, false);
+  }
+
+  public NeighborhoodEventStream(boolean useCompactEvents, boolean isHeadless) {
+    this(useCompactEvents, isHeadless, FLUSH_INTERVAL_MS);
+  }
+
+  NeighborhoodEventStream(boolean useCompactEvents, boolean isHeadless, long flushIntervalMs) {
+    // The event log of a headless run is always in the compact format.
+    this.useCompactEvents = useCompactEvents || isHeadless;
+    this.isHeadless = isHeadless;
+    this.flushIntervalMs = flushIntervalMs;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+    this.pendingEvents = new ArrayList<>();
+    this.pendingChars = 0;
+    this.isDestroyed = false;
+  }
+
+  public synchronized void send(NeighborhoodEvent event) {
+    this.throwDeferredError();
+    if (!this.useCompactEvents) {
+      this.sendMessage(new NeighborhoodSignalMessage(event));
+      return;
+    }
+
+    if (this.isHeadless) {
+      this.pendingEvents.add(event);
+      if (this.pendingEvents.size() >= MAX_HEADLESS_EVENTS) {
+        this.flushOutput();
+      }
+      return;
+    }
+
+    if (this.pendingEvents.isEmpty()) {
+      this.oldestPendingNanos = System.nanoTime();
+    }
+    this.pendingEvents.add(event);
+    this.pendingChars += EVENT_CHARS;
+    if (event.getColor() != null) {
+      this.pendingChars += event.getColor().length();
+    }
+    if (this.pendingChars >= MAX_FRAME_CHARS || this.isStale()) {
+      this.flushOutput();
+    } else {
+      this.startFlushScheduler();
+    }
+  }
+
+  @Override
+  public synchronized void destroy() {
+    this.isDestroyed = true;
+    if (this.flushScheduler != null) {
+      this.flushScheduler.shutdownNow();
+    }
+  }
+
+  @Override
+  public synchronized void flushOutput() {
+    this.throwDeferredError();
+    final boolean wasHeadless = this.isHeadless;
+    // Whether the program has finished or is waiting for input, anything it does from now on is
+    // streamed.
+    this.isHeadless = false;
+    if (this.pendingEvents.isEmpty()) {
+      return;
+    }
+    final List<NeighborhoodEvent> events = this.pendingEvents;
+    this.pendingEvents = new ArrayList<>();
+    this.pendingChars = 0;
+    if (wasHeadless) {
+      this.sendEventLog(events);
+    } else {
+      this.sendMessage(new NeighborhoodEventFrameMessage(events));
+    }
+  }
+
+  private void startFlushScheduler() {
+    if (this.flushScheduler != null || this.isDestroyed) {
+      return;
+    }
+    this.flushScheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "neighborhood-event-flush");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.flushScheduler.scheduleWithFixedDelay(
+        this::flushIfStale, this.flushIntervalMs, this.flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void flushIfStale() {
+    // Once destroyed, the session that would receive the frame is over.
+    if (this.isDestroyed || this.deferredError != null || this.isHeadless || !this.isStale()) {
+      return;
+    }
+    try {
+      this.flushOutput();
+    } catch (RuntimeException e) {
+      // There is no caller to report this to on the background thread, so hold on to it until the
+      // user's program next paints.
+      this.deferredError = e;
+    }
+  }
+
+  private boolean isStale() {
+    return !this.pendingEvents.isEmpty()
+        && System.nanoTime() - this.oldestPendingNanos >= this.flushIntervalNanos;
+  }
+
+  private void throwDeferredError() {
+    if (this.deferredError == null) {
+      return;
+    }
+    final RuntimeException error = this.deferredError;
+    this.deferredError = null;
+    throw error;
+  }
+
+  private void sendEventLog(List<NeighborhoodEvent> events) {
+    final byte[] compressedEvents;
+    try {
+      compressedEvents = NeighborhoodEventFrameMessage.compress(events);
+    } catch (IOException e) {
+      throw new InternalServerRuntimeException(INTERNAL_RUNTIME_EXCEPTION, e);
+    }
+    if (compressedEvents.length <= MAX_INLINE_LOG_BYTES) {
+      this.sendMessage(NeighborhoodEventFrameMessage.compressed(events, compressedEvents));
+      return;
+    }
+
+    try {
+      final String url =
+          JavabuilderContext.getInstance()
+              .getGlobalProtocol()
+              .getContentManager()
+              .writeToOutputFile(EVENT_LOG_FILE_NAME, compressedEvents, EVENT_LOG_CONTENT_TYPE);
+      this.sendMessage(NeighborhoodEventFrameMessage.uploaded(events, url));
+    } catch (JavabuilderException e) {
+      // The log could not be written, most likely because the program used up its file writes.
+      // Send it in ordinary frames instead.
+      for (NeighborhoodEvent event : events) {
+        this.send(event);
+      }
+      this.flushOutput();
+    }
+  }
+
+  private void sendMessage(ClientMessage message) {
+    JavabuilderContext.getInstance().getGlobalProtocol().getOutputAdapter().sendMessage(message);
+  }
+}
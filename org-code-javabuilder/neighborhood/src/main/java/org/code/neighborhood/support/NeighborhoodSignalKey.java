@@ -26,5 +26,10 @@ public enum NeighborhoodSignalKey {
   // isOnPaint was called (used for validation only)
   IS_ON_PAINT,
   // canMove was called (used for validation only)
-  CAN_MOVE
+  CAN_MOVE;
+
+  /** @return true if this signal is only used for validation testing, and not sent to the client */
+  public boolean isValidationOnly() {
+    return this == IS_ON_BUCKET || this == IS_ON_PAINT || this == CAN_MOVE;
+  }
 }
@@ -1,27 +1,30 @@
 package org.code.neighborhood.support;
 
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
 import org.code.protocol.ClientMessage;
 import org.code.protocol.ClientMessageType;
 
 public class NeighborhoodSignalMessage extends ClientMessage {
+  private final NeighborhoodEvent event;
+
   public NeighborhoodSignalMessage(NeighborhoodSignalKey key, HashMap<String, String> detail) {
     super(ClientMessageType.NEIGHBORHOOD, key.toString(), detail);
+    this.event = null;
+  }
+
+  public NeighborhoodSignalMessage(NeighborhoodEvent event) {
+    super(ClientMessageType.NEIGHBORHOOD, event.getSignalKey().toString(), event.getDetails());
+    this.event = event;
+  }
+
+  /** @return the event this message was created from, or null if it was created from details */
+  public NeighborhoodEvent getEvent() {
+    return this.event;
   }
 
   @Override
   public boolean shouldAlwaysSend() {
-    String signalKey = this.getValue();
-    Set<String> ignoredSignalKeys = new HashSet<>();
-    // These keys are only used for validation testing, by default don't send them.
-    ignoredSignalKeys.add(NeighborhoodSignalKey.CAN_MOVE.toString());
-    ignoredSignalKeys.add(NeighborhoodSignalKey.IS_ON_BUCKET.toString());
-    ignoredSignalKeys.add(NeighborhoodSignalKey.IS_ON_PAINT.toString());
-    if (ignoredSignalKeys.contains(signalKey)) {
-      return false;
-    }
-    return true;
+    // Some keys are only used for validation testing, by default don't send them.
+    return !NeighborhoodSignalKey.valueOf(this.getValue()).isValidationOnly();
   }
 }
@@ -0,0 +1,54 @@
+package org.code.neighborhood.support;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class ColorRegistryTest {
+  @Test
+  void webColorsAreCaseInsensitive() {
+    final int colorId = ColorRegistry.findColorId("red");
+    assertEquals(colorId, ColorRegistry.findColorId("Red"));
+    assertEquals(colorId, ColorRegistry.findColorId("RED"));
+    assertNotEquals(colorId, ColorRegistry.findColorId("darkred"));
+  }
+
+  @Test
+  void hexColorsAreCaseInsensitive() {
+    assertEquals(ColorRegistry.findColorId("#ffaa00"), ColorRegistry.findColorId("#FFAA00"));
+    assertEquals(ColorRegistry.findColorId("#fa0"), ColorRegistry.findColorId("#fA0"));
+    assertNotEquals(ColorRegistry.INVALID_COLOR, ColorRegistry.findColorId("#000000"));
+    // Three and six digit codes stay distinct.
+    assertNotEquals(ColorRegistry.findColorId("#fa0"), ColorRegistry.findColorId("#ffaa00"));
+  }
+
+  @Test
+  void namesWithLengthOfHexCodeAreWebColors() {
+    assertEquals(ColorRegistry.findColorId("navy"), ColorRegistry.findColorId("Navy"));
+    assertNotEquals(ColorRegistry.INVALID_COLOR, ColorRegistry.findColorId("skyblue"));
+  }
+
+  @Test
+  void findColorIdReturnsNoColorForNull() {
+    assertEquals(ColorRegistry.NO_COLOR, ColorRegistry.findColorId(null));
+  }
+
+  @Test
+  void findColorIdReturnsInvalidColorForNonColors() {
+    assertEquals(ColorRegistry.INVALID_COLOR, ColorRegistry.findColorId("r"));
+    assertEquals(ColorRegistry.INVALID_COLOR, ColorRegistry.findColorId("#ggg"));
+    assertEquals(ColorRegistry.INVALID_COLOR, ColorRegistry.findColorId("#ffff"));
+    assertEquals(ColorRegistry.INVALID_COLOR, ColorRegistry.findColorId("#\u0661\u0662\u0663"));
+    assertEquals(ColorRegistry.INVALID_COLOR, ColorRegistry.findColorId(""));
+  }
+
+  @Test
+  void recentColorsKeepTheirIds() {
+    // Seeing more colors than the cache holds evicts the oldest, which are then parsed again.
+    final int colorId = ColorRegistry.findColorId("#123456");
+    for (int i = 0; i < 1000; i++) {
+      ColorRegistry.findColorId(String.format("#%06x", i));
+    }
+    assertEquals(colorId, ColorRegistry.findColorId("#123456"));
+  }
+}
@@ -124,4 +124,46 @@ public class GridFactoryTest {
     String expectedMessage = ExceptionKeys.INVALID_GRID.toString();
     assertEquals(exception.getMessage(), expectedMessage);
   }
+
+  @Test
+  void createGridFromStringReadsEverySquare() throws IOException {
+    GridFactory gridFactory = new GridFactory();
+    Grid grid =
+        gridFactory.createGridFromString(
+            "[[{\"tileType\": 0, \"assetId\": 3}, {\"tileType\": \"2\", \"assetId\": null}],\n"
+                + "[{\"name\": \"a \\\"quoted\\\" \\u0041\", \"tileType\": 1, \"extra\": {\"list\": [1, \"]\"]}},"
+                + " {\"value\": 2, \"tileType\": 5}]]");
+    assertFalse(grid.validLocation(0, 0));
+    assertEquals(3, grid.getAssetId(0));
+    assertTrue(grid.validLocation(1, 0));
+    assertEquals(0, grid.getAssetId(1));
+    assertFalse(grid.getSquare(0, 1).containsPaint());
+    assertTrue(grid.getSquare(1, 1).containsPaint());
+  }
+
+  @Test
+  void createGridFromStringWithMissingTileTypeThrowsException() {
+    GridFactory gridFactory = new GridFactory();
+    Exception exception =
+        assertThrows(
+            NeighborhoodRuntimeException.class,
+            () -> {
+              gridFactory.createGridFromString("[[{\"assetId\": 0}]]");
+            });
+    String expectedMessage = ExceptionKeys.INVALID_GRID.toString();
+    assertEquals(exception.getMessage(), expectedMessage);
+  }
+
+  @Test
+  void createGridFromStringWithUnterminatedGridThrowsException() {
+    GridFactory gridFactory = new GridFactory();
+    Exception exception =
+        assertThrows(
+            NeighborhoodRuntimeException.class,
+            () -> {
+              gridFactory.createGridFromString("[[{\"tileType\": 1}");
+            });
+    String expectedMessage = ExceptionKeys.INVALID_GRID.toString();
+    assertEquals(exception.getMessage(), expectedMessage);
+  }
 }
@@ -91,6 +91,15 @@ public class GridSquareTest {
     assertEquals(exception.getMessage(), expectedMessage);
   }
 
+  @Test
+  void getColorReturnsColorAsWritten() {
+    GridSquare s = new GridSquare(1, 0);
+    s.setColor("Red");
+    assertEquals("Red", s.getColor());
+    s.setColor("#FFaa00");
+    assertEquals("#FFaa00", s.getColor());
+  }
+
   @Test
   void setColorThrowsExceptionIfThereIsPaint() {
     GridSquare s = new GridSquare(1, 0, 4);
@@ -53,4 +53,33 @@ public class GridTest {
     String expectedMessage = ExceptionKeys.GET_SQUARE_FAILED.toString();
     assertEquals(exception.getMessage(), expectedMessage);
   }
+
+  @Test
+  void getSquareReturnsSameViewOfSquare() {
+    Grid grid = new GridFactory().createEmptyGrid(2);
+    GridSquare sq = grid.getSquare(1, 0);
+    assertSame(sq, grid.getSquare(1, 0));
+    sq.setColor("red");
+    assertEquals("red", grid.getSquare(1, 0).getColor());
+    assertFalse(grid.getSquare(0, 1).hasColor());
+  }
+
+  @Test
+  void constructorKeepsStateOfSquares() {
+    GridSquare painted = new GridSquare(1, 0);
+    painted.setColor("blue");
+    GridSquare bucket = new GridSquare(1, 7, 3);
+    GridSquare[][] squares = {{painted, bucket}, {new GridSquare(0, 0), new GridSquare(1, 0)}};
+    Grid grid = new Grid(squares);
+    assertEquals("blue", grid.getSquare(0, 0).getColor());
+    assertTrue(grid.getSquare(0, 1).containsPaint());
+    assertEquals(7, grid.getAssetId(1 * 2 + 0));
+    assertFalse(grid.validLocation(1, 0));
+
+    // The squares are now views of the grid
+    bucket.collectPaint();
+    bucket.collectPaint();
+    bucket.collectPaint();
+    assertFalse(grid.getSquare(0, 1).containsPaint());
+  }
 }
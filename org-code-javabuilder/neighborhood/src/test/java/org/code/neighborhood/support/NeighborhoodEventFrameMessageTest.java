@@ -0,0 +1,110 @@
+package org.code.neighborhood.support;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.code.protocol.ClientMessageType;
+import org.junit.jupiter.api.Test;
+
+public class NeighborhoodEventFrameMessageTest {
+  @Test
+  void encodesEventsAsOrdinalsAndPainterIndexes() {
+    final NeighborhoodEventFrameMessage message =
+        new NeighborhoodEventFrameMessage(
+            List.of(
+                NeighborhoodEvent.initializePainter(3, 1, 2, Direction.EAST, 5),
+                NeighborhoodEvent.paint(3, "red"),
+                NeighborhoodEvent.withDirection(
+                    NeighborhoodSignalKey.TURN_LEFT, 3, Direction.NORTH),
+                NeighborhoodEvent.painterSignal(NeighborhoodSignalKey.TAKE_PAINT, 3),
+                NeighborhoodEvent.neighborhoodSignal(NeighborhoodSignalKey.SHOW_BUCKETS)));
+
+    assertEquals(ClientMessageType.NEIGHBORHOOD_EVENTS, message.getType());
+    assertEquals("[[0,3,1,2,1,5],[2,3,\"red\"],[7,3,0],[4,3],[9]]", message.getValue());
+    assertEquals("1", message.getDetail().getString("version"));
+  }
+
+  @Test
+  void collapsesRunsOfIdenticalMoves() {
+    final NeighborhoodEvent moveEast =
+        NeighborhoodEvent.withDirection(NeighborhoodSignalKey.MOVE, 0, Direction.EAST);
+    final NeighborhoodEvent otherPainterMoveEast =
+        NeighborhoodEvent.withDirection(NeighborhoodSignalKey.MOVE, 1, Direction.EAST);
+    final NeighborhoodEventFrameMessage message =
+        new NeighborhoodEventFrameMessage(
+            List.of(
+                moveEast,
+                moveEast,
+                moveEast,
+                otherPainterMoveEast,
+                NeighborhoodEvent.withDirection(NeighborhoodSignalKey.MOVE, 0, Direction.EAST)));
+
+    assertEquals("[[1,0,1,3],[1,1,1,1],[1,0,1,1]]", message.getValue());
+    // Every event is still available for validation.
+    assertEquals(5, message.getEvents().size());
+  }
+
+  @Test
+  void leavesOutValidationOnlyEvents() {
+    final NeighborhoodEvent moveSouth =
+        NeighborhoodEvent.withDirection(NeighborhoodSignalKey.MOVE, 0, Direction.SOUTH);
+    final NeighborhoodEventFrameMessage message =
+        new NeighborhoodEventFrameMessage(
+            List.of(
+                moveSouth,
+                NeighborhoodEvent.booleanResult(NeighborhoodSignalKey.CAN_MOVE, 0, true),
+                moveSouth));
+
+    assertEquals("[[1,0,2,2]]", message.getValue());
+    assertTrue(message.shouldAlwaysSend());
+  }
+
+  @Test
+  void doesNotSendFrameOfOnlyValidationEvents() {
+    final NeighborhoodEventFrameMessage message =
+        new NeighborhoodEventFrameMessage(
+            List.of(NeighborhoodEvent.booleanResult(NeighborhoodSignalKey.IS_ON_PAINT, 0, false)));
+
+    assertEquals("[]", message.getValue());
+    assertFalse(message.shouldAlwaysSend());
+  }
+
+  @Test
+  void escapesColors() {
+    final NeighborhoodEventFrameMessage message =
+        new NeighborhoodEventFrameMessage(List.of(NeighborhoodEvent.paint(0, "\"blue\"")));
+
+    assertEquals("[[2,0,\"\\\"blue\\\"\"]]", message.getValue());
+  }
+
+  /** The ordinals are part of version 1 of the format, which the client decodes. */
+  @Test
+  void ordinalsMatchFormatVersion() {
+    assertEquals(FormatVersion1.SIGNAL_KEYS.length, NeighborhoodSignalKey.values().length);
+    for (int i = 0; i < FormatVersion1.SIGNAL_KEYS.length; i++) {
+      assertEquals(FormatVersion1.SIGNAL_KEYS[i], NeighborhoodSignalKey.values()[i]);
+    }
+    assertArrayEquals(FormatVersion1.DIRECTIONS, Direction.values());
+  }
+
+  private static class FormatVersion1 {
+    private static final NeighborhoodSignalKey[] SIGNAL_KEYS = {
+      NeighborhoodSignalKey.INITIALIZE_PAINTER,
+      NeighborhoodSignalKey.MOVE,
+      NeighborhoodSignalKey.PAINT,
+      NeighborhoodSignalKey.REMOVE_PAINT,
+      NeighborhoodSignalKey.TAKE_PAINT,
+      NeighborhoodSignalKey.HIDE_PAINTER,
+      NeighborhoodSignalKey.SHOW_PAINTER,
+      NeighborhoodSignalKey.TURN_LEFT,
+      NeighborhoodSignalKey.HIDE_BUCKETS,
+      NeighborhoodSignalKey.SHOW_BUCKETS,
+      NeighborhoodSignalKey.IS_ON_BUCKET,
+      NeighborhoodSignalKey.IS_ON_PAINT,
+      NeighborhoodSignalKey.CAN_MOVE
+    };
+    private static final Direction[] DIRECTIONS = {
+      Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST
+    };
+  }
+}
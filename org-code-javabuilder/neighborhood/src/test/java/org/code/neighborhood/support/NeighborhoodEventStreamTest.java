@@ -0,0 +1,235 @@
+package org.code.neighborhood.support;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import org.code.protocol.ClientMessage;
+import org.code.protocol.ContentManager;
+import org.code.protocol.GlobalProtocolTestFactory;
+import org.code.protocol.JavabuilderException;
+import org.code.protocol.OutputAdapter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class NeighborhoodEventStreamTest {
+  private final NeighborhoodEvent moveNorth =
+      NeighborhoodEvent.withDirection(NeighborhoodSignalKey.MOVE, 0, Direction.NORTH);
+  private OutputAdapter outputAdapter;
+  private ContentManager contentManager;
+  private NeighborhoodEventStream unitUnderTest;
+
+  @BeforeEach
+  public void setUp() {
+    outputAdapter = mock(OutputAdapter.class);
+    contentManager = mock(ContentManager.class);
+    GlobalProtocolTestFactory.builder()
+        .withOutputAdapter(outputAdapter)
+        .withContentManager(contentManager)
+        .create();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    // Stops the background flush, so it cannot send to a later test's output adapter.
+    if (unitUnderTest != null) {
+      unitUnderTest.destroy();
+    }
+  }
+
+  @Test
+  void sendsEachEventAsSignalMessageByDefault() {
+    unitUnderTest = new NeighborhoodEventStream(false);
+    unitUnderTest.send(moveNorth);
+
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(outputAdapter).sendMessage(captor.capture());
+    final NeighborhoodSignalMessage message = (NeighborhoodSignalMessage) captor.getValue();
+    assertEquals("MOVE", message.getValue());
+    assertEquals("painter-0", message.getDetail().getString("id"));
+    assertEquals("north", message.getDetail().getString("direction"));
+    assertSame(moveNorth, message.getEvent());
+  }
+
+  @Test
+  void signalMessageKeepsColorAsWritten() {
+    unitUnderTest = new NeighborhoodEventStream(false);
+    unitUnderTest.send(NeighborhoodEvent.paint(0, "Red"));
+
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(outputAdapter).sendMessage(captor.capture());
+    assertEquals("Red", captor.getValue().getDetail().getString("color"));
+  }
+
+  @Test
+  void holdsCompactEventsUntilFlushed() {
+    // An interval the test never reaches, so only the explicit flush sends the frame.
+    unitUnderTest = new NeighborhoodEventStream(true, false, 60_000);
+    unitUnderTest.send(moveNorth);
+    unitUnderTest.send(moveNorth);
+    verify(outputAdapter, never()).sendMessage(any());
+
+    unitUnderTest.flushOutput();
+
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(outputAdapter).sendMessage(captor.capture());
+    final NeighborhoodEventFrameMessage frame = (NeighborhoodEventFrameMessage) captor.getValue();
+    assertEquals(List.of(moveNorth, moveNorth), frame.getEvents());
+    assertEquals("[[1,0,0,2]]", frame.getValue());
+
+    // Nothing is left to send.
+    unitUnderTest.flushOutput();
+    verify(outputAdapter, times(1)).sendMessage(any());
+  }
+
+  @Test
+  void sendsFrameOnceFull() {
+    unitUnderTest = new NeighborhoodEventStream(true);
+    for (int i = 0; i < NeighborhoodEventStream.MAX_FRAME_CHARS; i++) {
+      unitUnderTest.send(moveNorth);
+    }
+
+    verify(outputAdapter, atLeastOnce()).sendMessage(any(NeighborhoodEventFrameMessage.class));
+  }
+
+  @Test
+  void sendsFrameOnceFlushIntervalHasPassed() throws InterruptedException {
+    unitUnderTest = new NeighborhoodEventStream(true);
+    unitUnderTest.send(moveNorth);
+    Thread.sleep(NeighborhoodEventStream.FLUSH_INTERVAL_MS);
+    unitUnderTest.send(moveNorth);
+
+    // The background flush may also have sent the first event on its own.
+    verify(outputAdapter, atLeastOnce()).sendMessage(any(NeighborhoodEventFrameMessage.class));
+  }
+
+  @Test
+  void sendsFrameOnceFlushIntervalHasPassedWithoutFurtherEvents() throws InterruptedException {
+    unitUnderTest = new NeighborhoodEventStream(true, false, 20);
+    unitUnderTest.send(moveNorth);
+
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(outputAdapter, timeout(1000)).sendMessage(captor.capture());
+    assertEquals(
+        List.of(moveNorth), ((NeighborhoodEventFrameMessage) captor.getValue()).getEvents());
+    unitUnderTest.destroy();
+  }
+
+  @Test
+  void stopsFlushingOnceDestroyed() throws InterruptedException {
+    unitUnderTest = new NeighborhoodEventStream(true, false, 20);
+    unitUnderTest.send(moveNorth);
+    unitUnderTest.destroy();
+    Thread.sleep(100);
+
+    verify(outputAdapter, never()).sendMessage(any());
+  }
+
+  @Test
+  void holdsHeadlessEventsUntilFlushedAndSendsThemCompressed() throws IOException {
+    unitUnderTest = new NeighborhoodEventStream(false, true);
+    unitUnderTest.send(moveNorth);
+    unitUnderTest.send(NeighborhoodEvent.paint(0, "red"));
+    verify(outputAdapter, never()).sendMessage(any());
+
+    unitUnderTest.flushOutput();
+
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(outputAdapter).sendMessage(captor.capture());
+    final NeighborhoodEventFrameMessage frame = (NeighborhoodEventFrameMessage) captor.getValue();
+    assertEquals(2, frame.getEvents().size());
+    assertEquals("gzip+base64", frame.getDetail().getString("encoding"));
+    assertEquals("1", frame.getDetail().getString("version"));
+    assertEquals(
+        "[[1,0,0,1],[2,0,\"red\"]]", decompress(Base64.getDecoder().decode(frame.getValue())));
+  }
+
+  @Test
+  void streamsEventsAfterHeadlessEventsAreFlushed() {
+    unitUnderTest = new NeighborhoodEventStream(false, true);
+    unitUnderTest.send(moveNorth);
+    // The program waits for input
+    unitUnderTest.flushOutput();
+    unitUnderTest.send(moveNorth);
+    unitUnderTest.flushOutput();
+
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(outputAdapter, times(2)).sendMessage(captor.capture());
+    final NeighborhoodEventFrameMessage frame =
+        (NeighborhoodEventFrameMessage) captor.getAllValues().get(1);
+    assertEquals("[[1,0,0,1]]", frame.getValue());
+    assertFalse(frame.getDetail().has("encoding"));
+  }
+
+  @Test
+  void writesLargeHeadlessLogToFile() throws JavabuilderException, IOException {
+    when(contentManager.writeToOutputFile(anyString(), any(byte[].class), anyString()))
+        .thenReturn("https://example.com/events");
+    unitUnderTest = new NeighborhoodEventStream(false, true);
+    final List<NeighborhoodEvent> events = createIncompressibleEvents();
+    events.forEach(unitUnderTest::send);
+    unitUnderTest.flushOutput();
+
+    final ArgumentCaptor<byte[]> bytesCaptor = ArgumentCaptor.forClass(byte[].class);
+    verify(contentManager)
+        .writeToOutputFile(
+            eq(NeighborhoodEventStream.EVENT_LOG_FILE_NAME),
+            bytesCaptor.capture(),
+            eq("application/gzip"));
+    assertEquals(
+        new NeighborhoodEventFrameMessage(events).getValue(), decompress(bytesCaptor.getValue()));
+
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(outputAdapter).sendMessage(captor.capture());
+    final NeighborhoodEventFrameMessage frame = (NeighborhoodEventFrameMessage) captor.getValue();
+    assertEquals("gzip", frame.getDetail().getString("encoding"));
+    assertEquals("https://example.com/events", frame.getDetail().getString("url"));
+    assertNull(frame.getValue());
+    assertEquals(events, frame.getEvents());
+  }
+
+  @Test
+  void streamsLargeHeadlessLogIfFileCannotBeWritten() throws JavabuilderException {
+    when(contentManager.writeToOutputFile(anyString(), any(byte[].class), anyString()))
+        .thenThrow(mock(JavabuilderException.class));
+    unitUnderTest = new NeighborhoodEventStream(false, true);
+    final List<NeighborhoodEvent> events = createIncompressibleEvents();
+    events.forEach(unitUnderTest::send);
+    unitUnderTest.flushOutput();
+
+    final ArgumentCaptor<ClientMessage> captor = ArgumentCaptor.forClass(ClientMessage.class);
+    verify(outputAdapter, atLeast(2)).sendMessage(captor.capture());
+    final List<NeighborhoodEvent> sentEvents = new ArrayList<>();
+    for (ClientMessage message : captor.getAllValues()) {
+      final NeighborhoodEventFrameMessage frame = (NeighborhoodEventFrameMessage) message;
+      assertFalse(frame.getDetail().has("encoding"));
+      sentEvents.addAll(frame.getEvents());
+    }
+    assertEquals(events, sentEvents);
+  }
+
+  /** Paint events with random colors, which gzip to more than fits in a message. */
+  private List<NeighborhoodEvent> createIncompressibleEvents() {
+    final Random random = new Random(0);
+    final List<NeighborhoodEvent> events = new ArrayList<>();
+    for (int i = 0; i < 40000; i++) {
+      events.add(NeighborhoodEvent.paint(0, String.format("#%06x", random.nextInt(1 << 24))));
+    }
+    return events;
+  }
+
+  private String decompress(byte[] compressed) throws IOException {
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
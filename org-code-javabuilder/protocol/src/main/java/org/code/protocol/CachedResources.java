@@ -7,9 +7,25 @@ import java.util.Map;
 public class CachedResources {
   private static CachedResources cachedResourcesInstance;
   private Map<String, Font> fontMap;
+  private final InstrumentSampleCache instrumentSampleCache;
 
   public static void create() {
+    CachedResources.create(false);
+  }
+
+  /**
+   * @param preloadInstrumentSamples whether to decode every instrument sample now, rather than the
+   *     first time each is played
+   */
+  public static void create(boolean preloadInstrumentSamples) {
     CachedResources.cachedResourcesInstance = new CachedResources();
+    if (preloadInstrumentSamples) {
+      CachedResources.cachedResourcesInstance.getInstrumentSampleCache().preloadAll();
+    }
+  }
+
+  public CachedResources() {
+    this.instrumentSampleCache = new InstrumentSampleCache();
   }
 
   public static CachedResources getInstance() {
@@ -26,4 +42,8 @@ public class CachedResources {
     }
     return this.fontMap;
   }
+
+  public InstrumentSampleCache getInstrumentSampleCache() {
+    return this.instrumentSampleCache;
+  }
 }
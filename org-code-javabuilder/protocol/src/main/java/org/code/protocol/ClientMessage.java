@@ -59,13 +59,15 @@ public abstract class ClientMessage {
 
   /** @return A stringified JSON blob representing the client message */
   public String getFormattedMessage() {
-    JSONObject formattedMessage = new JSONObject();
-    formattedMessage.put("type", this.type);
-    formattedMessage.put("value", this.value);
-    if (this.detail.length() > 0) {
-      formattedMessage.put("detail", this.detail);
-    }
-    return formattedMessage.toString();
+    return ClientMessageEncoder.format(this);
+  }
+
+  /**
+   * Writes this message's JSON to the given encoder. Subclasses that override {@link
+   * #getFormattedMessage()} must override this too, so that both produce the same JSON.
+   */
+  protected void encode(ClientMessageEncoder encoder) {
+    encoder.writeMessage(this.type, this.value, this.detail);
   }
 
   /**
@@ -43,4 +43,8 @@ public class ClientMessageDetailKeys {
   public static final String PAINT = "paint";
   // Used to report the result of calling a boolean method
   public static final String BOOLEAN_RESULT = "booleanResult";
+  // Version of the compact neighborhood event format
+  public static final String VERSION = "version";
+  // How the events of a headless neighborhood run are encoded
+  public static final String ENCODING = "encoding";
 }
@@ -0,0 +1,287 @@
+package org.code.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONObject;
+
+/**
+ * Encodes client messages as UTF-8 JSON directly into a buffer that is reused from one message to
+ * the next, rather than building a JSONObject for every message and converting its String to bytes.
+ * The JSON is byte-for-byte what {@link ClientMessage#getFormattedMessage()} has always produced
+ * with org.json: the same key order, and the same characters escaped.
+ *
+ * <p>An encoder is not thread-safe. The buffer returned by {@link #encode(ClientMessage)} is only
+ * valid until the next call.
+ */
+public class ClientMessageEncoder {
+  private static final int INITIAL_CAPACITY = 1024;
+  // The longest encoding of a single char is an escape sequence such as \u001f.
+  private static final int MAX_BYTES_PER_CHAR = 6;
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+  // org.json writes keys in the order of their hashes, which puts "detail" first.
+  private static final byte[] DETAIL_KEY = "\"detail\":".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] TYPE_KEY = "\"type\":\"".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] VALUE_KEY = ",\"value\":".getBytes(StandardCharsets.US_ASCII);
+
+  private byte[] bytes;
+  private ByteBuffer buffer;
+  private int length;
+
+  public ClientMessageEncoder() {
+    this(INITIAL_CAPACITY);
+  }
+
+  private ClientMessageEncoder(int capacity) {
+    this.bytes = new byte[capacity];
+    this.buffer = ByteBuffer.wrap(this.bytes);
+    this.length = 0;
+  }
+
+  /** @return the formatted JSON of the given message, as returned by getFormattedMessage */
+  static String format(ClientMessage message) {
+    final String value = message.getValue();
+    final ClientMessageEncoder encoder =
+        new ClientMessageEncoder(64 + (value == null ? 0 : value.length()));
+    message.encode(encoder);
+    return new String(encoder.bytes, 0, encoder.length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param previous the char just before {@code start}, or 0 if there is none. It decides whether a
+   *     '/' is escaped.
+   * @return the number of bytes the chars of the given string from start (inclusive) to end
+   *     (exclusive) take up as UTF-8 once escaped inside a JSON string, not counting the quotes
+   */
+  public static int escapedLength(CharSequence string, int start, int end, char previous) {
+    int length = 0;
+    for (int i = start; i < end; i += charCount(string, i)) {
+      length += escapedCharLength(string, i, i == start ? previous : string.charAt(i - 1));
+    }
+    return length;
+  }
+
+  /**
+   * @param previous the char just before {@code start}, or 0 if there is none
+   * @return the end of the longest run of chars from start whose escaped length is at most
+   *     maxBytes. A surrogate pair is never split.
+   */
+  public static int fitEscaped(CharSequence string, int start, int maxBytes, char previous) {
+    int length = 0;
+    int i = start;
+    while (i < string.length()) {
+      length += escapedCharLength(string, i, i == start ? previous : string.charAt(i - 1));
+      if (length > maxBytes) {
+        break;
+      }
+      i += charCount(string, i);
+    }
+    return i;
+  }
+
+  /** @return the number of bytes writeQuoted writes for the char (or surrogate pair) at index */
+  private static int escapedCharLength(CharSequence string, int index, char previous) {
+    final char c = string.charAt(index);
+    if (c >= ' ' && c < 0x80 && c != '"' && c != '\\' && c != '/') {
+      return 1;
+    } else if (c == '"' || c == '\\') {
+      return 2;
+    } else if (c == '/') {
+      return previous == '<' ? 2 : 1;
+    } else if (c == '\b' || c == '\t' || c == '\n' || c == '\f' || c == '\r') {
+      return 2;
+    } else if (c < ' ' || (c >= 0x80 && c < 0xa0) || (c >= 0x2000 && c < 0x2100)) {
+      return 6;
+    } else if (c < 0x800) {
+      return 2;
+    } else if (!Character.isSurrogate(c)) {
+      return 3;
+    }
+    // A surrogate pair is one four byte sequence, and an unpaired surrogate is written as '?'.
+    return charCount(string, index) == 2 ? 4 : 1;
+  }
+
+  /** @return 2 if the chars at index and index + 1 form a surrogate pair, otherwise 1 */
+  private static int charCount(CharSequence string, int index) {
+    return Character.isHighSurrogate(string.charAt(index))
+            && index + 1 < string.length()
+            && Character.isLowSurrogate(string.charAt(index + 1))
+        ? 2
+        : 1;
+  }
+
+  /**
+   * @return a buffer holding the message's JSON as UTF-8, from its position to its limit. The
+   *     buffer is reused by the next call to this method.
+   */
+  public ByteBuffer encode(ClientMessage message) {
+    this.length = 0;
+    message.encode(this);
+    this.buffer.clear();
+    this.buffer.limit(this.length);
+    return this.buffer;
+  }
+
+  /** Writes JSON that has already been formatted, such as a message from getFormattedMessage. */
+  public void writeFormatted(String json) {
+    this.ensureCapacity(json.length() * 3);
+    for (int i = 0; i < json.length(); i++) {
+      i = this.writeChar(json, i);
+    }
+  }
+
+  void writeMessage(ClientMessageType type, String value, JSONObject detail) {
+    this.ensureCapacity(2);
+    this.bytes[this.length++] = '{';
+    if (detail.length() > 0) {
+      this.writeAscii(DETAIL_KEY);
+      this.writeDetail(detail);
+      this.ensureCapacity(1);
+      this.bytes[this.length++] = ',';
+    }
+    this.writeAscii(TYPE_KEY);
+    final String typeName = type.name();
+    this.ensureCapacity(typeName.length() + 1);
+    for (int i = 0; i < typeName.length(); i++) {
+      this.bytes[this.length++] = (byte) typeName.charAt(i);
+    }
+    this.bytes[this.length++] = '"';
+    if (value != null) {
+      this.writeAscii(VALUE_KEY);
+      this.writeQuoted(value);
+    }
+    this.ensureCapacity(1);
+    this.bytes[this.length++] = '}';
+  }
+
+  /**
+   * Writes the detail object in the order org.json iterates its keys. Details of anything other
+   * than Strings are rare, so those are left to org.json.
+   */
+  private void writeDetail(JSONObject detail) {
+    for (String key : detail.keySet()) {
+      if (!(detail.opt(key) instanceof String)) {
+        this.writeFormatted(detail.toString());
+        return;
+      }
+    }
+
+    this.ensureCapacity(1);
+    this.bytes[this.length++] = '{';
+    boolean isFirst = true;
+    for (String key : detail.keySet()) {
+      if (!isFirst) {
+        this.ensureCapacity(1);
+        this.bytes[this.length++] = ',';
+      }
+      isFirst = false;
+      this.writeQuoted(key);
+      this.ensureCapacity(1);
+      this.bytes[this.length++] = ':';
+      this.writeQuoted((String) detail.opt(key));
+    }
+    this.ensureCapacity(1);
+    this.bytes[this.length++] = '}';
+  }
+
+  /** Writes a JSON string, escaping exactly the characters JSONObject.quote escapes. */
+  private void writeQuoted(String string) {
+    this.ensureCapacity(1);
+    this.bytes[this.length++] = '"';
+    char previous = 0;
+    for (int i = 0; i < string.length(); i++) {
+      this.ensureCapacity(MAX_BYTES_PER_CHAR);
+      final char c = string.charAt(i);
+      if (c >= ' ' && c < 0x80 && c != '"' && c != '\\' && c != '/') {
+        this.bytes[this.length++] = (byte) c;
+      } else if (c == '"' || c == '\\') {
+        this.bytes[this.length++] = '\\';
+        this.bytes[this.length++] = (byte) c;
+      } else if (c == '/') {
+        // Escaped after '<' so that "</script>" cannot appear in the output.
+        if (previous == '<') {
+          this.bytes[this.length++] = '\\';
+        }
+        this.bytes[this.length++] = '/';
+      } else if (c == '\b') {
+        this.writeEscape('b');
+      } else if (c == '\t') {
+        this.writeEscape('t');
+      } else if (c == '\n') {
+        this.writeEscape('n');
+      } else if (c == '\f') {
+        this.writeEscape('f');
+      } else if (c == '\r') {
+        this.writeEscape('r');
+      } else if (c < ' ' || (c >= 0x80 && c < 0xa0) || (c >= 0x2000 && c < 0x2100)) {
+        this.bytes[this.length++] = '\\';
+        this.bytes[this.length++] = 'u';
+        this.bytes[this.length++] = HEX_DIGITS[(c >> 12) & 0xf];
+        this.bytes[this.length++] = HEX_DIGITS[(c >> 8) & 0xf];
+        this.bytes[this.length++] = HEX_DIGITS[(c >> 4) & 0xf];
+        this.bytes[this.length++] = HEX_DIGITS[c & 0xf];
+      } else {
+        i = this.writeChar(string, i);
+      }
+      previous = string.charAt(i);
+    }
+    this.ensureCapacity(1);
+    this.bytes[this.length++] = '"';
+  }
+
+  private void writeEscape(char escaped) {
+    this.bytes[this.length++] = '\\';
+    this.bytes[this.length++] = (byte) escaped;
+  }
+
+  /**
+   * Writes the char at the given index as UTF-8, as String.getBytes would: a surrogate pair is
+   * written as one four byte sequence, and an unpaired surrogate as '?'. The caller must have
+   * ensured capacity for at least four bytes.
+   *
+   * @return the index of the last char written
+   */
+  private int writeChar(String string, int index) {
+    final char c = string.charAt(index);
+    if (c < 0x80) {
+      this.bytes[this.length++] = (byte) c;
+    } else if (c < 0x800) {
+      this.bytes[this.length++] = (byte) (0xc0 | (c >> 6));
+      this.bytes[this.length++] = (byte) (0x80 | (c & 0x3f));
+    } else if (!Character.isSurrogate(c)) {
+      this.bytes[this.length++] = (byte) (0xe0 | (c >> 12));
+      this.bytes[this.length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+      this.bytes[this.length++] = (byte) (0x80 | (c & 0x3f));
+    } else if (Character.isHighSurrogate(c)
+        && index + 1 < string.length()
+        && Character.isLowSurrogate(string.charAt(index + 1))) {
+      final int codePoint = Character.toCodePoint(c, string.charAt(++index));
+      this.bytes[this.length++] = (byte) (0xf0 | (codePoint >> 18));
+      this.bytes[this.length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+      this.bytes[this.length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+      this.bytes[this.length++] = (byte) (0x80 | (codePoint & 0x3f));
+    } else {
+      this.bytes[this.length++] = '?';
+    }
+    return index;
+  }
+
+  private void writeAscii(byte[] ascii) {
+    this.ensureCapacity(ascii.length);
+    System.arraycopy(ascii, 0, this.bytes, this.length, ascii.length);
+    this.length += ascii.length;
+  }
+
+  private void ensureCapacity(int additionalBytes) {
+    if (this.length + additionalBytes <= this.bytes.length) {
+      return;
+    }
+    int newCapacity = this.bytes.length * 2;
+    while (newCapacity < this.length + additionalBytes) {
+      newCapacity *= 2;
+    }
+    final byte[] grown = new byte[newCapacity];
+    System.arraycopy(this.bytes, 0, grown, 0, this.length);
+    this.bytes = grown;
+    this.buffer = ByteBuffer.wrap(this.bytes);
+  }
+}
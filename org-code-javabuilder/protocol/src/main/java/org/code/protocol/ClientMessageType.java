@@ -8,6 +8,11 @@ public enum ClientMessageType {
   EXCEPTION,
   /** A neighborhood signal that directs the client-side Neighborhood program to take an action. */
   NEIGHBORHOOD,
+  /**
+   * A frame of neighborhood signals in the compact event format, sent instead of individual
+   * NEIGHBORHOOD messages when the client asks for it.
+   */
+  NEIGHBORHOOD_EVENTS,
   /** A theater signal that directs the client-side Theater program to take an action. */
   THEATER,
   /** A message directed to the client in local development mode */
@@ -47,5 +47,6 @@ public class GlobalProtocol extends JavabuilderSharedObject {
     for (MessageHandler handler : this.messageHandlers) {
       handler.exit();
     }
+    this.inputHandler.publishMetrics();
   }
 }
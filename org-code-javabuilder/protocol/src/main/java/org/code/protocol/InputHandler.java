@@ -1,9 +1,12 @@
 package org.code.protocol;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -11,43 +14,148 @@ import org.json.JSONObject;
  * Handles retrieving various types of JSON messages from the client. Expects JSON in the format:
  *
  * <p>{ "messageType": "<message type>", "message": "<message contents>" }
+ *
+ * <p>Each message is parsed once and routed to a queue for its type. Consumers of different types
+ * (for example System.in and the Theater prompter) may wait for messages on different threads: one
+ * of them reads from the InputAdapter at a time, and the others wait until a message arrives for
+ * their type or the reader finishes, in which case one of them takes over reading.
  */
 public class InputHandler {
   private static final String MESSAGE_TYPE_KEY = "messageType";
   private static final String MESSAGE_KEY = "message";
 
   private final Map<InputMessageType, Queue<String>> inputQueues;
+  private final Map<InputMessageType, AtomicInteger> queueDepths;
   private final InputAdapter inputAdapter;
+  private final AtomicInteger maxQueueDepth;
+  private final AtomicLong totalWaitNanos;
+  private final AtomicInteger messagesRequested;
+  // Guarded by this
+  private boolean isReading;
 
   public InputHandler(InputAdapter inputAdapter) {
     this.inputAdapter = inputAdapter;
-    this.inputQueues = new HashMap<>();
+    this.inputQueues = new EnumMap<>(InputMessageType.class);
+    this.queueDepths = new EnumMap<>(InputMessageType.class);
+    for (InputMessageType type : InputMessageType.values()) {
+      this.inputQueues.put(type, new ConcurrentLinkedQueue<>());
+      this.queueDepths.put(type, new AtomicInteger());
+    }
+    this.maxQueueDepth = new AtomicInteger();
+    this.totalWaitNanos = new AtomicLong();
+    this.messagesRequested = new AtomicInteger();
+    this.isReading = false;
   }
 
+  /**
+   * Returns the next message of the given type, waiting for one to arrive if none has yet. This is
+   * a blocking call.
+   */
   public String getNextMessageForType(InputMessageType type) {
-    if (!inputQueues.containsKey(type) || inputQueues.get(type).peek() == null) {
-      InputMessageType nextMessageType = null;
-      while (nextMessageType != type) {
-        final String nextMessageData = this.inputAdapter.getNextMessage();
-        String message;
-
-        try {
-          final JSONObject jsonMessage = new JSONObject(nextMessageData);
-          nextMessageType = InputMessageType.valueOf(jsonMessage.getString(MESSAGE_TYPE_KEY));
-          message = jsonMessage.getString(MESSAGE_KEY);
-        } catch (JSONException | IllegalArgumentException e) {
-          throw new InternalServerRuntimeException(
-              InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION, e);
-        }
+    this.messagesRequested.incrementAndGet();
+    String message = this.pollQueue(type);
+    if (message != null) {
+      return message;
+    }
 
-        if (!inputQueues.containsKey(nextMessageType)) {
-          inputQueues.put(nextMessageType, new LinkedList<>());
+    // Whoever answers should see everything the program has output before asking.
+    JavabuilderContext.getInstance().flushOutput();
+    final long waitStart = System.nanoTime();
+    try {
+      while (message == null) {
+        if (this.tryStartReading()) {
+          try {
+            message = this.readMessageForType(type);
+          } finally {
+            this.stopReading();
+          }
+        } else {
+          this.awaitMessageOrReader(type);
+          message = this.pollQueue(type);
         }
-
-        inputQueues.get(nextMessageType).add(message);
       }
+      return message;
+    } finally {
+      this.totalWaitNanos.addAndGet(System.nanoTime() - waitStart);
+    }
+  }
+
+  /**
+   * Publishes how long consumers waited for input and the most messages that were waiting to be
+   * read for one type. Does nothing if no input was requested.
+   */
+  public void publishMetrics() {
+    if (this.messagesRequested.get() == 0) {
+      return;
+    }
+    final MetricClient metricClient =
+        (MetricClient) JavabuilderContext.getInstance().get(MetricClient.class);
+    metricClient.publishInputWaitTime(TimeUnit.NANOSECONDS.toMillis(this.totalWaitNanos.get()));
+    metricClient.publishInputQueueDepth(this.maxQueueDepth.get());
+  }
+
+  /**
+   * Reads one message from the InputAdapter while this thread is the reader.
+   *
+   * @return the message if it is of the given type, or null if it was queued for another type
+   */
+  private String readMessageForType(InputMessageType type) {
+    // Another reader may have queued a message of this type since this thread last checked.
+    final String queued = this.pollQueue(type);
+    if (queued != null) {
+      return queued;
+    }
+
+    final String nextMessageData = this.inputAdapter.getNextMessage();
+    final InputMessageType nextMessageType;
+    final String message;
+    try {
+      final JSONObject jsonMessage = new JSONObject(nextMessageData);
+      nextMessageType = InputMessageType.valueOf(jsonMessage.getString(MESSAGE_TYPE_KEY));
+      message = jsonMessage.getString(MESSAGE_KEY);
+    } catch (JSONException | IllegalArgumentException e) {
+      throw new InternalServerRuntimeException(InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION, e);
     }
 
-    return inputQueues.get(type).remove();
+    if (nextMessageType == type) {
+      return message;
+    }
+    this.inputQueues.get(nextMessageType).add(message);
+    final int depth = this.queueDepths.get(nextMessageType).incrementAndGet();
+    this.maxQueueDepth.accumulateAndGet(depth, Math::max);
+    return null;
+  }
+
+  private String pollQueue(InputMessageType type) {
+    final String message = this.inputQueues.get(type).poll();
+    if (message != null) {
+      this.queueDepths.get(type).decrementAndGet();
+    }
+    return message;
+  }
+
+  private synchronized boolean tryStartReading() {
+    if (this.isReading) {
+      return false;
+    }
+    this.isReading = true;
+    return true;
+  }
+
+  /** Wakes up waiting consumers, either to take a message that was queued or to take over. */
+  private synchronized void stopReading() {
+    this.isReading = false;
+    this.notifyAll();
+  }
+
+  private synchronized void awaitMessageOrReader(InputMessageType type) {
+    while (this.isReading && this.inputQueues.get(type).isEmpty()) {
+      try {
+        this.wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InternalServerRuntimeException(InternalExceptionKey.CONNECTION_TERMINATED, e);
+      }
+    }
   }
 }
@@ -0,0 +1,112 @@
+package org.code.protocol;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Decoded instrument samples, kept for the life of the container so that each sample file is read
+ * and decoded at most once, rather than for every note played. Samples are converted to the format
+ * Theater writes audio in (44.1kHz, 16-bit, mono) and stored as 16-bit PCM values, a quarter of the
+ * size of the normalized doubles they are mixed as.
+ *
+ * <p>Samples are decoded the first time they are asked for, or all at once by {@link #preloadAll}.
+ */
+public class InstrumentSampleCache {
+  private static final String INSTRUMENT_FOLDER_NAME = "instruments";
+  // Instruments and notes with sample files. Both piano and bass have notes 48 - 84 (C3 - C6).
+  private static final List<String> INSTRUMENT_NAMES = List.of("piano", "bass");
+  public static final int MIN_NOTE = 48;
+  public static final int MAX_NOTE = 84;
+
+  private static final AudioFormat SAMPLE_FORMAT = new AudioFormat(44100, 16, 1, true, false);
+
+  private final Map<String, short[]> samples;
+  private final AtomicLong hitCount;
+  private final AtomicLong missCount;
+  private final AtomicLong memoryBytes;
+
+  public InstrumentSampleCache() {
+    this.samples = new ConcurrentHashMap<>();
+    this.hitCount = new AtomicLong();
+    this.missCount = new AtomicLong();
+    this.memoryBytes = new AtomicLong();
+  }
+
+  /** @return the name of the resource holding the sample for the given instrument and note */
+  public static String getResourceName(String instrumentName, int note) {
+    return INSTRUMENT_FOLDER_NAME + "/javalab-" + instrumentName + "-" + note + ".wav";
+  }
+
+  /**
+   * @param resourceName the name of a sample resource, such as instruments/javalab-piano-60.wav
+   * @return the samples in the resource as 16-bit PCM values, or null if there is no such resource.
+   *     The array is shared, so it must not be modified.
+   */
+  public short[] getSamples(String resourceName) {
+    final short[] cachedSamples = this.samples.get(resourceName);
+    if (cachedSamples != null) {
+      this.hitCount.incrementAndGet();
+      return cachedSamples;
+    }
+    this.missCount.incrementAndGet();
+    return this.samples.computeIfAbsent(resourceName, this::decodeSamples);
+  }
+
+  /** Decodes every instrument sample that has not been decoded yet. */
+  public void preloadAll() {
+    for (String instrumentName : INSTRUMENT_NAMES) {
+      for (int note = MIN_NOTE; note <= MAX_NOTE; note++) {
+        this.samples.computeIfAbsent(getResourceName(instrumentName, note), this::decodeSamples);
+      }
+    }
+  }
+
+  public long getHitCount() {
+    return this.hitCount.get();
+  }
+
+  public long getMissCount() {
+    return this.missCount.get();
+  }
+
+  /** @return the number of bytes used by decoded samples */
+  public long getMemoryBytes() {
+    return this.memoryBytes.get();
+  }
+
+  private short[] decodeSamples(String resourceName) {
+    final InputStream resourceStream =
+        InstrumentSampleCache.class.getClassLoader().getResourceAsStream(resourceName);
+    if (resourceStream == null) {
+      // Not cached, so a missing sample is looked for again next time.
+      return null;
+    }
+
+    final byte[] bytes;
+    try (AudioInputStream sampleStream =
+        AudioSystem.getAudioInputStream(
+            SAMPLE_FORMAT,
+            AudioSystem.getAudioInputStream(new BufferedInputStream(resourceStream)))) {
+      bytes = sampleStream.readAllBytes();
+    } catch (IOException | UnsupportedAudioFileException | IllegalArgumentException e) {
+      // Sample files are part of Javabuilder, so one that cannot be decoded is our error.
+      throw new InternalServerRuntimeException(InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION, e);
+    }
+
+    final short[] decodedSamples = new short[bytes.length / 2];
+    for (int i = 0; i < decodedSamples.length; i++) {
+      decodedSamples[i] = (short) (((bytes[2 * i + 1] & 0xFF) << 8) | (bytes[2 * i] & 0xFF));
+    }
+    this.memoryBytes.addAndGet(2L * decodedSamples.length);
+    return decodedSamples;
+  }
+}
@@ -33,6 +33,13 @@ public class JavabuilderContext {
     }
   }
 
+  // Called when the user's program finishes or waits for input.
+  public void flushOutput() {
+    for (JavabuilderSharedObject sharedObject : sharedObjects.values()) {
+      sharedObject.flushOutput();
+    }
+  }
+
   public void destroyAndReset() {
     for (JavabuilderSharedObject sharedObject : sharedObjects.values()) {
       sharedObject.destroy();
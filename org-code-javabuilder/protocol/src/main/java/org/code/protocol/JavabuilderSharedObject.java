@@ -4,6 +4,10 @@ public abstract class JavabuilderSharedObject {
   // Do any end of code execution clean up. By default this is a no-op.
   public void onExecutionEnded() {}
 
+  // Send any output this object is holding back, so that it reaches the client before whatever the
+  // user's program does next. By default this is a no-op.
+  public void flushOutput() {}
+
   // Destroy this object. By default this is a no-op.
   public void destroy() {}
 }
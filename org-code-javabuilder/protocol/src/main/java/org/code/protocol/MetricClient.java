@@ -11,4 +11,10 @@ public interface MetricClient {
   void publishTransitionTime(long transitionTime);
 
   void publishCleanupTime(long cleanupTime);
+
+  void publishInputLatency(long inputLatency);
+
+  void publishInputWaitTime(long inputWaitTime);
+
+  void publishInputQueueDepth(long inputQueueDepth);
 }
@@ -3,4 +3,10 @@ package org.code.protocol;
 public interface OutputAdapter {
   /** @param message An output from the user program */
   void sendMessage(ClientMessage message);
+
+  /**
+   * Blocks until every message previously passed to {@link #sendMessage(ClientMessage)} has been
+   * delivered. Adapters that send synchronously have nothing to do here, which is the default.
+   */
+  default void flush() {}
 }
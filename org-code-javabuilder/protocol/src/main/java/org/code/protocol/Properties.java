@@ -5,6 +5,10 @@ public class Properties {
   private static String connectionId = "localhost";
   /** If Javabuilder can access assets from the Dashboard service that invoked it */
   private static boolean CAN_ACCESS_DASHBOARD_ASSETS = true;
+  /** If the client decodes neighborhood signals sent in the compact event format */
+  private static boolean USE_COMPACT_NEIGHBORHOOD_EVENTS = false;
+  /** If neighborhood signals are held until the user's program ends, rather than streamed */
+  private static boolean RUN_NEIGHBORHOOD_HEADLESS = false;
 
   public static void setConnectionId(String connectionId) {
     Properties.connectionId = connectionId;
@@ -21,4 +25,20 @@ public class Properties {
   public static boolean canAccessDashboardAssets() {
     return Properties.CAN_ACCESS_DASHBOARD_ASSETS;
   }
+
+  public static void setUseCompactNeighborhoodEvents(boolean useCompactNeighborhoodEvents) {
+    Properties.USE_COMPACT_NEIGHBORHOOD_EVENTS = useCompactNeighborhoodEvents;
+  }
+
+  public static boolean useCompactNeighborhoodEvents() {
+    return Properties.USE_COMPACT_NEIGHBORHOOD_EVENTS;
+  }
+
+  public static void setRunNeighborhoodHeadless(boolean runNeighborhoodHeadless) {
+    Properties.RUN_NEIGHBORHOOD_HEADLESS = runNeighborhoodHeadless;
+  }
+
+  public static boolean runNeighborhoodHeadless() {
+    return Properties.RUN_NEIGHBORHOOD_HEADLESS;
+  }
 }
@@ -0,0 +1,146 @@
+package org.code.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ClientMessageEncoderTest {
+  private ClientMessageEncoder unitUnderTest;
+
+  @BeforeEach
+  public void setUp() {
+    unitUnderTest = new ClientMessageEncoder();
+  }
+
+  @Test
+  public void testEncodesMessageWithoutDetail() {
+    final ClientMessage message = new TestMessage("Hello world", new JSONObject());
+    assertMatchesJsonObject(message);
+    assertEquals("{\"type\":\"SYSTEM_OUT\",\"value\":\"Hello world\"}", encodeToString(message));
+  }
+
+  @Test
+  public void testEncodesMessageWithDetail() {
+    final HashMap<String, String> detail = new HashMap<>();
+    detail.put(ClientMessageDetailKeys.PROGRESS_TIME, "12");
+    detail.put(ClientMessageDetailKeys.TOTAL_TIME, "30");
+    detail.put("quote\"key", "line\nbreak");
+    assertMatchesJsonObject(new StatusMessage(StatusMessageKey.GENERATING_PROGRESS, detail));
+  }
+
+  @Test
+  public void testLeavesDetailsOtherThanStringsToJsonObject() {
+    final JSONObject detail = new JSONObject();
+    detail.put("x", 3);
+    detail.put("nested", new JSONObject().put("y", true));
+    detail.put("name", "painter");
+    assertMatchesJsonObject(new TestMessage("MOVE", detail));
+  }
+
+  @Test
+  public void testSkipsNullValue() {
+    assertMatchesJsonObject(new TestMessage(null, new JSONObject()));
+  }
+
+  @Test
+  public void testEscapesEveryCharacterLikeJsonObject() {
+    final StringBuilder value = new StringBuilder();
+    for (char c = 0; c < Character.MIN_SURROGATE; c++) {
+      value.append(c);
+    }
+    for (char c = Character.MAX_SURROGATE + 1; c != 0; c++) {
+      value.append(c);
+    }
+    assertMatchesJsonObject(new TestMessage(value.toString(), new JSONObject()));
+  }
+
+  @Test
+  public void testEscapesSlashOnlyAfterLessThan() {
+    final ClientMessage message = new TestMessage("</script> a/b", new JSONObject());
+    assertMatchesJsonObject(message);
+    assertEquals(
+        "{\"type\":\"SYSTEM_OUT\",\"value\":\"<\\/script> a/b\"}", encodeToString(message));
+  }
+
+  @Test
+  public void testEncodesSurrogatesLikeGetBytes() {
+    // An emoji, then unpaired low and high surrogates
+    assertMatchesJsonObject(new TestMessage("\ud83d\ude00 \ude00 \ud83d", new JSONObject()));
+  }
+
+  @Test
+  public void testReusesBufferAcrossMessagesOfDifferentSizes() {
+    final String longValue = "a".repeat(5000);
+    assertMatchesJsonObject(new TestMessage(longValue, new JSONObject()));
+    assertMatchesJsonObject(new TestMessage("short", new JSONObject()));
+  }
+
+  @Test
+  public void testGetFormattedMessageMatchesEncodedMessage() {
+    final ClientMessage message = new TestMessage("caf\u00e9 \"quoted\"\t", new JSONObject());
+    assertEquals(formatWithJsonObject(message), message.getFormattedMessage());
+  }
+
+  @Test
+  public void testEscapedLengthMatchesEncodedLength() {
+    final StringBuilder builder =
+        new StringBuilder("</script> \"quoted\" \\ caf\u00e9 \u2028 \u0001\n");
+    builder.append("\ud83d\ude00 \ude00 \ud83d");
+    for (char c = 0; c < 0x2100; c++) {
+      builder.append(c);
+    }
+    final String value = builder.toString();
+    final int quotesAndWrapper =
+        encodeToString(new TestMessage("", new JSONObject()))
+            .getBytes(StandardCharsets.UTF_8)
+            .length;
+
+    assertEquals(
+        unitUnderTest.encode(new TestMessage(value, new JSONObject())).remaining(),
+        quotesAndWrapper + ClientMessageEncoder.escapedLength(value, 0, value.length(), (char) 0));
+  }
+
+  @Test
+  public void testFitEscapedStopsBeforeOverflowAndKeepsSurrogatePairs() {
+    // Each quote takes two bytes, and the emoji takes four.
+    final String value = "\"\"\ud83d\ude00";
+    assertEquals(1, ClientMessageEncoder.fitEscaped(value, 0, 3, (char) 0));
+    assertEquals(2, ClientMessageEncoder.fitEscaped(value, 0, 7, (char) 0));
+    assertEquals(4, ClientMessageEncoder.fitEscaped(value, 0, 8, (char) 0));
+    // A '/' right after a '<' from the previous chunk is escaped.
+    assertEquals(0, ClientMessageEncoder.fitEscaped("/", 0, 1, '<'));
+  }
+
+  /** Messages are sent as UTF-8 bytes, so those are what must match. */
+  private void assertMatchesJsonObject(ClientMessage message) {
+    final String expected = formatWithJsonObject(message);
+    final ByteBuffer expectedBytes = ByteBuffer.wrap(expected.getBytes(StandardCharsets.UTF_8));
+    assertEquals(expectedBytes, unitUnderTest.encode(message));
+  }
+
+  private String encodeToString(ClientMessage message) {
+    return StandardCharsets.UTF_8.decode(unitUnderTest.encode(message)).toString();
+  }
+
+  /** How messages were formatted before the encoder, with org.json. */
+  private String formatWithJsonObject(ClientMessage message) {
+    final JSONObject formattedMessage = new JSONObject();
+    formattedMessage.put("type", message.getType());
+    formattedMessage.put("value", message.getValue());
+    if (message.getDetail().length() > 0) {
+      formattedMessage.put("detail", message.getDetail());
+    }
+    return formattedMessage.toString();
+  }
+
+  private static class TestMessage extends ClientMessage {
+    private TestMessage(String value, JSONObject detail) {
+      super(ClientMessageType.SYSTEM_OUT, value, detail);
+    }
+  }
+}
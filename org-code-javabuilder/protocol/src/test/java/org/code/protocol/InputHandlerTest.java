@@ -1,10 +1,15 @@
 package org.code.protocol;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -86,7 +91,66 @@ class InputHandlerTest {
     assertEquals(InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION.name(), e.getMessage());
   }
 
+  @Test
+  public void testConsumersOfDifferentTypesWaitIndependently() throws Exception {
+    final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+    unitUnderTest = new InputHandler(() -> takeMessage(messages));
+
+    // Both consumers are waiting before any message arrives, one of them on the InputAdapter.
+    final CompletableFuture<String> theater =
+        CompletableFuture.supplyAsync(
+            () -> unitUnderTest.getNextMessageForType(InputMessageType.THEATER));
+    final CompletableFuture<String> systemIn =
+        CompletableFuture.supplyAsync(
+            () -> unitUnderTest.getNextMessageForType(InputMessageType.SYSTEM_IN));
+
+    messages.add(createJsonMessage(InputMessageType.SYSTEM_IN.name(), "system in"));
+    assertEquals("system in", systemIn.get(1, TimeUnit.SECONDS));
+    assertFalse(theater.isDone());
+
+    messages.add(createJsonMessage(InputMessageType.THEATER.name(), "theater"));
+    assertEquals("theater", theater.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testPublishesWaitTimeAndQueueDepth() {
+    final SharedMetricClient metricClient = mock(SharedMetricClient.class);
+    JavabuilderContext.getInstance().register(MetricClient.class, metricClient);
+    when(inputAdapter.getNextMessage())
+        .thenReturn(createJsonMessage(InputMessageType.SYSTEM_IN.name(), "1"))
+        .thenReturn(createJsonMessage(InputMessageType.SYSTEM_IN.name(), "2"))
+        .thenReturn(createJsonMessage(InputMessageType.THEATER.name(), "theater"));
+
+    unitUnderTest.getNextMessageForType(InputMessageType.THEATER);
+    unitUnderTest.publishMetrics();
+
+    verify(metricClient).publishInputWaitTime(anyLong());
+    verify(metricClient).publishInputQueueDepth(2);
+  }
+
+  @Test
+  public void testDoesNotPublishMetricsIfNoInputWasRequested() {
+    final SharedMetricClient metricClient = mock(SharedMetricClient.class);
+    JavabuilderContext.getInstance().register(MetricClient.class, metricClient);
+
+    unitUnderTest.publishMetrics();
+
+    verifyNoInteractions(metricClient);
+  }
+
+  private String takeMessage(BlockingQueue<String> messages) {
+    try {
+      return messages.take();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   private String createJsonMessage(String messageType, String message) {
     return new JSONObject(Map.of("messageType", messageType, "message", message)).toString();
   }
+
+  /** MetricClient implementations are shared objects, registered in the JavabuilderContext. */
+  private abstract static class SharedMetricClient extends JavabuilderSharedObject
+      implements MetricClient {}
 }
@@ -0,0 +1,52 @@
+package org.code.protocol;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InstrumentSampleCacheTest {
+  // A stereo sample, with the same values in both channels
+  private static final String TEST_SAMPLE = InstrumentSampleCache.getResourceName("test", 60);
+
+  private InstrumentSampleCache unitUnderTest;
+
+  @BeforeEach
+  public void setUp() {
+    unitUnderTest = new InstrumentSampleCache();
+  }
+
+  @Test
+  public void testGetResourceName() {
+    assertEquals(
+        "instruments/javalab-piano-48.wav", InstrumentSampleCache.getResourceName("piano", 48));
+  }
+
+  @Test
+  public void testGetSamplesDecodesToMonoPcm() {
+    assertArrayEquals(new short[] {1000, -2000, 16384, 0}, unitUnderTest.getSamples(TEST_SAMPLE));
+    assertEquals(8, unitUnderTest.getMemoryBytes());
+  }
+
+  @Test
+  public void testGetSamplesDecodesEachSampleOnce() {
+    final short[] samples = unitUnderTest.getSamples(TEST_SAMPLE);
+    assertSame(samples, unitUnderTest.getSamples(TEST_SAMPLE));
+    assertSame(samples, unitUnderTest.getSamples(TEST_SAMPLE));
+
+    assertEquals(1, unitUnderTest.getMissCount());
+    assertEquals(2, unitUnderTest.getHitCount());
+    assertEquals(8, unitUnderTest.getMemoryBytes());
+  }
+
+  @Test
+  public void testGetSamplesReturnsNullForMissingResource() {
+    final String missingSample = InstrumentSampleCache.getResourceName("test", 12);
+    assertNull(unitUnderTest.getSamples(missingSample));
+    assertNull(unitUnderTest.getSamples(missingSample));
+
+    assertEquals(2, unitUnderTest.getMissCount());
+    assertEquals(0, unitUnderTest.getHitCount());
+    assertEquals(0, unitUnderTest.getMemoryBytes());
+  }
+}
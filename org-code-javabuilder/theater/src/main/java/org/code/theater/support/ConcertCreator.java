@@ -9,7 +9,6 @@ import static org.code.theater.support.DrawImageAction.UNSPECIFIED;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
-import java.io.FileNotFoundException;
 import java.util.HashMap;
 import java.util.List;
 import org.code.media.Color;
@@ -30,7 +29,6 @@ public class ConcertCreator implements AutoCloseable {
   private final GifWriter gifWriter;
   private final ByteArrayOutputStream imageOutputStream;
   private final GraphicsHelper graphicsHelper;
-  private final ByteArrayOutputStream audioOutputStream;
   private final AudioWriter audioWriter;
   private final InstrumentSampleLoader instrumentSampleLoader;
   private final TheaterProgressPublisher progressPublisher;
@@ -59,11 +57,10 @@ public class ConcertCreator implements AutoCloseable {
       OutputAdapter outputAdapter,
       ContentManager contentManager) {
     this.imageOutputStream = new ByteArrayOutputStream();
-    this.audioOutputStream = new ByteArrayOutputStream();
 
     this.image = image;
     this.gifWriter = gifWriterFactory.createGifWriter(this.imageOutputStream);
-    this.audioWriter = audioWriterFactory.createAudioWriter(this.audioOutputStream);
+    this.audioWriter = audioWriterFactory.createAudioWriter();
     this.graphicsHelper =
         graphicsHelperFactory.createGraphicsHelper(this.image.createGraphics(), new FontHelper());
     this.instrumentSampleLoader = instrumentSampleLoader;
@@ -197,16 +194,12 @@ public class ConcertCreator implements AutoCloseable {
   }
 
   private void playNote(Instrument instrument, int note, double noteLength) {
-    final String sampleFilePath = instrumentSampleLoader.getSampleFilePath(instrument, note);
-    if (sampleFilePath == null) {
+    final short[] samples = this.instrumentSampleLoader.getSamples(instrument, note);
+    if (samples == null) {
       return;
     }
 
-    try {
-      this.audioWriter.writeAudioFromLocalFile(sampleFilePath, noteLength);
-    } catch (FileNotFoundException e) {
-      System.out.printf("Could not play instrument: %s at note: %s%n", instrument, note);
-    }
+    this.audioWriter.writePcmAudioSamples(samples, noteLength);
   }
 
   private void pause(double seconds) {
@@ -218,9 +211,10 @@ public class ConcertCreator implements AutoCloseable {
   private void writeImageAndAudioToFile() {
     this.progressPublisher.onPlay(this.audioWriter.getTotalAudioLength());
     this.gifWriter.writeToGif(this.image, 0);
-    this.audioWriter.writeToAudioStream();
+    // The WAV file is handed to the content manager as is, without copying it into a stream.
+    final byte[] audioFile = this.audioWriter.writeToWavFile();
 
-    // We must call close() before write so that the streams are flushed.
+    // We must call close() before write so that the GIF stream is flushed.
     this.close();
 
     try {
@@ -228,8 +222,7 @@ public class ConcertCreator implements AutoCloseable {
           this.contentManager.writeToOutputFile(
               THEATER_IMAGE_NAME, this.imageOutputStream.toByteArray(), "image/gif");
       String audioUrl =
-          this.contentManager.writeToOutputFile(
-              THEATER_AUDIO_NAME, this.audioOutputStream.toByteArray(), "audio/wav");
+          this.contentManager.writeToOutputFile(THEATER_AUDIO_NAME, audioFile, "audio/wav");
 
       HashMap<String, String> imageMessage = new HashMap<>();
       imageMessage.put(URL, imageUrl);
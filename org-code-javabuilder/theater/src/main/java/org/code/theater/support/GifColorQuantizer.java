@@ -0,0 +1,242 @@
+package org.code.theater.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reduces the pixels of a GIF frame to a palette of at most 256 colors and the palette index of
+ * each pixel.
+ *
+ * <p>Frames drawn with Theater's shapes and text usually have only a few colors, which are kept
+ * exactly. A frame with more colors, such as one showing a photo, is reduced with an octree: every
+ * color is added to a tree with a level for each bit of red, green and blue, and the deepest
+ * branches are merged into the average of their colors until there are at most 256 leaves.
+ *
+ * <p>Pixels may also be {@link #TRANSPARENT}, which is given a palette index of its own and is
+ * never merged with a color.
+ *
+ * <p>Runs of the same color are common, so each step remembers the last color it saw. A quantizer
+ * may be reused for any number of frames, but not by multiple threads.
+ */
+final class GifColorQuantizer {
+  static final int MAX_COLORS = 256;
+  // A pixel that shows the frame below it. This is not an RGB color, so it never equals one.
+  static final int TRANSPARENT = 0x1000000;
+  // Twice the number of colors, so the table is at most half full
+  private static final int TABLE_SIZE = 512;
+  private static final int TABLE_MASK = TABLE_SIZE - 1;
+  private static final int EMPTY = -1;
+  private static final int OCTREE_DEPTH = 8;
+
+  // Open-addressing hash table from an exact color to its palette index
+  private final int[] tableColors;
+  private final int[] tableIndices;
+
+  GifColorQuantizer() {
+    this.tableColors = new int[TABLE_SIZE];
+    this.tableIndices = new int[TABLE_SIZE];
+  }
+
+  /**
+   * @param pixels the pixels of the frame, as RGB colors with no alpha, or {@link #TRANSPARENT}
+   * @param length the number of pixels
+   * @param indices filled with the palette index of each pixel
+   * @param palette filled with the RGB color, or TRANSPARENT, of each palette index, and must hold
+   *     {@link #MAX_COLORS} colors
+   * @return the number of colors in the palette
+   */
+  int quantize(int[] pixels, int length, byte[] indices, int[] palette) {
+    final int colorCount = this.mapExactColors(pixels, length, indices, palette);
+    if (colorCount != EMPTY) {
+      return colorCount;
+    }
+    return new Octree(pixels, length).map(pixels, length, indices, palette);
+  }
+
+  /** @return the number of colors, or EMPTY if there are more than {@link #MAX_COLORS} */
+  private int mapExactColors(int[] pixels, int length, byte[] indices, int[] palette) {
+    Arrays.fill(this.tableColors, EMPTY);
+    int colorCount = 0;
+    int lastColor = EMPTY;
+    byte lastIndex = 0;
+    for (int i = 0; i < length; i++) {
+      final int color = pixels[i];
+      if (color != lastColor) {
+        int slot = hash(color);
+        while (this.tableColors[slot] != EMPTY && this.tableColors[slot] != color) {
+          slot = (slot + 1) & TABLE_MASK;
+        }
+        if (this.tableColors[slot] == EMPTY) {
+          if (colorCount == MAX_COLORS) {
+            return EMPTY;
+          }
+          this.tableColors[slot] = color;
+          this.tableIndices[slot] = colorCount;
+          palette[colorCount] = color;
+          colorCount++;
+        }
+        lastColor = color;
+        lastIndex = (byte) this.tableIndices[slot];
+      }
+      indices[i] = lastIndex;
+    }
+    return colorCount;
+  }
+
+  private static int hash(int color) {
+    return (color * 0x9E3779B1 >>> 23) & TABLE_MASK;
+  }
+
+  /** The child of a node at the given depth, from 0 to 7, that the color belongs in. */
+  private static int getChildIndex(int color, int depth) {
+    final int shift = 7 - depth;
+    return ((color >>> (16 + shift)) & 1) << 2
+        | ((color >>> (8 + shift)) & 1) << 1
+        | ((color >>> shift) & 1);
+  }
+
+  private static final class Octree {
+    private final Node root;
+    // Nodes with children at each depth, which can be merged into leaves
+    private final List<List<Node>> reducibleNodes;
+    private final boolean hasTransparent;
+    private int leafCount;
+
+    Octree(int[] pixels, int length) {
+      this.root = new Node();
+      this.reducibleNodes = new ArrayList<>(OCTREE_DEPTH);
+      for (int depth = 0; depth < OCTREE_DEPTH; depth++) {
+        this.reducibleNodes.add(new ArrayList<>());
+      }
+      this.leafCount = 0;
+
+      boolean hasTransparent = false;
+      for (int i = 0; i < length && !hasTransparent; i++) {
+        hasTransparent = pixels[i] == TRANSPARENT;
+      }
+      this.hasTransparent = hasTransparent;
+      // Leave a palette index for transparent pixels.
+      final int maxLeaves = hasTransparent ? MAX_COLORS - 1 : MAX_COLORS;
+
+      int i = 0;
+      while (i < length) {
+        final int color = pixels[i];
+        int runEnd = i + 1;
+        while (runEnd < length && pixels[runEnd] == color) {
+          runEnd++;
+        }
+        if (color != TRANSPARENT) {
+          this.add(color, runEnd - i);
+          while (this.leafCount > maxLeaves) {
+            this.reduce();
+          }
+        }
+        i = runEnd;
+      }
+    }
+
+    int map(int[] pixels, int length, byte[] indices, int[] palette) {
+      int colorCount = this.root.assignPaletteIndices(palette, 0);
+      final int transparentIndex = colorCount;
+      if (this.hasTransparent) {
+        palette[transparentIndex] = TRANSPARENT;
+        colorCount++;
+      }
+      int lastColor = EMPTY;
+      byte lastIndex = 0;
+      for (int i = 0; i < length; i++) {
+        final int color = pixels[i];
+        if (color != lastColor) {
+          if (color == TRANSPARENT) {
+            lastIndex = (byte) transparentIndex;
+          } else {
+            Node node = this.root;
+            for (int depth = 0; !node.isLeaf; depth++) {
+              node = node.children[getChildIndex(color, depth)];
+            }
+            lastIndex = (byte) node.paletteIndex;
+          }
+          lastColor = color;
+        }
+        indices[i] = lastIndex;
+      }
+      return colorCount;
+    }
+
+    private void add(int color, int count) {
+      Node node = this.root;
+      for (int depth = 0; !node.isLeaf; depth++) {
+        final int childIndex = getChildIndex(color, depth);
+        if (node.children[childIndex] == null) {
+          if (node.childCount == 0) {
+            this.reducibleNodes.get(depth).add(node);
+          }
+          node.children[childIndex] = new Node();
+          node.childCount++;
+          if (depth == OCTREE_DEPTH - 1) {
+            node.children[childIndex].isLeaf = true;
+            this.leafCount++;
+          }
+        }
+        node = node.children[childIndex];
+      }
+      node.pixelCount += count;
+      node.redSum += (long) ((color >>> 16) & 0xFF) * count;
+      node.greenSum += (long) ((color >>> 8) & 0xFF) * count;
+      node.blueSum += (long) (color & 0xFF) * count;
+    }
+
+    /** Merges the children of the most recently added node at the greatest depth into it. */
+    private void reduce() {
+      int depth = OCTREE_DEPTH - 1;
+      while (this.reducibleNodes.get(depth).isEmpty()) {
+        depth--;
+      }
+      final List<Node> nodes = this.reducibleNodes.get(depth);
+      final Node node = nodes.remove(nodes.size() - 1);
+      for (int i = 0; i < node.children.length; i++) {
+        final Node child = node.children[i];
+        if (child != null) {
+          node.pixelCount += child.pixelCount;
+          node.redSum += child.redSum;
+          node.greenSum += child.greenSum;
+          node.blueSum += child.blueSum;
+          node.children[i] = null;
+        }
+      }
+      node.isLeaf = true;
+      this.leafCount -= node.childCount - 1;
+      node.childCount = 0;
+    }
+  }
+
+  private static final class Node {
+    private final Node[] children = new Node[8];
+    private int childCount;
+    private boolean isLeaf;
+    private int pixelCount;
+    private long redSum;
+    private long greenSum;
+    private long blueSum;
+    private int paletteIndex;
+
+    /** @return the next palette index after those given to the leaves under this node */
+    int assignPaletteIndices(int[] palette, int nextIndex) {
+      if (this.isLeaf) {
+        this.paletteIndex = nextIndex;
+        palette[nextIndex] =
+            (int) (this.redSum / this.pixelCount) << 16
+                | (int) (this.greenSum / this.pixelCount) << 8
+                | (int) (this.blueSum / this.pixelCount);
+        return nextIndex + 1;
+      }
+      for (Node child : this.children) {
+        if (child != null) {
+          nextIndex = child.assignPaletteIndices(palette, nextIndex);
+        }
+      }
+      return nextIndex;
+    }
+  }
+}
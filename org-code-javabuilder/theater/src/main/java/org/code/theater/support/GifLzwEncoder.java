@@ -0,0 +1,130 @@
+package org.code.theater.support;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Compresses the color indices of a GIF frame with the variable-length LZW coding GIF uses, and
+ * writes them as the frame's image data: the minimum code size followed by data sub-blocks of at
+ * most 255 bytes each.
+ *
+ * <p>The string table is kept as an open-addressing hash table from (prefix code, next index) to
+ * code, so looking up and adding strings takes constant time and clearing the table after 4096
+ * codes is cheap. An encoder may be reused for any number of frames, but not by multiple threads.
+ */
+final class GifLzwEncoder {
+  private static final int MAX_CODE = 4095;
+  // Twice the number of codes, so the table is at most half full
+  private static final int TABLE_SIZE = 8192;
+  private static final int TABLE_MASK = TABLE_SIZE - 1;
+  private static final int EMPTY = -1;
+  private static final int MAX_SUB_BLOCK_LENGTH = 255;
+
+  // Keys are (prefix code << 8 | next index), and values the code for that string.
+  private final int[] tableKeys;
+  private final int[] tableCodes;
+  private final byte[] subBlock;
+  private ByteArrayOutputStream out;
+  private int subBlockLength;
+  private int bitBuffer;
+  private int bitCount;
+
+  GifLzwEncoder() {
+    this.tableKeys = new int[TABLE_SIZE];
+    this.tableCodes = new int[TABLE_SIZE];
+    this.subBlock = new byte[MAX_SUB_BLOCK_LENGTH];
+  }
+
+  /**
+   * Writes the image data of a frame.
+   *
+   * @param indices the color index of each pixel of the frame, in row order
+   * @param length the number of pixels, at least 1
+   * @param minCodeSize the number of bits in a color index, from 2 to 8
+   * @param out the stream to write to
+   */
+  void encode(byte[] indices, int length, int minCodeSize, ByteArrayOutputStream out) {
+    this.out = out;
+    this.subBlockLength = 0;
+    this.bitBuffer = 0;
+    this.bitCount = 0;
+    out.write(minCodeSize);
+
+    final int clearCode = 1 << minCodeSize;
+    final int endCode = clearCode + 1;
+    int codeSize = minCodeSize + 1;
+    int lastCode = endCode;
+    Arrays.fill(this.tableKeys, EMPTY);
+    this.writeCode(clearCode, codeSize);
+
+    int prefix = indices[0] & 0xFF;
+    for (int i = 1; i < length; i++) {
+      final int index = indices[i] & 0xFF;
+      final int key = (prefix << 8) | index;
+      int slot = hash(key);
+      while (this.tableKeys[slot] != EMPTY && this.tableKeys[slot] != key) {
+        slot = (slot + 1) & TABLE_MASK;
+      }
+      if (this.tableKeys[slot] == key) {
+        prefix = this.tableCodes[slot];
+        continue;
+      }
+
+      this.writeCode(prefix, codeSize);
+      lastCode++;
+      this.tableKeys[slot] = key;
+      this.tableCodes[slot] = lastCode;
+      if (lastCode >= (1 << codeSize)) {
+        // The decoder's next code no longer fits, so it reads one bit more from now on.
+        codeSize++;
+      }
+      if (lastCode == MAX_CODE) {
+        // The table is full. Start again, as a table of old strings compresses poorly.
+        this.writeCode(clearCode, codeSize);
+        Arrays.fill(this.tableKeys, EMPTY);
+        codeSize = minCodeSize + 1;
+        lastCode = endCode;
+      }
+      prefix = index;
+    }
+
+    this.writeCode(prefix, codeSize);
+    this.writeCode(endCode, codeSize);
+    if (this.bitCount > 0) {
+      this.writeByte(this.bitBuffer);
+    }
+    this.flushSubBlock();
+    // Block terminator
+    out.write(0);
+    this.out = null;
+  }
+
+  private static int hash(int key) {
+    return (key * 0x9E3779B1 >>> 19) & TABLE_MASK;
+  }
+
+  private void writeCode(int code, int codeSize) {
+    this.bitBuffer |= code << this.bitCount;
+    this.bitCount += codeSize;
+    while (this.bitCount >= 8) {
+      this.writeByte(this.bitBuffer);
+      this.bitBuffer >>>= 8;
+      this.bitCount -= 8;
+    }
+  }
+
+  private void writeByte(int b) {
+    this.subBlock[this.subBlockLength++] = (byte) b;
+    if (this.subBlockLength == MAX_SUB_BLOCK_LENGTH) {
+      this.flushSubBlock();
+    }
+  }
+
+  private void flushSubBlock() {
+    if (this.subBlockLength > 0) {
+      this.out.write(this.subBlockLength);
+      this.out.write(this.subBlock, 0, this.subBlockLength);
+      this.subBlockLength = 0;
+    }
+  }
+}
@@ -1,27 +1,70 @@
 package org.code.theater.support;
 
+import static org.code.theater.support.Constants.THEATER_HEIGHT;
+import static org.code.theater.support.Constants.THEATER_WIDTH;
+
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import javax.imageio.*;
-import javax.imageio.metadata.IIOInvalidTreeException;
-import javax.imageio.metadata.IIOMetadata;
-import javax.imageio.metadata.IIOMetadataNode;
-import javax.imageio.stream.ImageOutputStream;
 import org.code.protocol.InternalExceptionKey;
 import org.code.protocol.InternalServerRuntimeException;
 
 /**
  * Writer to generate a gif from a set of images. The gif will be stored in the given
  * ByteArrayOutputStream.
+ *
+ * <p>Frames are encoded directly rather than through ImageIO's GIF plugin: the header is written
+ * once, each frame's pixels are read straight from the image's int raster where possible, reduced
+ * to a palette by {@link GifColorQuantizer} and compressed by {@link GifLzwEncoder}. See the GIF89a
+ * specification: https://www.w3.org/Graphics/GIF/spec-gif89a.txt
+ *
+ * <p>Frames are kept on screen after they are shown, so each frame only covers the bounding box of
+ * the pixels that changed since the previous one, and pixels in the box that did not change may be
+ * transparent. A frame that is the same as the previous one is not written at all: its delay is
+ * added to the previous frame's. So the last frame written is held until the next different frame,
+ * or until the gif is closed.
  */
 public class GifWriter {
-  private ImageWriter writer;
-  private ImageWriteParam params;
-  private ImageOutputStream imageOutputStream;
   // 30 mb
   private static final int MAX_STREAM_LENGTH_BYTES = 31457280;
 
+  private static final byte[] HEADER = {'G', 'I', 'F', '8', '9', 'a'};
+  private static final int EXTENSION_INTRODUCER = 0x21;
+  private static final int GRAPHIC_CONTROL_LABEL = 0xF9;
+  private static final int GRAPHIC_CONTROL_BLOCK_SIZE = 4;
+  // Disposal method "do not dispose", in bits 2 - 4, so the next frame is drawn over this one
+  private static final int DO_NOT_DISPOSE = 1 << 2;
+  private static final int TRANSPARENT_COLOR_FLAG = 1;
+  private static final int IMAGE_SEPARATOR = 0x2C;
+  // The image descriptor's flag for a local color table, whose size goes in the lowest 3 bits
+  private static final int LOCAL_COLOR_TABLE_FLAG = 0x80;
+  private static final int TRAILER = 0x3B;
+  // Delays are in hundredths of a second, up to the largest 16-bit value
+  private static final int MAX_DELAY_MS = 0xFFFF * 10;
+  private static final int RGB_MASK = 0xFFFFFF;
+
+  private final ByteArrayOutputStream out;
+  private final GifColorQuantizer colorQuantizer;
+  private final GifLzwEncoder lzwEncoder;
+  private final int[] palette;
+  private byte[] indices;
+  private int[] pixelBuffer;
+  private int[] framePixels;
+  // The frame waiting to be written, which is changed from the previous frame within its bounds
+  private int[] pendingPixels;
+  private int pendingWidth;
+  private int pendingHeight;
+  private int pendingDelay;
+  private boolean hasPendingFrame;
+  private final Rectangle pendingBounds;
+  private boolean pendingHasPreviousFrame;
+  // The last frame written, as it is shown on screen
+  private int[] previousPixels;
+  private boolean isClosed;
+
   public static class Factory {
     public GifWriter createGifWriter(ByteArrayOutputStream out) {
       return new GifWriter(out);
@@ -29,17 +72,27 @@ public class GifWriter {
   }
 
   GifWriter(ByteArrayOutputStream out) {
-    try {
-      this.imageOutputStream = ImageIO.createImageOutputStream(out);
-      this.writer = ImageIO.getImageWritersBySuffix("gif").next();
-      this.params = writer.getDefaultWriteParam();
-      this.writer.setOutput(this.imageOutputStream);
-      IIOMetadata streamData = this.getMetadataForGif();
-      this.writer.prepareWriteSequence(streamData);
-    } catch (IOException e) {
-      throw new InternalServerRuntimeException(
-          InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION, e.getCause());
-    }
+    this.out = out;
+    this.colorQuantizer = new GifColorQuantizer();
+    this.lzwEncoder = new GifLzwEncoder();
+    this.palette = new int[GifColorQuantizer.MAX_COLORS];
+    this.indices = new byte[0];
+    this.pixelBuffer = new int[0];
+    this.framePixels = new int[0];
+    this.pendingPixels = new int[0];
+    this.previousPixels = new int[0];
+    this.pendingBounds = new Rectangle();
+    this.hasPendingFrame = false;
+    this.isClosed = false;
+
+    this.out.write(HEADER, 0, HEADER.length);
+    // Logical screen descriptor: 400x400 px, with no global color table as every frame has its own
+    this.writeShort(THEATER_WIDTH);
+    this.writeShort(THEATER_HEIGHT);
+    this.out.write(0);
+    // Background color index and pixel aspect ratio
+    this.out.write(0);
+    this.out.write(0);
   }
 
   /**
@@ -49,17 +102,49 @@ public class GifWriter {
    * @param delay delay in milliseconds after this frame of the gif.
    */
   public void writeToGif(BufferedImage img, int delay) {
-    try {
-      if (this.imageOutputStream.length() > MAX_STREAM_LENGTH_BYTES) {
-        throw new TheaterRuntimeException(ExceptionKeys.VIDEO_TOO_LARGE);
+    if (this.isClosed) {
+      throw new InternalServerRuntimeException(
+          InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION,
+          new IllegalStateException("The gif has already been closed."));
+    }
+    if (this.out.size() > MAX_STREAM_LENGTH_BYTES) {
+      throw new TheaterRuntimeException(ExceptionKeys.VIDEO_TOO_LARGE);
+    }
+
+    final int width = img.getWidth();
+    final int height = img.getHeight();
+    final int frameDelay = Math.max(0, delay);
+    final int[] pixels = this.getPixels(img);
+    final Rectangle bounds = new Rectangle(0, 0, width, height);
+    final boolean hasPreviousFrame =
+        this.hasPendingFrame && width == this.pendingWidth && height == this.pendingHeight;
+    if (hasPreviousFrame) {
+      this.findChangedBounds(pixels, this.pendingPixels, width, height, bounds);
+      if (bounds.isEmpty() && this.pendingDelay + frameDelay <= MAX_DELAY_MS) {
+        this.pendingDelay += frameDelay;
+        return;
       }
-      this.writer.writeToSequence(
-          new IIOImage(img, null, getMetadataForFrame(delay, img.getType())), this.params);
+    }
+    if (this.hasPendingFrame) {
+      this.writePendingFrame();
+    }
 
-    } catch (IOException e) {
-      throw new InternalServerRuntimeException(
-          InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION, e.getCause());
+    // The buffer of the frame just written is free, as the previous frame is now the pending one.
+    final int[] previousPixels = this.pendingPixels;
+    this.pendingPixels = this.previousPixels;
+    this.previousPixels = previousPixels;
+    if (this.pendingPixels.length < width * height) {
+      this.pendingPixels = new int[width * height];
     }
+    for (int i = 0; i < width * height; i++) {
+      this.pendingPixels[i] = pixels[i] & RGB_MASK;
+    }
+    this.pendingWidth = width;
+    this.pendingHeight = height;
+    this.pendingDelay = frameDelay;
+    this.pendingBounds.setBounds(bounds);
+    this.pendingHasPreviousFrame = hasPreviousFrame;
+    this.hasPendingFrame = true;
   }
 
   /**
@@ -67,86 +152,212 @@ public class GifWriter {
    * exception because the writer has been closed.
    */
   public void close() {
-    try {
-      this.writer.endWriteSequence();
-      this.imageOutputStream.flush();
-      this.imageOutputStream.close();
-    } catch (IOException e) {
-      throw new InternalServerRuntimeException(
-          InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION, e.getCause());
+    if (!this.isClosed) {
+      if (this.hasPendingFrame) {
+        this.writePendingFrame();
+        this.hasPendingFrame = false;
+      }
+      this.out.write(TRAILER);
+      this.isClosed = true;
     }
   }
 
   /**
-   * Get the metadata for the next frame with the given delay and image type. See Gif metadata
-   * specification here:
-   * https://javadoc.scijava.org/Java7/javax/imageio/metadata/doc-files/gif_metadata.html
-   *
-   * @param delay int delay in milliseconds after this frame
-   * @param imageType int
-   * @return IIOMetadata for the next frame
+   * Writes the pending frame. Only the part within its bounds is written, and pixels there that are
+   * the same in the previous frame may be transparent.
    */
-  private IIOMetadata getMetadataForFrame(int delay, int imageType) {
-    IIOMetadata metadata =
-        this.writer.getDefaultImageMetadata(
-            ImageTypeSpecifier.createFromBufferedImageType(imageType), params);
-    String metaFormatName = metadata.getNativeMetadataFormatName();
-    IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(metaFormatName);
-
-    IIOMetadataNode graphicsControlExtensionNode = this.getNode(root, "GraphicControlExtension");
-    graphicsControlExtensionNode.setAttribute("disposalMethod", "none");
-    graphicsControlExtensionNode.setAttribute("userInputFlag", "FALSE");
-    graphicsControlExtensionNode.setAttribute("transparentColorFlag", "FALSE");
-    // delay is expected in hundredths of a second, divide milliseconds by 10
-    graphicsControlExtensionNode.setAttribute("delayTime", Integer.toString(delay / 10));
-    graphicsControlExtensionNode.setAttribute("transparentColorIndex", "0");
-
-    try {
-      metadata.setFromTree(metaFormatName, root);
-    } catch (IIOInvalidTreeException e) {
-      throw new InternalServerRuntimeException(
-          InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION, e.getCause());
+  private void writePendingFrame() {
+    final Rectangle bounds = this.pendingBounds;
+    if (bounds.isEmpty()) {
+      // The frame is unchanged, but its delay is too long to add to the previous frame's. Write a
+      // single unchanged pixel.
+      bounds.setBounds(0, 0, 1, 1);
+    }
+    final int length = bounds.width * bounds.height;
+    if (this.framePixels.length < length) {
+      this.framePixels = new int[length];
+      this.indices = new byte[length];
+    }
+    // An unchanged pixel may be either transparent or its own color. It keeps its color when that
+    // continues a run of the pixel before it, as long runs compress best.
+    int lastColor = GifColorQuantizer.TRANSPARENT;
+    int lastOpaqueColor = GifColorQuantizer.TRANSPARENT;
+    int runCount = 0;
+    int opaqueRunCount = 0;
+    for (int y = 0; y < bounds.height; y++) {
+      final int rowStart = (bounds.y + y) * this.pendingWidth + bounds.x;
+      for (int x = 0; x < bounds.width; x++) {
+        final int color = this.pendingPixels[rowStart + x];
+        final int frameColor =
+            color != lastColor
+                    && this.pendingHasPreviousFrame
+                    && color == this.previousPixels[rowStart + x]
+                ? GifColorQuantizer.TRANSPARENT
+                : color;
+        if (frameColor != lastColor) {
+          runCount++;
+          lastColor = frameColor;
+        }
+        if (color != lastOpaqueColor) {
+          opaqueRunCount++;
+          lastOpaqueColor = color;
+        }
+        this.framePixels[y * bounds.width + x] = frameColor;
+      }
+    }
+
+    int colorCount =
+        this.colorQuantizer.quantize(this.framePixels, length, this.indices, this.palette);
+    int transparentIndex = -1;
+    for (int i = 0; i < colorCount; i++) {
+      if (this.palette[i] == GifColorQuantizer.TRANSPARENT) {
+        transparentIndex = i;
+      }
+    }
+    // The transparent color takes a palette index, which can make every code a bit longer. When
+    // the frame is about as many runs without it, such as when a shape moves over a plain
+    // background, leave it out.
+    if (transparentIndex != -1
+        && (long) opaqueRunCount * getCodeBits(colorCount - 1)
+            <= (long) runCount * getCodeBits(colorCount)) {
+      for (int y = 0; y < bounds.height; y++) {
+        System.arraycopy(
+            this.pendingPixels,
+            (bounds.y + y) * this.pendingWidth + bounds.x,
+            this.framePixels,
+            y * bounds.width,
+            bounds.width);
+      }
+      colorCount =
+          this.colorQuantizer.quantize(this.framePixels, length, this.indices, this.palette);
+      transparentIndex = -1;
     }
-    return metadata;
+    final int colorBits = getColorBits(colorCount);
+
+    // Graphic control extension, with the delay in hundredths of a second
+    this.out.write(EXTENSION_INTRODUCER);
+    this.out.write(GRAPHIC_CONTROL_LABEL);
+    this.out.write(GRAPHIC_CONTROL_BLOCK_SIZE);
+    this.out.write(DO_NOT_DISPOSE | (transparentIndex == -1 ? 0 : TRANSPARENT_COLOR_FLAG));
+    this.writeShort(Math.min(MAX_DELAY_MS, this.pendingDelay) / 10);
+    this.out.write(Math.max(transparentIndex, 0));
+    // Block terminator
+    this.out.write(0);
+
+    // Image descriptor, placing the frame over the part of the screen that changed
+    this.out.write(IMAGE_SEPARATOR);
+    this.writeShort(bounds.x);
+    this.writeShort(bounds.y);
+    this.writeShort(bounds.width);
+    this.writeShort(bounds.height);
+    this.out.write(LOCAL_COLOR_TABLE_FLAG | (colorBits - 1));
+
+    for (int i = 0; i < (1 << colorBits); i++) {
+      final int color =
+          i < colorCount && this.palette[i] != GifColorQuantizer.TRANSPARENT ? this.palette[i] : 0;
+      this.out.write(color >>> 16);
+      this.out.write(color >>> 8);
+      this.out.write(color);
+    }
+
+    // LZW codes need at least 2 bits, even for a 2 color table.
+    this.lzwEncoder.encode(this.indices, length, Math.max(2, colorBits), this.out);
   }
 
   /**
-   * Find metadata node with the given name from the rootNode
+   * Sets bounds to the smallest rectangle holding every pixel that differs between the frames, or
+   * to an empty rectangle if none do.
    *
-   * @param rootNode
-   * @param nodeName
-   * @return Requested IIOMetadataNode
+   * @param pixels the new frame, whose colors may have alpha, which is ignored
+   * @param previousPixels the previous frame, as RGB colors with no alpha
    */
-  private IIOMetadataNode getNode(IIOMetadataNode rootNode, String nodeName) {
-    int nNodes = rootNode.getLength();
-    for (int i = 0; i < nNodes; i++) {
-      if (rootNode.item(i).getNodeName().equalsIgnoreCase(nodeName)) {
-        return (IIOMetadataNode) rootNode.item(i);
+  private void findChangedBounds(
+      int[] pixels, int[] previousPixels, int width, int height, Rectangle bounds) {
+    int top = 0;
+    while (top < height && this.isRowUnchanged(pixels, previousPixels, width, top)) {
+      top++;
+    }
+    if (top == height) {
+      bounds.setBounds(0, 0, 0, 0);
+      return;
+    }
+    int bottom = height - 1;
+    while (this.isRowUnchanged(pixels, previousPixels, width, bottom)) {
+      bottom--;
+    }
+    int left = width;
+    int right = -1;
+    for (int y = top; y <= bottom; y++) {
+      final int rowStart = y * width;
+      for (int x = 0; x < left; x++) {
+        if ((pixels[rowStart + x] & RGB_MASK) != previousPixels[rowStart + x]) {
+          left = x;
+          break;
+        }
+      }
+      for (int x = width - 1; x > right; x--) {
+        if ((pixels[rowStart + x] & RGB_MASK) != previousPixels[rowStart + x]) {
+          right = x;
+          break;
+        }
       }
     }
-    IIOMetadataNode node = new IIOMetadataNode(nodeName);
-    rootNode.appendChild(node);
-    return (node);
+    bounds.setBounds(left, top, right - left + 1, bottom - top + 1);
+  }
+
+  private boolean isRowUnchanged(int[] pixels, int[] previousPixels, int width, int y) {
+    final int rowStart = y * width;
+    for (int x = 0; x < width; x++) {
+      if ((pixels[rowStart + x] & RGB_MASK) != previousPixels[rowStart + x]) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
-   * Get overall metadata for the gif. Sets the width and height to be 400 px.
-   *
-   * @return IIOMetadata
+   * @return the pixels of the image in row order, as RGB colors. For an image backed by a single
+   *     packed int array, this is the array itself, so no pixels are copied.
    */
-  private IIOMetadata getMetadataForGif() {
-    IIOMetadata streamData = this.writer.getDefaultStreamMetadata(this.params);
-    String metaFormatName = streamData.getNativeMetadataFormatName();
-    IIOMetadataNode root = (IIOMetadataNode) streamData.getAsTree(metaFormatName);
-    IIOMetadataNode screenDescriptor = this.getNode(root, "LogicalScreenDescriptor");
-    screenDescriptor.setAttribute("logicalScreenWidth", "400");
-    screenDescriptor.setAttribute("logicalScreenHeight", "400");
-    try {
-      streamData.setFromTree(metaFormatName, root);
-    } catch (IIOInvalidTreeException e) {
-      throw new InternalServerRuntimeException(
-          InternalExceptionKey.INTERNAL_RUNTIME_EXCEPTION, e.getCause());
+  private int[] getPixels(BufferedImage img) {
+    final int width = img.getWidth();
+    final int height = img.getHeight();
+    final Raster raster = img.getRaster();
+    final int type = img.getType();
+    if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+        && raster.getDataBuffer() instanceof DataBufferInt
+        && raster.getDataBuffer().getNumBanks() == 1
+        && raster.getDataBuffer().getOffset() == 0
+        && raster.getSampleModelTranslateX() == 0
+        && raster.getSampleModelTranslateY() == 0
+        && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+        && ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride() == width) {
+      return ((DataBufferInt) raster.getDataBuffer()).getData();
+    }
+
+    if (this.pixelBuffer.length < width * height) {
+      this.pixelBuffer = new int[width * height];
+    }
+    return img.getRGB(0, 0, width, height, this.pixelBuffer, 0, width);
+  }
+
+  /** @return the number of bits in a color table holding the given number of colors */
+  private static int getColorBits(int colorCount) {
+    // Color tables hold a power of two colors, at least 2
+    int colorBits = 1;
+    while ((1 << colorBits) < colorCount) {
+      colorBits++;
     }
-    return streamData;
+    return colorBits;
+  }
+
+  /** @return roughly the number of bits in each LZW code for the given number of colors */
+  private static int getCodeBits(int colorCount) {
+    return Math.max(2, getColorBits(colorCount)) + 1;
+  }
+
+  private void writeShort(int value) {
+    this.out.write(value & 0xFF);
+    this.out.write((value >>> 8) & 0xFF);
   }
 }
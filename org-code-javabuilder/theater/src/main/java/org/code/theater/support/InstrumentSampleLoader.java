@@ -1,27 +1,34 @@
 package org.code.theater.support;
 
-import java.net.URISyntaxException;
-import java.net.URL;
-import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
+import org.code.protocol.CachedResources;
+import org.code.protocol.InstrumentSampleCache;
 import org.code.theater.Instrument;
 
+/**
+ * Finds the samples for instrument notes. Samples are decoded by the container's {@link
+ * InstrumentSampleCache}, so each is only read once however many times it is played.
+ */
 public class InstrumentSampleLoader {
 
   private static Map<Instrument, Map<Integer, String>> generateInstrumentFileMap() {
     final Map<Integer, String> pianoMap = new HashMap<>();
 
     // Piano note values: 48 - 84 (C3 - C6)
-    for (int note = 48; note <= 84; note++) {
-      pianoMap.put(note, "instruments/javalab-piano-" + note + ".wav");
+    for (int note = InstrumentSampleCache.MIN_NOTE;
+        note <= InstrumentSampleCache.MAX_NOTE;
+        note++) {
+      pianoMap.put(note, InstrumentSampleCache.getResourceName("piano", note));
     }
 
     final Map<Integer, String> bassMap = new HashMap<>();
 
     // Bass note values: 48 - 84 (played C3 - C6, sounding C1 - C4, two octaves below)
-    for (int note = 48; note <= 84; note++) {
-      bassMap.put(note, "instruments/javalab-bass-" + note + ".wav");
+    for (int note = InstrumentSampleCache.MIN_NOTE;
+        note <= InstrumentSampleCache.MAX_NOTE;
+        note++) {
+      bassMap.put(note, InstrumentSampleCache.getResourceName("bass", note));
     }
 
     return Map.of(
@@ -29,26 +36,31 @@ public class InstrumentSampleLoader {
         Instrument.BASS, bassMap);
   }
 
-  // Map of Instrument -> Map of note value (int) -> file path / name
+  // Map of Instrument -> Map of note value (int) -> sample resource name
   private final Map<Instrument, Map<Integer, String>> instrumentFileMap;
+  private final InstrumentSampleCache sampleCache;
 
   public InstrumentSampleLoader() {
-    this(InstrumentSampleLoader.generateInstrumentFileMap());
+    this(
+        InstrumentSampleLoader.generateInstrumentFileMap(),
+        CachedResources.getInstance().getInstrumentSampleCache());
   }
 
-  InstrumentSampleLoader(Map<Instrument, Map<Integer, String>> instrumentFileMap) {
+  InstrumentSampleLoader(
+      Map<Instrument, Map<Integer, String>> instrumentFileMap, InstrumentSampleCache sampleCache) {
     this.instrumentFileMap = instrumentFileMap;
+    this.sampleCache = sampleCache;
   }
 
   /**
-   * Retrieves the sample file for the given instrument and note value. Returns null if no sample is
+   * Retrieves the samples for the given instrument and note value. Returns null if no sample is
    * found.
    *
    * @param instrument
    * @param note
-   * @return filename of sample, or null if no sample is found.
+   * @return 16-bit mono samples, which must not be modified, or null if no sample is found.
    */
-  public String getSampleFilePath(Instrument instrument, int note) {
+  public short[] getSamples(Instrument instrument, int note) {
     if (!instrumentFileMap.containsKey(instrument)) {
       System.out.printf("No notes available for instrument %s%n", instrument);
       return null;
@@ -60,15 +72,6 @@ public class InstrumentSampleLoader {
       return null;
     }
 
-    final URL resourceUrl = getClass().getClassLoader().getResource(noteToFileMap.get(note));
-    if (resourceUrl == null) {
-      return null;
-    }
-
-    try {
-      return Paths.get(resourceUrl.toURI()).toString();
-    } catch (URISyntaxException e) {
-      return null;
-    }
+    return this.sampleCache.getSamples(noteToFileMap.get(note));
   }
 }
@@ -9,7 +9,6 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import java.awt.image.BufferedImage;
-import java.io.FileNotFoundException;
 import java.util.List;
 import org.code.media.*;
 import org.code.media.support.AudioWriter;
@@ -48,7 +47,7 @@ class ConcertCreatorTest {
     final GifWriter.Factory gifWriterFactory = mock(GifWriter.Factory.class);
     when(gifWriterFactory.createGifWriter(any())).thenReturn(gifWriter);
     final AudioWriter.Factory audioWriterFactory = mock(AudioWriter.Factory.class);
-    when(audioWriterFactory.createAudioWriter(any())).thenReturn(audioWriter);
+    when(audioWriterFactory.createAudioWriter()).thenReturn(audioWriter);
     final GraphicsHelper.Factory graphicsHelperFactory = mock(GraphicsHelper.Factory.class);
     when(graphicsHelperFactory.createGraphicsHelper(any(), any())).thenReturn(graphicsHelper);
 
@@ -80,30 +79,28 @@ class ConcertCreatorTest {
   }
 
   @Test
-  public void testPlayNoteDoesNothingWhenFileNotFound() throws FileNotFoundException {
-    when(instrumentSampleLoader.getSampleFilePath(any(Instrument.class), anyInt()))
-        .thenReturn(null);
+  public void testPlayNoteDoesNothingWhenSampleNotFound() {
+    when(instrumentSampleLoader.getSamples(any(Instrument.class), anyInt())).thenReturn(null);
 
     final PlayNoteAction action = new PlayNoteAction(Instrument.PIANO, 60, 1);
     unitUnderTest.publishConcert(List.of(action));
 
-    verify(instrumentSampleLoader).getSampleFilePath(Instrument.PIANO, 60);
-    verify(audioWriter, never()).writeAudioFromLocalFile(anyString(), anyDouble());
+    verify(instrumentSampleLoader).getSamples(Instrument.PIANO, 60);
+    verify(audioWriter, never()).writePcmAudioSamples(any(), anyDouble());
   }
 
   @Test
-  public void testPlayNoteCallsAudioWriterIfFileExists() throws FileNotFoundException {
-    final String testSampleFile = "test.wav";
+  public void testPlayNoteCallsAudioWriterIfSampleExists() {
+    final short[] samples = {100, -100, 200};
     final int note = 60;
     final double seconds = 2.0;
-    when(instrumentSampleLoader.getSampleFilePath(any(Instrument.class), eq(note)))
-        .thenReturn(testSampleFile);
+    when(instrumentSampleLoader.getSamples(any(Instrument.class), eq(note))).thenReturn(samples);
 
     final PlayNoteAction action = new PlayNoteAction(Instrument.PIANO, note, seconds);
     unitUnderTest.publishConcert(List.of(action));
 
-    verify(instrumentSampleLoader).getSampleFilePath(Instrument.PIANO, note);
-    verify(audioWriter).writeAudioFromLocalFile(testSampleFile, seconds);
+    verify(instrumentSampleLoader).getSamples(Instrument.PIANO, note);
+    verify(audioWriter).writePcmAudioSamples(samples, seconds);
     verify(audioWriter, never()).addDelay(anyDouble());
   }
 
@@ -243,13 +240,15 @@ class ConcertCreatorTest {
   @Test
   public void testWritesOutputFilesAndClosesStreams() throws JavabuilderException {
     final double length = 10.0;
+    final byte[] audioFile = new byte[] {1, 2, 3};
     when(audioWriter.getTotalAudioLength()).thenReturn(length);
+    when(audioWriter.writeToWavFile()).thenReturn(audioFile);
 
     final String imageUrl = "imageUrl";
     final String audioUrl = "audioUrl";
     when(contentManager.writeToOutputFile(eq(THEATER_IMAGE_NAME), any(), any()))
         .thenReturn(imageUrl);
-    when(contentManager.writeToOutputFile(eq(THEATER_AUDIO_NAME), any(), any()))
+    when(contentManager.writeToOutputFile(THEATER_AUDIO_NAME, audioFile, "audio/wav"))
         .thenReturn(audioUrl);
     doNothing().when(outputAdapter).sendMessage(theaterMessageCaptor.capture());
 
@@ -257,7 +256,7 @@ class ConcertCreatorTest {
 
     verify(theaterProgressPublisher).onPlay(length);
     verify(gifWriter).writeToGif(image, 0);
-    verify(audioWriter).writeToAudioStream();
+    verify(audioWriter).writeToWavFile();
     verify(gifWriter).close();
     verify(audioWriter).close();
 
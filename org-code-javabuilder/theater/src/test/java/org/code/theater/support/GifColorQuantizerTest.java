@@ -0,0 +1,80 @@
+package org.code.theater.support;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GifColorQuantizerTest {
+  private GifColorQuantizer unitUnderTest;
+  private int[] palette;
+
+  @BeforeEach
+  public void setUp() {
+    unitUnderTest = new GifColorQuantizer();
+    palette = new int[GifColorQuantizer.MAX_COLORS];
+  }
+
+  @Test
+  public void testKeepsFewColorsExactly() {
+    final int[] pixels = {0xFFFFFF, 0x000000, 0xFFFFFF, 0x123456, 0x123456};
+    final byte[] indices = new byte[pixels.length];
+
+    assertEquals(3, unitUnderTest.quantize(pixels, pixels.length, indices, palette));
+    for (int i = 0; i < pixels.length; i++) {
+      assertEquals(pixels[i], palette[indices[i] & 0xFF]);
+    }
+  }
+
+  @Test
+  public void testKeepsTransparentPixelsWithManyColors() {
+    final int[] pixels = new int[4096];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = i % 3 == 0 ? GifColorQuantizer.TRANSPARENT : (i * 4099) & 0xFFFFFF;
+    }
+    final byte[] indices = new byte[pixels.length];
+
+    final int colorCount = unitUnderTest.quantize(pixels, pixels.length, indices, palette);
+    assertTrue(colorCount <= GifColorQuantizer.MAX_COLORS);
+    for (int i = 0; i < pixels.length; i++) {
+      final int index = indices[i] & 0xFF;
+      assertTrue(index < colorCount);
+      assertEquals(
+          pixels[i] == GifColorQuantizer.TRANSPARENT,
+          palette[index] == GifColorQuantizer.TRANSPARENT);
+    }
+  }
+
+  @Test
+  public void testOnlyQuantizesGivenLength() {
+    final int[] pixels = {0x000000, 0x111111, 0x222222};
+    final byte[] indices = new byte[pixels.length];
+    assertEquals(2, unitUnderTest.quantize(pixels, 2, indices, palette));
+  }
+
+  @Test
+  public void testReducesManyColorsToPalette() {
+    final int[] pixels = new int[4096];
+    for (int i = 0; i < pixels.length; i++) {
+      // Red and green from 0 to 252 in steps of 4
+      pixels[i] = (i % 64) * 4 << 16 | (i / 64) * 4 << 8 | 0x80;
+    }
+    final byte[] indices = new byte[pixels.length];
+
+    final int colorCount = unitUnderTest.quantize(pixels, pixels.length, indices, palette);
+    assertTrue(colorCount <= GifColorQuantizer.MAX_COLORS);
+    final Set<Integer> usedIndices = new HashSet<>();
+    for (int i = 0; i < pixels.length; i++) {
+      final int index = indices[i] & 0xFF;
+      assertTrue(index < colorCount);
+      usedIndices.add(index);
+      final int color = palette[index];
+      assertTrue(Math.abs(((pixels[i] >> 16) & 0xFF) - ((color >> 16) & 0xFF)) <= 24);
+      assertTrue(Math.abs(((pixels[i] >> 8) & 0xFF) - ((color >> 8) & 0xFF)) <= 24);
+      assertEquals(0x80, color & 0xFF);
+    }
+    assertEquals(colorCount, usedIndices.size());
+  }
+}
@@ -1,7 +1,19 @@
 package org.code.theater.support;
 
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import org.code.protocol.InternalServerRuntimeException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -15,4 +27,219 @@ public class GifWriterTest {
     writer.close();
     Assertions.assertNotEquals(0, stream.size());
   }
+
+  @Test
+  public void writesFramesWithFewColorsExactly() throws IOException {
+    final BufferedImage first = createDrawing(0);
+    final BufferedImage second = createDrawing(1);
+
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    final GifWriter writer = new GifWriter(stream);
+    writer.writeToGif(first, 1500);
+    writer.writeToGif(second, 0);
+    writer.close();
+
+    final ImageReader reader = createReader(stream);
+    assertEquals(2, reader.getNumImages(true));
+    final BufferedImage[] frames = readFrames(reader);
+    assertSamePixels(first, frames[0]);
+    assertSamePixels(second, frames[1]);
+    assertEquals("150", getGraphicControlExtension(reader, 0).getAttribute("delayTime"));
+    assertEquals(
+        "doNotDispose", getGraphicControlExtension(reader, 0).getAttribute("disposalMethod"));
+    assertEquals("0", getGraphicControlExtension(reader, 1).getAttribute("delayTime"));
+  }
+
+  @Test
+  public void writesOnlyChangedRegionOfFrame() throws IOException {
+    final BufferedImage first = createDrawing(0);
+    final BufferedImage second = createDrawing(0);
+    second.setRGB(120, 30, Color.RED.getRGB());
+    second.setRGB(250, 90, Color.GREEN.getRGB());
+    // The same color as the first frame, so this pixel is transparent
+    second.setRGB(180, 60, Color.WHITE.getRGB());
+
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    final GifWriter writer = new GifWriter(stream);
+    writer.writeToGif(first, 100);
+    writer.writeToGif(second, 100);
+    writer.close();
+
+    final ImageReader reader = createReader(stream);
+    assertEquals(2, reader.getNumImages(true));
+    final IIOMetadataNode descriptor = getImageDescriptor(reader, 1);
+    assertEquals("120", descriptor.getAttribute("imageLeftPosition"));
+    assertEquals("30", descriptor.getAttribute("imageTopPosition"));
+    assertEquals("131", descriptor.getAttribute("imageWidth"));
+    assertEquals("61", descriptor.getAttribute("imageHeight"));
+    assertEquals(
+        "TRUE", getGraphicControlExtension(reader, 1).getAttribute("transparentColorFlag"));
+    final BufferedImage[] frames = readFrames(reader);
+    assertSamePixels(first, frames[0]);
+    assertSamePixels(second, frames[1]);
+  }
+
+  @Test
+  public void mergesUnchangedFrames() throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    final GifWriter writer = new GifWriter(stream);
+    writer.writeToGif(createDrawing(0), 100);
+    writer.writeToGif(createDrawing(0), 200);
+    writer.writeToGif(createDrawing(1), 300);
+    writer.writeToGif(createDrawing(1), 400);
+    writer.close();
+
+    final ImageReader reader = createReader(stream);
+    assertEquals(2, reader.getNumImages(true));
+    assertEquals("30", getGraphicControlExtension(reader, 0).getAttribute("delayTime"));
+    assertEquals("70", getGraphicControlExtension(reader, 1).getAttribute("delayTime"));
+    final BufferedImage[] frames = readFrames(reader);
+    assertSamePixels(createDrawing(0), frames[0]);
+    assertSamePixels(createDrawing(1), frames[1]);
+  }
+
+  @Test
+  public void writesUnchangedFrameWhenMergedDelayIsTooLong() throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    final GifWriter writer = new GifWriter(stream);
+    writer.writeToGif(createDrawing(0), 400000);
+    writer.writeToGif(createDrawing(0), 400000);
+    writer.close();
+
+    final ImageReader reader = createReader(stream);
+    assertEquals(2, reader.getNumImages(true));
+    assertEquals("40000", getGraphicControlExtension(reader, 0).getAttribute("delayTime"));
+    assertEquals("40000", getGraphicControlExtension(reader, 1).getAttribute("delayTime"));
+    final BufferedImage[] frames = readFrames(reader);
+    assertSamePixels(createDrawing(0), frames[1]);
+  }
+
+  @Test
+  public void writesLongFramesOf256ColorsExactly() throws IOException {
+    // Random colors compress poorly, so the LZW string table fills and is cleared many times.
+    final Random random = new Random(0);
+    final int[] colors = new int[256];
+    for (int i = 0; i < colors.length; i++) {
+      colors[i] = random.nextInt(0x1000000);
+    }
+    final BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        image.setRGB(x, y, colors[random.nextInt(colors.length)]);
+      }
+    }
+
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    final GifWriter writer = new GifWriter(stream);
+    writer.writeToGif(image, 100);
+    writer.close();
+
+    assertSamePixels(image, createReader(stream).read(0));
+  }
+
+  @Test
+  public void writesFramesWithManyColorsApproximately() throws IOException {
+    // About as close as ImageIO's GIF plugin gets, which also reduces colors with an octree.
+    // A gradient of 16384 colors, in an image type without an int raster
+    final BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_3BYTE_BGR);
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        image.setRGB(x, y, new Color(x * 2, y * 2, 255 - x - y / 2).getRGB());
+      }
+    }
+
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    final GifWriter writer = new GifWriter(stream);
+    writer.writeToGif(image, 100);
+    writer.close();
+
+    final BufferedImage result = createReader(stream).read(0);
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        final Color expected = new Color(image.getRGB(x, y));
+        final Color actual = new Color(result.getRGB(x, y));
+        assertTrue(Math.abs(expected.getRed() - actual.getRed()) <= 24);
+        assertTrue(Math.abs(expected.getGreen() - actual.getGreen()) <= 24);
+        assertTrue(Math.abs(expected.getBlue() - actual.getBlue()) <= 24);
+      }
+    }
+  }
+
+  @Test
+  public void throwsIfWrittenAfterClose() {
+    final GifWriter writer = new GifWriter(new ByteArrayOutputStream());
+    writer.close();
+    assertThrows(
+        InternalServerRuntimeException.class,
+        () -> writer.writeToGif(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), 100));
+  }
+
+  private static BufferedImage createDrawing(int index) {
+    final BufferedImage image = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB);
+    final Graphics2D graphics = image.createGraphics();
+    graphics.setColor(Color.WHITE);
+    graphics.fillRect(0, 0, 400, 400);
+    graphics.setColor(Color.BLUE);
+    graphics.fillRect(index * 40, 50, 100, 100);
+    graphics.setColor(Color.ORANGE);
+    graphics.fillOval(200, index * 40, 120, 80);
+    graphics.setColor(Color.BLACK);
+    graphics.drawLine(0, 400, 400, index * 40);
+    graphics.dispose();
+    return image;
+  }
+
+  private static ImageReader createReader(ByteArrayOutputStream stream) throws IOException {
+    final ImageInputStream input =
+        ImageIO.createImageInputStream(new ByteArrayInputStream(stream.toByteArray()));
+    final ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+    reader.setInput(input);
+    return reader;
+  }
+
+  /** Reads every frame of a 400x400 gif, each drawn over the frames before it. */
+  private static BufferedImage[] readFrames(ImageReader reader) throws IOException {
+    final BufferedImage[] frames = new BufferedImage[reader.getNumImages(true)];
+    final BufferedImage canvas = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB);
+    for (int i = 0; i < frames.length; i++) {
+      final IIOMetadataNode descriptor = getImageDescriptor(reader, i);
+      final Graphics2D graphics = canvas.createGraphics();
+      graphics.drawImage(
+          reader.read(i),
+          Integer.parseInt(descriptor.getAttribute("imageLeftPosition")),
+          Integer.parseInt(descriptor.getAttribute("imageTopPosition")),
+          null);
+      graphics.dispose();
+      frames[i] = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB);
+      frames[i].setData(canvas.getData());
+    }
+    return frames;
+  }
+
+  private static IIOMetadataNode getGraphicControlExtension(ImageReader reader, int index)
+      throws IOException {
+    return getImageMetadataNode(reader, index, "GraphicControlExtension");
+  }
+
+  private static IIOMetadataNode getImageDescriptor(ImageReader reader, int index)
+      throws IOException {
+    return getImageMetadataNode(reader, index, "ImageDescriptor");
+  }
+
+  private static IIOMetadataNode getImageMetadataNode(ImageReader reader, int index, String name)
+      throws IOException {
+    final IIOMetadataNode root =
+        (IIOMetadataNode) reader.getImageMetadata(index).getAsTree("javax_imageio_gif_image_1.0");
+    return (IIOMetadataNode) root.getElementsByTagName(name).item(0);
+  }
+
+  private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
 }
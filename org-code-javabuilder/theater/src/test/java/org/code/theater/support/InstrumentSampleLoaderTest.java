@@ -1,9 +1,11 @@
 package org.code.theater.support;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import org.code.protocol.InstrumentSampleCache;
 import org.code.theater.Instrument;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +15,7 @@ class InstrumentSampleLoaderTest {
   private static final int VALID_NOTE = 60;
   private static final String VALID_FILE = "file.wav";
 
+  private InstrumentSampleCache sampleCache;
   private InstrumentSampleLoader unitUnderTest;
 
   @BeforeEach
@@ -23,16 +26,26 @@ class InstrumentSampleLoaderTest {
     final Map<Instrument, Map<Integer, String>> testMap = new HashMap<>();
     testMap.put(VALID_INSTRUMENT, instrumentMap);
 
-    unitUnderTest = new InstrumentSampleLoader(testMap);
+    sampleCache = mock(InstrumentSampleCache.class);
+    unitUnderTest = new InstrumentSampleLoader(testMap, sampleCache);
   }
 
   @Test
-  public void testGetSampleFileReturnsNullForMissingInstrument() {
-    assertNull(unitUnderTest.getSampleFilePath(Instrument.BASS, VALID_NOTE));
+  public void testGetSamplesReturnsNullForMissingInstrument() {
+    assertNull(unitUnderTest.getSamples(Instrument.BASS, VALID_NOTE));
+    verifyNoInteractions(sampleCache);
   }
 
   @Test
-  public void testGetSampleFileReturnsNullForMissingNote() {
-    assertNull(unitUnderTest.getSampleFilePath(VALID_INSTRUMENT, 12));
+  public void testGetSamplesReturnsNullForMissingNote() {
+    assertNull(unitUnderTest.getSamples(VALID_INSTRUMENT, 12));
+    verifyNoInteractions(sampleCache);
+  }
+
+  @Test
+  public void testGetSamplesReturnsCachedSamples() {
+    final short[] samples = {1, 2, 3};
+    when(sampleCache.getSamples(VALID_FILE)).thenReturn(samples);
+    assertSame(samples, unitUnderTest.getSamples(VALID_INSTRUMENT, VALID_NOTE));
   }
 }
@@ -7,7 +7,10 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import org.code.neighborhood.support.NeighborhoodEvent;
+import org.code.neighborhood.support.NeighborhoodEventFrameMessage;
 import org.code.neighborhood.support.NeighborhoodSignalKey;
+import org.code.neighborhood.support.NeighborhoodSignalMessage;
 import org.code.neighborhood.support.World;
 import org.code.protocol.ClientMessage;
 import org.code.protocol.ClientMessageType;
@@ -37,20 +40,44 @@ public class NeighborhoodTracker {
   }
 
   public void trackEvent(ClientMessage message) {
+    // Painters send typed events, which are tracked without reading the messages' JSON details.
+    if (message instanceof NeighborhoodEventFrameMessage) {
+      for (NeighborhoodEvent event : ((NeighborhoodEventFrameMessage) message).getEvents()) {
+        this.trackSignal(event.getSignalKey(), event.getDetails());
+      }
+      return;
+    }
+    if (message instanceof NeighborhoodSignalMessage
+        && ((NeighborhoodSignalMessage) message).getEvent() != null) {
+      final NeighborhoodEvent event = ((NeighborhoodSignalMessage) message).getEvent();
+      this.trackSignal(event.getSignalKey(), event.getDetails());
+      return;
+    }
     if (message.getType() != ClientMessageType.NEIGHBORHOOD) {
       return;
     }
 
-    final String id = message.getDetail().getString(ID);
-    final NeighborhoodSignalKey key = NeighborhoodSignalKey.valueOf(message.getValue());
+    final Map<String, String> details =
+        message
+            .getDetail()
+            .keySet()
+            .stream()
+            .collect(
+                Collectors.toMap(
+                    Function.identity(), jsonKey -> message.getDetail().getString(jsonKey)));
+    this.trackSignal(NeighborhoodSignalKey.valueOf(message.getValue()), details);
+  }
+
+  private void trackSignal(NeighborhoodSignalKey key, Map<String, String> details) {
+    final String id = details.get(ID);
     if (key == NeighborhoodSignalKey.INITIALIZE_PAINTER) {
       if (!this.isInitialized) {
         this.initializeGrid();
       }
-      final int x = message.getDetail().getInt(X);
-      final int y = message.getDetail().getInt(Y);
-      final int paint = message.getDetail().getInt(PAINT);
-      final String direction = message.getDetail().getString(DIRECTION);
+      final int x = Integer.parseInt(details.get(X));
+      final int y = Integer.parseInt(details.get(Y));
+      final int paint = Integer.parseInt(details.get(PAINT));
+      final String direction = details.get(DIRECTION);
       final PainterTracker painterTracker =
           new PainterTracker(id, new Position(x, y, direction), paint);
       this.painterTrackers.put(id, painterTracker);
@@ -62,18 +89,19 @@ public class NeighborhoodTracker {
           .severe(
               String.format(
                   "Error: received a painter event for an uninitialized painter: %s, %s\n",
-                  message.getValue(), message.getDetail()));
+                  key, details));
       return;
     }
 
     final PainterTracker tracker = this.painterTrackers.get(id);
-    tracker.trackEvent(this.convertToPainterEvent(message));
+    tracker.trackEvent(
+        new PainterEvent(
+            NeighborhoodActionTypeMapper.convertNeighborhoodKeyToActionType(key), details));
     final Position position = tracker.getCurrentPosition();
 
     switch (key) {
       case PAINT:
-        this.neighborhoodState[position.getX()][position.getY()] =
-            message.getDetail().getString(COLOR);
+        this.neighborhoodState[position.getX()][position.getY()] = details.get(COLOR);
         break;
       case REMOVE_PAINT:
         this.neighborhoodState[position.getX()][position.getY()] = null;
@@ -94,18 +122,4 @@ public class NeighborhoodTracker {
     this.neighborhoodState = new String[gridSize][gridSize];
     this.isInitialized = true;
   }
-
-  private PainterEvent convertToPainterEvent(ClientMessage message) {
-    final NeighborhoodSignalKey signalKey = NeighborhoodSignalKey.valueOf(message.getValue());
-    final Map<String, String> detailsMap =
-        message
-            .getDetail()
-            .keySet()
-            .stream()
-            .collect(
-                Collectors.toMap(
-                    Function.identity(), jsonKey -> message.getDetail().getString(jsonKey)));
-    return new PainterEvent(
-        NeighborhoodActionTypeMapper.convertNeighborhoodKeyToActionType(signalKey), detailsMap);
-  }
 }
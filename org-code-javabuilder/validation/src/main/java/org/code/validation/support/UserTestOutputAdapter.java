@@ -41,6 +41,11 @@ public class UserTestOutputAdapter implements OutputAdapter {
     }
   }
 
+  @Override
+  public void flush() {
+    delegateOutputAdapter.flush();
+  }
+
   public void setIsValidation(boolean isValidation) {
     this.isValidation = isValidation;
   }
@@ -4,6 +4,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
 import org.code.protocol.ClientMessage;
+import org.code.protocol.JavabuilderContext;
 import org.code.protocol.JavabuilderSharedObject;
 import org.code.validation.NeighborhoodLog;
 
@@ -55,6 +56,9 @@ public class ValidationProtocol extends JavabuilderSharedObject {
         cause = e.getCause();
       }
       throw new ValidationRuntimeException(ExceptionKey.ERROR_RUNNING_MAIN, cause);
+    } finally {
+      // Neighborhood signals may be held back to be sent together; track them before validating.
+      JavabuilderContext.getInstance().flushOutput();
     }
   }
 
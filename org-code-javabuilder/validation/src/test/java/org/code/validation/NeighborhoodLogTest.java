@@ -62,6 +62,14 @@ public class NeighborhoodLogTest {
     assertFalse(unitUnderTest.finalOutputMatches(expectedOutput));
   }
 
+  @Test
+  public void outputMatchesComparesColorsAsWritten() {
+    String[][] expectedOutput = new String[2][2];
+    expectedOutput[0] = new String[] {"Red", null};
+    expectedOutput[1] = new String[] {null, "green"};
+    assertFalse(unitUnderTest.finalOutputMatches(expectedOutput));
+  }
+
   @Test
   public void finalOutputContainsPaintReturnsCorrectlyForValidOutput() {
     boolean[][] expectedPaint = new boolean[2][2];
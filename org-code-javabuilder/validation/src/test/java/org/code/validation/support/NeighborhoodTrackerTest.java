@@ -4,7 +4,10 @@ import static org.code.protocol.ClientMessageDetailKeys.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.HashMap;
+import java.util.List;
 import org.code.neighborhood.support.Direction;
+import org.code.neighborhood.support.NeighborhoodEvent;
+import org.code.neighborhood.support.NeighborhoodEventFrameMessage;
 import org.code.neighborhood.support.NeighborhoodSignalKey;
 import org.code.neighborhood.support.NeighborhoodSignalMessage;
 import org.code.neighborhood.support.World;
@@ -176,6 +179,43 @@ class NeighborhoodTrackerTest {
     assertEquals(true, painterLog.didActionOnce(NeighborhoodActionType.MOVE));
   }
 
+  @Test
+  public void testTracksEventsInCompactFrames() {
+    final String id = NeighborhoodEvent.getPainterId(0);
+    final NeighborhoodEvent moveEast =
+        NeighborhoodEvent.withDirection(NeighborhoodSignalKey.MOVE, 0, Direction.EAST);
+    unitUnderTest.trackEvent(
+        new NeighborhoodEventFrameMessage(
+            List.of(
+                NeighborhoodEvent.initializePainter(0, 1, 2, Direction.EAST, 5),
+                moveEast,
+                moveEast,
+                NeighborhoodEvent.paint(0, "teal"),
+                NeighborhoodEvent.booleanResult(NeighborhoodSignalKey.CAN_MOVE, 0, true))));
+
+    final PainterLog painterLog = unitUnderTest.getNeighborhoodLog().getPainterLogs()[0];
+    assertEquals(id, painterLog.getPainterId());
+    assertEquals(3, painterLog.getEndingPosition().getX());
+    assertEquals(2, painterLog.getEndingPosition().getY());
+    assertEquals(4, painterLog.getEndingPaintCount());
+    assertTrue(painterLog.didActionExactly(NeighborhoodActionType.MOVE, 2));
+    assertTrue(painterLog.didActionOnce(NeighborhoodActionType.CAN_MOVE));
+    assertEquals("teal", unitUnderTest.getNeighborhoodLog().getFinalOutput()[3][2]);
+  }
+
+  @Test
+  public void testTracksEventOfSignalMessage() {
+    unitUnderTest.trackEvent(
+        new NeighborhoodSignalMessage(
+            NeighborhoodEvent.initializePainter(0, 4, 4, Direction.NORTH, 0)));
+    unitUnderTest.trackEvent(
+        new NeighborhoodSignalMessage(
+            NeighborhoodEvent.withDirection(NeighborhoodSignalKey.MOVE, 0, Direction.NORTH)));
+
+    final PainterLog painterLog = unitUnderTest.getNeighborhoodLog().getPainterLogs()[0];
+    assertEquals(3, painterLog.getEndingPosition().getY());
+  }
+
   private NeighborhoodSignalMessage createInitEvent(
       String id, Direction direction, int x, int y, int paint) {
     final HashMap<String, String> details = new HashMap<>();